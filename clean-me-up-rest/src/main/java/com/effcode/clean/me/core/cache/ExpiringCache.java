@@ -0,0 +1,228 @@
+package com.effcode.clean.me.core.cache;
+
+import reactor.core.publisher.Mono;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent cache of asynchronously loaded values, bounded both by entry count and by time to live. A value is
+ * loaded once per key, concurrent lookups of a key still being loaded share the in-flight load instead of starting
+ * another one. Failed loads are not cached, so a later lookup loads again.
+ * <p>
+ * As all entries share the same time to live, insertion order is also expiry order. Entries are kept in an insertion
+ * ordered queue, and each insert evicts expired entries and entries exceeding the capacity from its head, so the
+ * cache needs no background cleaner. Hits, misses and evictions are counted.
+ * <p>
+ * Loaded entries can be visited with their remaining time to live and put back into another cache, so a cache can
+ * outlive a restart of its owner.
+ *
+ * @param <K> cache key type
+ * @param <V> cache value type
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class ExpiringCache<K, V> {
+
+    private final ConcurrentMap<K, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> order = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final long ttl;
+    private final int capacity;
+
+    /**
+     * Creates new expiring cache
+     *
+     * @param ttl      entry time to live in milliseconds, counted from the start of loading
+     * @param capacity maximum number of entries
+     */
+    public ExpiringCache(final long ttl, final int capacity) {
+        this.ttl = TimeUnit.MILLISECONDS.toNanos(ttl);
+        this.capacity = capacity;
+    }
+
+    /**
+     * Looks up a value, loading it if absent or expired. The returned value is shared by all lookups of the key until
+     * it expires or is evicted, and the loader is subscribed at most once.
+     *
+     * @param key    cache key
+     * @param loader loader of a missing value
+     * @return cached, in-flight or newly loaded value
+     */
+    public Mono<V> get(final K key, final Supplier<Mono<V>> loader) {
+        final long now = System.nanoTime();
+        final Entry entry = entries.get(key);
+        if (entry != null) {
+            if (!entry.isExpired(now)) {
+                hits.increment();
+                return entry.value;
+            }
+            remove(entry, true);
+        }
+        final Entry created = new Entry(key, now + ttl, loader);
+        final Entry existing = entries.putIfAbsent(key, created);
+        if (existing != null) {
+            hits.increment();
+            return existing.value;
+        }
+        misses.increment();
+        size.incrementAndGet();
+        order.add(created);
+        evict(now);
+        return created.value;
+    }
+
+    /**
+     * Puts a loaded value, unless the key is cached already. The time to live of the entry is at most the time to live
+     * of the cache, and entries should be put in expiry order, as they are visited, so insertion order stays expiry
+     * order.
+     *
+     * @param key   cache key
+     * @param value loaded value
+     * @param ttl   remaining entry time to live in milliseconds
+     * @return {@code true} if value was put, {@code false} if expired or key is cached already
+     */
+    public boolean put(final K key, final V value, final long ttl) {
+        if (ttl <= 0) return false;
+        final long now = System.nanoTime();
+        final Entry created = new Entry(key, now + Math.min(this.ttl, TimeUnit.MILLISECONDS.toNanos(ttl)), value);
+        if (entries.putIfAbsent(key, created) != null) return false;
+        size.incrementAndGet();
+        order.add(created);
+        evict(now);
+        return true;
+    }
+
+    /**
+     * Visits loaded entries which are not expired, in expiry order. In-flight and failed loads are skipped.
+     *
+     * @param visitor entry visitor
+     */
+    public void forEach(final Visitor<K, V> visitor) {
+        final long now = System.nanoTime();
+        for (final Entry entry : order) {
+            final V value = entry.loaded;
+            if (value == null || entry.isExpired(now) || entries.get(entry.key) != entry) continue;
+            visitor.visit(entry.key, value, TimeUnit.NANOSECONDS.toMillis(entry.deadline - now));
+        }
+    }
+
+    /**
+     * Accessor for the number of cached entries, including in-flight loads
+     *
+     * @return cached entry count
+     */
+    public int size() {
+        return size.get();
+    }
+
+    /**
+     * Accessor for the number of lookups served by a cached or in-flight value
+     *
+     * @return hit count
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Accessor for the number of lookups which started a load
+     *
+     * @return miss count
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Accessor for the number of entries evicted for expiry or exceeded capacity
+     *
+     * @return eviction count
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    /**
+     * Evicts entries from the head of insertion order while they are expired, already removed, or the cache exceeds
+     * its capacity
+     *
+     * @param now current time in nanoseconds
+     */
+    private void evict(final long now) {
+        Entry head;
+        while ((head = order.peek()) != null) {
+            if (entries.get(head.key) == head && !head.isExpired(now) && size.get() <= capacity) return;
+            if (order.remove(head)) remove(head, true);
+        }
+    }
+
+    /**
+     * Removes an entry unless it was already replaced
+     *
+     * @param entry   cache entry
+     * @param evicted count removal as eviction
+     */
+    private void remove(final Entry entry, final boolean evicted) {
+        if (!entries.remove(entry.key, entry)) return;
+        size.decrementAndGet();
+        if (evicted) evictions.increment();
+    }
+
+    /**
+     * Cache entry holding a lazily loaded, memoized value
+     */
+    private final class Entry {
+
+        private final K key;
+        private final long deadline;
+        private final Mono<V> value;
+        private volatile V loaded;
+
+        private Entry(final K key, final long deadline, final Supplier<Mono<V>> loader) {
+            this.key = key;
+            this.deadline = deadline;
+            this.value = Mono.defer(loader).doOnNext(v -> loaded = v).doOnError(e -> remove(this, false)).cache();
+        }
+
+        private Entry(final K key, final long deadline, final V value) {
+            this.key = key;
+            this.deadline = deadline;
+            this.value = Mono.just(value);
+            this.loaded = value;
+        }
+
+        private boolean isExpired(final long now) {
+            return now - deadline > 0;
+        }
+    }
+
+    /**
+     * Visitor of loaded cache entries
+     *
+     * @param <K> cache key type
+     * @param <V> cache value type
+     */
+    @FunctionalInterface
+    public interface Visitor<K, V> {
+
+        /**
+         * Visits a loaded cache entry
+         *
+         * @param key   cache key
+         * @param value loaded value
+         * @param ttl   remaining entry time to live in milliseconds
+         */
+        void visit(K key, V value, long ttl);
+    }
+}
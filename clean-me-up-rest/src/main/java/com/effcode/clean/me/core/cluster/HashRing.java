@@ -0,0 +1,116 @@
+package com.effcode.clean.me.core.cluster;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Immutable consistent hash ring assigning keys to nodes. Each node is placed on the ring at a number of virtual
+ * points hashed from its name, and a key is owned by the node of the first point at or after the key hash, wrapping
+ * around. Adding or removing a node therefore moves only the keys of the ranges its points cover, about one in
+ * {@code n} keys of an {@code n} node ring, while virtual points spread each node over many small ranges for an even
+ * share of keys.
+ * <p>
+ * Points are kept in a sorted array searched by binary search, so lookups take {@code O(log(nodes * replicas))} time
+ * without allocation. Node placement depends on node names only, so rings built from the same names agree on every
+ * key regardless of node order.
+ *
+ * @param <N> node type
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class HashRing<N> {
+
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private final List<N> nodes;
+    private final long[] points;
+    private final int[] owners;
+
+    /**
+     * Creates new hash ring
+     *
+     * @param nodes    ring nodes, of distinct names
+     * @param name     node name function
+     * @param replicas number of virtual points per node
+     * @throws IllegalArgumentException if no nodes or no replicas are given
+     */
+    public HashRing(final Collection<N> nodes, final Function<N, String> name, final int replicas) {
+        if (nodes.isEmpty()) throw new IllegalArgumentException("Hash ring requires at least one node");
+        if (replicas < 1) throw new IllegalArgumentException("Hash ring requires at least one replica per node");
+        this.nodes = Collections.unmodifiableList(new ArrayList<>(nodes));
+        final int size = this.nodes.size() * replicas;
+        final long[] hashes = new long[size];
+        final String[] names = new String[this.nodes.size()];
+        for (int n = 0; n < names.length; n++) {
+            names[n] = name.apply(this.nodes.get(n));
+            for (int r = 0; r < replicas; r++) hashes[n * replicas + r] = hash(names[n] + "#" + r);
+        }
+        // sort point indexes by hash, colliding points are ordered by node name so all rings agree on them
+        final Integer[] order = new Integer[size];
+        for (int i = 0; i < size; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> {
+            final int c = Long.compare(hashes[a], hashes[b]);
+            return c != 0 ? c : names[a / replicas].compareTo(names[b / replicas]);
+        });
+        this.points = new long[size];
+        this.owners = new int[size];
+        for (int i = 0; i < size; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = order[i] / replicas;
+        }
+    }
+
+    /**
+     * Finds the node owning a key
+     *
+     * @param key ring key
+     * @return owner node
+     */
+    public N owner(final String key) {
+        final long hash = hash(key);
+        int low = 0;
+        int high = points.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (points[middle] < hash) low = middle + 1;
+            else high = middle;
+        }
+        return nodes.get(owners[low == points.length ? 0 : low]);
+    }
+
+    /**
+     * Accessor for the ring nodes
+     *
+     * @return ring nodes
+     */
+    public List<N> getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Hashes a string with 64 bit FNV-1a over its UTF-8 bytes, followed by a finalizer mixing all bits, as FNV alone
+     * spreads short similar keys poorly
+     *
+     * @param value string to hash
+     * @return hash value
+     */
+    static long hash(final String value) {
+        long h = FNV_OFFSET;
+        for (final byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= FNV_PRIME;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
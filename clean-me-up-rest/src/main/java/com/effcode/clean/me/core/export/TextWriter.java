@@ -0,0 +1,217 @@
+package com.effcode.clean.me.core.export;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Buffered UTF-8 text writer of delimited records, encoding strings straight into a reused byte buffer, with JSON
+ * string escaping and CSV field quoting. Characters are encoded one by one as they are escaped, so no intermediate
+ * strings, character arrays or encoders are created per value, and memory used is the buffer alone regardless of the
+ * amount of text written. The buffer is drained into the output stream whenever full.
+ * <p>
+ * JSON strings escape quotes, backslashes and control characters. CSV fields are quoted as specified by RFC 4180 if
+ * they hold a delimiter, quote or line break, or begin or end with a space, quotes are doubled. Unpaired surrogates are
+ * written as {@code ?}.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class TextWriter {
+
+    private static final byte[] HEX = {'0', '1', '2', '3', '4', '5', '6', '7', '8', '9', 'a', 'b', 'c', 'd', 'e', 'f'};
+    private static final int MAX_CHAR = 6;
+    private final OutputStream out;
+    private final byte[] buffer;
+    private int size;
+
+    /**
+     * Creates new text writer
+     *
+     * @param out      output stream
+     * @param capacity buffer capacity in bytes, at least 16
+     */
+    public TextWriter(final OutputStream out, final int capacity) {
+        if (capacity < 16) throw new IllegalArgumentException("Text buffer capacity too small: " + capacity);
+        this.out = out;
+        this.buffer = new byte[capacity];
+    }
+
+    /**
+     * Writes an ASCII character
+     *
+     * @param c ASCII character
+     * @return this writer
+     * @throws IOException if buffer can not be drained
+     */
+    public TextWriter ascii(final char c) throws IOException {
+        if (size == buffer.length) drain();
+        buffer[size++] = (byte) c;
+        return this;
+    }
+
+    /**
+     * Writes a string known to hold ASCII characters only, such as numbers, identifiers and timestamps
+     *
+     * @param value ASCII string
+     * @return this writer
+     * @throws IOException if buffer can not be drained
+     */
+    public TextWriter ascii(final String value) throws IOException {
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (size == buffer.length) drain();
+            buffer[size++] = (byte) value.charAt(i);
+        }
+        return this;
+    }
+
+    /**
+     * Writes a decimal number
+     *
+     * @param value number
+     * @return this writer
+     * @throws IOException if buffer can not be drained
+     */
+    public TextWriter number(final long value) throws IOException {
+        if (value >= 0 && value < 10) return ascii((char) ('0' + value));
+        return ascii(Long.toString(value));
+    }
+
+    /**
+     * Writes a string as a quoted JSON string, or {@code null}
+     *
+     * @param value string, may be {@code null}
+     * @return this writer
+     * @throws IOException if buffer can not be drained
+     */
+    public TextWriter json(final String value) throws IOException {
+        if (value == null) return ascii("null");
+        ascii('"');
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - size < MAX_CHAR) drain();
+            final char c = value.charAt(i);
+            if (c >= 0x20 && c < 0x80) {
+                if (c == '"' || c == '\\') buffer[size++] = '\\';
+                buffer[size++] = (byte) c;
+            } else if (c < 0x20) {
+                escape(c);
+            } else {
+                i = encode(value, i, c);
+            }
+        }
+        return ascii('"');
+    }
+
+    /**
+     * Writes a string as a CSV field, quoted if required, {@code null} as an empty field
+     *
+     * @param value string, may be {@code null}
+     * @return this writer
+     * @throws IOException if buffer can not be drained
+     */
+    public TextWriter csv(final String value) throws IOException {
+        if (value == null || value.isEmpty()) return this;
+        final boolean quoted = quoted(value);
+        if (quoted) ascii('"');
+        final int length = value.length();
+        for (int i = 0; i < length; i++) {
+            if (buffer.length - size < MAX_CHAR) drain();
+            final char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c == '"') buffer[size++] = '"';
+                buffer[size++] = (byte) c;
+            } else {
+                i = encode(value, i, c);
+            }
+        }
+        if (quoted) ascii('"');
+        return this;
+    }
+
+    /**
+     * Drains buffered bytes into the output stream and flushes it
+     *
+     * @throws IOException if output stream can not be written
+     */
+    public void flush() throws IOException {
+        drain();
+        out.flush();
+    }
+
+    private void drain() throws IOException {
+        if (size == 0) return;
+        out.write(buffer, 0, size);
+        size = 0;
+    }
+
+    private void escape(final char c) {
+        buffer[size++] = '\\';
+        switch (c) {
+            case '\n':
+                buffer[size++] = 'n';
+                break;
+            case '\r':
+                buffer[size++] = 'r';
+                break;
+            case '\t':
+                buffer[size++] = 't';
+                break;
+            case '\b':
+                buffer[size++] = 'b';
+                break;
+            case '\f':
+                buffer[size++] = 'f';
+                break;
+            default:
+                buffer[size++] = 'u';
+                buffer[size++] = '0';
+                buffer[size++] = '0';
+                buffer[size++] = HEX[c >> 4];
+                buffer[size++] = HEX[c & 0xf];
+        }
+    }
+
+    /**
+     * Encodes a non-ASCII character, or a surrogate pair, as UTF-8
+     *
+     * @param value string being written
+     * @param i     character index
+     * @param c     character at index
+     * @return index of the last character encoded
+     */
+    private int encode(final String value, final int i, final char c) {
+        if (c < 0x800) {
+            buffer[size++] = (byte) (0xc0 | c >> 6);
+            buffer[size++] = (byte) (0x80 | c & 0x3f);
+            return i;
+        }
+        if (!Character.isSurrogate(c)) {
+            buffer[size++] = (byte) (0xe0 | c >> 12);
+            buffer[size++] = (byte) (0x80 | c >> 6 & 0x3f);
+            buffer[size++] = (byte) (0x80 | c & 0x3f);
+            return i;
+        }
+        if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                && Character.isLowSurrogate(value.charAt(i + 1))) {
+            final int code = Character.toCodePoint(c, value.charAt(i + 1));
+            buffer[size++] = (byte) (0xf0 | code >> 18);
+            buffer[size++] = (byte) (0x80 | code >> 12 & 0x3f);
+            buffer[size++] = (byte) (0x80 | code >> 6 & 0x3f);
+            buffer[size++] = (byte) (0x80 | code & 0x3f);
+            return i + 1;
+        }
+        buffer[size++] = '?';
+        return i;
+    }
+
+    private static boolean quoted(final String value) {
+        if (value.charAt(0) == ' ' || value.charAt(value.length() - 1) == ' ') return true;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') return true;
+        }
+        return false;
+    }
+}
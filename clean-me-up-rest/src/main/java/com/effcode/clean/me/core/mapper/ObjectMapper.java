@@ -24,6 +24,7 @@ import java.text.SimpleDateFormat;
 public class ObjectMapper extends com.fasterxml.jackson.databind.ObjectMapper {
 
     public static final String DATE_FORMAT_PATTERN = "yyyy-MM-dd hh:mm:ss";
+    public static final String ISO_DATE_FORMAT_PATTERN = "yyyy-MM-dd'T'HH:mm:ssXXX";
     private static final Logger LOG = LoggerFactory.getLogger(ObjectMapper.class);
     private static ObjectMapper instance;
 
@@ -0,0 +1,106 @@
+package com.effcode.clean.me.core.memory;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Byte budget of direct memory counted in fixed size chunks, shared by any number of {@link OffHeapArena}s. Arenas
+ * acquire a chunk from the budget before reserving it and release it once reclaimed, so arenas sharing a budget draw
+ * from one pool and a single busy arena may take all of it, instead of each arena being confined to a fixed slice.
+ * <p>
+ * The budget is exhausted once a chunk was requested while none was available, until a chunk is released again.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see OffHeapArena
+ * @since 1.0
+ */
+public class ChunkBudget {
+
+    private final AtomicInteger available;
+    private final int chunks;
+    private final int chunkSize;
+    private volatile boolean exhausted;
+
+    /**
+     * Creates new chunk budget
+     *
+     * @param capacity  byte budget, rounded down to a whole number of chunks but at least one chunk
+     * @param chunkSize size of a memory chunk in bytes
+     */
+    public ChunkBudget(final long capacity, final int chunkSize) {
+        if (chunkSize <= 0) throw new IllegalArgumentException("Budget chunk size is too small: " + chunkSize);
+        this.chunks = (int) Math.max(1, Math.min(Integer.MAX_VALUE, capacity / chunkSize));
+        this.chunkSize = chunkSize;
+        this.available = new AtomicInteger(chunks);
+    }
+
+    /**
+     * Acquires a chunk from the budget
+     *
+     * @return {@code true} if a chunk was acquired, {@code false} if the budget is exhausted
+     */
+    public boolean acquire() {
+        while (true) {
+            for (int count = available.get(); count > 0; count = available.get()) {
+                if (available.compareAndSet(count, count - 1)) return true;
+            }
+            exhausted = true;
+            // a chunk released meanwhile may have cleared the flag before it was set, so it is checked again
+            if (available.get() == 0) return false;
+            exhausted = false;
+        }
+    }
+
+    /**
+     * Releases a previously acquired chunk back to the budget
+     */
+    public void release() {
+        available.incrementAndGet();
+        exhausted = false;
+    }
+
+    /**
+     * Checks whether a chunk was requested while none was available, and no chunk was released since
+     *
+     * @return {@code true} if the budget is exhausted, otherwise {@code false}
+     */
+    public boolean isExhausted() {
+        return exhausted;
+    }
+
+    /**
+     * Accessor for the number of chunks of the budget
+     *
+     * @return chunk count
+     */
+    public int getChunks() {
+        return chunks;
+    }
+
+    /**
+     * Accessor for the number of chunks not acquired
+     *
+     * @return available chunk count
+     */
+    public int getAvailable() {
+        return available.get();
+    }
+
+    /**
+     * Accessor for the size of a chunk
+     *
+     * @return chunk size in bytes
+     */
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    /**
+     * Accessor for the byte budget
+     *
+     * @return budget capacity in bytes
+     */
+    public long getCapacity() {
+        return (long) chunks * chunkSize;
+    }
+}
@@ -0,0 +1,215 @@
+package com.effcode.clean.me.core.memory;
+
+import java.nio.ByteBuffer;
+
+/**
+ * Arena of records kept in direct memory, outside of the garbage collected heap. Memory is reserved in fixed size
+ * chunks as needed, up to a hard byte budget which may be shared with other arenas through a {@link ChunkBudget}, and
+ * records are bump allocated within the current chunk, so holding millions of records costs the heap only the
+ * {@code long} handles referencing them. Records are written once and then read concurrently without locking through
+ * read-only views.
+ * <p>
+ * Records are freed individually but memory is reclaimed by whole chunks, once every record of a chunk was freed.
+ * Records are freed in roughly the order they were allocated, so chunks empty out in turn. A reclaimed chunk is
+ * dropped rather than reused, and a fresh chunk is reserved in its place, so views read before a record was freed stay
+ * valid until they are garbage collected.
+ * <p>
+ * A record is rejected, and {@link #NONE} returned in place of its handle, when it does not fit in a chunk or when
+ * the budget is exhausted. Callers decide how to keep rejected records, and may check {@link #isFull()} to refuse
+ * work up front.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class OffHeapArena {
+
+    /**
+     * Handle returned for records that could not be allocated
+     */
+    public static final long NONE = -1;
+    private static final int HEADER = 4;
+    private final ByteBuffer[] chunks;
+    private final int[] live;
+    private final int[] vacant;
+    private final int chunkSize;
+    private final ChunkBudget budget;
+    private ByteBuffer current;
+    private int slot = -1;
+    private int allocated;
+    private int vacancies;
+    private int reserved;
+    private volatile long used;
+    private volatile long records;
+    private volatile long overflows;
+
+    /**
+     * Creates new arena, no memory is reserved until the first record is allocated
+     *
+     * @param capacity  byte budget, rounded down to a whole number of chunks but at least one chunk
+     * @param chunkSize size of a memory chunk in bytes, and therefore the maximum size of a record
+     */
+    public OffHeapArena(final long capacity, final int chunkSize) {
+        this(new ChunkBudget(capacity, chunkSize));
+    }
+
+    /**
+     * Creates new arena drawing its chunks from a budget, which may be shared with other arenas, no memory is reserved
+     * until the first record is allocated
+     *
+     * @param budget chunk budget, its chunk size being the maximum size of a record
+     */
+    public OffHeapArena(final ChunkBudget budget) {
+        if (budget.getChunkSize() <= HEADER) {
+            throw new IllegalArgumentException("Arena chunk size is too small: " + budget.getChunkSize());
+        }
+        this.chunks = new ByteBuffer[budget.getChunks()];
+        this.live = new int[chunks.length];
+        this.vacant = new int[chunks.length];
+        this.chunkSize = budget.getChunkSize();
+        this.budget = budget;
+    }
+
+    /**
+     * Copies a record into the arena
+     *
+     * @param record record bytes
+     * @return record handle, or {@link #NONE} if the record is larger than a chunk or the budget is exhausted
+     */
+    public synchronized long allocate(final byte[] record) {
+        final int size = HEADER + record.length;
+        if (size > chunkSize) {
+            overflows++;
+            return NONE;
+        }
+        if (current == null || current.remaining() < size) {
+            // the current chunk is reclaimed as it is left behind if all its records were freed meanwhile
+            if (slot >= 0 && live[slot] == 0) {
+                reclaim(slot);
+                // the reclaimed chunk is dropped at once, another arena may take its budget before a chunk replaces it
+                current = null;
+                slot = -1;
+            }
+            if (!budget.acquire()) {
+                overflows++;
+                return NONE;
+            }
+            // an arena holds at most all chunks of its budget, so a slot is free whenever a chunk was acquired
+            final int next = vacancies > 0 ? vacant[--vacancies] : allocated++;
+            // chunks shared with readers are never repositioned, writes go through a private duplicate
+            chunks[next] = ByteBuffer.allocateDirect(chunkSize);
+            current = chunks[next].duplicate();
+            slot = next;
+            reserved++;
+        }
+        final long handle = ((long) slot << 32) | current.position();
+        current.putInt(record.length).put(record);
+        live[slot]++;
+        used += size;
+        records++;
+        return handle;
+    }
+
+    /**
+     * Frees a record, the handle must have been returned by {@link #allocate(byte[])} of this arena and must not be
+     * read or freed again. The chunk holding the record is reclaimed once all its records are freed.
+     *
+     * @param handle record handle
+     */
+    public synchronized void free(final long handle) {
+        final int index = (int) (handle >>> 32);
+        used -= HEADER + chunks[index].getInt((int) handle);
+        records--;
+        if (--live[index] == 0 && index != slot) reclaim(index);
+    }
+
+    /**
+     * Reads a record, the handle must have been returned by {@link #allocate(byte[])} of this arena
+     *
+     * @param handle record handle
+     * @return read-only view of the record bytes, positioned at its start
+     */
+    public ByteBuffer read(final long handle) {
+        final ByteBuffer buffer = chunks[(int) (handle >>> 32)].asReadOnlyBuffer();
+        final int offset = (int) handle + HEADER;
+        buffer.limit(offset + buffer.getInt(offset - HEADER)).position(offset);
+        return buffer.slice();
+    }
+
+    /**
+     * Checks whether an allocation was rejected because the byte budget is exhausted, and no chunk was reclaimed since,
+     * by this arena or by any other arena sharing its budget
+     *
+     * @return {@code true} if the arena is full, otherwise {@code false}
+     */
+    public boolean isFull() {
+        return budget.isExhausted();
+    }
+
+    /**
+     * Accessor for the byte budget of this arena, shared with any other arena drawing from the same budget
+     *
+     * @return arena capacity in bytes
+     */
+    public long getCapacity() {
+        return budget.getCapacity();
+    }
+
+    /**
+     * Accessor for the chunk budget this arena draws from
+     *
+     * @return chunk budget
+     */
+    public ChunkBudget getBudget() {
+        return budget;
+    }
+
+    /**
+     * Accessor for the bytes of direct memory reserved so far
+     *
+     * @return reserved bytes
+     */
+    public synchronized long getReserved() {
+        return (long) reserved * chunkSize;
+    }
+
+    /**
+     * Accessor for the bytes taken by allocated records, including their headers
+     *
+     * @return used bytes
+     */
+    public long getUsed() {
+        return used;
+    }
+
+    /**
+     * Accessor for the number of allocated records not freed
+     *
+     * @return record count
+     */
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Accessor for the number of records rejected for size or exhausted budget
+     *
+     * @return rejected record count
+     */
+    public long getOverflows() {
+        return overflows;
+    }
+
+    /**
+     * Releases a chunk without live records to the garbage collector and to the budget, and makes its slot available,
+     * must be called holding the arena lock
+     *
+     * @param index chunk index
+     */
+    private void reclaim(final int index) {
+        chunks[index] = null;
+        vacant[vacancies++] = index;
+        reserved--;
+        budget.release();
+    }
+}
@@ -0,0 +1,306 @@
+package com.effcode.clean.me.core.scheduling;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * Hashed timing wheel scheduler for large numbers of coarse-grained timers. Timers are hashed by deadline into a fixed
+ * ring of buckets, each tick of a single worker thread visits one bucket and expires its due timers. Scheduling is
+ * constant time and lock-free for callers, as new timers are handed over to the worker through a concurrent queue.
+ * Cancellation is a single compare-and-set, cancelled timers are unlinked when their bucket is next visited, at most
+ * one wheel revolution later. Each pending timer costs a single small object, instead of a task and a heap entry per
+ * timer in a {@link java.util.concurrent.ScheduledExecutorService}, at the expense of expiring up to one tick late.
+ * <p>
+ * Expired tasks are handed to the expiry consumer on the worker thread, which must therefore not block.
+ *
+ * @param <T> scheduled task type
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class TimingWheel<T> implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(TimingWheel.class);
+    private static final int TRANSFER_LIMIT = 100000;
+    private final String name;
+    private final long tick;
+    private final Bucket<T>[] wheel;
+    private final int mask;
+    private final Consumer<T> expiry;
+    private final Queue<Timeout<T>> additions = new ConcurrentLinkedQueue<>();
+    private final LongAdder pending = new LongAdder();
+    private volatile boolean running;
+    private long start;
+    private long ticks;
+    private Thread worker;
+
+    /**
+     * Creates new timing wheel
+     *
+     * @param name   worker thread name
+     * @param tick   tick duration in milliseconds
+     * @param size   number of wheel buckets, rounded up to a power of two
+     * @param expiry consumer of expired tasks
+     */
+    @SuppressWarnings("unchecked")
+    public TimingWheel(final String name, final long tick, final int size, final Consumer<T> expiry) {
+        if (tick <= 0) throw new IllegalArgumentException("Tick duration must be positive: " + tick);
+        int length = 1;
+        while (length < size) length <<= 1;
+        this.name = name;
+        this.tick = tick;
+        this.wheel = new Bucket[length];
+        for (int i = 0; i < length; i++) wheel[i] = new Bucket<>();
+        this.mask = length - 1;
+        this.expiry = expiry;
+    }
+
+    /**
+     * Starts the wheel worker thread
+     */
+    public synchronized void start() {
+        if (running) return;
+        start = System.currentTimeMillis();
+        running = true;
+        worker = new Thread(this::run, name);
+        worker.setDaemon(true);
+        worker.start();
+    }
+
+    /**
+     * Stops the wheel worker thread, pending timers are discarded
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (worker != null) {
+            worker.interrupt();
+            try {
+                worker.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Schedules a task to expire at the specified deadline, a deadline in the past expires on the next tick
+     *
+     * @param task     task to schedule
+     * @param deadline expiry deadline in epoch milliseconds
+     * @return pending timeout handle
+     */
+    public Timeout<T> schedule(final T task, final long deadline) {
+        final Timeout<T> timeout = new Timeout<>(this, task, deadline);
+        pending.increment();
+        additions.add(timeout);
+        return timeout;
+    }
+
+    /**
+     * Accessor for the number of pending timers
+     *
+     * @return pending timer count
+     */
+    public int getPending() {
+        return pending.intValue();
+    }
+
+    /**
+     * Worker thread loop, advances the wheel one tick at a time until closed
+     */
+    private void run() {
+        while (running) {
+            final long deadline = start + (ticks + 1) * tick;
+            long now = System.currentTimeMillis();
+            if (now < deadline) {
+                try {
+                    Thread.sleep(deadline - now);
+                } catch (final InterruptedException e) {
+                    if (!running) return;
+                }
+                continue;
+            }
+            try {
+                transfer();
+                wheel[(int) (ticks & mask)].expire(now);
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to advance " + name + " timing wheel", e);
+            }
+            ticks++;
+        }
+    }
+
+    /**
+     * Hashes newly scheduled timers into their buckets, bounded per tick so a scheduling burst does not stall expiry
+     */
+    private void transfer() {
+        for (int i = 0; i < TRANSFER_LIMIT; i++) {
+            final Timeout<T> timeout = additions.poll();
+            if (timeout == null) return;
+            if (timeout.state != Timeout.PENDING) continue;
+            final long due = Math.max(0, timeout.deadline - start) / tick;
+            timeout.rounds = (due - ticks) / wheel.length;
+            wheel[(int) (Math.max(due, ticks) & mask)].add(timeout);
+        }
+    }
+
+    /**
+     * Handle of a scheduled task
+     *
+     * @param <T> scheduled task type
+     */
+    public static final class Timeout<T> {
+
+        private static final int PENDING = 0;
+        private static final int CANCELLED = 1;
+        private static final int EXPIRED = 2;
+        @SuppressWarnings("rawtypes")
+        private static final AtomicIntegerFieldUpdater<Timeout> STATE =
+                AtomicIntegerFieldUpdater.newUpdater(Timeout.class, "state");
+        private final TimingWheel<T> wheel;
+        private final T task;
+        private final long deadline;
+        private volatile int state;
+        private long rounds;
+        private Bucket<T> bucket;
+        private Timeout<T> next;
+        private Timeout<T> prev;
+
+        private Timeout(final TimingWheel<T> wheel, final T task, final long deadline) {
+            this.wheel = wheel;
+            this.task = task;
+            this.deadline = deadline;
+        }
+
+        /**
+         * Accessor for the scheduled task
+         *
+         * @return scheduled task
+         */
+        public T getTask() {
+            return task;
+        }
+
+        /**
+         * Accessor for the expiry deadline
+         *
+         * @return expiry deadline in epoch milliseconds
+         */
+        public long getDeadline() {
+            return deadline;
+        }
+
+        /**
+         * Cancels this timeout, has no effect if already expired or cancelled
+         *
+         * @return {@code true} if timeout was cancelled by this call, otherwise {@code false}
+         */
+        public boolean cancel() {
+            if (!STATE.compareAndSet(this, PENDING, CANCELLED)) return false;
+            wheel.pending.decrement();
+            return true;
+        }
+
+        /**
+         * Checks if this timeout was cancelled
+         *
+         * @return {@code true} if cancelled, otherwise {@code false}
+         */
+        public boolean isCancelled() {
+            return state == CANCELLED;
+        }
+
+        /**
+         * Checks if this timeout has expired
+         *
+         * @return {@code true} if expired, otherwise {@code false}
+         */
+        public boolean isExpired() {
+            return state == EXPIRED;
+        }
+
+        /**
+         * Expires this timeout and hands its task to the expiry consumer, unless cancelled concurrently
+         */
+        private void expire() {
+            if (!STATE.compareAndSet(this, PENDING, EXPIRED)) return;
+            wheel.pending.decrement();
+            try {
+                wheel.expiry.accept(task);
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to expire " + wheel.name + " timer", e);
+            }
+        }
+    }
+
+    /**
+     * Wheel bucket holding a doubly linked list of timers, confined to the worker thread
+     *
+     * @param <T> scheduled task type
+     */
+    private static final class Bucket<T> {
+
+        private Timeout<T> head;
+        private Timeout<T> tail;
+
+        /**
+         * Links a timer at the bucket tail
+         *
+         * @param timeout timer to add
+         */
+        private void add(final Timeout<T> timeout) {
+            timeout.bucket = this;
+            if (head == null) {
+                head = tail = timeout;
+            } else {
+                tail.next = timeout;
+                timeout.prev = tail;
+                tail = timeout;
+            }
+        }
+
+        /**
+         * Expires timers due in the current round, unlinks cancelled ones and counts down the rounds of the others
+         *
+         * @param now current time in epoch milliseconds
+         */
+        private void expire(final long now) {
+            Timeout<T> timeout = head;
+            while (timeout != null) {
+                final Timeout<T> next = timeout.next;
+                if (timeout.isCancelled()) {
+                    remove(timeout);
+                } else if (timeout.rounds <= 0 && timeout.deadline <= now) {
+                    remove(timeout);
+                    timeout.expire();
+                } else if (timeout.rounds > 0) {
+                    timeout.rounds--;
+                }
+                timeout = next;
+            }
+        }
+
+        /**
+         * Unlinks a timer from this bucket
+         *
+         * @param timeout timer to remove
+         */
+        private void remove(final Timeout<T> timeout) {
+            if (timeout.bucket != this) return;
+            if (timeout.prev != null) timeout.prev.next = timeout.next;
+            else head = timeout.next;
+            if (timeout.next != null) timeout.next.prev = timeout.prev;
+            else tail = timeout.prev;
+            timeout.next = timeout.prev = null;
+            timeout.bucket = null;
+        }
+    }
+}
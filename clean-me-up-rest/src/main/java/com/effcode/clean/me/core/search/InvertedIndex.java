@@ -0,0 +1,554 @@
+package com.effcode.clean.me.core.search;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Incremental in-memory inverted index of documents identified by increasing integer numbers. Each term maps to a
+ * postings list of document numbers and term frequencies, delta and variable-length encoded into a growable byte
+ * array, with a skip entry every {@value #BLOCK} postings so that intersections jump over blocks of longer lists.
+ * Queries match documents holding all query terms, ranked by BM25, and may be restricted to documents holding a key,
+ * a term intersected like the others but not scored.
+ * <p>
+ * Each block of postings also records the largest term frequency and the shortest document length in it, which bound
+ * the score any of its documents can reach. Once as many hits as requested are ranked, blocks whose bound can not
+ * reach the lowest of them are skipped without being decoded or scored, so a query of frequent terms ranks only a
+ * fraction of its matches.
+ * <p>
+ * Removed documents are marked in the document length table and skipped by queries, their postings are dropped once
+ * the lists holding them are purged.
+ * <p>
+ * The index has a single writer, documents are added while holding the index lock, and any number of lock-free
+ * readers. Postings are written before the size covering them is published, so readers see a consistent prefix of
+ * each list.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class InvertedIndex {
+
+    private static final int BLOCK = 16;
+    private static final int PAGE = 1 << 16;
+    private static final float K1 = 1.2f;
+    private static final float B = 0.75f;
+    private final ConcurrentMap<String, Postings> terms = new ConcurrentHashMap<>();
+    private volatile int[][] lengths = new int[16][];
+    private volatile int documents;
+    private volatile int removed;
+    private volatile long total;
+    private volatile long bytes;
+    private volatile int last = -1;
+
+    /**
+     * Adds a document to the index, documents must be added in increasing number order
+     *
+     * @param document    document number
+     * @param frequencies frequency of each document term
+     * @param length      document length in terms, used to normalize term frequencies
+     * @throws IllegalArgumentException if document number is not greater than the last added
+     */
+    public synchronized void add(final int document, final Map<String, Integer> frequencies, final int length)
+            throws IllegalArgumentException {
+        if (document <= last) throw new IllegalArgumentException("Document number out of order: " + document);
+        final int page = document / PAGE;
+        int[][] table = lengths;
+        if (page >= table.length) table = Arrays.copyOf(table, Math.max(page + 1, table.length * 2));
+        if (table[page] == null) table[page] = new int[PAGE];
+        table[page][document % PAGE] = length;
+        lengths = table;
+        long grown = 0;
+        for (final Map.Entry<String, Integer> entry : frequencies.entrySet()) {
+            Postings postings = terms.get(entry.getKey());
+            if (postings == null) {
+                postings = new Postings();
+                terms.put(entry.getKey(), postings);
+                grown += postings.data.length;
+            }
+            grown += postings.add(document, entry.getValue(), length);
+        }
+        last = document;
+        total += length;
+        bytes += grown;
+        documents++;
+    }
+
+    /**
+     * Removes a document from query results, its postings are kept until purged
+     *
+     * @param document document number
+     * @return {@code true} if the document was removed, {@code false} if not indexed
+     */
+    public synchronized boolean remove(final int document) {
+        if (!contains(document)) return false;
+        final int[] page = lengths[document / PAGE];
+        total -= page[document % PAGE];
+        page[document % PAGE] = -1;
+        // the mark is published to readers with the document count
+        documents--;
+        removed++;
+        return true;
+    }
+
+    /**
+     * Checks whether a document is indexed and not removed
+     *
+     * @param document document number
+     * @return {@code true} if the document is indexed
+     */
+    public boolean contains(final int document) {
+        final int[][] table = lengths;
+        if (document < 0 || document / PAGE >= table.length) return false;
+        final int[] page = table[document / PAGE];
+        return page != null && page[document % PAGE] >= 0 && document <= last;
+    }
+
+    /**
+     * Rewrites postings lists holding removed documents without them, one list at a time while holding the index
+     * lock, so documents are added meanwhile. Terms left without postings are dropped.
+     *
+     * @return number of dropped postings
+     */
+    public long purge() {
+        final int purged;
+        synchronized (this) {
+            purged = removed;
+        }
+        long dropped = 0;
+        for (final String term : terms.keySet()) {
+            synchronized (this) {
+                final Postings postings = terms.get(term);
+                if (postings == null) continue;
+                final Postings kept = postings.without(lengths);
+                if (kept == postings) continue;
+                dropped += postings.count - (kept == null ? 0 : kept.count);
+                bytes += (kept == null ? 0 : kept.data.length) - postings.data.length;
+                // readers holding the previous list finish on it, the rewritten list is published whole
+                if (kept == null) terms.remove(term);
+                else terms.put(term, kept);
+            }
+        }
+        synchronized (this) {
+            removed -= purged;
+        }
+        return dropped;
+    }
+
+    /**
+     * Finds documents holding all specified terms, ranked by BM25 score. Blocks of postings that can not reach the
+     * ranked hits are skipped once the limit is reached, their documents are not counted as matches.
+     *
+     * @param query query terms
+     * @param key   term every hit must hold, not scored, or {@code null} for all documents
+     * @param limit maximum number of ranked hits
+     * @return ranked hits, best first
+     */
+    public Result search(final List<String> query, final String key, final int limit) {
+        final int count = documents;
+        if (query.isEmpty() || count == 0) return new Result(Collections.emptyList(), 0, true);
+        final Cursor[] cursors = new Cursor[query.size() + (key == null ? 0 : 1)];
+        for (int i = 0; i < cursors.length; i++) {
+            final Postings postings = terms.get(i < query.size() ? query.get(i) : key);
+            if (postings == null) return new Result(Collections.emptyList(), 0, true);
+            cursors[i] = postings.cursor();
+        }
+        final Cursor restriction = key == null ? null : cursors[cursors.length - 1];
+        // the shortest list leads the intersection, longer lists skip ahead to its documents
+        Arrays.sort(cursors, (a, b) -> Integer.compare(a.count, b.count));
+        final float[] idf = new float[cursors.length];
+        for (int i = 0; i < cursors.length; i++) {
+            // the key neither adds to scores nor to their bounds
+            if (cursors[i] == restriction) continue;
+            // lists count removed documents until purged
+            final int frequency = Math.min(cursors[i].count, count);
+            idf[i] = (float) Math.log(1 + (count - frequency + 0.5) / (frequency + 0.5));
+        }
+        final float average = Math.max(1, (float) total / count);
+        final int[][] table = lengths;
+        final PriorityQueue<Hit> top = new PriorityQueue<>(Math.max(1, limit));
+        int matches = 0;
+        boolean exact = true;
+        int target = 0;
+        int checked = -1;
+        candidates:
+        while (true) {
+            if (target > checked && limit > 0 && top.size() == limit) {
+                // blocks holding the target are checked once, until the first of them ends, before any is decoded
+                float bound = 0;
+                int end = Integer.MAX_VALUE;
+                for (int i = 0; i < cursors.length; i++) {
+                    final int block = cursors[i].shallow(target);
+                    bound += cursors[i].bound(block, idf[i], average);
+                    end = Math.min(end, cursors[i].last(block));
+                }
+                if (bound < top.peek().score) {
+                    exact = false;
+                    if (end == Integer.MAX_VALUE) break;
+                    target = end + 1;
+                    continue;
+                }
+                checked = end;
+            }
+            if (!cursors[0].advance(target)) break;
+            final int document = cursors[0].document;
+            if (document > checked && limit > 0 && top.size() == limit) {
+                // the candidate lies past the checked blocks
+                target = document;
+                continue;
+            }
+            for (int i = 1; i < cursors.length; i++) {
+                if (!cursors[i].advance(document)) break candidates;
+                if (cursors[i].document != document) {
+                    target = cursors[i].document;
+                    continue candidates;
+                }
+            }
+            target = document + 1;
+            final int length = table[document / PAGE][document % PAGE];
+            if (length < 0) continue;
+            matches++;
+            final float norm = norm(length, average);
+            float score = 0;
+            for (int i = 0; i < cursors.length; i++) {
+                score += score(idf[i], cursors[i].frequency, norm);
+            }
+            // candidates come in increasing document order, so an equal score ranks above the lowest hit
+            if (top.size() < limit) top.add(new Hit(document, score));
+            else if (limit > 0 && top.peek().score <= score) {
+                top.poll();
+                top.add(new Hit(document, score));
+            }
+        }
+        final List<Hit> hits = new ArrayList<>(top);
+        hits.sort(Collections.reverseOrder());
+        return new Result(hits, matches, exact);
+    }
+
+    /**
+     * Computes the length normalization of BM25 term frequencies
+     *
+     * @param length  document length in terms
+     * @param average average document length in terms
+     * @return normalization of term frequencies
+     */
+    private static float norm(final int length, final float average) {
+        return K1 * (1 - B + B * length / average);
+    }
+
+    /**
+     * Computes the BM25 score of a term in a document, also used to bound scores of blocks so bounds and scores are
+     * rounded alike
+     *
+     * @param idf       inverse document frequency of the term
+     * @param frequency term frequency in the document
+     * @param norm      length normalization of the document
+     * @return term score
+     */
+    private static float score(final float idf, final int frequency, final float norm) {
+        return idf * frequency * (K1 + 1) / (frequency + norm);
+    }
+
+    /**
+     * Accessor for the number of indexed documents
+     *
+     * @return document count
+     */
+    public int getDocuments() {
+        return documents;
+    }
+
+    /**
+     * Accessor for the number of removed documents whose postings are not purged yet
+     *
+     * @return removed document count
+     */
+    public int getRemoved() {
+        return removed;
+    }
+
+    /**
+     * Accessor for the number of distinct indexed terms
+     *
+     * @return term count
+     */
+    public int getTerms() {
+        return terms.size();
+    }
+
+    /**
+     * Accessor for the memory allocated to encoded postings
+     *
+     * @return postings bytes
+     */
+    public long getBytes() {
+        return bytes;
+    }
+
+    /**
+     * Ranked search hit, a document number and its score
+     */
+    public static final class Hit implements Comparable<Hit> {
+
+        private final int document;
+        private final float score;
+
+        private Hit(final int document, final float score) {
+            this.document = document;
+            this.score = score;
+        }
+
+        public int getDocument() {
+            return document;
+        }
+
+        public float getScore() {
+            return score;
+        }
+
+        @Override
+        public int compareTo(final Hit other) {
+            final int order = Float.compare(score, other.score);
+            // equal scores rank the newer document first
+            return order != 0 ? order : Integer.compare(document, other.document);
+        }
+    }
+
+    /**
+     * Search result, the best ranked hits and the number of visible matching documents, which is exact unless blocks
+     * of postings were skipped
+     */
+    public static final class Result {
+
+        private final List<Hit> hits;
+        private final int matches;
+        private final boolean exact;
+
+        private Result(final List<Hit> hits, final int matches, final boolean exact) {
+            this.hits = hits;
+            this.matches = matches;
+            this.exact = exact;
+        }
+
+        public List<Hit> getHits() {
+            return hits;
+        }
+
+        public int getMatches() {
+            return matches;
+        }
+
+        public boolean isExact() {
+            return exact;
+        }
+    }
+
+    /**
+     * Postings list of a term. Each posting is the document number delta to the previous posting and the term
+     * frequency, both variable-length encoded. Skip entries record the previous document number and byte offset at
+     * the start of every block of postings, while the largest frequency and shortest document length are recorded for
+     * every block, including the one being filled.
+     */
+    private static final class Postings {
+
+        private volatile byte[] data = new byte[8];
+        private volatile int size;
+        private volatile int count;
+        private volatile int[] skipDocuments = new int[0];
+        private volatile int[] skipOffsets = new int[0];
+        private volatile int skips;
+        private volatile byte[] maxima = new byte[1];
+        private volatile char[] shortest = {Character.MAX_VALUE};
+        private int last = -1;
+
+        private int add(final int document, final int frequency, final int length) {
+            final int before = data.length;
+            if (count > 0 && count % BLOCK == 0) {
+                if (skips == skipOffsets.length) {
+                    skipDocuments = Arrays.copyOf(skipDocuments, Math.max(4, skips * 2));
+                    skipOffsets = Arrays.copyOf(skipOffsets, Math.max(4, skips * 2));
+                }
+                skipDocuments[skips] = last;
+                skipOffsets[skips] = size;
+                skips = skips + 1;
+                if (skips == maxima.length) {
+                    final char[] lengths = Arrays.copyOf(shortest, skips * 2);
+                    Arrays.fill(lengths, skips, lengths.length, Character.MAX_VALUE);
+                    shortest = lengths;
+                    maxima = Arrays.copyOf(maxima, skips * 2);
+                }
+            }
+            // block bounds are written before the postings they cover are published, saturated to fit their arrays
+            final int block = count / BLOCK;
+            if (frequency > (maxima[block] & 0xFF)) maxima[block] = (byte) Math.min(frequency, 0xFF);
+            if (length < shortest[block]) shortest[block] = (char) length;
+            byte[] array = data;
+            if (size + 10 > array.length) data = array = Arrays.copyOf(array, array.length * 2);
+            int offset = write(array, size, document - last);
+            offset = write(array, offset, frequency);
+            last = document;
+            count = count + 1;
+            size = offset;
+            return data.length - before;
+        }
+
+        private Cursor cursor() {
+            final int end = size;
+            return new Cursor(data, end, count, skipDocuments, skipOffsets, skips, maxima, shortest);
+        }
+
+        /**
+         * Copies the postings of documents not removed, must be called holding the index lock
+         *
+         * @param lengths document length table, marking removed documents
+         * @return copied postings, this list if no document was removed or {@code null} if all were
+         */
+        private Postings without(final int[][] lengths) {
+            final Cursor cursor = cursor();
+            Postings kept = null;
+            boolean changed = false;
+            while (cursor.next()) {
+                final int length = lengths[cursor.document / PAGE][cursor.document % PAGE];
+                if (length < 0) {
+                    changed = true;
+                    continue;
+                }
+                if (kept == null) kept = new Postings();
+                kept.add(cursor.document, cursor.frequency, length);
+            }
+            return changed ? kept : this;
+        }
+
+        private static int write(final byte[] array, int offset, int value) {
+            while ((value & ~0x7F) != 0) {
+                array[offset++] = (byte) ((value & 0x7F) | 0x80);
+                value >>>= 7;
+            }
+            array[offset++] = (byte) value;
+            return offset;
+        }
+    }
+
+    /**
+     * Reader of a consistent prefix of a postings list
+     */
+    private static final class Cursor {
+
+        private final byte[] data;
+        private final int end;
+        private final int count;
+        private final int[] skipDocuments;
+        private final int[] skipOffsets;
+        private final int skips;
+        private final byte[] maxima;
+        private final char[] shortest;
+        private int offset;
+        private int skip;
+        private int shallow;
+        private int bounded = -1;
+        private float bound;
+        private int document = -1;
+        private int frequency;
+
+        private Cursor(final byte[] data, final int end, final int count, final int[] skipDocuments,
+                       final int[] skipOffsets, final int skips, final byte[] maxima, final char[] shortest) {
+            this.data = data;
+            this.end = end;
+            this.count = count;
+            this.skipDocuments = skipDocuments;
+            this.skipOffsets = skipOffsets;
+            // skip entries may be published ahead of the postings they point to
+            int usable = Math.min(skips, Math.min(skipDocuments.length, skipOffsets.length));
+            while (usable > 0 && skipOffsets[usable - 1] >= end) usable--;
+            this.skips = usable;
+            this.maxima = maxima;
+            this.shortest = shortest;
+        }
+
+        /**
+         * Finds the block that holds the first posting at or after a document, without decoding postings. Targets
+         * must not decrease.
+         *
+         * @param target target document number
+         * @return block number
+         */
+        private int shallow(final int target) {
+            while (shallow < skips && skipDocuments[shallow] < target) shallow++;
+            return shallow;
+        }
+
+        /**
+         * Finds the last document of a block
+         *
+         * @param block block number
+         * @return last document number, {@link Integer#MAX_VALUE} for the last block
+         */
+        private int last(final int block) {
+            return block < skips ? skipDocuments[block] : Integer.MAX_VALUE;
+        }
+
+        /**
+         * Bounds the score of the term in any document of a block
+         *
+         * @param block   block number
+         * @param idf     inverse document frequency of the term
+         * @param average average document length in terms
+         * @return highest possible term score
+         */
+        private float bound(final int block, final float idf, final float average) {
+            if (block != bounded) {
+                // a saturated frequency is bounded by the limit scores approach as frequencies grow
+                final int frequency = (maxima[block] & 0xFF) == 0xFF ? Integer.MAX_VALUE : maxima[block] & 0xFF;
+                bound = score(idf, frequency, norm(shortest[block], average));
+                bounded = block;
+            }
+            return bound;
+        }
+
+        private boolean next() {
+            if (offset >= end) return false;
+            document += read();
+            frequency = read();
+            return true;
+        }
+
+        /**
+         * Moves to the first posting at or after a document
+         *
+         * @param target target document number
+         * @return {@code false} if the list is exhausted
+         */
+        private boolean advance(final int target) {
+            if (document >= target) return true;
+            // jump to the last block starting before the target, blocks are only ever entered forward
+            while (skip < skips && skipDocuments[skip] < target) {
+                if (skipOffsets[skip] > offset) {
+                    offset = skipOffsets[skip];
+                    document = skipDocuments[skip];
+                }
+                skip++;
+            }
+            while (document < target) {
+                if (!next()) return false;
+            }
+            return true;
+        }
+
+        private int read() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[offset++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.effcode.clean.me.core.smtp;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelOption;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.pool.AbstractChannelPoolHandler;
+import io.netty.channel.pool.ChannelHealthChecker;
+import io.netty.channel.pool.FixedChannelPool;
+import io.netty.channel.socket.nio.NioSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.timeout.ReadTimeoutHandler;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking SMTP client keeping a bounded pool of persistent connections. Each connection carries an
+ * {@link SmtpSession} which performs the handshake once and then delivers consecutive messages, pipelining envelope
+ * commands when the server advertises PIPELINING. A connection whose transaction fails is closed rather than returned
+ * to the pool, connections idle for longer than the timeout are closed as well.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpSession
+ * @since 1.0
+ */
+public class SmtpClient implements Closeable {
+
+    private static final int MAX_LINE = 8192;
+    private final EventLoopGroup group;
+    private final FixedChannelPool pool;
+
+    /**
+     * Creates new SMTP client, connections are opened lazily on demand
+     *
+     * @param host           SMTP server host
+     * @param port           SMTP server port
+     * @param helo           client host name announced in EHLO
+     * @param maxConnections maximum number of pooled connections
+     * @param timeout        connect, read and connection acquire timeout in milliseconds
+     * @param pipelining     use command pipelining when advertised by server
+     */
+    public SmtpClient(final String host, final int port, final String helo, final int maxConnections,
+                      final long timeout, final boolean pipelining) {
+        this.group = new NioEventLoopGroup(Math.min(maxConnections, Runtime.getRuntime().availableProcessors()),
+                new DefaultThreadFactory("smtp-client", true));
+        final Bootstrap bootstrap = new Bootstrap().group(group).channel(NioSocketChannel.class)
+                .remoteAddress(host, port)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) timeout)
+                .option(ChannelOption.TCP_NODELAY, true);
+        this.pool = new FixedChannelPool(bootstrap, new AbstractChannelPoolHandler() {
+            @Override
+            public void channelCreated(final Channel channel) {
+                channel.pipeline().addLast(new ReadTimeoutHandler(timeout, TimeUnit.MILLISECONDS),
+                        new LineBasedFrameDecoder(MAX_LINE), new StringDecoder(StandardCharsets.UTF_8),
+                        new SmtpSession(helo, pipelining));
+            }
+        }, ChannelHealthChecker.ACTIVE, FixedChannelPool.AcquireTimeoutAction.FAIL, timeout, maxConnections,
+                Integer.MAX_VALUE);
+    }
+
+    /**
+     * Sends a message over a pooled connection
+     *
+     * @param from       envelope sender address
+     * @param recipients envelope recipient addresses
+     * @param content    message headers and body, line endings are normalized to CRLF
+     * @return completes once server accepts the message, or fails with {@link SmtpException}
+     */
+    public Mono<Void> send(final String from, final List<String> recipients, final byte[] content) {
+        return Mono.create(sink -> pool.acquire().addListener(acquired -> {
+            if (!acquired.isSuccess()) {
+                sink.error(acquired.cause());
+                return;
+            }
+            final Channel channel = (Channel) acquired.getNow();
+            channel.pipeline().get(SmtpSession.class).transaction(from, recipients, content)
+                    .whenComplete((v, e) -> {
+                        // a failed session may be left in the middle of a transaction, so it is never reused
+                        if (e != null) channel.close();
+                        pool.release(channel);
+                        if (e == null) sink.success();
+                        else sink.error(e instanceof CompletionException && e.getCause() != null ? e.getCause() : e);
+                    });
+        }));
+    }
+
+    /**
+     * Closes all pooled connections and stops the event loop
+     */
+    @Override
+    public void close() {
+        pool.close();
+        group.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+}
@@ -0,0 +1,33 @@
+package com.effcode.clean.me.core.smtp;
+
+/**
+ * SMTP client exception, raised when a server rejects a command or the session fails
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ * @since 1.0
+ */
+public class SmtpException extends RuntimeException {
+
+    private final int code;
+
+    public SmtpException(final String message) {
+        super(message);
+        this.code = -1;
+    }
+
+    public SmtpException(final SmtpReply reply) {
+        super("SMTP server rejected command: " + reply);
+        this.code = reply.getCode();
+    }
+
+    /**
+     * Accessor for the rejecting reply code
+     *
+     * @return reply code, or {@code -1} if session failed without a reply
+     */
+    public int getCode() {
+        return code;
+    }
+}
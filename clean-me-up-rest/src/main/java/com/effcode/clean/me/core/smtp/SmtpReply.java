@@ -0,0 +1,55 @@
+package com.effcode.clean.me.core.smtp;
+
+import java.util.List;
+
+/**
+ * SMTP server reply, a three digit reply code with one or more text lines
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ * @since 1.0
+ */
+public final class SmtpReply {
+
+    private final int code;
+    private final List<String> lines;
+
+    SmtpReply(final int code, final List<String> lines) {
+        this.code = code;
+        this.lines = lines;
+    }
+
+    /**
+     * Accessor for the reply code
+     *
+     * @return reply code
+     */
+    public int getCode() {
+        return code;
+    }
+
+    /**
+     * Accessor for the reply text lines, without reply codes
+     *
+     * @return reply text lines
+     */
+    public List<String> getLines() {
+        return lines;
+    }
+
+    /**
+     * Checks whether the reply code belongs to a class, such as {@code 2} for positive completion
+     *
+     * @param type reply code class, the first digit of reply code
+     * @return {@code true} if reply code belongs to the class, otherwise {@code false}
+     */
+    public boolean is(final int type) {
+        return code / 100 == type;
+    }
+
+    @Override
+    public String toString() {
+        return code + " " + String.join(" ", lines);
+    }
+}
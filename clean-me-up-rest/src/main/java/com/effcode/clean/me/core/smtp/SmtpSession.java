@@ -0,0 +1,253 @@
+package com.effcode.clean.me.core.smtp;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.SimpleChannelInboundHandler;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * SMTP session bound to a single pooled connection. Commands are written as exchanges, each expecting a number of
+ * replies, and replies are matched to exchanges in write order, which allows several commands to be pipelined in one
+ * write. Exchange state is confined to the channel event loop. The session is ready once the server greeting and
+ * EHLO handshake complete, after which it carries any number of consecutive mail transactions.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ * @since 1.0
+ */
+final class SmtpSession extends SimpleChannelInboundHandler<String> {
+
+    private static final String CRLF = "\r\n";
+    private final Deque<Exchange> exchanges = new ArrayDeque<>();
+    private final List<String> lines = new ArrayList<>();
+    private final CompletableFuture<Boolean> ready;
+    private Channel channel;
+
+    /**
+     * Creates new session awaiting server greeting
+     *
+     * @param helo       client host name announced in EHLO
+     * @param pipelining use command pipelining when advertised by server
+     */
+    SmtpSession(final String helo, final boolean pipelining) {
+        final Exchange greeting = new Exchange(1);
+        exchanges.add(greeting);
+        ready = greeting.future
+                .thenCompose(replies -> {
+                    expect(replies.get(0), 2);
+                    return exchange("EHLO " + helo, 1);
+                })
+                .thenCompose(replies -> {
+                    final SmtpReply reply = replies.get(0);
+                    if (reply.is(2)) {
+                        return CompletableFuture.completedFuture(pipelining && reply.getLines().stream()
+                                .anyMatch(line -> line.trim().equalsIgnoreCase("PIPELINING")));
+                    }
+                    // servers not supporting ESMTP are greeted again with plain HELO
+                    return exchange("HELO " + helo, 1).thenApply(r -> {
+                        expect(r.get(0), 2);
+                        return false;
+                    });
+                });
+    }
+
+    /**
+     * Performs a mail transaction once session is ready. With pipelining the envelope commands and DATA are written
+     * together, otherwise each command awaits its reply before the next one is written. Any rejected command fails
+     * the transaction, and the connection must then be discarded so an open transaction is never completed.
+     *
+     * @param from       envelope sender address
+     * @param recipients envelope recipient addresses
+     * @param content    message headers and body
+     * @return future completed when server accepts the message
+     */
+    CompletableFuture<Void> transaction(final String from, final List<String> recipients, final byte[] content) {
+        return ready.thenCompose(pipelining -> {
+            CompletableFuture<?> envelope;
+            if (pipelining) {
+                final StringBuilder commands = new StringBuilder("MAIL FROM:<").append(from).append('>').append(CRLF);
+                for (final String recipient : recipients) {
+                    commands.append("RCPT TO:<").append(recipient).append('>').append(CRLF);
+                }
+                commands.append("DATA").append(CRLF);
+                envelope = exchange(Unpooled.wrappedBuffer(commands.toString().getBytes(StandardCharsets.UTF_8)),
+                        recipients.size() + 2).thenAccept(replies -> {
+                    for (int i = 0; i < replies.size() - 1; i++) expect(replies.get(i), 2);
+                    expect(replies.get(replies.size() - 1), 3);
+                });
+            } else {
+                envelope = command("MAIL FROM:<" + from + ">", 2);
+                for (final String recipient : recipients) {
+                    envelope = envelope.thenCompose(v -> command("RCPT TO:<" + recipient + ">", 2));
+                }
+                envelope = envelope.thenCompose(v -> command("DATA", 3));
+            }
+            return envelope.thenCompose(v -> exchange(encode(content), 1))
+                    .thenAccept(replies -> expect(replies.get(0), 2));
+        });
+    }
+
+    @Override
+    public void handlerAdded(final ChannelHandlerContext ctx) {
+        channel = ctx.channel();
+    }
+
+    @Override
+    protected void channelRead0(final ChannelHandlerContext ctx, final String line) {
+        if (line.length() < 3) {
+            fail(new SmtpException("Malformed SMTP reply: " + line));
+            return;
+        }
+        lines.add(line.length() > 4 ? line.substring(4) : "");
+        // a hyphen after reply code marks a continued multiline reply
+        if (line.length() > 3 && line.charAt(3) == '-') return;
+        final SmtpReply reply;
+        try {
+            reply = new SmtpReply(Integer.parseInt(line.substring(0, 3)), new ArrayList<>(lines));
+        } catch (final NumberFormatException e) {
+            fail(new SmtpException("Malformed SMTP reply: " + line));
+            return;
+        } finally {
+            lines.clear();
+        }
+        final Exchange exchange = exchanges.peek();
+        if (exchange == null) {
+            // unsolicited replies announce the server closing the session
+            fail(new SmtpException(reply));
+            return;
+        }
+        exchange.replies.add(reply);
+        if (exchange.replies.size() == exchange.expected) {
+            exchanges.poll();
+            exchange.future.complete(exchange.replies);
+        }
+    }
+
+    @Override
+    public void channelInactive(final ChannelHandlerContext ctx) {
+        fail(new SmtpException("SMTP connection closed"));
+    }
+
+    @Override
+    public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+        fail(cause);
+    }
+
+    /**
+     * Writes a single command awaiting one reply of the expected class
+     *
+     * @param command command line without line terminator
+     * @param type    expected reply code class
+     * @return future completed with the reply
+     */
+    private CompletableFuture<SmtpReply> command(final String command, final int type) {
+        return exchange(command, 1).thenApply(replies -> expect(replies.get(0), type));
+    }
+
+    private CompletableFuture<List<SmtpReply>> exchange(final String command, final int expected) {
+        return exchange(Unpooled.wrappedBuffer((command + CRLF).getBytes(StandardCharsets.UTF_8)), expected);
+    }
+
+    /**
+     * Writes commands on the event loop and registers an exchange awaiting their replies
+     *
+     * @param commands encoded commands
+     * @param expected number of expected replies
+     * @return future completed with the replies in command order
+     */
+    private CompletableFuture<List<SmtpReply>> exchange(final ByteBuf commands, final int expected) {
+        final Exchange exchange = new Exchange(expected);
+        if (channel.eventLoop().inEventLoop()) write(exchange, commands);
+        else channel.eventLoop().execute(() -> write(exchange, commands));
+        return exchange.future;
+    }
+
+    private void write(final Exchange exchange, final ByteBuf commands) {
+        if (!channel.isActive()) {
+            commands.release();
+            exchange.future.completeExceptionally(new SmtpException("SMTP connection closed"));
+            return;
+        }
+        exchanges.add(exchange);
+        channel.writeAndFlush(commands, channel.voidPromise());
+    }
+
+    /**
+     * Fails all pending exchanges and closes the connection
+     *
+     * @param cause failure cause
+     */
+    private void fail(final Throwable cause) {
+        Exchange exchange;
+        while ((exchange = exchanges.poll()) != null) exchange.future.completeExceptionally(cause);
+        channel.close();
+    }
+
+    /**
+     * Encodes message content as DATA payload, normalizing line endings to CRLF, dot-stuffing lines starting with a
+     * dot and appending the terminating {@code <CRLF>.<CRLF>}
+     *
+     * @param content message headers and body
+     * @return encoded payload
+     */
+    private ByteBuf encode(final byte[] content) {
+        final ByteBuf buffer = channel.alloc().buffer(content.length + (content.length >> 6) + 5);
+        boolean start = true;
+        int from = 0;
+        for (int i = 0; i < content.length; i++) {
+            final byte b = content[i];
+            if (b == '\r' || b == '\n') {
+                buffer.writeBytes(content, from, i - from).writeByte('\r').writeByte('\n');
+                if (b == '\r' && i + 1 < content.length && content[i + 1] == '\n') i++;
+                from = i + 1;
+                start = true;
+            } else {
+                if (start && b == '.') {
+                    buffer.writeBytes(content, from, i - from).writeByte('.');
+                    from = i;
+                }
+                start = false;
+            }
+        }
+        buffer.writeBytes(content, from, content.length - from);
+        if (!start) buffer.writeByte('\r').writeByte('\n');
+        return buffer.writeByte('.').writeByte('\r').writeByte('\n');
+    }
+
+    /**
+     * Checks a reply belongs to the expected code class
+     *
+     * @param reply server reply
+     * @param type  expected reply code class
+     * @return the reply
+     * @throws SmtpException if reply belongs to another class
+     */
+    private static SmtpReply expect(final SmtpReply reply, final int type) throws SmtpException {
+        if (!reply.is(type)) throw new SmtpException(reply);
+        return reply;
+    }
+
+    /**
+     * Written commands awaiting their replies
+     */
+    private static final class Exchange {
+
+        private final int expected;
+        private final List<SmtpReply> replies;
+        private final CompletableFuture<List<SmtpReply>> future = new CompletableFuture<>();
+
+        private Exchange(final int expected) {
+            this.expected = expected;
+            this.replies = new ArrayList<>(expected);
+        }
+    }
+}
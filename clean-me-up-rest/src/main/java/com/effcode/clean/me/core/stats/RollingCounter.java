@@ -0,0 +1,107 @@
+package com.effcode.clean.me.core.stats;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Concurrent counter of events per fixed-length time slot over a sliding window of recent slots. Slots are hashed by
+ * time into a fixed ring of buckets, each holding a striped {@link LongAdder}, so counting is lock-free and contended
+ * increments do not share a cache line. A bucket still holding an expired slot when its slot comes around again is
+ * replaced by a single compare-and-set, and reading the window visits each bucket once, so memory and read cost depend
+ * on the window size only, never on the number of events counted.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class RollingCounter {
+
+    private final long slot;
+    private final AtomicReferenceArray<Bucket> buckets;
+
+    /**
+     * Creates new rolling counter
+     *
+     * @param slot length of a time slot in milliseconds
+     * @param size number of time slots in the window
+     */
+    public RollingCounter(final long slot, final int size) {
+        if (slot <= 0) throw new IllegalArgumentException("Slot length must be positive: " + slot);
+        if (size <= 0) throw new IllegalArgumentException("Window size must be positive: " + size);
+        this.slot = slot;
+        this.buckets = new AtomicReferenceArray<>(size);
+    }
+
+    /**
+     * Counts an event in the slot of specified time
+     *
+     * @param time event time in epoch milliseconds
+     */
+    public void increment(final long time) {
+        final long index = time / slot;
+        final int i = (int) (index % buckets.length());
+        while (true) {
+            final Bucket bucket = buckets.get(i);
+            if (bucket != null && bucket.index == index) {
+                bucket.count.increment();
+                return;
+            }
+            // events of an older slot still being counted into a replaced bucket are lost, as the slot has expired
+            if (bucket != null && bucket.index > index) return;
+            final Bucket created = new Bucket(index);
+            if (buckets.compareAndSet(i, bucket, created)) {
+                created.count.increment();
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reads the event counts of the window ending with the slot of specified time, slots without events count zero
+     *
+     * @param time window end time in epoch milliseconds
+     * @return event counts per slot, oldest first
+     */
+    public long[] counts(final long time) {
+        final int size = buckets.length();
+        final long last = time / slot;
+        final long[] counts = new long[size];
+        for (int n = 0; n < size; n++) {
+            final long index = last - size + 1 + n;
+            final Bucket bucket = buckets.get((int) (index % size));
+            if (bucket != null && bucket.index == index) counts[n] = bucket.count.sum();
+        }
+        return counts;
+    }
+
+    /**
+     * Accessor for the length of a time slot in milliseconds
+     *
+     * @return slot length
+     */
+    public long getSlot() {
+        return slot;
+    }
+
+    /**
+     * Accessor for the number of time slots in the window
+     *
+     * @return window size
+     */
+    public int getSize() {
+        return buckets.length();
+    }
+
+    /**
+     * Event count of a single time slot
+     */
+    private static final class Bucket {
+
+        private final long index;
+        private final LongAdder count = new LongAdder();
+
+        private Bucket(final long index) {
+            this.index = index;
+        }
+    }
+}
@@ -0,0 +1,192 @@
+package com.effcode.clean.me.core.storage;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Reader of column files written by {@link ColumnWriter}. Opening a column file reads only its footer and maps each
+ * column into memory, values are read in place on demand, so a column file is readable right after opening,
+ * regardless of its size, and rows are materialized only as they are accessed. Each column is mapped separately and
+ * must therefore not exceed 2 GB.
+ * <p>
+ * Reads use absolute positions of the mapped columns only, so a reader can be used by concurrent threads.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ColumnWriter
+ * @see ColumnType
+ * @since 1.0
+ */
+public class ColumnReader implements Closeable {
+
+    private static final int TRAILER = 12;
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, Table> tables = new HashMap<>();
+
+    /**
+     * Opens a column file, mapping its columns
+     *
+     * @param file column file path
+     * @throws IOException if column file can not be read or is not a complete column file
+     */
+    public ColumnReader(final Path file) throws IOException {
+        this.file = file;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        try {
+            final long size = channel.size();
+            if (size < TRAILER) throw new IOException("Column file too short: " + file);
+            final ByteBuffer trailer = read(size - TRAILER, TRAILER);
+            final long footer = trailer.getLong();
+            if (trailer.getInt() != ColumnWriter.MAGIC || footer < 0 || footer > size - TRAILER) {
+                throw new IOException("Not a complete column file: " + file);
+            }
+            final DataInputStream in = new DataInputStream(new ByteArrayInputStream(
+                    read(footer, (int) (size - TRAILER - footer)).array()));
+            if (in.readInt() != ColumnWriter.VERSION) throw new IOException("Unsupported column file: " + file);
+            final int count = in.readInt();
+            for (int t = 0; t < count; t++) {
+                final String name = in.readUTF();
+                final long rows = in.readLong();
+                if (rows > Integer.MAX_VALUE / 8) throw new IOException("Table too large to map: " + file);
+                final Column[] columns = new Column[in.readInt()];
+                for (int c = 0; c < columns.length; c++) {
+                    final ColumnType type = ColumnType.values()[in.readByte()];
+                    final long offset = in.readLong();
+                    final long length = in.readLong();
+                    if (length > Integer.MAX_VALUE) throw new IOException("Column too large to map: " + file);
+                    columns[c] = new Column(channel.map(FileChannel.MapMode.READ_ONLY, offset, length),
+                            ColumnType.STRING.is(type) ? rows * 8 : 0);
+                }
+                tables.put(name, new Table((int) rows, columns));
+            }
+        } catch (final IOException | RuntimeException e) {
+            channel.close();
+            throw e instanceof IOException ? (IOException) e : new IOException("Corrupt column file: " + file, e);
+        }
+    }
+
+    /**
+     * Looks up a table by name
+     *
+     * @param name table name
+     * @return table, or {@code null} if the column file holds no such table
+     */
+    public Table table(final String name) {
+        return tables.get(name);
+    }
+
+    /**
+     * Accessor for the column file path
+     *
+     * @return column file path
+     */
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Closes the column file, mapped columns stay readable until garbage collected
+     *
+     * @throws IOException if column file can not be closed
+     */
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private ByteBuffer read(final long position, final int length) throws IOException {
+        final ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("Unexpected end of column file: " + file);
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    /**
+     * Table of a column file, read in place from its mapped columns
+     */
+    public static final class Table {
+
+        private final int rows;
+        private final Column[] columns;
+
+        private Table(final int rows, final Column[] columns) {
+            this.rows = rows;
+            this.columns = columns;
+        }
+
+        /**
+         * Accessor for the number of table rows
+         *
+         * @return row count
+         */
+        public int getRows() {
+            return rows;
+        }
+
+        /**
+         * Accessor for the number of table columns
+         *
+         * @return column count
+         */
+        public int getColumns() {
+            return columns.length;
+        }
+
+        /**
+         * Reads a value of a {@link ColumnType#LONG} column
+         *
+         * @param column column number
+         * @param row    row number
+         * @return column value
+         */
+        public long getLong(final int column, final int row) {
+            return columns[column].buffer.getLong(row * 8);
+        }
+
+        /**
+         * Reads a value of a {@link ColumnType#STRING} column
+         *
+         * @param column column number
+         * @param row    row number
+         * @return column value, may be {@code null}
+         */
+        public String getString(final int column, final int row) {
+            final Column c = columns[column];
+            final long end = c.buffer.getLong(row * 8);
+            if (end < 0) return null;
+            final long start = row == 0 ? 0 : c.buffer.getLong((row - 1) * 8) & Long.MAX_VALUE;
+            final ByteBuffer bytes = c.buffer.duplicate();
+            bytes.limit((int) (c.data + end)).position((int) (c.data + start));
+            return StandardCharsets.UTF_8.decode(bytes).toString();
+        }
+    }
+
+    /**
+     * Mapped column, for string columns the string bytes follow the index of end offsets
+     */
+    private static final class Column {
+
+        private final MappedByteBuffer buffer;
+        private final long data;
+
+        private Column(final MappedByteBuffer buffer, final long data) {
+            this.buffer = buffer;
+            this.data = data;
+        }
+    }
+}
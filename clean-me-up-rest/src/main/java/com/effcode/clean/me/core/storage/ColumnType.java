@@ -0,0 +1,26 @@
+package com.effcode.clean.me.core.storage;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Column file value type enumeration set, designates how the values of a column are laid out
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see ColumnWriter
+ * @since 1.0
+ */
+public enum ColumnType implements IEnum<ColumnType> {
+
+    /**
+     * Fixed-width column of 8 byte values, addressed directly by row
+     */
+    LONG,
+
+    /**
+     * Variable-width column of nullable UTF-8 strings, an index of 8 byte end offsets followed by the string bytes
+     */
+    STRING
+
+}
@@ -0,0 +1,249 @@
+package com.effcode.clean.me.core.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Writer of column files, compact files of tables stored column by column, read back through memory mapping by
+ * {@link ColumnReader}. Rows are written one value at a time, in column order, and each column is spilled to a
+ * temporary file of its own while its table is written, so writing takes constant memory regardless of the number of
+ * rows. Once a table ends its columns are appended to the column file one after another.
+ * <p>
+ * The file ends with a footer listing the tables and the offsets of their columns, followed by the footer offset and
+ * a magic number. The file is written under a temporary name and atomically renamed once forced to storage on
+ * {@link #commit()}, so a column file is either complete or absent.
+ * <p>
+ * Fixed-width {@link ColumnType#LONG} values are stored as 8 bytes each. Variable-width {@link ColumnType#STRING}
+ * values are stored as an index of 8 byte end offsets, with the sign bit set for {@code null} values, followed by the
+ * UTF-8 bytes of all values.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ColumnReader
+ * @see ColumnType
+ * @since 1.0
+ */
+public class ColumnWriter implements Closeable {
+
+    static final int MAGIC = 0x434F4C46;
+    static final int VERSION = 1;
+    private final Path target;
+    private final Path temporary;
+    private final FileChannel channel;
+    private final List<Table> tables = new ArrayList<>();
+    private Table table;
+    private boolean committed;
+
+    /**
+     * Creates new column file writer
+     *
+     * @param target column file path, replaced on commit if it exists
+     * @throws IOException if temporary file can not be created
+     */
+    public ColumnWriter(final Path target) throws IOException {
+        this.target = target;
+        this.temporary = target.resolveSibling(target.getFileName() + ".tmp");
+        this.channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+    }
+
+    /**
+     * Begins a table, the previous table must have ended
+     *
+     * @param name  table name
+     * @param types column types
+     * @throws IOException if column files can not be created
+     */
+    public void begin(final String name, final ColumnType... types) throws IOException {
+        if (table != null) throw new IllegalStateException("Table not ended: " + table.name);
+        table = new Table(name, types);
+    }
+
+    /**
+     * Writes the next value of current row to a {@link ColumnType#LONG} column
+     *
+     * @param value column value
+     * @throws IOException if value can not be written
+     */
+    public void writeLong(final long value) throws IOException {
+        column(ColumnType.LONG).index.writeLong(value);
+        table.advance();
+    }
+
+    /**
+     * Writes the next value of current row to a {@link ColumnType#STRING} column
+     *
+     * @param value column value, may be {@code null}
+     * @throws IOException if value can not be written
+     */
+    public void writeString(final String value) throws IOException {
+        final Column column = column(ColumnType.STRING);
+        if (value == null) {
+            column.index.writeLong(column.size | Long.MIN_VALUE);
+        } else {
+            final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            column.data.write(bytes);
+            column.size += bytes.length;
+            column.index.writeLong(column.size);
+        }
+        table.advance();
+    }
+
+    /**
+     * Ends current table, appending its columns to the column file
+     *
+     * @throws IOException if columns can not be appended
+     */
+    public void end() throws IOException {
+        if (table == null) throw new IllegalStateException("No table begun");
+        if (table.next != 0) throw new IllegalStateException("Row not complete in table: " + table.name);
+        for (final Column column : table.columns) {
+            column.close();
+            column.offset = channel.position();
+            append(column.indexFile);
+            if (column.dataFile != null) append(column.dataFile);
+            column.length = channel.position() - column.offset;
+            column.delete();
+        }
+        tables.add(table);
+        table = null;
+    }
+
+    /**
+     * Writes the footer, forces the column file to storage and renames it to its target path
+     *
+     * @throws IOException if column file can not be completed
+     */
+    public void commit() throws IOException {
+        if (table != null) throw new IllegalStateException("Table not ended: " + table.name);
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final DataOutputStream footer = new DataOutputStream(bytes);
+        footer.writeInt(VERSION);
+        footer.writeInt(tables.size());
+        for (final Table t : tables) {
+            footer.writeUTF(t.name);
+            footer.writeLong(t.rows);
+            footer.writeInt(t.columns.length);
+            for (final Column column : t.columns) {
+                footer.writeByte(column.type.ordinal());
+                footer.writeLong(column.offset);
+                footer.writeLong(column.length);
+            }
+        }
+        final long position = channel.position();
+        footer.writeLong(position);
+        footer.writeInt(MAGIC);
+        final ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        while (buffer.hasRemaining()) channel.write(buffer);
+        channel.force(true);
+        channel.close();
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        committed = true;
+    }
+
+    /**
+     * Closes the writer, discarding the column file unless committed
+     *
+     * @throws IOException if temporary files can not be deleted
+     */
+    @Override
+    public void close() throws IOException {
+        if (committed) return;
+        channel.close();
+        if (table != null) {
+            for (final Column column : table.columns) {
+                column.close();
+                column.delete();
+            }
+        }
+        Files.deleteIfExists(temporary);
+    }
+
+    private Column column(final ColumnType type) {
+        if (table == null) throw new IllegalStateException("No table begun");
+        final Column column = table.columns[table.next];
+        if (column.type != type) throw new IllegalStateException("Column " + table.next + " is of type " +
+                column.type + " in table: " + table.name);
+        return column;
+    }
+
+    private void append(final Path file) throws IOException {
+        try (FileChannel source = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = 0;
+            final long size = source.size();
+            while (position < size) position += source.transferTo(position, size - position, channel);
+        }
+    }
+
+    /**
+     * Table being written, or written already, with its columns
+     */
+    private final class Table {
+
+        private final String name;
+        private final Column[] columns;
+        private long rows;
+        private int next;
+
+        private Table(final String name, final ColumnType... types) throws IOException {
+            this.name = name;
+            this.columns = new Column[types.length];
+            for (int i = 0; i < types.length; i++) {
+                columns[i] = new Column(types[i], temporary.resolveSibling(temporary.getFileName() + "." +
+                        tables.size() + "." + i));
+            }
+        }
+
+        private void advance() {
+            if (++next < columns.length) return;
+            next = 0;
+            rows++;
+        }
+    }
+
+    /**
+     * Column being spilled to temporary files, its values or string index and its string bytes
+     */
+    private static final class Column {
+
+        private final ColumnType type;
+        private final Path indexFile;
+        private final Path dataFile;
+        private final DataOutputStream index;
+        private final DataOutputStream data;
+        private long size;
+        private long offset;
+        private long length;
+
+        private Column(final ColumnType type, final Path file) throws IOException {
+            this.type = type;
+            this.indexFile = file.resolveSibling(file.getFileName() + ".index");
+            this.index = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(indexFile)));
+            this.dataFile = ColumnType.STRING.is(type) ? file.resolveSibling(file.getFileName() + ".data") : null;
+            this.data = dataFile == null ? null
+                    : new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(dataFile)));
+        }
+
+        private void close() throws IOException {
+            index.close();
+            if (data != null) data.close();
+        }
+
+        private void delete() throws IOException {
+            Files.deleteIfExists(indexFile);
+            if (dataFile != null) Files.deleteIfExists(dataFile);
+        }
+    }
+}
@@ -0,0 +1,35 @@
+package com.effcode.clean.me.core.storage;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Segment log durability policy enumeration set, designates when appended records are forced to storage device
+ * and therefore when an append is acknowledged
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see SegmentLog
+ * @since 1.0
+ */
+public enum FsyncPolicy implements IEnum<FsyncPolicy> {
+
+    /**
+     * Never force explicitly, appends are acknowledged once written to the mapped page cache. Survives process
+     * crashes but not operating system crashes or power loss.
+     */
+    NONE,
+
+    /**
+     * Group commit delayed to gather appends, a force starts at most the flush interval after the oldest waiting
+     * append, or as soon as as many appends wait as were acknowledged by the previous force
+     */
+    BATCH,
+
+    /**
+     * Group commit as soon as possible, appends are acknowledged by a force started right after them. Appends
+     * arriving while a force is in progress share the next one.
+     */
+    ALWAYS
+
+}
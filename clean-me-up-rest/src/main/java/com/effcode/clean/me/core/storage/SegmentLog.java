@@ -0,0 +1,640 @@
+package com.effcode.clean.me.core.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongConsumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only log of fixed-size, memory-mapped segment files. Records are framed with length and CRC32 checksum, so a
+ * torn tail write is detected and truncated on open. Durability follows the configured {@link FsyncPolicy}, where
+ * concurrent appends waiting for a force are acknowledged together by a single background flusher (group commit).
+ * With {@link FsyncPolicy#BATCH} the flusher delays a force by up to the flush interval from the oldest waiting
+ * append, to gather more appends, but starts it as soon as as many appends wait as the previous force acknowledged,
+ * so writers awaiting their acknowledgements are never held for the whole interval once all of them have appended.
+ * <p>
+ * Records are addressed by a {@code long} composed of segment identifier in the high and record offset within
+ * segment in the low 32 bits. Written records can be read back in place through the mapped segments, and sealed
+ * segments can be rewritten to drop or replace records, keeping their place in the log.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see FsyncPolicy
+ * @since 1.0
+ */
+public class SegmentLog implements Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SegmentLog.class);
+    private static final int HEADER = 8;
+    private final Path directory;
+    private final String name;
+    private final int segmentSize;
+    private final FsyncPolicy policy;
+    private final long flushInterval;
+    private final Pattern pattern;
+    private final ConcurrentNavigableMap<Integer, Segment> segments = new ConcurrentSkipListMap<>();
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final Object signal = new Object();
+    private Segment active;
+    private long written;
+    private long appends;
+    private volatile long flushed;
+    private long acknowledged;
+    private volatile boolean running;
+    private Thread flusher;
+
+    /**
+     * Creates new segment log
+     *
+     * @param directory     directory holding segment files
+     * @param name          segment file name prefix
+     * @param segmentSize   fixed size of each segment file in bytes
+     * @param policy        durability policy
+     * @param flushInterval group commit interval in milliseconds, used with {@link FsyncPolicy#BATCH}
+     */
+    public SegmentLog(final Path directory, final String name, final int segmentSize, final FsyncPolicy policy,
+                      final long flushInterval) {
+        this.directory = directory;
+        this.name = name;
+        this.segmentSize = segmentSize;
+        this.policy = policy;
+        this.flushInterval = flushInterval;
+        this.pattern = Pattern.compile(Pattern.quote(name) + "-(\\d{10})\\.log");
+    }
+
+    /**
+     * Composes a record address from segment identifier and record offset
+     *
+     * @param segment segment identifier
+     * @param offset  record offset within segment
+     * @return record address
+     */
+    public static long address(final int segment, final int offset) {
+        return ((long) segment << 32) | (offset & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Extracts segment identifier from a record address
+     *
+     * @param address record address
+     * @return segment identifier
+     */
+    public static int segment(final long address) {
+        return (int) (address >>> 32);
+    }
+
+    /**
+     * Opens the log, maps existing segment files and visits every valid record in append order. Appending resumes
+     * after the last valid record, anything past it is considered a torn write and discarded.
+     *
+     * @param visitor visitor of existing records
+     * @throws IOException if segment files can not be read or created
+     */
+    public synchronized void open(final Visitor visitor) throws IOException {
+        Files.createDirectories(directory);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : (Iterable<Path>) files::iterator) {
+                final Matcher matcher = pattern.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    final int id = Integer.parseInt(matcher.group(1));
+                    segments.put(id, new Segment(id, file));
+                }
+            }
+        }
+        for (final Segment segment : segments.values()) {
+            segment.position = scan(segment, visitor);
+        }
+        if (segments.isEmpty()) {
+            active = create(0);
+        } else {
+            active = segments.lastEntry().getValue();
+            active.truncate();
+        }
+        if (!FsyncPolicy.NONE.is(policy)) {
+            running = true;
+            flusher = new Thread(this::flush, name + "-flusher");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+        LOG.info("Opened {} log with {} segments in {}", name, segments.size(), directory.toAbsolutePath());
+    }
+
+    /**
+     * Appends a record to the log. Completes with the record address once the record is durable according to the
+     * configured {@link FsyncPolicy}.
+     *
+     * @param record record payload
+     * @return appended record address
+     * @throws UncheckedIOException if a new segment file can not be created
+     */
+    public Mono<Long> append(final byte[] record) throws UncheckedIOException {
+        return append(record, null);
+    }
+
+    /**
+     * Appends a record to the log. Completes with the record address once the record is durable according to the
+     * configured {@link FsyncPolicy}. The listener is notified of the record address as soon as the record is written,
+     * while still holding the log lock, before any subsequent append or segment roll.
+     *
+     * @param record   record payload
+     * @param listener record address listener, may be {@code null}
+     * @return appended record address
+     * @throws UncheckedIOException if a new segment file can not be created
+     */
+    public Mono<Long> append(final byte[] record, final LongConsumer listener) throws UncheckedIOException {
+        return Mono.create(sink -> {
+            final long address;
+            synchronized (this) {
+                final int size = HEADER + record.length;
+                if (size > segmentSize) {
+                    sink.error(new IllegalArgumentException("Record exceeds segment size: " + record.length));
+                    return;
+                }
+                if (active.position + size > segmentSize) roll();
+                final CRC32 crc = new CRC32();
+                crc.update(record, 0, record.length);
+                final ByteBuffer buffer = active.buffer.duplicate();
+                buffer.position(active.position);
+                buffer.putInt(record.length).putInt((int) crc.getValue()).put(record);
+                address = address(active.id, active.position);
+                active.position += size;
+                written += size;
+                if (listener != null) listener.accept(address);
+                if (!FsyncPolicy.NONE.is(policy)) {
+                    waiters.add(new Waiter(written, address, sink));
+                    appends++;
+                }
+            }
+            if (FsyncPolicy.NONE.is(policy)) sink.success(address);
+            else {
+                synchronized (signal) {
+                    signal.notify();
+                }
+            }
+        });
+    }
+
+    /**
+     * Accessor for the identifier of the segment currently appended to
+     *
+     * @return active segment identifier
+     */
+    public synchronized int getActiveSegment() {
+        return active.id;
+    }
+
+    /**
+     * Accessor for the identifiers of all segments, in append order
+     *
+     * @return segment identifiers
+     */
+    public Iterable<Integer> getSegments() {
+        return segments.keySet();
+    }
+
+    /**
+     * Deletes a segment file, the active segment is never deleted
+     *
+     * @param id segment identifier
+     * @return {@code true} if segment was deleted, otherwise {@code false}
+     */
+    public synchronized boolean delete(final int id) {
+        if (active.id == id) return false;
+        final Segment segment = segments.remove(id);
+        if (segment == null) return false;
+        try {
+            segment.channel.close();
+            Files.deleteIfExists(segment.path);
+            LOG.debug("Deleted {} log segment {}", name, segment.path.getFileName());
+            return true;
+        } catch (final IOException e) {
+            LOG.error("Failed to delete " + name + " log segment " + segment.path, e);
+            return false;
+        }
+    }
+
+    /**
+     * Reads a record in place. Records of the active segment are readable as soon as they are written.
+     *
+     * @param address record address
+     * @return read only record payload, or {@code null} if no record is written at the address
+     */
+    public ByteBuffer read(final long address) {
+        final Segment segment = segments.get(segment(address));
+        final int offset = (int) address;
+        if (segment == null || offset < 0 || offset >= segment.position) return null;
+        final ByteBuffer buffer = segment.buffer.asReadOnlyBuffer();
+        buffer.limit(offset + HEADER + buffer.getInt(offset)).position(offset + HEADER);
+        return buffer.slice();
+    }
+
+    /**
+     * Finds the address of the record following a record, continuing in the next segment at segment end
+     *
+     * @param address record address
+     * @return address of the following record, or {@code -1} if there is none
+     */
+    public long next(final long address) {
+        final int id = segment(address);
+        final Segment segment = segments.get(id);
+        if (segment != null) {
+            final int offset = (int) address + HEADER + segment.buffer.getInt((int) address);
+            if (offset < segment.position) return address(id, offset);
+        }
+        return start(segments.higherKey(id));
+    }
+
+    /**
+     * Finds the address of the first record in the log
+     *
+     * @return address of the first record, or {@code -1} if the log is empty
+     */
+    public long first() {
+        return segments.isEmpty() ? -1 : start(segments.firstKey());
+    }
+
+    /**
+     * Prepares a rewrite of a sealed segment into a new file, where each record is kept, replaced or dropped. The
+     * segment stays readable unchanged until the rewrite is committed, so records may be rewritten concurrently with
+     * appends and reads.
+     *
+     * @param id       sealed segment identifier
+     * @param rewriter record rewriter
+     * @return prepared rewrite
+     * @throws IOException if rewritten segment file can not be created
+     */
+    public Rewrite rewrite(final int id, final Rewriter rewriter) throws IOException {
+        final Segment segment;
+        synchronized (this) {
+            segment = segments.get(id);
+            if (segment == null || segment == active) {
+                throw new IllegalArgumentException("Not a sealed " + name + " log segment: " + id);
+            }
+        }
+        final Path path = segment.path.resolveSibling(segment.path.getFileName() + ".tmp");
+        final FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        final Segment rewritten = new Segment(id, path, channel);
+        final Rewrite rewrite = new Rewrite(segment, rewritten);
+        try {
+            scan(segment, (address, record) -> {
+                final byte[] replacement = rewriter.rewrite(address, record);
+                if (replacement == null) return;
+                if (rewritten.position + HEADER + replacement.length > segmentSize) {
+                    throw new IllegalStateException("Rewritten records exceed segment size: " + id);
+                }
+                final CRC32 crc = new CRC32();
+                crc.update(replacement, 0, replacement.length);
+                final ByteBuffer buffer = rewritten.buffer.duplicate();
+                buffer.position(rewritten.position);
+                buffer.putInt(replacement.length).putInt((int) crc.getValue()).put(replacement);
+                rewritten.position += HEADER + replacement.length;
+            });
+            rewritten.buffer.force();
+        } catch (final RuntimeException e) {
+            rewrite.abort();
+            throw e;
+        }
+        return rewrite;
+    }
+
+    /**
+     * Stops the flusher, forces pending records and closes segment files
+     */
+    @Override
+    public void close() {
+        running = false;
+        if (flusher != null) {
+            synchronized (signal) {
+                signal.notify();
+            }
+            try {
+                flusher.join();
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            force();
+        }
+        synchronized (this) {
+            for (final Segment segment : segments.values()) {
+                try {
+                    segment.channel.close();
+                } catch (final IOException e) {
+                    LOG.error("Failed to close " + name + " log segment " + segment.path, e);
+                }
+            }
+        }
+    }
+
+    /**
+     * Scans a segment visiting each valid record
+     *
+     * @param segment segment to scan
+     * @param visitor visitor of valid records
+     * @return offset right after last valid record
+     */
+    private int scan(final Segment segment, final Visitor visitor) {
+        final ByteBuffer buffer = segment.buffer.duplicate();
+        int position = 0;
+        while (position + HEADER <= segmentSize) {
+            final int length = buffer.getInt(position);
+            if (length <= 0 || position + HEADER + length > segmentSize) break;
+            buffer.limit(position + HEADER + length).position(position + HEADER);
+            final ByteBuffer record = buffer.slice();
+            buffer.limit(segmentSize);
+            final CRC32 crc = new CRC32();
+            crc.update(record.duplicate());
+            if ((int) crc.getValue() != buffer.getInt(position + 4)) break;
+            visitor.visit(address(segment.id, position), record.asReadOnlyBuffer());
+            position += HEADER + length;
+        }
+        return position;
+    }
+
+    /**
+     * Seals the active segment and continues appending to a newly created one
+     */
+    private void roll() {
+        if (!FsyncPolicy.NONE.is(policy)) active.buffer.force();
+        try {
+            active = create(active.id + 1);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Finds the address of the first record in a segment or in any later segment
+     *
+     * @param id segment identifier, may be {@code null}
+     * @return record address, or {@code -1} if there is none
+     */
+    private long start(Integer id) {
+        for (; id != null; id = segments.higherKey(id)) {
+            final Segment segment = segments.get(id);
+            if (segment != null && segment.position > 0) return address(id, 0);
+        }
+        return -1;
+    }
+
+    /**
+     * Creates and maps a new segment file
+     *
+     * @param id segment identifier
+     * @return created segment
+     * @throws IOException if segment file can not be created
+     */
+    private Segment create(final int id) throws IOException {
+        final Segment segment = new Segment(id, directory.resolve(String.format("%s-%010d.log", name, id)));
+        segments.put(id, segment);
+        return segment;
+    }
+
+    /**
+     * Flusher thread loop, performs group commits until log is closed. The flusher sleeps while no append waits, with
+     * {@link FsyncPolicy#BATCH} it then lingers until the flush interval elapsed since the oldest waiting append, or
+     * until as many appends wait as were acknowledged by the previous force.
+     */
+    private void flush() {
+        final long interval = TimeUnit.MILLISECONDS.toNanos(flushInterval);
+        long batch = 1;
+        while (running) {
+            try {
+                synchronized (signal) {
+                    while (running && waiters.isEmpty()) signal.wait();
+                    final Waiter oldest = waiters.peek();
+                    if (FsyncPolicy.BATCH.is(policy) && oldest != null) {
+                        final long deadline = oldest.time + interval;
+                        long remaining;
+                        while (running && pending() < batch && (remaining = deadline - System.nanoTime()) > 0) {
+                            TimeUnit.NANOSECONDS.timedWait(signal, remaining);
+                        }
+                    }
+                }
+                batch = Math.max(1, force());
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to force " + name + " log", e);
+            }
+        }
+    }
+
+    /**
+     * Counts appends waiting for a force
+     *
+     * @return waiting append count
+     */
+    private synchronized long pending() {
+        return appends - acknowledged;
+    }
+
+    /**
+     * Forces all records appended so far and acknowledges their waiting appends
+     *
+     * @return number of acknowledged appends
+     */
+    private long force() {
+        final long target;
+        final Segment segment;
+        synchronized (this) {
+            target = written;
+            segment = active;
+        }
+        if (target == flushed) return 0;
+        // sealed segments are forced when rolled, only the active one may hold unforced records
+        segment.buffer.force();
+        flushed = target;
+        long count = 0;
+        Waiter waiter;
+        while ((waiter = waiters.peek()) != null && waiter.mark <= target) {
+            waiters.poll();
+            waiter.sink.success(waiter.address);
+            count++;
+        }
+        synchronized (this) {
+            acknowledged += count;
+        }
+        return count;
+    }
+
+    /**
+     * Visitor of log records
+     */
+    @FunctionalInterface
+    public interface Visitor {
+
+        /**
+         * Visits a single record
+         *
+         * @param address record address
+         * @param record  read only record payload
+         */
+        void visit(long address, ByteBuffer record);
+    }
+
+    /**
+     * Rewriter of log records
+     */
+    @FunctionalInterface
+    public interface Rewriter {
+
+        /**
+         * Rewrites a single record
+         *
+         * @param address record address
+         * @param record  read only record payload
+         * @return payload to keep in place of the record, or {@code null} to drop it
+         */
+        byte[] rewrite(long address, ByteBuffer record);
+    }
+
+    /**
+     * Prepared segment rewrite, awaiting commit
+     */
+    public final class Rewrite {
+
+        private final Segment source;
+        private final Segment target;
+
+        private Rewrite(final Segment source, final Segment target) {
+            this.source = source;
+            this.target = target;
+        }
+
+        /**
+         * Replaces the segment with its rewritten file, or deletes the segment if no record was kept. Addresses of
+         * records in the segment are invalidated.
+         *
+         * @param visitor visitor of kept records at their new addresses
+         * @throws IOException if rewritten segment file can not be moved in place
+         */
+        public void commit(final Visitor visitor) throws IOException {
+            synchronized (SegmentLog.this) {
+                if (target.position == 0) {
+                    target.channel.close();
+                    Files.deleteIfExists(target.path);
+                    delete(source.id);
+                    return;
+                }
+                // the mapping follows the renamed file, so the rewritten segment is not mapped again
+                Files.move(target.path, source.path, StandardCopyOption.ATOMIC_MOVE,
+                        StandardCopyOption.REPLACE_EXISTING);
+                segments.put(source.id, new Segment(source.id, source.path, target));
+                source.channel.close();
+            }
+            scan(segments.get(source.id), visitor);
+        }
+
+        /**
+         * Discards the rewritten file, leaving the segment unchanged
+         */
+        public void abort() {
+            try {
+                target.channel.close();
+                Files.deleteIfExists(target.path);
+            } catch (final IOException e) {
+                LOG.error("Failed to discard rewritten " + name + " log segment " + target.path, e);
+            }
+        }
+
+        /**
+         * Accessor for the size of records kept by the rewrite
+         *
+         * @return kept bytes, including record framing
+         */
+        public int getKept() {
+            return target.position;
+        }
+
+        /**
+         * Accessor for the size of records in the segment before the rewrite
+         *
+         * @return original bytes, including record framing
+         */
+        public int getOriginal() {
+            return source.position;
+        }
+    }
+
+    /**
+     * Memory-mapped segment file
+     */
+    private final class Segment {
+
+        private final int id;
+        private final Path path;
+        private final FileChannel channel;
+        private final MappedByteBuffer buffer;
+        private volatile int position;
+
+        private Segment(final int id, final Path path) throws IOException {
+            this(id, path, FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE));
+        }
+
+        private Segment(final int id, final Path path, final FileChannel channel) throws IOException {
+            this.id = id;
+            this.path = path;
+            this.channel = channel;
+            this.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+
+        private Segment(final int id, final Path path, final Segment file) {
+            this.id = id;
+            this.path = path;
+            this.channel = file.channel;
+            this.buffer = file.buffer;
+            this.position = file.position;
+        }
+
+        /**
+         * Zeroes any bytes left after last valid record by a torn write, so they are never mistaken for records
+         */
+        private void truncate() {
+            if (position + 4 > segmentSize || buffer.getInt(position) == 0) return;
+            LOG.warn("Discarding torn {} log tail in {} at offset {}", name, path.getFileName(), position);
+            for (int i = position; i < segmentSize; i++) buffer.put(i, (byte) 0);
+            buffer.force();
+        }
+    }
+
+    /**
+     * Append waiting for a force covering its log mark
+     */
+    private static final class Waiter {
+
+        private final long mark;
+        private final long address;
+        private final MonoSink<Long> sink;
+        private final long time = System.nanoTime();
+
+        private Waiter(final long mark, final long address, final MonoSink<Long> sink) {
+            this.mark = mark;
+            this.address = address;
+            this.sink = sink;
+        }
+    }
+}
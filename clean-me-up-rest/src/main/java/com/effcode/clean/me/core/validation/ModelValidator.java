@@ -4,6 +4,7 @@ import com.effcode.clean.me.core.spec.IModel;
 import com.effcode.clean.me.core.spec.IValidator;
 
 import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
 import javax.validation.Validator;
 import java.util.Set;
 
@@ -20,6 +21,18 @@ import java.util.Set;
  */
 public final class ModelValidator<M extends IModel<M, ?>> implements IValidator<M> {
 
+    private static final Validator VALIDATOR = Validation.buildDefaultValidatorFactory().getValidator();
+
+    /**
+     * Provides the shared, thread-safe validator delegate instead of building a new validator factory per validation
+     *
+     * @return shared delegate validator
+     */
+    @Override
+    public Validator delegate() {
+        return VALIDATOR;
+    }
+
     @Override
     public Set<ConstraintViolation<M>> validate(final M target) {
         return delegate().validate(target);
@@ -0,0 +1,127 @@
+package com.effcode.clean.me.domain.cluster;
+
+import com.effcode.clean.me.core.cluster.HashRing;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.function.Function;
+
+/**
+ * Static cluster membership, partitioning users across the cluster nodes configured under {@code app.cluster}. Each
+ * user is owned by a single node, chosen by a {@link HashRing consistent hash ring} of user names, and all messages
+ * sent by a user are stored and delivered by its owner node. As every node is configured with the same members, all
+ * nodes agree on the owner of every user without coordination. Membership changes with a restart on the new
+ * configuration, moving only the users of the hash ranges taken over by added nodes or left by removed ones.
+ * <p>
+ * Internal node to node calls are authenticated by a secret shared by all nodes, which has no default, so a node
+ * refuses to start in cluster mode until a secret is configured. With cluster mode disabled the local node owns all
+ * users and internal calls are refused.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see HashRing
+ * @since 1.0
+ */
+@Component
+public class ClusterMembership {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterMembership.class);
+    // secret of the sample configuration shipped by earlier versions, publicly known and therefore refused
+    private static final String SAMPLE_SECRET = "^%C-L#u-s*";
+    private HashRing<String> ring;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Builds the hash ring of configured cluster nodes if cluster mode is enabled
+     *
+     * @throws IllegalStateException if the local node is not a configured cluster node, or no cluster secret is set
+     */
+    @PostConstruct
+    protected void start() {
+        final ApplicationProperties.Cluster cluster = properties.getCluster();
+        if (!cluster.isEnabled()) return;
+        if (!cluster.getNodes().containsKey(cluster.getNode())) {
+            throw new IllegalStateException("Local node " + cluster.getNode() + " is not a configured cluster node");
+        }
+        if (cluster.getSecret() == null || cluster.getSecret().trim().isEmpty()
+                || SAMPLE_SECRET.equals(cluster.getSecret())) {
+            throw new IllegalStateException("Cluster mode requires a shared app.cluster.secret of its own");
+        }
+        ring = new HashRing<>(cluster.getNodes().keySet(), Function.identity(), cluster.getReplicas());
+        Gauge.builder("mail.cluster.nodes", ring, r -> r.getNodes().size())
+                .description("Configured cluster nodes").register(registry);
+        LOG.info("Started cluster node {} of nodes {}", cluster.getNode(), cluster.getNodes().keySet());
+    }
+
+    /**
+     * Checks if users are partitioned across cluster nodes
+     *
+     * @return {@code true} if cluster mode is enabled, otherwise {@code false}
+     */
+    public boolean isEnabled() {
+        return ring != null;
+    }
+
+    /**
+     * Accessor for the identifier of the local node
+     *
+     * @return local node identifier
+     */
+    public String getNode() {
+        return properties.getCluster().getNode();
+    }
+
+    /**
+     * Finds the node owning a user
+     *
+     * @param username user name
+     * @return owner node identifier
+     */
+    public String owner(final String username) {
+        return ring == null ? getNode() : ring.owner(username == null ? "" : username);
+    }
+
+    /**
+     * Checks if a user is owned by the local node
+     *
+     * @param username user name
+     * @return {@code true} if the local node owns the user, otherwise {@code false}
+     */
+    public boolean isLocal(final String username) {
+        return ring == null || getNode().equals(ring.owner(username == null ? "" : username));
+    }
+
+    /**
+     * Resolves the base URL of a cluster node
+     *
+     * @param node node identifier
+     * @return node base URL, or {@code null} if not a cluster node
+     */
+    public String getUrl(final String node) {
+        return properties.getCluster().getNodes().get(node);
+    }
+
+    /**
+     * Checks if an internal call presents the shared cluster secret, internal calls are refused outside cluster mode
+     *
+     * @param secret presented secret, may be {@code null}
+     * @return {@code true} if the call is authenticated, otherwise {@code false}
+     */
+    public boolean isMember(final String secret) {
+        return ring != null && secret != null && MessageDigest.isEqual(secret.getBytes(StandardCharsets.UTF_8),
+                properties.getCluster().getSecret().getBytes(StandardCharsets.UTF_8));
+    }
+}
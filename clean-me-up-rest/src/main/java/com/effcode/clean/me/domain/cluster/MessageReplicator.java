@@ -0,0 +1,23 @@
+package com.effcode.clean.me.domain.cluster;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+
+/**
+ * Replicator of settled mail messages to the cluster node owning their recipient. Messages are stored by the owner
+ * node of their sender, and a copy is kept by the owner node of a recipient owned elsewhere, so both users see the
+ * message from their own node.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterMembership
+ * @since 1.0
+ */
+public interface MessageReplicator {
+
+    /**
+     * Replicates a message settled in its final delivery state, messages which need no copy are ignored
+     *
+     * @param message settled mail message
+     */
+    void replicate(MailMessage message);
+}
@@ -0,0 +1,103 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.UnavailableException;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Mail send admission control component. Tracks sends in flight, from admission until the message is accepted by
+ * {@link MailQueue} or fails, and sheds new sends once in-flight sends or queue depth exceed the configured
+ * thresholds. Shedding fails fast, so an overloaded service stops accumulating work instead of queueing it. Counts are
+ * published as {@code mail.admission.*} and {@code mail.queue.depth} metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailQueue
+ * @since 1.0
+ */
+@Component
+public class AdmissionControl {
+
+    private static final String REASON_IN_FLIGHT = "in-flight";
+    private static final String REASON_QUEUE_DEPTH = "queue-depth";
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private Counter shedInFlight;
+    private Counter shedQueueDepth;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MailQueue queue;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Registers admission control metrics
+     */
+    @PostConstruct
+    protected void start() {
+        Gauge.builder("mail.admission.in.flight", inFlight, AtomicInteger::get)
+                .description("Mail sends in flight").register(registry);
+        Gauge.builder("mail.queue.depth", queue, MailQueue::getDepth)
+                .description("Accepted mail messages awaiting delivery").register(registry);
+        shedInFlight = Counter.builder("mail.admission.shed").tag("reason", REASON_IN_FLIGHT)
+                .description("Mail sends shed by admission control").register(registry);
+        shedQueueDepth = Counter.builder("mail.admission.shed").tag("reason", REASON_QUEUE_DEPTH)
+                .description("Mail sends shed by admission control").register(registry);
+    }
+
+    /**
+     * Admits a send, failing fast when the service is overloaded. The send is accounted as in flight until it
+     * terminates or is cancelled.
+     *
+     * @param send mail send to admit
+     * @param <T>  send result type
+     * @return admitted mail send
+     * @throws UnavailableException if the send is shed
+     */
+    public <T> Mono<T> admit(final Mono<T> send) throws UnavailableException {
+
+        if (!properties.getAdmission().isEnabled()) return send;
+        return Mono.defer(() -> {
+            if (queue.getDepth() >= properties.getAdmission().getMaxQueueDepth()) {
+                shedQueueDepth.increment();
+                return Mono.error(Error.MAIL_SEND_SHED.buildException());
+            }
+            if (inFlight.incrementAndGet() > properties.getAdmission().getMaxInFlight()) {
+                inFlight.decrementAndGet();
+                shedInFlight.increment();
+                return Mono.error(Error.MAIL_SEND_SHED.buildException());
+            }
+            return send.doFinally(signal -> inFlight.decrementAndGet());
+        });
+    }
+
+    /**
+     * Accessor for the number of sends in flight
+     *
+     * @return in-flight sends
+     */
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    /**
+     * Accessor for the total number of shed sends
+     *
+     * @return shed sends
+     */
+    public long getShed() {
+        return (long) (shedInFlight.count() + shedQueueDepth.count());
+    }
+}
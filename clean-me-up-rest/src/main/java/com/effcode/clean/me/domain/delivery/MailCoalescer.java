@@ -0,0 +1,165 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Mail message coalescing stage. Groups pending messages with identical origin, subject and content within a short
+ * time window, so that each group can be posted to mail transport as a single multi-address email. A group is released
+ * when its window elapses or when it reaches the recipient limit, whichever comes first. A group holds an address at
+ * most once, as mail transport delivers a single copy to an address repeated in one email, so a message to an address
+ * already in a group releases that group early and opens a new one.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailQueue
+ * @since 1.0
+ */
+class MailCoalescer {
+
+    private final ConcurrentMap<Key, Group> groups = new ConcurrentHashMap<>();
+    private final long window;
+    private final int limit;
+    private final ScheduledExecutorService scheduler;
+    private final Consumer<List<MailMessage>> dispatcher;
+
+    /**
+     * Creates new coalescing stage
+     *
+     * @param window     coalescing window in milliseconds
+     * @param limit      maximum number of messages in a single group
+     * @param scheduler  scheduler used for releasing groups when window elapses
+     * @param dispatcher consumer of released message groups
+     */
+    MailCoalescer(final long window, final int limit, final ScheduledExecutorService scheduler,
+                  final Consumer<List<MailMessage>> dispatcher) {
+        this.window = window;
+        this.limit = limit;
+        this.scheduler = scheduler;
+        this.dispatcher = dispatcher;
+    }
+
+    /**
+     * Adds a message to the pending group matching its origin, subject and content, opening a new group if needed
+     *
+     * @param message mail message to coalesce
+     */
+    void add(final MailMessage message) {
+        final Key key = new Key(message);
+        while (true) {
+            final Group group = groups.computeIfAbsent(key, k -> {
+                final Group opened = new Group(k);
+                scheduler.schedule(() -> release(opened), window, TimeUnit.MILLISECONDS);
+                return opened;
+            });
+            // a group may be closed concurrently by its window timer, in which case a new group is opened
+            final int size = group.add(message);
+            if (size < 0) continue;
+            if (size == 0) {
+                release(group);
+                continue;
+            }
+            if (size >= limit) release(group);
+            return;
+        }
+    }
+
+    /**
+     * Releases all pending groups regardless of their window
+     */
+    void releaseAll() {
+        groups.values().forEach(this::release);
+    }
+
+    /**
+     * Closes a group and hands its messages over to dispatcher, has no effect if group was already released
+     *
+     * @param group message group to release
+     */
+    private void release(final Group group) {
+        final List<MailMessage> messages = group.close();
+        if (!messages.isEmpty()) dispatcher.accept(messages);
+    }
+
+    /**
+     * Pending message group, guarded by its own monitor so groups never contend with each other
+     */
+    private final class Group {
+
+        private final Key key;
+        private final Set<String> addresses = new HashSet<>();
+        private List<MailMessage> messages = new ArrayList<>();
+
+        private Group(final Key key) {
+            this.key = key;
+        }
+
+        /**
+         * Adds a message to this group
+         *
+         * @param message mail message
+         * @return group size after adding, {@code 0} if group already holds the message address, or {@code -1} if
+         * group is already closed
+         */
+        private synchronized int add(final MailMessage message) {
+            if (messages == null) return -1;
+            if (!addresses.add(message.getAddress())) return 0;
+            messages.add(message);
+            return messages.size();
+        }
+
+        /**
+         * Closes this group for further additions and detaches it from pending groups
+         *
+         * @return grouped messages, empty if group was already closed
+         */
+        private synchronized List<MailMessage> close() {
+            if (messages == null) return Collections.emptyList();
+            groups.remove(key, this);
+            final List<MailMessage> result = messages;
+            messages = null;
+            return result;
+        }
+    }
+
+    /**
+     * Coalescing key composed of message origin, subject and content
+     */
+    private static final class Key {
+
+        private final String origin;
+        private final String subject;
+        private final String content;
+
+        private Key(final MailMessage message) {
+            this.origin = message.getOrigin();
+            this.subject = message.getSubject();
+            this.content = message.getContent();
+        }
+
+        @Override
+        public boolean equals(final Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Key)) return false;
+            final Key key = (Key) o;
+            return Objects.equals(origin, key.origin) && Objects.equals(subject, key.subject)
+                    && Objects.equals(content, key.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(origin, subject, content);
+        }
+    }
+}
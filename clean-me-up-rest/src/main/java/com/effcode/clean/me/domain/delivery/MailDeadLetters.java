@@ -0,0 +1,101 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.domain.model.DeadLetter;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Dead-letter store component, keeps mail messages whose delivery attempts were exhausted by {@link MailQueue} until
+ * they are re-driven or purged. The store is bounded, when full the oldest dead letter is dropped.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see DeadLetter
+ * @see MailQueue
+ * @since 1.0
+ */
+@Component
+public class MailDeadLetters {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MailDeadLetters.class);
+    private final Map<UUID, DeadLetter> letters = new LinkedHashMap<>();
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    /**
+     * Stores a mail message whose delivery attempts were exhausted
+     *
+     * @param message mail message
+     * @param cause   cause of the last delivery failure
+     */
+    public synchronized void add(final MailMessage message, final Throwable cause) {
+        letters.put(message.getId(), new DeadLetter(message, cause));
+        final Iterator<DeadLetter> oldest = letters.values().iterator();
+        while (letters.size() > properties.getRetry().getDeadLetterCapacity() && oldest.hasNext()) {
+            LOG.warn("Dropped dead letter over capacity. Record: {}", oldest.next().getId());
+            oldest.remove();
+        }
+    }
+
+    /**
+     * Finds all dead letters, oldest first
+     *
+     * @return dead letters
+     */
+    public synchronized List<DeadLetter> findAll() {
+        return new ArrayList<>(letters.values());
+    }
+
+    /**
+     * Removes dead letters with specified identifiers, or all dead letters when no identifiers are specified
+     *
+     * @param ids dead letter identifiers, may be empty
+     * @return removed dead letters, oldest first
+     */
+    public synchronized List<DeadLetter> remove(final Collection<UUID> ids) {
+        final List<DeadLetter> result;
+        if (ids.isEmpty()) {
+            result = new ArrayList<>(letters.values());
+            letters.clear();
+        } else {
+            result = new ArrayList<>();
+            for (final UUID id : ids) {
+                final DeadLetter letter = letters.remove(id);
+                if (letter != null) result.add(letter);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Checks whether a mail message is kept as a dead letter
+     *
+     * @param id mail message identifier
+     * @return {@code true} if the message is dead-lettered, otherwise {@code false}
+     */
+    public synchronized boolean contains(final UUID id) {
+        return letters.containsKey(id);
+    }
+
+    /**
+     * Accessor for the number of stored dead letters
+     *
+     * @return dead letter count
+     */
+    public synchronized int size() {
+        return letters.size();
+    }
+}
@@ -0,0 +1,212 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.core.storage.SegmentLog;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.UnavailableException;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Durable mail outbox component, records each accepted message in an append-only {@link SegmentLog} before it is
+ * acknowledged, and records its settlement once delivery to mail transport completes. Messages accepted but not settled
+ * before a restart are recovered on startup for re-delivery, providing at-least-once delivery. Segment files are
+ * deleted once all messages accepted in them, and in all older segments, are settled.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SegmentLog
+ * @see MailQueue
+ * @since 1.0
+ */
+@Component
+public class MailOutbox {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MailOutbox.class);
+    private static final String NAME = "outbox";
+    private static final byte ACCEPTED = 1;
+    private static final byte SETTLED = 2;
+    private final ConcurrentMap<UUID, Integer> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Integer, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final List<MailMessage> recovered = new ArrayList<>();
+    private final ApplicationProperties.Outbox properties;
+    private SegmentLog log;
+
+    public MailOutbox(final ApplicationProperties properties) {
+        this.properties = properties.getOutbox();
+    }
+
+    /**
+     * Opens the outbox log and collects messages left unsettled by a previous run
+     *
+     * @throws IOException if outbox segment files can not be opened
+     */
+    @PostConstruct
+    public void open() throws IOException {
+        if (!properties.isEnabled()) return;
+        final Map<UUID, MailMessage> unsettled = new LinkedHashMap<>();
+        log = new SegmentLog(Paths.get(properties.getDirectory()), NAME, properties.getSegmentSize(),
+                properties.getFsync(), properties.getFlushInterval());
+        log.open((address, record) -> {
+            final byte type = record.get();
+            final UUID id = new UUID(record.getLong(), record.getLong());
+            if (type == ACCEPTED) {
+                final Date timestamp = new Date(record.getLong());
+                final MailSend email = new MailSend(read(record), read(record), read(record), read(record));
+                // scheduled send time is an optional trailing field
+                if (record.remaining() >= 8) email.setSendAt(new Date(record.getLong()));
+                unsettled.put(id, new MailMessage(id, timestamp, email));
+                track(id, SegmentLog.segment(address));
+            } else if (type == SETTLED) {
+                unsettled.remove(id);
+                untrack(id);
+            }
+        });
+        recovered.addAll(unsettled.values());
+        compact();
+        LOG.info("Mail outbox opened with {} unsettled messages", recovered.size());
+    }
+
+    /**
+     * Forces pending records and closes the outbox log
+     */
+    @PreDestroy
+    public void close() {
+        if (log != null) log.close();
+    }
+
+    /**
+     * Durably records an accepted message, completes once the record is persisted according to the configured
+     * fsync policy. Appends awaiting a force complete on a parallel scheduler rather than on the log flusher thread
+     *
+     * @param message accepted mail message
+     * @return recorded mail message
+     * @throws UnavailableException if message could not be recorded
+     */
+    public Mono<MailMessage> append(final MailMessage message) throws UnavailableException {
+        if (log == null) return Mono.just(message);
+        // track while holding the log lock, so the segment is never compacted before the message is accounted
+        final Mono<Long> appended = Mono.fromCallable(() -> encode(message))
+                .flatMap(record -> log.append(record, address -> track(message.getId(), SegmentLog.segment(address))));
+        // forced appends complete on the log flusher thread, which is left to force the next batch of records
+        return (FsyncPolicy.NONE.is(properties.getFsync()) ? appended : appended.publishOn(Schedulers.parallel()))
+                .thenReturn(message)
+                .onErrorMap(e -> {
+                    LOG.error("Failed to record email in outbox. Record: " + message.getId(), e);
+                    untrack(message.getId());
+                    return Error.MAIL_OUTBOX_FAILURE.buildException();
+                });
+    }
+
+    /**
+     * Records settlement of a message whose delivery to mail transport completed, successfully or not. Settlement is
+     * not awaited, a settlement lost in a crash results in re-delivery of the message.
+     *
+     * @param message settled mail message
+     */
+    public void settle(final MailMessage message) {
+        if (log == null || !pending.containsKey(message.getId())) return;
+        final ByteBuffer record = ByteBuffer.allocate(17).put(SETTLED)
+                .putLong(message.getId().getMostSignificantBits()).putLong(message.getId().getLeastSignificantBits());
+        log.append(record.array()).subscribe(address -> {
+            if (untrack(message.getId())) compact();
+        }, e -> LOG.error("Failed to settle email in outbox. Record: " + message.getId(), e));
+    }
+
+    /**
+     * Hands over the messages left unsettled by a previous run, may be called only once
+     *
+     * @return unsettled mail messages
+     */
+    public synchronized List<MailMessage> recover() {
+        final List<MailMessage> result = new ArrayList<>(recovered);
+        recovered.clear();
+        return result;
+    }
+
+    /**
+     * Deletes leading segments holding no unsettled messages
+     */
+    private synchronized void compact() {
+        for (final Integer segment : log.getSegments()) {
+            final AtomicInteger count = counts.get(segment);
+            if ((count != null && count.get() > 0) || !log.delete(segment)) return;
+            counts.remove(segment);
+        }
+    }
+
+    /**
+     * Tracks an unsettled message recorded in a segment
+     *
+     * @param id      mail message identifier
+     * @param segment segment identifier
+     */
+    private void track(final UUID id, final int segment) {
+        pending.put(id, segment);
+        counts.computeIfAbsent(segment, s -> new AtomicInteger()).incrementAndGet();
+    }
+
+    /**
+     * Stops tracking a settled message
+     *
+     * @param id mail message identifier
+     * @return {@code true} if the segment holding the message has no more unsettled messages
+     */
+    private boolean untrack(final UUID id) {
+        final Integer segment = pending.remove(id);
+        if (segment == null) return false;
+        final AtomicInteger count = counts.get(segment);
+        return count != null && count.decrementAndGet() <= 0;
+    }
+
+    /**
+     * Encodes an accepted message record
+     *
+     * @param message mail message
+     * @return encoded record
+     */
+    private static byte[] encode(final MailMessage message) {
+        final byte[][] fields = {bytes(message.getAddress()), bytes(message.getSubject()),
+                bytes(message.getContent()), bytes(message.getOrigin())};
+        int size = message.getSendAt() != null ? 33 : 25;
+        for (final byte[] field : fields) size += 4 + field.length;
+        final ByteBuffer record = ByteBuffer.allocate(size).put(ACCEPTED)
+                .putLong(message.getId().getMostSignificantBits()).putLong(message.getId().getLeastSignificantBits())
+                .putLong(message.getTimestamp().getTime());
+        for (final byte[] field : fields) record.putInt(field.length).put(field);
+        if (message.getSendAt() != null) record.putLong(message.getSendAt().getTime());
+        return record.array();
+    }
+
+    private static byte[] bytes(final String value) {
+        return value == null ? new byte[0] : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(final ByteBuffer record) {
+        final byte[] value = new byte[record.getInt()];
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+}
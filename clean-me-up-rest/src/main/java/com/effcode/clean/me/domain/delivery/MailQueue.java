@@ -0,0 +1,387 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.core.scheduling.TimingWheel;
+import com.effcode.clean.me.domain.cluster.MessageReplicator;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.UnavailableException;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.domain.transport.MailEnvelope;
+import com.effcode.clean.me.domain.transport.SmtpGateway;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-process outbound mail queue component. Decouples message acceptance from the blocking mail transport
+ * hand-off, which is performed by a dedicated pool of delivery workers. Queue capacity is accounted per accepted
+ * message, until delivery to the mail transport completes. When a coalescing window is configured, messages sharing
+ * origin, subject and content are grouped by {@link MailCoalescer} and posted as one multi-address email. Messages
+ * with a future send time are held in a {@link TimingWheel} until due, without occupying queue capacity. Failed
+ * deliveries are retried on the same wheel with jittered exponential backoff, messages exhausting their attempts are
+ * handed over to {@link MailDeadLetters}. Messages settled as sent or failed are passed to the
+ * {@link MessageReplicator}, which copies them to the cluster node owning their recipient.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpGateway
+ * @see Component
+ * @since 1.0
+ */
+@Component
+public class MailQueue {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MailQueue.class);
+    private static final Duration WAIT_INTERVAL = Duration.ofMillis(10);
+    private final AtomicInteger depth = new AtomicInteger();
+    private final ConcurrentMap<UUID, TimingWheel.Timeout<MailMessage>> scheduled = new ConcurrentHashMap<>();
+    private TimingWheel<MailMessage> wheel;
+    private ExecutorService workers;
+    private ScheduledExecutorService scheduler;
+    private MailCoalescer coalescer;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private SmtpGateway gateway;
+
+    @Autowired
+    private MailOutbox outbox;
+
+    @Autowired
+    private MailDeadLetters deadLetters;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private MessageReplicator replicator;
+
+    /**
+     * Starts the delivery worker pool, coalescing stage and scheduled send timing wheel
+     */
+    @PostConstruct
+    protected void start() {
+        final ApplicationProperties.Queue queue = properties.getQueue();
+        workers = new ThreadPoolExecutor(queue.getWorkers(), queue.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), new CustomizableThreadFactory("mail-worker-"));
+        if (queue.getCoalesceWindow() > 0) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-coalescer-"));
+            coalescer = new MailCoalescer(queue.getCoalesceWindow(), queue.getCoalesceLimit(), scheduler,
+                    this::dispatch);
+        }
+        final ApplicationProperties.Schedule schedule = properties.getSchedule();
+        wheel = new TimingWheel<>("mail-scheduler", schedule.getTick(), schedule.getWheelSize(), this::expire);
+        wheel.start();
+    }
+
+    /**
+     * Stops accepting deliveries and drains already queued messages
+     *
+     * @throws InterruptedException if interrupted while awaiting worker termination
+     */
+    @PreDestroy
+    protected void stop() throws InterruptedException {
+        // pending scheduled and retried messages stay unsettled in outbox and are resubmitted on recovery
+        wheel.close();
+        if (coalescer != null) {
+            scheduler.shutdownNow();
+            coalescer.releaseAll();
+        }
+        workers.shutdown();
+        if (!workers.awaitTermination(10, TimeUnit.SECONDS)) {
+            LOG.warn("Mail queue stopped with {} undelivered messages", depth.get());
+        }
+    }
+
+    /**
+     * Submits a mail message for asynchronous delivery. When queue capacity is exhausted the configured
+     * {@link OverflowPolicy} is applied. Accepted messages are durably recorded in {@link MailOutbox} before being
+     * handed over to delivery workers. Messages with a future send time are recorded and scheduled instead, they take
+     * a queue slot once due.
+     *
+     * @param message mail message to deliver
+     * @return accepted mail message in {@link DeliveryState#QUEUED} or {@link DeliveryState#SCHEDULED} state
+     * @throws UnavailableException if queue capacity is exhausted or message could not be recorded
+     */
+    public Mono<MailMessage> submit(final MailMessage message) throws UnavailableException {
+
+        if (isScheduled(message)) return outbox.append(message).doOnNext(this::schedule);
+        Mono<MailMessage> reserve = Mono.defer(() -> reserve() ? Mono.just(message) :
+                Mono.error(Error.MAIL_QUEUE_FULL.buildException()));
+        if (OverflowPolicy.WAIT.is(properties.getQueue().getOverflow())) {
+            // retry with a fixed interval until the overflow timeout is exhausted, without blocking caller thread
+            final long attempts = Math.max(1, properties.getQueue().getOverflowTimeout() / WAIT_INTERVAL.toMillis());
+            reserve = reserve.retryWhen(errors -> errors.index()
+                    .flatMap(e -> e.getT1() >= attempts ? Mono.error(e.getT2()) : Mono.delay(WAIT_INTERVAL)));
+        }
+        return reserve.flatMap(m -> outbox.append(m).doOnError(e -> depth.decrementAndGet())).doOnNext(this::enqueue);
+    }
+
+    /**
+     * Re-submits messages left undelivered by a previous run, as recovered from {@link MailOutbox}. Recovered
+     * messages were already accepted, so they are enqueued regardless of queue capacity, or rescheduled if not yet due.
+     *
+     * @return recovered mail messages
+     */
+    public List<MailMessage> recover() {
+        final List<MailMessage> messages = outbox.recover();
+        for (final MailMessage message : messages) {
+            if (isScheduled(message)) {
+                schedule(message);
+            } else {
+                depth.incrementAndGet();
+                enqueue(message);
+            }
+        }
+        if (!messages.isEmpty()) LOG.info("Recovered {} undelivered emails from outbox", messages.size());
+        return messages;
+    }
+
+    /**
+     * Re-drives dead-lettered messages, which are recorded in outbox again, recorded as queued in store and enqueued
+     * with reset delivery attempts regardless of queue capacity
+     *
+     * @param messages dead-lettered mail messages
+     * @return re-driven mail messages
+     * @throws UnavailableException if messages could not be recorded
+     */
+    public Mono<List<MailMessage>> redrive(final List<MailMessage> messages) throws UnavailableException {
+
+        return Flux.fromIterable(messages).concatMap(message -> {
+            message.setAttempts(0);
+            message.setState(DeliveryState.QUEUED);
+            return outbox.append(message);
+        }).doOnNext(message -> {
+            store.update(message);
+            depth.incrementAndGet();
+            enqueue(message);
+        }).collectList();
+    }
+
+    /**
+     * Cancels a scheduled message before it is due, the message is settled in outbox and never delivered
+     *
+     * @param message scheduled mail message
+     * @return {@code true} if message was cancelled, otherwise {@code false} if it is not scheduled or already due
+     */
+    public boolean cancel(final MailMessage message) {
+        final TimingWheel.Timeout<MailMessage> timeout = scheduled.remove(message.getId());
+        if (timeout == null || !timeout.cancel()) return false;
+        message.setState(DeliveryState.CANCELLED);
+        store.update(message);
+        outbox.settle(message);
+        return true;
+    }
+
+    /**
+     * Accessor for the number of scheduled messages not yet due and failed messages awaiting retry
+     *
+     * @return scheduled message count
+     */
+    public int getScheduled() {
+        return wheel.getPending();
+    }
+
+    /**
+     * Accessor for the number of accepted messages awaiting delivery
+     *
+     * @return current queue depth
+     */
+    public int getDepth() {
+        return depth.get();
+    }
+
+    /**
+     * Reserves a queue slot for an accepted message
+     *
+     * @return {@code true} if slot was reserved, otherwise {@code false} when queue is full
+     */
+    private boolean reserve() {
+        final int capacity = properties.getQueue().getCapacity();
+        int current;
+        do {
+            current = depth.get();
+            if (current >= capacity) return false;
+        } while (!depth.compareAndSet(current, current + 1));
+        return true;
+    }
+
+    /**
+     * Checks if message send time is still ahead
+     *
+     * @param message mail message
+     * @return {@code true} if message is to be scheduled, otherwise {@code false}
+     */
+    private static boolean isScheduled(final MailMessage message) {
+        return message.getSendAt() != null && message.getSendAt().getTime() > System.currentTimeMillis();
+    }
+
+    /**
+     * Holds a recorded message in timing wheel until its send time
+     *
+     * @param message mail message to schedule
+     */
+    private void schedule(final MailMessage message) {
+        message.setState(DeliveryState.SCHEDULED);
+        final TimingWheel.Timeout<MailMessage> timeout = wheel.schedule(message, message.getSendAt().getTime());
+        scheduled.put(message.getId(), timeout);
+        // a timeout expiring before it is registered must not be left behind
+        if (timeout.isExpired()) scheduled.remove(message.getId(), timeout);
+    }
+
+    /**
+     * Handles an expired timing wheel timer, releasing a due scheduled message or re-enqueueing a retried message
+     * which still holds its queue slot. Invoked on timing wheel thread.
+     *
+     * @param message mail message
+     */
+    private void expire(final MailMessage message) {
+        if (DeliveryState.SCHEDULED.is(message.getState())) {
+            release(message);
+        } else {
+            message.setState(DeliveryState.QUEUED);
+            enqueue(message);
+        }
+    }
+
+    /**
+     * Releases a due scheduled message to delivery, it is enqueued regardless of queue capacity as it was already
+     * accepted. Invoked on timing wheel thread.
+     *
+     * @param message due mail message
+     */
+    private void release(final MailMessage message) {
+        scheduled.remove(message.getId());
+        message.setState(DeliveryState.QUEUED);
+        depth.incrementAndGet();
+        enqueue(message);
+    }
+
+    /**
+     * Hands a message holding a reserved slot over to coalescing stage or directly to delivery workers
+     *
+     * @param message mail message to deliver
+     */
+    private void enqueue(final MailMessage message) {
+        if (coalescer != null) coalescer.add(message);
+        else dispatch(Collections.singletonList(message));
+    }
+
+    /**
+     * Hands a group of messages sharing origin, subject and content over to delivery workers
+     *
+     * @param messages mail messages to deliver
+     */
+    private void dispatch(final List<MailMessage> messages) {
+        workers.execute(() -> deliver(messages));
+    }
+
+    /**
+     * Posts the messages to mail transport as a single multi-address email and records the resulting delivery states,
+     * failed messages are retried individually. Messages of a group have distinct addresses, so each is delivered.
+     *
+     * @param messages mail messages sharing origin, subject and content
+     */
+    private void deliver(final List<MailMessage> messages) {
+        final MailMessage first = messages.get(0);
+        try {
+            gateway.post(new MailEnvelope(first.getOrigin(), messages.stream().map(MailMessage::getAddress)
+                    .collect(Collectors.toList()), first.getSubject(), first.getContent()));
+            messages.forEach(m -> complete(m, DeliveryState.SENT));
+            LOG.info("Sent email success. Records: {}", messages.stream().map(MailMessage::getId)
+                    .collect(Collectors.toList()));
+        } catch (final RuntimeException e) {
+            LOG.error("Sent email failure. Record: " + first.getId(), e);
+            messages.forEach(m -> retry(m, e));
+        }
+    }
+
+    /**
+     * Schedules another delivery attempt of a failed message after a backoff, or dead-letters the message once its
+     * attempts are exhausted. Messages rejected by an open transport circuit were not attempted, so they are retried
+     * once the circuit turns half-open, with a jitter of up to the initial backoff, without counting an attempt. The
+     * message keeps its queue slot while awaiting retry.
+     *
+     * @param message failed mail message
+     * @param cause   delivery failure cause
+     */
+    private void retry(final MailMessage message, final RuntimeException cause) {
+        final ApplicationProperties.Retry retry = properties.getRetry();
+        if (isRejected(cause)) {
+            // an open circuit did not attempt the delivery, it is deferred past the open interval without counting
+            final long delay = gateway.getOpenRemaining()
+                    + ThreadLocalRandom.current().nextLong(retry.getInitialBackoff() + 1);
+            message.setState(DeliveryState.RETRYING);
+            store.update(message);
+            wheel.schedule(message, System.currentTimeMillis() + delay);
+            return;
+        }
+        final int attempts = message.getAttempts() + 1;
+        message.setAttempts(attempts);
+        if (attempts >= retry.getMaxAttempts()) {
+            deadLetters.add(message, cause);
+            complete(message, DeliveryState.FAILED);
+            LOG.warn("Dead-lettered email after {} attempts. Record: {}", attempts, message.getId());
+            return;
+        }
+        // equal jitter, half of the exponential backoff is kept and the other half is randomized
+        final long backoff = (long) Math.min(retry.getMaxBackoff(),
+                retry.getInitialBackoff() * Math.pow(retry.getMultiplier(), attempts - 1));
+        final long delay = backoff / 2 + ThreadLocalRandom.current().nextLong(backoff / 2 + 1);
+        message.setState(DeliveryState.RETRYING);
+        store.update(message);
+        wheel.schedule(message, System.currentTimeMillis() + delay);
+    }
+
+    /**
+     * Checks if a delivery failure is a rejection by the open transport circuit, the delivery was not attempted
+     *
+     * @param cause delivery failure cause
+     * @return {@code true} if delivery was rejected by circuit breaker, otherwise {@code false}
+     */
+    private static boolean isRejected(final RuntimeException cause) {
+        return cause instanceof UnavailableException
+                && Error.MAIL_TRANSPORT_OPEN.is(((UnavailableException) cause).getError());
+    }
+
+    /**
+     * Records the final delivery state of a message in store, settles it in outbox, releases its queue slot and
+     * replicates it to the owner node of its recipient
+     *
+     * @param message mail message
+     * @param state   final delivery state
+     */
+    private void complete(final MailMessage message, final DeliveryState state) {
+        message.setState(state);
+        store.update(message);
+        outbox.settle(message);
+        depth.decrementAndGet();
+        replicator.replicate(message);
+    }
+}
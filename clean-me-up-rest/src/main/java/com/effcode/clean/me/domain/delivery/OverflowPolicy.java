@@ -0,0 +1,27 @@
+package com.effcode.clean.me.domain.delivery;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Outbound mail queue overflow policy enumeration set, designates how new messages are handled when queue capacity
+ * is exhausted
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see MailQueue
+ * @since 1.0
+ */
+public enum OverflowPolicy implements IEnum<OverflowPolicy> {
+
+    /**
+     * Immediately reject new messages with an error
+     */
+    REJECT,
+
+    /**
+     * Wait without blocking for a free queue slot up to the configured overflow timeout, then reject
+     */
+    WAIT
+
+}
@@ -0,0 +1,27 @@
+package com.effcode.clean.me.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Exception specialized and thrown when a request conflicts with the current state of a resource
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see DomainException
+ * @since 1.0
+ */
+@ResponseStatus(code = HttpStatus.CONFLICT, value = HttpStatus.CONFLICT)
+public class ConflictException extends DomainException {
+
+    protected ConflictException(final @NotNull Error error) {
+        super(error);
+    }
+
+    protected ConflictException(final @NotNull Error error, final String message) {
+        super(error, message);
+    }
+
+}
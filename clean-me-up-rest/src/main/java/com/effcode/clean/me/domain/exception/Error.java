@@ -61,7 +61,55 @@ public enum Error implements IError<Error> {
     /**
      * Mail destination address host invalid
      */
-    MAIL_HOST_INVALID(511, "Invalid email address host", MailException.class);
+    MAIL_HOST_INVALID(511, "Invalid email address host", MailException.class),
+    /**
+     * Outbound mail queue capacity is exhausted
+     */
+    MAIL_QUEUE_FULL(512, "Mail queue capacity exceeded, try again later", UnavailableException.class),
+    /**
+     * Mail message record could not be found
+     */
+    MAIL_MESSAGE_NOT_FOUND(513, "Mail message not found", NotFoundException.class),
+    /**
+     * Accepted mail message could not be durably recorded in outbox
+     */
+    MAIL_OUTBOX_FAILURE(514, "Mail message could not be recorded, try again later", UnavailableException.class),
+    /**
+     * Mail send rate limit of current user is exceeded
+     */
+    MAIL_RATE_LIMITED(515, "Mail send rate limit exceeded", RateLimitException.class),
+    /**
+     * Mail send is shed by admission control due to service overload
+     */
+    MAIL_SEND_SHED(516, "Mail service is overloaded, try again later", UnavailableException.class),
+    /**
+     * Mail message can not be cancelled as it is not scheduled
+     */
+    MAIL_MESSAGE_NOT_CANCELLABLE(517, "Mail message is not scheduled", ConflictException.class),
+    /**
+     * Mail transport circuit is open, calls are rejected without being attempted
+     */
+    MAIL_TRANSPORT_OPEN(518, "Mail transport circuit is open, try again later", UnavailableException.class),
+    /**
+     * Mail transport call was rejected by bulkhead or did not complete in time
+     */
+    MAIL_TRANSPORT_FAILURE(519, "Mail transport call failed", UnavailableException.class),
+    /**
+     * Idempotency key was already used with a different mail send request
+     */
+    MAIL_IDEMPOTENCY_CONFLICT(520, "Idempotency key was used with a different request", ConflictException.class),
+    /**
+     * Mail message store memory budget exhausted
+     */
+    MAIL_STORE_FULL(521, "Mail message store is full, try again later", UnavailableException.class),
+    /**
+     * Mail message search is disabled by configuration
+     */
+    MAIL_SEARCH_DISABLED(522, "Mail message search is disabled", UnavailableException.class),
+    /**
+     * Cluster node owning the requesting user could not be reached
+     */
+    CLUSTER_NODE_UNAVAILABLE(523, "Cluster node of the user is unavailable, retry later", UnavailableException.class);
 
     private final int code;
     private final String message;
@@ -110,6 +158,14 @@ public enum Error implements IError<Error> {
             ex = errors.length > 0 ? new CredentialsException(this, errors[0]) : new CredentialsException(this);
         } else if (InvalidAccessException.class.equals(type())) {
             ex = errors.length > 0 ? new InvalidAccessException(this, errors[0]) : new InvalidAccessException(this);
+        } else if (UnavailableException.class.equals(type())) {
+            ex = errors.length > 0 ? new UnavailableException(this, errors[0]) : new UnavailableException(this);
+        } else if (RateLimitException.class.equals(type())) {
+            ex = errors.length > 0 ? new RateLimitException(this, errors[0]) : new RateLimitException(this);
+        } else if (ConflictException.class.equals(type())) {
+            ex = errors.length > 0 ? new ConflictException(this, errors[0]) : new ConflictException(this);
+        } else if (NotFoundException.class.equals(type())) {
+            ex = errors.length > 0 ? new NotFoundException(this, errors[0]) : new NotFoundException(this);
         }
         return ex;
     }
@@ -0,0 +1,27 @@
+package com.effcode.clean.me.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Exception specialized and thrown when a requested resource could not be found
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see DomainException
+ * @since 1.0
+ */
+@ResponseStatus(code = HttpStatus.NOT_FOUND, value = HttpStatus.NOT_FOUND)
+public class NotFoundException extends DomainException {
+
+    protected NotFoundException(final @NotNull Error error) {
+        super(error);
+    }
+
+    protected NotFoundException(final @NotNull Error error, final String message) {
+        super(error, message);
+    }
+
+}
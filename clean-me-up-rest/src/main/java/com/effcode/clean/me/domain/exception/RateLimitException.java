@@ -0,0 +1,50 @@
+package com.effcode.clean.me.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Exception specialized and thrown when a request rate limit is exceeded, carries the interval after which the
+ * request may be retried
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see DomainException
+ * @since 1.0
+ */
+@ResponseStatus(code = HttpStatus.TOO_MANY_REQUESTS, value = HttpStatus.TOO_MANY_REQUESTS)
+public class RateLimitException extends DomainException {
+
+    private long retryAfter = 1;
+
+    protected RateLimitException(final @NotNull Error error) {
+        super(error);
+    }
+
+    protected RateLimitException(final @NotNull Error error, final String message) {
+        super(error, message);
+    }
+
+    /**
+     * Accessor for the interval in seconds after which the request may be retried
+     *
+     * @return retry interval in seconds
+     */
+    public final long getRetryAfter() {
+        return retryAfter;
+    }
+
+    /**
+     * Sets the interval in seconds after which the request may be retried
+     *
+     * @param retryAfter retry interval in seconds
+     * @return this exception
+     */
+    public final RateLimitException setRetryAfter(final long retryAfter) {
+        this.retryAfter = retryAfter;
+        return this;
+    }
+
+}
@@ -0,0 +1,27 @@
+package com.effcode.clean.me.domain.exception;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Exception specialized and thrown when a service resource is temporarily exhausted or unavailable
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see DomainException
+ * @since 1.0
+ */
+@ResponseStatus(code = HttpStatus.SERVICE_UNAVAILABLE, value = HttpStatus.SERVICE_UNAVAILABLE)
+public class UnavailableException extends DomainException {
+
+    protected UnavailableException(final @NotNull Error error) {
+        super(error);
+    }
+
+    protected UnavailableException(final @NotNull Error error, final String message) {
+        super(error, message);
+    }
+
+}
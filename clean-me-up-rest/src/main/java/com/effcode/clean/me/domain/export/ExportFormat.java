@@ -0,0 +1,53 @@
+package com.effcode.clean.me.domain.export;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Mail message export format enumeration set
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see MessageExporter
+ * @since 1.0
+ */
+public enum ExportFormat implements IEnum<ExportFormat> {
+
+    /**
+     * Newline delimited JSON, one message object per line
+     */
+    NDJSON("ndjson"),
+
+    /**
+     * Comma separated values with a header row, one message per row
+     */
+    CSV("csv");
+
+    private final String extension;
+
+    ExportFormat(final String extension) {
+        this.extension = extension;
+    }
+
+    /**
+     * Accessor for the file name extension of the format
+     *
+     * @return file name extension
+     */
+    public String extension() {
+        return extension;
+    }
+
+    /**
+     * Resolves an export format by name, ignoring case
+     *
+     * @param name format name
+     * @return export format, or {@code null} if no format is named so
+     */
+    public static ExportFormat find(final String name) {
+        for (final ExportFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name)) return format;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,228 @@
+package com.effcode.clean.me.domain.export;
+
+import com.effcode.clean.me.core.export.TextWriter;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.format.DateTimeFormatter;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Streaming exporter of stored mail messages into gzip compressed {@link ExportFormat export formats}. Messages are
+ * pulled from the store one chunk at a time as the consumer demands, encoded by a {@link TextWriter} and compressed
+ * straight into a data buffer of the consumer buffer factory, pooled for network responses, so an export of any size
+ * takes constant memory: one chunk buffer, the text buffer and the deflater state. Messages are compressed at the
+ * configured level, the fastest by default, as compression bounds export throughput.
+ * <p>
+ * Exported messages and compressed bytes are published as {@code mail.export.messages} and
+ * {@code mail.export.bytes} metrics tagged by format.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ExportFormat
+ * @since 1.0
+ */
+@Component
+public class MessageExporter {
+
+    private static final String[] COLUMNS = {"id", "timestamp", "state", "attempts", "sendAt", "address", "subject",
+            "content", "origin"};
+    private static final int TEXT_BUFFER = 32768;
+    private final Map<ExportFormat, Counter> messages = new EnumMap<>(ExportFormat.class);
+    private final Map<ExportFormat, Counter> bytes = new EnumMap<>(ExportFormat.class);
+    private final ApplicationProperties.Export properties;
+
+    /**
+     * Creates new message exporter and registers its metrics
+     *
+     * @param properties application properties
+     * @param registry   meter registry
+     */
+    public MessageExporter(final ApplicationProperties properties, final MeterRegistry registry) {
+        this.properties = properties.getExport();
+        for (final ExportFormat format : ExportFormat.values()) {
+            final String tag = format.extension();
+            messages.put(format, Counter.builder("mail.export.messages").tag("format", tag)
+                    .description("Mail messages exported").register(registry));
+            bytes.put(format, Counter.builder("mail.export.bytes").tag("format", tag)
+                    .description("Compressed mail message export bytes").register(registry));
+        }
+    }
+
+    /**
+     * Exports mail messages as a gzip compressed stream of data buffers, encoded lazily on demand. Buffers are
+     * allocated by the specified factory and released by the consumer.
+     *
+     * @param source  mail messages to export, iterated once per subscription
+     * @param format  export format
+     * @param factory data buffer factory
+     * @return stream of compressed data buffers
+     */
+    public Flux<DataBuffer> export(final Iterable<MailMessage> source, final ExportFormat format,
+                                   final DataBufferFactory factory) {
+        return Flux.generate(() -> new Export(source.iterator(), format, factory), (export, sink) -> {
+            if (export.finished) {
+                sink.complete();
+                return export;
+            }
+            try {
+                sink.next(export.chunk());
+            } catch (final IOException e) {
+                sink.error(new UncheckedIOException(e));
+            }
+            return export;
+        }, Export::close);
+    }
+
+    /**
+     * State of a single export, the message iterator and the compressing encoder writing into the current chunk
+     */
+    private final class Export extends OutputStream {
+
+        private final Iterator<MailMessage> source;
+        private final ExportFormat format;
+        private final DataBufferFactory factory;
+        private final int size;
+        private Deflating gzip;
+        private TextWriter text;
+        private DataBuffer buffer;
+        private boolean finished;
+
+        private Export(final Iterator<MailMessage> source, final ExportFormat format,
+                       final DataBufferFactory factory) {
+            this.source = source;
+            this.format = format;
+            this.factory = factory;
+            this.size = properties.getChunkSize();
+        }
+
+        /**
+         * Encodes messages until a chunk of compressed bytes is filled or all messages are encoded
+         *
+         * @return compressed chunk
+         * @throws IOException if messages can not be encoded
+         */
+        private DataBuffer chunk() throws IOException {
+            buffer = factory.allocateBuffer(size);
+            try {
+                if (gzip == null) {
+                    gzip = new Deflating(this, properties.getCompressionLevel());
+                    text = new TextWriter(gzip, TEXT_BUFFER);
+                    if (ExportFormat.CSV.is(format)) header();
+                }
+                long count = 0;
+                while (buffer.readableByteCount() < size && source.hasNext()) {
+                    if (ExportFormat.CSV.is(format)) csv(source.next());
+                    else json(source.next());
+                    count++;
+                }
+                if (!source.hasNext()) {
+                    text.flush();
+                    gzip.finish();
+                    finished = true;
+                }
+                messages.get(format).increment(count);
+                bytes.get(format).increment(buffer.readableByteCount());
+                final DataBuffer chunk = buffer;
+                buffer = null;
+                return chunk;
+            } catch (final IOException | RuntimeException e) {
+                DataBufferUtils.release(buffer);
+                buffer = null;
+                throw e;
+            }
+        }
+
+        private void header() throws IOException {
+            for (int i = 0; i < COLUMNS.length; i++) {
+                if (i > 0) text.ascii(',');
+                text.ascii(COLUMNS[i]);
+            }
+            text.ascii('\r').ascii('\n');
+        }
+
+        private void json(final MailMessage message) throws IOException {
+            text.ascii("{\"id\":\"").ascii(message.getId().toString())
+                    .ascii("\",\"timestamp\":").ascii('"').ascii(time(message.getTimestamp())).ascii('"')
+                    .ascii(",\"state\":\"").ascii(message.getState().name())
+                    .ascii("\",\"attempts\":").number(message.getAttempts())
+                    .ascii(",\"sendAt\":");
+            if (message.getSendAt() == null) text.ascii("null");
+            else text.ascii('"').ascii(time(message.getSendAt())).ascii('"');
+            text.ascii(",\"address\":").json(message.getAddress())
+                    .ascii(",\"subject\":").json(message.getSubject())
+                    .ascii(",\"content\":").json(message.getContent())
+                    .ascii(",\"origin\":").json(message.getOrigin())
+                    .ascii('}').ascii('\n');
+        }
+
+        private void csv(final MailMessage message) throws IOException {
+            text.ascii(message.getId().toString()).ascii(',')
+                    .ascii(time(message.getTimestamp())).ascii(',')
+                    .ascii(message.getState().name()).ascii(',')
+                    .number(message.getAttempts()).ascii(',');
+            if (message.getSendAt() != null) text.ascii(time(message.getSendAt()));
+            text.ascii(',').csv(message.getAddress())
+                    .ascii(',').csv(message.getSubject())
+                    .ascii(',').csv(message.getContent())
+                    .ascii(',').csv(message.getOrigin())
+                    .ascii('\r').ascii('\n');
+        }
+
+        @Override
+        public void write(final int b) {
+            buffer.write((byte) b);
+        }
+
+        @Override
+        public void write(final byte[] bytes, final int offset, final int length) {
+            buffer.write(bytes, offset, length);
+        }
+
+        /**
+         * Releases the deflater, and the current chunk if encoding failed, once the export ends or is cancelled
+         */
+        @Override
+        public void close() {
+            if (gzip != null) gzip.end();
+            if (buffer != null) DataBufferUtils.release(buffer);
+            buffer = null;
+        }
+    }
+
+    private static String time(final Date date) {
+        return DateTimeFormatter.ISO_INSTANT.format(date.toInstant());
+    }
+
+    /**
+     * Gzip stream compressing at a given level, whose native deflater is released explicitly, as the stream is not
+     * closed when an export is cancelled
+     */
+    private static final class Deflating extends GZIPOutputStream {
+
+        private static final int OUTPUT_BUFFER = 16384;
+
+        private Deflating(final OutputStream out, final int level) throws IOException {
+            super(out, OUTPUT_BUFFER);
+            def.setLevel(level);
+        }
+
+        private void end() {
+            def.end();
+        }
+    }
+}
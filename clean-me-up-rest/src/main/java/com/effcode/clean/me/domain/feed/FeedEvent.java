@@ -0,0 +1,58 @@
+package com.effcode.clean.me.domain.feed;
+
+import com.effcode.clean.me.core.spec.IModel;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.store.MessagePage;
+
+import javax.validation.constraints.NotNull;
+
+/**
+ * Feed event of a stored mail message, identified by the store position of the message. Positions are exposed to
+ * clients as opaque event identifiers, encoded as {@link MessagePage} cursors, so a feed resumed after an event
+ * identifier continues as a message listing resumed after a page cursor would.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageFeed
+ * @since 1.0
+ */
+public final class FeedEvent implements IModel<FeedEvent, String> {
+
+    private final long position;
+
+    @NotNull
+    private final MailMessage message;
+
+    FeedEvent(final long position, final MailMessage message) {
+        this.position = position;
+        this.message = message;
+    }
+
+    /**
+     * Accessor for the event identifier, the encoded store position of the message
+     *
+     * @return event identifier
+     */
+    @Override
+    public String getId() {
+        return MessagePage.encode(position);
+    }
+
+    /**
+     * Accessor for the store position of the message
+     *
+     * @return message position
+     */
+    public long getPosition() {
+        return position;
+    }
+
+    /**
+     * Accessor for the stored mail message
+     *
+     * @return mail message
+     */
+    public MailMessage getMessage() {
+        return message;
+    }
+}
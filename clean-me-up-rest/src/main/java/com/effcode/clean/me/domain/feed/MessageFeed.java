@@ -0,0 +1,149 @@
+package com.effcode.clean.me.domain.feed;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Disposable;
+import reactor.core.Disposables;
+import reactor.core.publisher.BufferOverflowStrategy;
+import reactor.core.publisher.DirectProcessor;
+import reactor.core.publisher.EmitterProcessor;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.FluxSink;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Real-time feed of mail messages as they are stored. Stored messages are published to a multicast processor, and
+ * each subscriber receives them through a bounded buffer of its own that drops the oldest events when exceeded, so a
+ * slow subscriber loses events instead of holding back publishers or other subscribers.
+ * <p>
+ * Events are identified by store positions. A subscriber resuming after an event is first replayed the messages stored
+ * after it from the {@link MessageStore}, while events published meanwhile are buffered and then delivered, skipping
+ * those already replayed. Messages are stored without any feed lock, so concurrent inserts stay concurrent, and only
+ * publishing an event takes the publish lock. Events of messages stored concurrently may therefore be published out
+ * of position order. A resuming subscriber connects to live events under the publish lock, noting the last position
+ * published, and its replay waits for the read epoch of the store to reach that position, so every event published
+ * before it connected is replayed.
+ * <p>
+ * Feed activity is published as {@code mail.feed.subscribers}, {@code mail.feed.events} and {@code mail.feed.dropped}
+ * metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see FeedEvent
+ * @see MessageStore
+ * @since 1.0
+ */
+@Component
+public class MessageFeed {
+
+    private final DirectProcessor<FeedEvent> processor = DirectProcessor.create();
+    private final FluxSink<FeedEvent> sink = processor.sink();
+    private final AtomicInteger subscribers = new AtomicInteger();
+    private final Object lock = new Object();
+    private long latest;
+    private Counter published;
+    private Counter dropped;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Registers feed metrics
+     */
+    @PostConstruct
+    protected void start() {
+        Gauge.builder("mail.feed.subscribers", subscribers, AtomicInteger::get)
+                .description("Subscribers of the real-time mail message feed").register(registry);
+        published = Counter.builder("mail.feed.events").description("Mail messages published to feed subscribers")
+                .register(registry);
+        dropped = Counter.builder("mail.feed.dropped")
+                .description("Feed events dropped for subscribers falling behind").register(registry);
+    }
+
+    /**
+     * Completes all subscriptions
+     */
+    @PreDestroy
+    protected void stop() {
+        sink.complete();
+    }
+
+    /**
+     * Adds a message to the store and publishes it to subscribers
+     *
+     * @param message mail message
+     * @return {@code true} if message was added, {@code false} if already stored
+     */
+    public boolean store(final MailMessage message) {
+        if (!store.add(message)) return false;
+        // the message may have been removed by retention meanwhile
+        final long position = store.position(message.getId());
+        if (position <= 0) return true;
+        synchronized (lock) {
+            if (position > latest) latest = position;
+            if (!processor.hasDownstreams()) return true;
+            sink.next(new FeedEvent(position, message));
+        }
+        published.increment();
+        return true;
+    }
+
+    /**
+     * Subscribes to events of messages sent from or to a user, optionally resuming after a previous event
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param after    position of the last event received, {@code 0} to receive new events only
+     * @return stream of feed events
+     */
+    public Flux<FeedEvent> subscribe(final String username, final long after) {
+        return Flux.defer(() -> {
+            final Flux<FeedEvent> live = processor.filter(e -> visible(username, e.getMessage()))
+                    .onBackpressureBuffer(properties.getFeed().getBufferSize(), e -> dropped.increment(),
+                            BufferOverflowStrategy.DROP_OLDEST);
+            if (after == 0) return live;
+            // the live stream is subscribed before the replay starts and held back until it completes, so events
+            // published during the replay are not missed, while those also replayed are skipped
+            final Disposable.Swap connection = Disposables.swap();
+            final EmitterProcessor<FeedEvent> pending;
+            final long mark;
+            synchronized (lock) {
+                pending = live.doOnSubscribe(s -> connection.update(s::cancel))
+                        .subscribeWith(EmitterProcessor.create(1, false));
+                mark = latest;
+            }
+            final long[] replayed = {after};
+            // messages published before the live stream was connected are replayed once indexed, which concurrent
+            // stores of messages preceding them complete shortly
+            final Flux<FeedEvent> replay = Flux.defer(() -> {
+                while (store.getEpoch() < mark) Thread.yield();
+                return Flux.fromIterable(store.iterate(username, null, null, after));
+            })
+                    .map(m -> new FeedEvent(store.position(m.getId()), m))
+                    .filter(e -> e.getPosition() > 0)
+                    .doOnNext(e -> replayed[0] = e.getPosition());
+            return Flux.concat(replay, Flux.defer(() -> {
+                final long last = replayed[0];
+                return pending.filter(e -> e.getPosition() > last);
+            })).doFinally(s -> connection.dispose());
+        }).doOnSubscribe(s -> subscribers.incrementAndGet()).doFinally(s -> subscribers.decrementAndGet());
+    }
+
+    private static boolean visible(final String username, final MailMessage message) {
+        return username == null || username.equals(message.getOrigin()) || username.equals(message.getAddress());
+    }
+}
@@ -0,0 +1,83 @@
+package com.effcode.clean.me.domain.model;
+
+import com.effcode.clean.me.core.spec.IModel;
+import com.effcode.clean.me.core.util.DateUtil;
+
+import javax.validation.constraints.NotNull;
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Data model of a mail message whose delivery attempts were exhausted, along with the cause of its last failure
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailMessage
+ * @since 1.0
+ */
+public final class DeadLetter implements IModel<DeadLetter, UUID> {
+
+    @NotNull
+    private final MailMessage message;
+
+    @NotNull
+    private final String cause;
+
+    private final int attempts;
+
+    @NotNull
+    private final Date timestamp;
+
+    public DeadLetter(final MailMessage message, final Throwable cause) {
+        this.message = message;
+        this.cause = cause.getClass().getName() + ": " + cause.getMessage();
+        this.attempts = message.getAttempts();
+        this.timestamp = DateUtil.utc();
+    }
+
+    /**
+     * Accessor for the identifier of the dead-lettered mail message
+     *
+     * @return mail message identifier
+     */
+    @Override
+    public UUID getId() {
+        return message.getId();
+    }
+
+    /**
+     * Accessor for the dead-lettered mail message
+     *
+     * @return mail message
+     */
+    public MailMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Accessor for the cause of the last delivery failure
+     *
+     * @return failure cause description
+     */
+    public String getCause() {
+        return cause;
+    }
+
+    /**
+     * Accessor for the number of delivery attempts made
+     *
+     * @return delivery attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Accessor for the time the message was dead-lettered
+     *
+     * @return dead-letter timestamp
+     */
+    public Date getTimestamp() {
+        return timestamp;
+    }
+}
@@ -0,0 +1,45 @@
+package com.effcode.clean.me.domain.model;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Mail message delivery state enumeration set, tracks the progress of an accepted message towards the SMTP handler
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @since 1.0
+ */
+public enum DeliveryState implements IEnum<DeliveryState> {
+
+    /**
+     * Message is accepted and held until its scheduled send time
+     */
+    SCHEDULED,
+
+    /**
+     * Message is accepted and waiting in outbound queue for delivery
+     */
+    QUEUED,
+
+    /**
+     * Message delivery to SMTP handler failed and is retried after a backoff
+     */
+    RETRYING,
+
+    /**
+     * Message is posted to SMTP handler
+     */
+    SENT,
+
+    /**
+     * Message delivery to SMTP handler failed on all attempts, message is dead-lettered
+     */
+    FAILED,
+
+    /**
+     * Scheduled message was cancelled before its send time
+     */
+    CANCELLED
+
+}
@@ -1,13 +1,18 @@
 package com.effcode.clean.me.domain.model;
 
+import com.effcode.clean.me.core.memory.OffHeapArena;
 import com.effcode.clean.me.core.util.DateUtil;
 
 import javax.validation.constraints.NotNull;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.util.Date;
 import java.util.UUID;
 
 /**
- * Data model used for representation of chronological mail messages
+ * Data model used for representation of chronological mail messages. Subject and content of a stored message may be
+ * moved into an {@link OffHeapArena}, in which case they are decoded from the arena on each access, until the message
+ * is released from the store.
  *
  * @author dame.gjorgjievski
  * @version 1.0
@@ -22,6 +27,15 @@ public final class MailMessage extends MailModel<MailMessage, UUID> {
     @NotNull
     private Date timestamp;
 
+    @NotNull
+    private volatile DeliveryState state;
+
+    private volatile int attempts;
+
+    private transient OffHeapArena arena;
+
+    private transient long body = OffHeapArena.NONE;
+
     public MailMessage() {
     }
 
@@ -29,6 +43,14 @@ public final class MailMessage extends MailModel<MailMessage, UUID> {
         super(email);
         this.id = UUID.randomUUID();
         this.timestamp = DateUtil.utc();
+        this.state = DeliveryState.QUEUED;
+    }
+
+    public MailMessage(final UUID id, final Date timestamp, final MailModel<?, ?> email) {
+        super(email);
+        this.id = id;
+        this.timestamp = timestamp;
+        this.state = DeliveryState.QUEUED;
     }
 
     /**
@@ -50,4 +72,109 @@ public final class MailMessage extends MailModel<MailMessage, UUID> {
         return timestamp;
     }
 
+    /**
+     * Accessor for retrieval of email message delivery state
+     *
+     * @return mail message delivery state
+     */
+    public DeliveryState getState() {
+        return state;
+    }
+
+    /**
+     * Sets the delivery state of this mail message
+     *
+     * @param state mail message delivery state
+     */
+    public void setState(final DeliveryState state) {
+        this.state = state;
+    }
+
+    /**
+     * Accessor for the number of failed delivery attempts of this mail message
+     *
+     * @return failed delivery attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Sets the number of failed delivery attempts of this mail message
+     *
+     * @param attempts failed delivery attempts
+     */
+    public void setAttempts(final int attempts) {
+        this.attempts = attempts;
+    }
+
+    @Override
+    public String getSubject() {
+        final String value = subject;
+        return value != null ? value : decode(true);
+    }
+
+    @Override
+    public String getContent() {
+        final String value = content;
+        return value != null ? value : decode(false);
+    }
+
+    /**
+     * Moves subject and content of this mail message into an off-heap arena, releasing their heap copies
+     *
+     * @param arena off-heap arena
+     * @return {@code true} if moved, {@code false} if already moved or rejected by the arena
+     */
+    public synchronized boolean offload(final OffHeapArena arena) {
+        if (this.arena != null) return false;
+        final byte[] s = subject == null ? null : subject.getBytes(StandardCharsets.UTF_8);
+        final byte[] c = content == null ? null : content.getBytes(StandardCharsets.UTF_8);
+        final ByteBuffer record = ByteBuffer.allocate(8 + (s == null ? 0 : s.length) + (c == null ? 0 : c.length))
+                .putInt(s == null ? -1 : s.length).putInt(c == null ? -1 : c.length);
+        if (s != null) record.put(s);
+        if (c != null) record.put(c);
+        final long handle = arena.allocate(record.array());
+        if (handle == OffHeapArena.NONE) return false;
+        this.body = handle;
+        this.arena = arena;
+        this.subject = null;
+        this.content = null;
+        return true;
+    }
+
+    /**
+     * Frees subject and content moved into an off-heap arena, once the message is removed from the store. Subject
+     * and content of a released message read as {@code null}.
+     */
+    public synchronized void release() {
+        if (arena == null) return;
+        arena.free(body);
+        arena = null;
+        body = OffHeapArena.NONE;
+    }
+
+    /**
+     * Decodes subject or content moved into off-heap arena. The arena reference is read under the lock it was
+     * written with, so a cleared heap field is never observed without it, and the record view is taken under the
+     * same lock, so it is never taken after the record was freed.
+     *
+     * @param subject decode subject if {@code true}, otherwise content
+     * @return decoded value, or {@code null} if not set
+     */
+    private String decode(final boolean subject) {
+        final ByteBuffer record;
+        synchronized (this) {
+            if (arena == null) return null;
+            record = arena.read(body);
+        }
+        final int s = record.getInt();
+        final int c = record.getInt();
+        final int length = subject ? s : c;
+        if (length < 0) return null;
+        final byte[] value = new byte[length];
+        if (!subject) record.position(record.position() + Math.max(s, 0));
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
 }
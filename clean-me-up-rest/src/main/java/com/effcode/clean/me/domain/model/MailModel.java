@@ -5,6 +5,7 @@ import com.effcode.clean.me.core.spec.IModel;
 import javax.validation.constraints.Email;
 import javax.validation.constraints.NotBlank;
 import javax.validation.constraints.Size;
+import java.util.Date;
 
 /**
  * Common abstraction of email message data model
@@ -33,6 +34,8 @@ public abstract class MailModel<M extends MailModel<M, ID>, ID> implements IMode
     @Email
     protected String origin;
 
+    protected Date sendAt;
+
     protected MailModel() {
     }
 
@@ -48,6 +51,7 @@ public abstract class MailModel<M extends MailModel<M, ID>, ID> implements IMode
         this.subject = model.getSubject();
         this.content = model.getContent();
         this.origin = model.getOrigin();
+        this.sendAt = model.getSendAt();
     }
 
     /**
@@ -95,4 +99,22 @@ public abstract class MailModel<M extends MailModel<M, ID>, ID> implements IMode
     public void setOrigin(final String origin) {
         this.origin = origin;
     }
+
+    /**
+     * Accessor for the scheduled send time of this mail message
+     *
+     * @return scheduled send time, or {@code null} if message is sent right away
+     */
+    public Date getSendAt() {
+        return sendAt;
+    }
+
+    /**
+     * Schedules this mail message to be sent at the specified time
+     *
+     * @param sendAt scheduled send time, or {@code null} to send right away
+     */
+    public void setSendAt(final Date sendAt) {
+        this.sendAt = sendAt;
+    }
 }
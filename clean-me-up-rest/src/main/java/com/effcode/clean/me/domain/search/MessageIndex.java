@@ -0,0 +1,268 @@
+package com.effcode.clean.me.domain.search;
+
+import com.effcode.clean.me.core.search.InvertedIndex;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search component over subjects and contents of stored mail messages. Messages are indexed incrementally
+ * as they are accepted, each under a document number in an {@link InvertedIndex}, with a document table holding the
+ * message identifier in primitive arrays. Each message is also indexed under a key term of its origin and one of its
+ * destination user, which no text term can equal, so searches of a user intersect the postings of the user key with
+ * the same visibility as message listing. Hits are resolved through the {@link MessageStore}, so messages no longer
+ * stored are not returned.
+ * <p>
+ * Messages no longer stored, removed by retention, compaction or hand-off, are dropped from search results by a
+ * background prune pass, which purges their postings once enough of the index is dropped.
+ * <p>
+ * The index is kept in memory only and rebuilt from the store on startup.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see InvertedIndex
+ * @see MessageStore
+ * @since 1.0
+ */
+@Component
+public class MessageIndex {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageIndex.class);
+    private static final int PAGE = 1 << 16;
+    private static final String KEY = "@";
+    private final InvertedIndex index = new InvertedIndex();
+    private final Set<String> users = ConcurrentHashMap.newKeySet();
+    private volatile long[][] identifiers = new long[16][];
+    private int documents;
+    private Timer latency;
+    private ScheduledExecutorService pruner;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Registers search metrics
+     */
+    @PostConstruct
+    protected void start() {
+        Gauge.builder("mail.search.documents", index, InvertedIndex::getDocuments)
+                .description("Mail messages indexed for search").register(registry);
+        Gauge.builder("mail.search.terms", index, InvertedIndex::getTerms)
+                .description("Distinct terms indexed for search").register(registry);
+        Gauge.builder("mail.search.postings", index, InvertedIndex::getBytes).baseUnit("bytes")
+                .description("Memory allocated to search postings lists").register(registry);
+        Gauge.builder("mail.search.users", users, Set::size)
+                .description("Users referenced by indexed mail messages").register(registry);
+        latency = Timer.builder("mail.search.latency").description("Mail message search durations")
+                .register(registry);
+        final ApplicationProperties.Search config = properties.getSearch();
+        if (!config.isEnabled() || config.getPruneInterval() <= 0) return;
+        pruner = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-search-"));
+        pruner.scheduleWithFixedDelay(this::prune, config.getPruneInterval(), config.getPruneInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background pruning
+     */
+    @PreDestroy
+    protected void stop() {
+        if (pruner != null) pruner.shutdownNow();
+    }
+
+    /**
+     * Runs a prune pass, dropping messages no longer stored from search results, and purging their postings once the
+     * configured fraction of indexed messages is dropped
+     *
+     * @return number of dropped messages
+     */
+    protected int prune() {
+        try {
+            final int count;
+            synchronized (this) {
+                count = documents;
+            }
+            int pruned = 0;
+            for (int document = 0; document < count; document++) {
+                if (!index.contains(document)) continue;
+                final long[] ids = identifiers[document / PAGE];
+                final int slot = document % PAGE;
+                if (store.position(new UUID(ids[slot * 2], ids[slot * 2 + 1])) == 0 && index.remove(document)) {
+                    pruned++;
+                }
+            }
+            final int removed = index.getRemoved();
+            final double threshold = properties.getSearch().getPruneThreshold();
+            if (removed > 0 && removed >= threshold * (index.getDocuments() + removed)) {
+                final long start = System.currentTimeMillis();
+                final long dropped = index.purge();
+                LOG.info("Purged {} postings of {} messages from search index in {} ms", dropped, removed,
+                        System.currentTimeMillis() - start);
+            }
+            return pruned;
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to prune search index", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Indexes subject and content of an accepted message
+     *
+     * @param message mail message
+     */
+    public synchronized void add(final MailMessage message) {
+        final ApplicationProperties.Search config = properties.getSearch();
+        if (!config.isEnabled()) return;
+        final Map<String, Integer> frequencies = new HashMap<>();
+        final int length = tokenize(message.getSubject(), config.getSubjectWeight(), frequencies)
+                + tokenize(message.getContent(), 1, frequencies);
+        key(message.getOrigin(), frequencies);
+        key(message.getAddress(), frequencies);
+        final int document = documents;
+        final int page = document / PAGE;
+        if (page >= identifiers.length) {
+            identifiers = Arrays.copyOf(identifiers, Math.max(page + 1, identifiers.length * 2));
+        }
+        if (identifiers[page] == null) identifiers[page] = new long[PAGE * 2];
+        final int slot = document % PAGE;
+        identifiers[page][slot * 2] = message.getId().getMostSignificantBits();
+        identifiers[page][slot * 2 + 1] = message.getId().getLeastSignificantBits();
+        // the document is published to readers by the index, after its table entries are written
+        index.add(document, frequencies, length);
+        documents++;
+    }
+
+    /**
+     * Indexes messages in iteration order
+     *
+     * @param messages mail messages
+     */
+    public void addAll(final Iterable<MailMessage> messages) {
+        if (!properties.getSearch().isEnabled()) return;
+        final long start = System.currentTimeMillis();
+        messages.forEach(this::add);
+        LOG.info("Indexed {} messages for search in {} ms", index.getDocuments(), System.currentTimeMillis() - start);
+    }
+
+    /**
+     * Splits a search query into distinct terms, as subjects and contents are split when indexed
+     *
+     * @param query search query
+     * @return query terms in order of appearance
+     */
+    public List<String> terms(final String query) {
+        final Map<String, Integer> terms = new LinkedHashMap<>();
+        tokenize(query, 1, terms);
+        return new ArrayList<>(terms.keySet());
+    }
+
+    /**
+     * Finds a page of messages holding all query terms, most relevant first
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param terms    query terms
+     * @param offset   rank at which the page starts
+     * @param limit    maximum number of hits in the page
+     * @return page of search hits
+     */
+    public SearchPage search(final String username, final List<String> terms, final int offset, final int limit) {
+        return latency.record(() -> {
+            final int window = Math.min(offset + limit, properties.getSearch().getMaxHits());
+            final InvertedIndex.Result result = index.search(terms, username == null ? null : KEY + username, window);
+            final long[][] table = identifiers;
+            final List<SearchHit> hits = new ArrayList<>(limit);
+            for (int i = offset; i < result.getHits().size(); i++) {
+                final InvertedIndex.Hit hit = result.getHits().get(i);
+                final long[] ids = table[hit.getDocument() / PAGE];
+                final int slot = hit.getDocument() % PAGE;
+                final MailMessage message = store.get(new UUID(ids[slot * 2], ids[slot * 2 + 1]));
+                if (message != null) hits.add(new SearchHit(message, hit.getScore()));
+            }
+            final int next = offset + limit;
+            // an inexact count skipped matches ranked below a full window, so more matches may follow it
+            final int matches = result.isExact() ? result.getMatches() : Integer.MAX_VALUE;
+            return new SearchPage(hits, result.getMatches(),
+                    next < Math.min(matches, properties.getSearch().getMaxHits()) ? next : 0);
+        });
+    }
+
+    /**
+     * Accessor for the number of indexed messages
+     *
+     * @return indexed message count
+     */
+    public int size() {
+        return index.getDocuments();
+    }
+
+    /**
+     * Adds the key term of a user to the terms of a message, keys start with a character no text term holds
+     *
+     * @param username    origin or destination user, may be {@code null}
+     * @param frequencies term frequencies to update
+     */
+    private void key(final String username, final Map<String, Integer> frequencies) {
+        if (username == null) return;
+        frequencies.put(KEY + username, 1);
+        users.add(username);
+    }
+
+    /**
+     * Splits text into lower case terms of letters and digits, counting weighted term frequencies. Terms shorter
+     * than the configured minimum are skipped, longer than the maximum are truncated.
+     *
+     * @param text        text to split, may be {@code null}
+     * @param weight      frequency weight of each term
+     * @param frequencies term frequencies to update
+     * @return number of terms in the text
+     */
+    private int tokenize(final String text, final int weight, final Map<String, Integer> frequencies) {
+        if (text == null) return 0;
+        final ApplicationProperties.Search config = properties.getSearch();
+        final StringBuilder term = new StringBuilder();
+        int count = 0;
+        for (int i = 0; i <= text.length(); i++) {
+            final char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isLetterOrDigit(c)) {
+                if (term.length() < config.getMaxTermLength()) term.append(Character.toLowerCase(c));
+            } else if (term.length() > 0) {
+                if (term.length() >= config.getMinTermLength()) {
+                    frequencies.merge(term.toString(), weight, Integer::sum);
+                    count++;
+                }
+                term.setLength(0);
+            }
+        }
+        return count;
+    }
+}
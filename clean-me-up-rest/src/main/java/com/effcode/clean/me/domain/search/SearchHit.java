@@ -0,0 +1,57 @@
+package com.effcode.clean.me.domain.search;
+
+import com.effcode.clean.me.core.spec.IModel;
+import com.effcode.clean.me.domain.model.MailMessage;
+
+import javax.validation.constraints.NotNull;
+import java.util.UUID;
+
+/**
+ * Data model of a mail message matching a full-text search query, along with its relevance score
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailMessage
+ * @see MessageIndex
+ * @since 1.0
+ */
+public final class SearchHit implements IModel<SearchHit, UUID> {
+
+    @NotNull
+    private final MailMessage message;
+
+    private final float score;
+
+    public SearchHit(final MailMessage message, final float score) {
+        this.message = message;
+        this.score = score;
+    }
+
+    /**
+     * Accessor for the identifier of the matching mail message
+     *
+     * @return mail message identifier
+     */
+    @Override
+    public UUID getId() {
+        return message.getId();
+    }
+
+    /**
+     * Accessor for the matching mail message
+     *
+     * @return mail message
+     */
+    public MailMessage getMessage() {
+        return message;
+    }
+
+    /**
+     * Accessor for the relevance score, higher scores are more relevant
+     *
+     * @return BM25 relevance score
+     */
+    public float getScore() {
+        return score;
+    }
+}
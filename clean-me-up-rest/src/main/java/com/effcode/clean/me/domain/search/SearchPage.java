@@ -0,0 +1,57 @@
+package com.effcode.clean.me.domain.search;
+
+import com.effcode.clean.me.core.spec.IModel;
+import com.effcode.clean.me.domain.store.MessagePage;
+
+import java.util.List;
+
+/**
+ * Page of ranked hits found by {@link MessageIndex}, with the rank from which the next page starts. Ranks are exposed
+ * to clients as opaque cursors, encoded as {@link MessagePage} cursors.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IModel
+ * @see MessageIndex
+ * @since 1.0
+ */
+public final class SearchPage implements IModel<SearchPage, String> {
+
+    private final List<SearchHit> hits;
+    private final int matches;
+    private final int next;
+
+    SearchPage(final List<SearchHit> hits, final int matches, final int next) {
+        this.hits = hits;
+        this.matches = matches;
+        this.next = next;
+    }
+
+    /**
+     * Accessor for the page hits, most relevant first
+     *
+     * @return search hits
+     */
+    public List<SearchHit> getHits() {
+        return hits;
+    }
+
+    /**
+     * Accessor for the number of visible indexed messages matching the query, a lower bound if ranking skipped
+     * messages that could not reach the page
+     *
+     * @return matching message count
+     */
+    public int getMatches() {
+        return matches;
+    }
+
+    /**
+     * Accessor for the cursor of the next page
+     *
+     * @return next page cursor, or {@code null} if this is the last page
+     */
+    public String getCursor() {
+        return MessagePage.encode(next);
+    }
+}
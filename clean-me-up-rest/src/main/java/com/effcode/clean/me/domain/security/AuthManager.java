@@ -141,6 +141,21 @@ public class AuthManager implements ReactiveAuthenticationManager {
         return registry.stream().filter(u -> u.getUsername().equals(username)).findFirst().orElse(null);
     }
 
+    /**
+     * Resolves the user name an authentication token was issued to, without authenticating the token holder
+     *
+     * @param token authentication token
+     * @return token subject user name, or {@code null} if token is not a valid signed token
+     */
+    public String findUsername(final String token) {
+        try {
+            return Jwts.parser().setSigningKey(properties.getJwtSecretKey()).parseClaimsJws(token).getBody()
+                    .getSubject();
+        } catch (final JwtException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
     /**
      * Resolves and returns the user details of the currently logged in principal.
      *
@@ -161,6 +176,38 @@ public class AuthManager implements ReactiveAuthenticationManager {
         return Mono.just(registry);
     }
 
+    /**
+     * Provides the users currently holding an authentication token
+     *
+     * @return users with active sessions
+     */
+    public List<UserPrincipal> getSessions() {
+        return registry.stream().filter(u -> u.getToken() != null).collect(Collectors.toList());
+    }
+
+    /**
+     * Restores the authentication token of a user session held before a restart, tokens which no longer validate
+     * are not restored
+     *
+     * @param username  the username credential
+     * @param token     authentication token
+     * @param timestamp token issue datetime
+     * @return {@code true} if session was restored, otherwise {@code false}
+     */
+    public boolean restoreSession(final String username, final String token, final Date timestamp) {
+        final UserPrincipal user = findByUsername(username);
+        if (user == null || token == null) return false;
+        try {
+            validateToken(token);
+        } catch (final TokenException e) {
+            LOG.debug("Discarded invalid authentication token of user {}", username);
+            return false;
+        }
+        user.setToken(token);
+        user.setTimestamp(timestamp);
+        return true;
+    }
+
     /**
      * Generate a new authentication token for specified authentication principal
      *
@@ -0,0 +1,150 @@
+package com.effcode.clean.me.domain.security;
+
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.RateLimitException;
+import com.effcode.clean.me.domain.model.UserAuthority;
+import com.effcode.clean.me.domain.model.UserPrincipal;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-user mail send rate limiter component. Each user owns a token bucket, implemented as a generic cell rate
+ * algorithm over a single atomic theoretical arrival time, so acquiring a permit is a lock-free compare-and-set.
+ * Rates and burst sizes are resolved from the most generous limit configured for the user authorities. Buckets which
+ * have fully refilled are indistinguishable from new ones, and are periodically reclaimed.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ApplicationProperties.RateLimit
+ * @since 1.0
+ */
+@Component
+public class RateLimiter {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+    private final ConcurrentMap<String, AtomicLong> buckets = new ConcurrentHashMap<>();
+    private ScheduledExecutorService sweeper;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    /**
+     * Starts the idle bucket sweeper
+     */
+    @PostConstruct
+    protected void start() {
+        final long interval = properties.getRateLimit().getSweepInterval();
+        if (!properties.getRateLimit().isEnabled() || interval <= 0) return;
+        sweeper = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("rate-sweeper-"));
+        sweeper.scheduleWithFixedDelay(this::sweep, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops the idle bucket sweeper
+     */
+    @PreDestroy
+    protected void stop() {
+        if (sweeper != null) sweeper.shutdownNow();
+    }
+
+    /**
+     * Acquires a send permit for the user, or fails when user rate limit is exceeded
+     *
+     * @param user user principal
+     * @throws RateLimitException if user rate limit is exceeded
+     */
+    public void check(final UserPrincipal user) throws RateLimitException {
+        final long wait = acquire(user);
+        if (wait > 0) {
+            final long seconds = Math.max(1, (wait + SECOND - 1) / SECOND);
+            throw ((RateLimitException) Error.MAIL_RATE_LIMITED.buildException("Mail send rate limit exceeded, " +
+                    "retry after " + seconds + " seconds")).setRetryAfter(seconds);
+        }
+    }
+
+    /**
+     * Acquires a send permit for the user, delaying completion until the permit is granted instead of failing. Used
+     * for pacing sends which are already accepted as a single request, without blocking caller thread.
+     *
+     * @param user user principal
+     * @return completion signal once permit is acquired
+     */
+    public Mono<Void> await(final UserPrincipal user) {
+        return Mono.defer(() -> {
+            final long wait = acquire(user);
+            return wait > 0 ? Mono.delay(Duration.ofNanos(wait)).then(await(user)) : Mono.empty();
+        });
+    }
+
+    /**
+     * Accessor for the number of tracked user buckets
+     *
+     * @return number of user buckets
+     */
+    public int getBuckets() {
+        return buckets.size();
+    }
+
+    /**
+     * Attempts to acquire a single permit from user bucket
+     *
+     * @param user user principal
+     * @return {@code 0} if permit is acquired, otherwise nanoseconds until a permit is available
+     */
+    private long acquire(final UserPrincipal user) {
+        if (!properties.getRateLimit().isEnabled()) return 0;
+        final ApplicationProperties.Limit limit = resolve(user);
+        if (limit == null || limit.getRate() <= 0) return 0;
+        final long interval = (long) (SECOND / limit.getRate());
+        final long tolerance = interval * Math.max(0, limit.getBurst() - 1);
+        final AtomicLong bucket = buckets.computeIfAbsent(user.getUsername(), u -> new AtomicLong(Long.MIN_VALUE));
+        while (true) {
+            final long now = System.nanoTime();
+            final long current = bucket.get();
+            final long tat = current == Long.MIN_VALUE || current - now < 0 ? now : current;
+            if (tat - now > tolerance) return tat - now - tolerance;
+            if (bucket.compareAndSet(current, tat + interval)) return 0;
+        }
+    }
+
+    /**
+     * Resolves the most generous limit configured for user authorities
+     *
+     * @param user user principal
+     * @return rate limit, or {@code null} if user is not limited
+     */
+    private ApplicationProperties.Limit resolve(final UserPrincipal user) {
+        ApplicationProperties.Limit result = null;
+        for (final UserAuthority authority : UserAuthority.values()) {
+            final ApplicationProperties.Limit limit = properties.getRateLimit().getLimits().get(authority);
+            if (limit == null || !user.hasAuthority(authority)) continue;
+            if (result == null || limit.getRate() > result.getRate()) result = limit;
+        }
+        return result;
+    }
+
+    /**
+     * Reclaims buckets which have fully refilled. A permit acquired concurrently from a bucket being reclaimed is
+     * forgotten, which at worst grants one extra permit to a user that was idle anyway.
+     */
+    private void sweep() {
+        final long now = System.nanoTime();
+        buckets.forEach((username, bucket) -> {
+            final long tat = bucket.get();
+            if (tat == Long.MIN_VALUE || tat - now <= 0) buckets.remove(username, bucket);
+        });
+    }
+}
@@ -1,26 +1,57 @@
 package com.effcode.clean.me.domain.service;
 
+import com.effcode.clean.me.core.cache.ExpiringCache;
 import com.effcode.clean.me.core.validation.ModelValidator;
+import com.effcode.clean.me.domain.cluster.ClusterMembership;
+import com.effcode.clean.me.domain.delivery.AdmissionControl;
+import com.effcode.clean.me.domain.delivery.MailDeadLetters;
+import com.effcode.clean.me.domain.delivery.MailQueue;
+import com.effcode.clean.me.domain.exception.ConflictException;
 import com.effcode.clean.me.domain.exception.Error;
 import com.effcode.clean.me.domain.exception.MailException;
+import com.effcode.clean.me.domain.exception.NotFoundException;
+import com.effcode.clean.me.domain.exception.RateLimitException;
+import com.effcode.clean.me.domain.exception.UnavailableException;
 import com.effcode.clean.me.domain.exception.ValidationException;
+import com.effcode.clean.me.domain.export.ExportFormat;
+import com.effcode.clean.me.domain.export.MessageExporter;
+import com.effcode.clean.me.domain.model.DeadLetter;
 import com.effcode.clean.me.domain.model.MailMessage;
 import com.effcode.clean.me.domain.model.MailSend;
 import com.effcode.clean.me.domain.model.UserAuthority;
 import com.effcode.clean.me.domain.model.UserPrincipal;
+import com.effcode.clean.me.domain.feed.FeedEvent;
+import com.effcode.clean.me.domain.feed.MessageFeed;
+import com.effcode.clean.me.domain.search.MessageIndex;
+import com.effcode.clean.me.domain.search.SearchPage;
+import com.effcode.clean.me.domain.security.RateLimiter;
+import com.effcode.clean.me.domain.snapshot.StateSnapshot;
+import com.effcode.clean.me.domain.stats.MailStatistics;
+import com.effcode.clean.me.domain.stats.MailStats;
+import com.effcode.clean.me.domain.store.MessagePage;
+import com.effcode.clean.me.domain.store.MessageStore;
 import com.effcode.clean.me.rest.configuration.ApplicationProperties;
-import com.effcode.clean.me.support.SmtpEmail;
-import com.effcode.clean.me.support.SmtpHandler;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
 import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
 
+import javax.annotation.PostConstruct;
+import java.time.OffsetDateTime;
+import java.time.format.DateTimeParseException;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.Date;
 import java.util.List;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.stream.Collectors;
 
 /**
@@ -36,25 +67,458 @@ public class MailService {
 
     private static final List<String> BLACKLIST = Arrays.asList("microsoft.com", "apple.com", "intel.com");
     private static final Logger LOG = LoggerFactory.getLogger(MailService.class);
-    private final List<MailMessage> messages = Collections.synchronizedList(new LinkedList<>());
+    private static final int MAX_IDEMPOTENCY_KEY = 255;
+    private ExpiringCache<String, MailMessage> idempotency;
+
+    @Autowired
+    private MailQueue queue;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private MessageIndex search;
+
+    @Autowired
+    private MessageFeed feed;
+
+    @Autowired
+    private MailStatistics statistics;
+
+    @Autowired
+    private StateSnapshot snapshot;
+
+    @Autowired
+    private MessageExporter exporter;
+
+    @Autowired
+    private AdmissionControl admission;
 
     @Autowired
     private ApplicationProperties properties;
 
     @Autowired
-    private SmtpHandler smtpHandler;
+    private MailDeadLetters deadLetters;
+
+    @Autowired
+    private RateLimiter limiter;
+
+    @Autowired
+    private ClusterMembership membership;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Restores messages left undelivered by a previous run into message records, they are re-delivered by queue,
+     * at their snapshot positions when a state snapshot was restored, rebuilds the search index and mail statistics
+     * from stored messages, counting only messages of senders owned by the local node, starts hydrating the remaining
+     * snapshot messages and creates the idempotency key cache, holding the keys of the restored snapshot
+     */
+    @PostConstruct
+    protected void recover() {
+        for (final MailMessage message : queue.recover()) {
+            if (!snapshot.restore(message)) store.add(message);
+        }
+        search.addAll(store.iterate(null, null, null, 0));
+        store.iterate(null, null, null, 0).forEach(this::count);
+        snapshot.hydrate(message -> {
+            search.add(message);
+            count(message);
+        });
+        idempotency = new ExpiringCache<>(properties.getIdempotency().getTtl(),
+                properties.getIdempotency().getCapacity());
+        snapshot.attach(idempotency);
+        FunctionCounter.builder("mail.idempotency.lookups", idempotency, ExpiringCache::getHits).tag("result", "hit")
+                .description("Mail send idempotency key lookups").register(registry);
+        FunctionCounter.builder("mail.idempotency.lookups", idempotency, ExpiringCache::getMisses)
+                .tag("result", "miss").description("Mail send idempotency key lookups").register(registry);
+        FunctionCounter.builder("mail.idempotency.evictions", idempotency, ExpiringCache::getEvictions)
+                .description("Mail send idempotency keys evicted for expiry or exceeded capacity").register(registry);
+    }
+
+    /**
+     * Accepts a mail message for asynchronous SMTP delivery and returns the queued message data record. Sends are
+     * shed by {@link AdmissionControl} when the service is overloaded. Messages with a send time are held until due.
+     * Accepted and failed sends are counted by {@link MailStatistics}.
+     *
+     * @param email message to send
+     * @return accepted mail message record
+     * @throws MailException        if message sending process fails
+     * @throws ValidationException  if message send data validation fails
+     * @throws UnavailableException if outbound mail queue or message store capacity is exhausted or the send is shed
+     */
+    public Mono<MailMessage> send(final MailSend email) throws MailException, ValidationException, UnavailableException {
+        return accept(email).doOnError(statistics::failed);
+    }
+
+    /**
+     * Accepts a mail message for delivery at most once per user and idempotency key. Repeated sends with a key that
+     * is remembered return the record of the original acceptance, as it was when accepted, and concurrent repeats
+     * wait for the original attempt instead of sending again. Failed attempts are not remembered, so they may be
+     * retried with the same key.
+     *
+     * @param email message to send
+     * @param key   client supplied idempotency key, the send is not deduplicated if {@code null}
+     * @return accepted mail message record
+     * @throws MailException        if message sending process fails
+     * @throws ValidationException  if message send data or idempotency key validation fails
+     * @throws UnavailableException if outbound mail queue capacity is exhausted or the send is shed
+     * @throws ConflictException    if idempotency key was used with a different message
+     */
+    public Mono<MailMessage> send(final MailSend email, final String key) throws MailException, ValidationException,
+            UnavailableException, ConflictException {
+
+        if (key == null) return send(email);
+        if (key.isEmpty() || key.length() > MAX_IDEMPOTENCY_KEY) {
+            return Mono.<MailMessage>error(Error.MAIL_REQUEST_INVALID.buildException("Invalid idempotency key"))
+                    .doOnError(statistics::failed);
+        }
+        return idempotency.get(email.getOrigin() + '\n' + key, () -> accept(email).map(m -> {
+            final MailMessage accepted = new MailMessage(m.getId(), m.getTimestamp(), m);
+            accepted.setState(m.getState());
+            return accepted;
+        })).flatMap(m -> Objects.equals(m.getAddress(), email.getAddress())
+                && Objects.equals(m.getSubject(), email.getSubject())
+                && Objects.equals(m.getContent(), email.getContent())
+                && Objects.equals(m.getSendAt(), email.getSendAt()) ? Mono.just(m)
+                : Mono.error(Error.MAIL_IDEMPOTENCY_CONFLICT.buildException())).doOnError(statistics::failed);
+    }
+
+    /**
+     * Accepts a mail message of a user for delivery at most once per idempotency key, once a permit of the user
+     * {@link RateLimiter rate limit} is acquired. Sends exceeding the rate limit fail right away and are counted by
+     * {@link MailStatistics} along with other failed sends.
+     *
+     * @param user  sending user
+     * @param email message to send
+     * @param key   client supplied idempotency key, the send is not deduplicated if {@code null}
+     * @return accepted mail message record
+     * @throws MailException        if message sending process fails
+     * @throws ValidationException  if message send data or idempotency key validation fails
+     * @throws UnavailableException if outbound mail queue capacity is exhausted or the send is shed
+     * @throws ConflictException    if idempotency key was used with a different message
+     * @throws RateLimitException   if user rate limit is exceeded
+     */
+    public Mono<MailMessage> send(final UserPrincipal user, final MailSend email, final String key)
+            throws MailException, ValidationException, UnavailableException, ConflictException, RateLimitException {
+
+        try {
+            limiter.check(user);
+        } catch (final RateLimitException e) {
+            return Mono.<MailMessage>error(e).doOnError(statistics::failed);
+        }
+        return send(email, key);
+    }
+
+    /**
+     * Accepts a mail message of a user for delivery once a permit of the user {@link RateLimiter rate limit} is
+     * acquired, delaying the send instead of failing it. Used for sends already accepted as a single request.
+     *
+     * @param user  sending user
+     * @param email message to send
+     * @return accepted mail message record
+     * @throws MailException        if message sending process fails
+     * @throws ValidationException  if message send data validation fails
+     * @throws UnavailableException if outbound mail queue or message store capacity is exhausted or the send is shed
+     */
+    public Mono<MailMessage> pace(final UserPrincipal user, final MailSend email) throws MailException,
+            ValidationException, UnavailableException {
+        return limiter.await(user).then(Mono.defer(() -> send(email)));
+    }
+
+    /**
+     * Finds a mail message by identifier, visible to specified user if sent to or from the user. Admin users can
+     * see messages from all users.
+     *
+     * @param user specified message receiver / sender user
+     * @param id   mail message identifier
+     * @return mail message record
+     * @throws NotFoundException if no visible message with specified identifier exists
+     */
+    public Mono<MailMessage> findMessage(final UserPrincipal user, final String id) throws NotFoundException {
+
+        // unknown and malformed identifiers are supplied as null, completing empty
+        return Mono.fromSupplier(() -> lookup(id))
+                .filter(m -> user.hasAuthority(UserAuthority.ADMIN) || user.getUsername().equals(m.getOrigin())
+                        || user.getUsername().equals(m.getAddress()))
+                .switchIfEmpty(Mono.error(Error.MAIL_MESSAGE_NOT_FOUND.buildException()));
+    }
+
+    /**
+     * Cancels a scheduled mail message before it is sent. Users can cancel their own messages, while admin users can
+     * cancel messages from all users.
+     *
+     * @param user specified message sender user
+     * @param id   mail message identifier
+     * @return cancelled mail message record
+     * @throws NotFoundException if no message with specified identifier was sent by the user
+     * @throws ConflictException if message is not scheduled or already due
+     */
+    public Mono<MailMessage> cancel(final UserPrincipal user, final String id) throws NotFoundException,
+            ConflictException {
+
+        return findMessage(user, id)
+                .filter(m -> user.hasAuthority(UserAuthority.ADMIN) || m.getOrigin().equals(user.getUsername()))
+                .switchIfEmpty(Mono.error(Error.MAIL_MESSAGE_NOT_FOUND.buildException()))
+                .flatMap(m -> queue.cancel(m) ? Mono.just(m) :
+                        Mono.error(Error.MAIL_MESSAGE_NOT_CANCELLABLE.buildException()))
+                .doOnNext(m -> LOG.info("Cancelled scheduled email. Record: {}", m.getId()));
+    }
+
+    /**
+     * Finds a page of mail messages that are sent to or from specified user, in acceptance order, optionally accepted
+     * within a time range. Admin users can page through messages from all users. Pages are addressed by a cursor
+     * returned with the previous page, so each page costs the same regardless of its position.
+     *
+     * @param user   specified message receiver / sender user
+     * @param from   inclusive ISO-8601 start of the time range, {@code null} if unbounded
+     * @param to     exclusive ISO-8601 end of the time range, {@code null} if unbounded
+     * @param cursor cursor returned with the previous page, {@code null} for the first page
+     * @param limit  maximum number of messages in the page, configured default if {@code null}
+     * @return page of mail message records
+     * @throws ValidationException if time range or cursor is malformed or limit is out of range
+     */
+    public Mono<MessagePage> findMessages(final UserPrincipal user, final String from, final String to,
+                                          final String cursor, final Integer limit) throws ValidationException {
+
+        return Mono.fromSupplier(() -> {
+            final Date start = time(from, "start");
+            final Date end = time(to, "end");
+            if (start != null && end != null && !start.before(end)) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Time range start must precede its end");
+            }
+            final int size = limit == null ? properties.getPagination().getDefaultLimit() : limit;
+            if (size < 1 || size > properties.getPagination().getMaxLimit()) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Page limit must be between 1 and " +
+                        properties.getPagination().getMaxLimit());
+            }
+            return store.find(visible(user), start, end, position(cursor), size);
+        });
+    }
+
+    /**
+     * Streams mail messages that are sent to or from specified user, in acceptance order, optionally accepted within
+     * a time range. Admin users can stream messages from all users. Messages are read from the store on demand, so
+     * memory used does not depend on the number of streamed messages.
+     *
+     * @param user   specified message receiver / sender user
+     * @param from   inclusive ISO-8601 start of the time range, {@code null} if unbounded
+     * @param to     exclusive ISO-8601 end of the time range, {@code null} if unbounded
+     * @param cursor cursor returned with a page to resume after, {@code null} to stream from the first message
+     * @return stream of mail message records
+     * @throws ValidationException if time range or cursor is malformed
+     */
+    public Flux<MailMessage> streamMessages(final UserPrincipal user, final String from, final String to,
+                                            final String cursor) throws ValidationException {
+        return Flux.defer(() -> Flux.fromIterable(store.iterate(visible(user), time(from, "start"), time(to, "end"),
+                position(cursor))));
+    }
+
+    /**
+     * Exports stored mail messages, optionally sent to or from a user and accepted within a time range, as a gzip
+     * compressed stream in acceptance order. Messages are read and compressed on a worker thread as the stream is
+     * consumed, so memory used does not depend on the number of exported messages. Invalid export requests are
+     * counted by {@link MailStatistics} as failures.
+     *
+     * @param username message receiver / sender user, {@code null} to export messages of all users
+     * @param from     inclusive ISO-8601 start of the time range, {@code null} if unbounded
+     * @param to       exclusive ISO-8601 end of the time range, {@code null} if unbounded
+     * @param format   export format name
+     * @param factory  factory of compressed data buffers
+     * @return stream of compressed data buffers
+     * @throws ValidationException if export format is unknown or time range is malformed
+     */
+    public Flux<DataBuffer> export(final String username, final String from, final String to,
+                                   final String format, final DataBufferFactory factory)
+            throws ValidationException {
+
+        final ExportFormat type = ExportFormat.find(format);
+        final Date start;
+        final Date end;
+        try {
+            if (type == null) throw Error.MAIL_REQUEST_INVALID.buildException("Unknown export format " + format);
+            start = time(from, "start");
+            end = time(to, "end");
+            if (start != null && end != null && !start.before(end)) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Time range start must precede its end");
+            }
+        } catch (final RuntimeException e) {
+            statistics.failed(e);
+            throw e;
+        }
+        return Flux.defer(() -> exporter.export(store.iterate(username, start, end, 0), type, factory))
+                .doOnComplete(() -> LOG.info("Exported {} emails of user {}", format, username))
+                .subscribeOn(Schedulers.boundedElastic());
+    }
+
+    /**
+     * Subscribes to mail messages sent to or from specified user as they are accepted. Subscribers resuming after a
+     * previous event are first replayed the messages accepted since.
+     *
+     * @param user        specified message receiver / sender user
+     * @param lastEventId identifier of the last event received, {@code null} to receive new messages only
+     * @return stream of feed events
+     * @throws ValidationException if event identifier is malformed
+     */
+    public Flux<FeedEvent> feed(final UserPrincipal user, final String lastEventId) throws ValidationException {
+        return Flux.defer(() -> feed.subscribe(user.getUsername(), event(lastEventId)));
+    }
+
+    /**
+     * Subscribes to mail messages of all users as they are accepted. Subscribers resuming after a previous event are
+     * first replayed the messages accepted since.
+     *
+     * @param lastEventId identifier of the last event received, {@code null} to receive new messages only
+     * @return stream of feed events
+     * @throws ValidationException if event identifier is malformed
+     */
+    public Flux<FeedEvent> firehose(final String lastEventId) throws ValidationException {
+        return Flux.defer(() -> feed.subscribe(null, event(lastEventId)));
+    }
+
+    /**
+     * Searches subjects and contents of mail messages that are sent to or from specified user, most relevant first.
+     * Admin users can search messages from all users. Messages match if they hold all query terms.
+     *
+     * @param user   specified message receiver / sender user
+     * @param query  search query text
+     * @param cursor cursor returned with the previous page, {@code null} for the first page
+     * @param limit  maximum number of hits in the page, configured default if {@code null}
+     * @return page of search hits
+     * @throws ValidationException  if query has no or too many terms, cursor is malformed or limit is out of range
+     * @throws UnavailableException if search is disabled
+     */
+    public Mono<SearchPage> searchMessages(final UserPrincipal user, final String query, final String cursor,
+                                           final Integer limit) throws ValidationException, UnavailableException {
+
+        return Mono.fromSupplier(() -> {
+            if (!properties.getSearch().isEnabled()) throw Error.MAIL_SEARCH_DISABLED.buildException();
+            final List<String> terms = search.terms(query == null ? "" : query);
+            if (terms.isEmpty()) throw Error.MAIL_REQUEST_INVALID.buildException("Search query has no terms");
+            if (terms.size() > properties.getSearch().getMaxTerms()) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Search query must have at most " +
+                        properties.getSearch().getMaxTerms() + " terms");
+            }
+            final int size = limit == null ? properties.getPagination().getDefaultLimit() : limit;
+            if (size < 1 || size > properties.getPagination().getMaxLimit()) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Page limit must be between 1 and " +
+                        properties.getPagination().getMaxLimit());
+            }
+            final long offset = position(cursor);
+            if (offset >= properties.getSearch().getMaxHits()) {
+                throw Error.MAIL_REQUEST_INVALID.buildException("Invalid page cursor");
+            }
+            return search.search(visible(user), terms, (int) offset, size);
+        });
+    }
+
+    /**
+     * Reads mail send statistics, maintained as sends are made, so reading costs the same regardless of the number of
+     * messages sent
+     *
+     * @return mail statistics
+     */
+    public Mono<MailStats> statistics() {
+        return Mono.fromSupplier(statistics::read);
+    }
+
+    /**
+     * Finds all mail messages whose delivery attempts were exhausted, oldest first
+     *
+     * @return dead letters
+     */
+    public Mono<List<DeadLetter>> findDeadLetters() {
+        return Mono.fromSupplier(deadLetters::findAll);
+    }
+
+    /**
+     * Re-drives dead-lettered mail messages for another round of delivery attempts
+     *
+     * @param ids dead letter identifiers, all dead letters are re-driven if empty
+     * @return re-driven mail message records
+     * @throws ValidationException  if an identifier is invalid
+     * @throws UnavailableException if messages could not be recorded
+     */
+    public Mono<List<MailMessage>> redriveDeadLetters(final List<String> ids) throws ValidationException,
+            UnavailableException {
+
+        return Mono.fromSupplier(() -> deadLetters.remove(parse(ids)))
+                .map(r -> r.stream().map(DeadLetter::getMessage).collect(Collectors.toList()))
+                .flatMap(queue::redrive)
+                .doOnNext(r -> LOG.info("Re-driven {} dead-lettered emails", r.size()));
+    }
+
+    /**
+     * Purges dead-lettered mail messages, they are never delivered
+     *
+     * @param ids dead letter identifiers, all dead letters are purged if empty
+     * @return purged dead letters
+     * @throws ValidationException if an identifier is invalid
+     */
+    public Mono<List<DeadLetter>> purgeDeadLetters(final List<String> ids) throws ValidationException {
+
+        return Mono.fromSupplier(() -> deadLetters.remove(parse(ids)))
+                .doOnNext(r -> LOG.info("Purged {} dead-lettered emails", r.size()));
+    }
+
+    /**
+     * Adopts settled mail messages handed off by another cluster node, adding them to the store, search index and
+     * statistics. Messages stored already are skipped, so a repeated hand-off adopts each message once.
+     *
+     * @param messages handed off mail messages
+     * @return number of adopted messages
+     */
+    public Mono<Integer> adopt(final List<MailMessage> messages) {
+
+        return Mono.fromSupplier(() -> {
+            int adopted = 0;
+            for (final MailMessage message : messages) {
+                if (!feed.store(message)) continue;
+                search.add(message);
+                statistics.accepted(message);
+                adopted++;
+            }
+            return adopted;
+        }).doOnNext(r -> LOG.info("Adopted {} handed off emails", r));
+    }
+
+    /**
+     * Keeps copies of settled mail messages replicated by the cluster node owning their senders, for their recipients
+     * owned by the local node, adding them to the store and search index. Copies are not delivered and not counted by
+     * statistics, which count messages on the owner node of their sender only. Messages stored already are skipped, so
+     * a repeated replication keeps each message once.
+     *
+     * @param messages replicated mail messages
+     * @return number of kept messages
+     */
+    public Mono<Integer> replicate(final List<MailMessage> messages) {
+
+        return Mono.fromSupplier(() -> {
+            int kept = 0;
+            for (final MailMessage message : messages) {
+                if (!feed.store(message)) continue;
+                search.add(message);
+                kept++;
+            }
+            return kept;
+        }).doOnNext(r -> LOG.debug("Kept {} replicated emails", r));
+    }
 
     /**
-     * Sends a SMTP mail message and returns sent message data record
+     * Accepts a mail message for asynchronous SMTP delivery, adding accepted messages to the store, search index and
+     * statistics
      *
      * @param email message to send
-     * @return sent mail message record
-     * @throws MailException       if message sending process fails
-     * @throws ValidationException if message send data validation fails
+     * @return accepted mail message record
+     * @throws MailException        if message sending process fails
+     * @throws ValidationException  if message send data validation fails
+     * @throws UnavailableException if outbound mail queue or message store capacity is exhausted or the send is shed
      */
-    public Mono<MailMessage> send(final MailSend email) throws MailException, ValidationException {
+    private Mono<MailMessage> accept(final MailSend email) throws MailException, ValidationException,
+            UnavailableException {
 
-        return Mono.create(sink -> {
+        return admission.admit(Mono.<MailMessage>create(sink -> {
             // validate required data
             new ModelValidator<MailSend>().validate(email, Error.MAIL_REQUEST_INVALID);
 
@@ -63,38 +527,121 @@ public class MailService {
                 sink.error(Error.MAIL_HOST_INVALID.buildException());
                 return;
             }
-
-            // compose support module data object
-            final SmtpEmail smtpEmail = new SmtpEmail();
-            smtpEmail.adrs = new String[]{email.getAddress()};
-            smtpEmail.subject = email.getSubject();
-            smtpEmail.content = email.getContent();
-            smtpEmail.username = properties.getSmtpUsername();
-            smtpEmail.password = properties.getSmtpPassword();
-            smtpHandler.post(smtpEmail);
-
-            final MailMessage message = new MailMessage(email);
-            messages.add(message);
-            LOG.info("Sent email success. Record: {}", message.asString());
-            sink.success(message);
+            if (email.getSendAt() != null && email.getSendAt().getTime() - System.currentTimeMillis() >
+                    properties.getSchedule().getMaxDelay()) {
+                sink.error(Error.MAIL_REQUEST_INVALID.buildException("Scheduled send time is too far ahead"));
+                return;
+            }
+            if (store.isFull()) {
+                sink.error(Error.MAIL_STORE_FULL.buildException());
+                return;
+            }
+            sink.success(new MailMessage(email));
+        }).flatMap(queue::submit)).doOnNext(message -> {
+            if (feed.store(message)) {
+                search.add(message);
+                statistics.accepted(message);
+            }
+            LOG.info("Queued email success. Record: {}", message.asString());
         });
     }
 
     /**
-     * Finds all mail messages that are sent to or from specified user. Admin users can see a full list of messages from
-     * all users.
+     * Counts a stored message in statistics, unless it is a copy kept for a recipient of a sender owned elsewhere
      *
-     * @param user specified message receiver / sender user
-     * @return mail message records
+     * @param message stored mail message
      */
-    public Mono<List<MailMessage>> findMessages(final UserPrincipal user) {
+    private void count(final MailMessage message) {
+        if (membership.isLocal(message.getOrigin())) statistics.accepted(message);
+    }
 
-        return Mono.create(sink -> {
-            final String username = user.getUsername();
-            sink.success(user.hasAuthority(UserAuthority.ADMIN) ? messages :
-                    messages.stream().filter(m -> m.getOrigin().equals(username) || m.getAddress().equals(username))
-                            .collect(Collectors.toList()));
-        });
+    /**
+     * Resolves the user whose messages are visible to specified user
+     *
+     * @param user specified user
+     * @return visible user name, or {@code null} if all messages are visible
+     */
+    private static String visible(final UserPrincipal user) {
+        return user.hasAuthority(UserAuthority.ADMIN) ? null : user.getUsername();
+    }
+
+    /**
+     * Parses a time range bound
+     *
+     * @param value ISO-8601 date and time with offset, may be {@code null}
+     * @param bound name of the bound for error reporting
+     * @return parsed time, or {@code null} if unbounded
+     * @throws ValidationException if value is malformed
+     */
+    private static Date time(final String value, final String bound) throws ValidationException {
+        if (value == null) return null;
+        try {
+            return Date.from(OffsetDateTime.parse(value).toInstant());
+        } catch (final DateTimeParseException e) {
+            throw Error.MAIL_REQUEST_INVALID.buildException("Invalid time range " + bound);
+        }
+    }
+
+    /**
+     * Decodes a page cursor into a store position
+     *
+     * @param cursor page cursor, may be {@code null}
+     * @return store position
+     * @throws ValidationException if cursor is malformed
+     */
+    private static long position(final String cursor) throws ValidationException {
+        try {
+            return MessagePage.decode(cursor);
+        } catch (final IllegalArgumentException e) {
+            throw Error.MAIL_REQUEST_INVALID.buildException("Invalid page cursor");
+        }
+    }
+
+    /**
+     * Decodes a feed event identifier into a store position
+     *
+     * @param id feed event identifier, may be {@code null}
+     * @return store position
+     * @throws ValidationException if identifier is malformed
+     */
+    private static long event(final String id) throws ValidationException {
+        try {
+            return MessagePage.decode(id);
+        } catch (final IllegalArgumentException e) {
+            throw Error.MAIL_REQUEST_INVALID.buildException("Invalid last event identifier");
+        }
+    }
+
+    /**
+     * Looks up a stored mail message, or a restored snapshot message not hydrated into the store yet
+     *
+     * @param id mail message identifier
+     * @return mail message, or {@code null} if identifier is malformed or unknown
+     */
+    private MailMessage lookup(final String id) {
+        try {
+            final UUID uuid = UUID.fromString(id);
+            final MailMessage message = store.get(uuid);
+            return message != null ? message : snapshot.find(uuid);
+        } catch (final IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses mail message identifiers
+     *
+     * @param ids mail message identifiers, may be {@code null}
+     * @return parsed identifiers
+     * @throws ValidationException if an identifier is invalid
+     */
+    private static List<UUID> parse(final List<String> ids) throws ValidationException {
+        if (ids == null) return Collections.emptyList();
+        try {
+            return ids.stream().map(UUID::fromString).collect(Collectors.toList());
+        } catch (final IllegalArgumentException e) {
+            throw Error.MAIL_REQUEST_INVALID.buildException("Invalid mail message identifier");
+        }
     }
 
 }
@@ -0,0 +1,526 @@
+package com.effcode.clean.me.domain.snapshot;
+
+import com.effcode.clean.me.core.cache.ExpiringCache;
+import com.effcode.clean.me.core.storage.ColumnReader;
+import com.effcode.clean.me.core.storage.ColumnType;
+import com.effcode.clean.me.core.storage.ColumnWriter;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.model.UserPrincipal;
+import com.effcode.clean.me.domain.security.AuthManager;
+import com.effcode.clean.me.domain.stats.MailStatistics;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Periodic snapshots of in-memory service state, restored on startup. A snapshot is a column file holding, when
+ * enabled, the active authentication sessions of {@link AuthManager} with their bearer tokens, the remembered
+ * idempotency keys of mail sends with their accepted messages and expiry times, the failed send counts of
+ * {@link MailStatistics} and, when messages are kept by a {@link MemoryMessageStore}, the stored messages with their
+ * store positions. Send counts are not part of the snapshot, as they are rebuilt from stored messages. Snapshots are
+ * written with a fixed delay, and once more on shutdown, by iterating the store concurrently with writers up to its
+ * read epoch as the snapshot starts, so writers are never paused and the snapshot is a consistent cut of the store in
+ * acceptance order. Messages removed or changing delivery state while a snapshot is written may be captured either way.
+ * <p>
+ * On startup the latest readable snapshot is memory-mapped. Sessions and failure counts are restored right away,
+ * unexpired idempotency keys are held until the idempotency key cache is attached by {@link #attach(ExpiringCache)},
+ * while messages are only indexed by identifier, and their positions reserved in the store, from the mapped columns.
+ * Messages are then hydrated into the store in acceptance order by a background thread, meanwhile messages not hydrated
+ * yet are served by {@link #find(UUID)} from the mapped snapshot. Messages recovered as undelivered from the outbox
+ * take the place of their snapshot copy. The time from process start until hydration completes is published as the
+ * {@code mail.snapshot.ready} metric, snapshot writes as the {@code mail.snapshot.writes} metric.
+ * A shutdown before hydration completes writes no snapshot, so the snapshot restored from is kept whole.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ColumnWriter
+ * @see ColumnReader
+ * @see ApplicationProperties.Snapshot
+ * @since 1.0
+ */
+@Component
+public class StateSnapshot {
+
+    private static final Logger LOG = LoggerFactory.getLogger(StateSnapshot.class);
+    private static final Pattern FILE = Pattern.compile("snapshot-\\d{13}\\.snap");
+    private static final String SESSIONS = "sessions";
+    private static final String MESSAGES = "messages";
+    private static final String IDEMPOTENCY = "idempotency";
+    private static final String FAILURES = "failures";
+    private static final long NONE = Long.MIN_VALUE;
+    private static final ColumnType[] SESSION_COLUMNS = {ColumnType.STRING, ColumnType.STRING, ColumnType.LONG};
+    private static final int USERNAME = 0;
+    private static final int TOKEN = 1;
+    private static final int ISSUED = 2;
+    private static final ColumnType[] MESSAGE_COLUMNS = {ColumnType.LONG, ColumnType.LONG, ColumnType.LONG,
+            ColumnType.LONG, ColumnType.LONG, ColumnType.LONG, ColumnType.STRING, ColumnType.STRING,
+            ColumnType.STRING, ColumnType.STRING, ColumnType.STRING};
+    private static final int ID_HIGH = 0;
+    private static final int ID_LOW = 1;
+    private static final int POSITION = 2;
+    private static final int TIMESTAMP = 3;
+    private static final int SEND_AT = 4;
+    private static final int ATTEMPTS = 5;
+    private static final int STATE = 6;
+    private static final int ORIGIN = 7;
+    private static final int ADDRESS = 8;
+    private static final int SUBJECT = 9;
+    private static final int CONTENT = 10;
+    private static final ColumnType[] IDEMPOTENCY_COLUMNS = {ColumnType.LONG, ColumnType.LONG, ColumnType.LONG,
+            ColumnType.LONG, ColumnType.LONG, ColumnType.LONG, ColumnType.STRING, ColumnType.STRING,
+            ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.STRING, ColumnType.LONG};
+    private static final int KEY = 11;
+    private static final int EXPIRY = 12;
+    private static final ColumnType[] FAILURE_COLUMNS = {ColumnType.STRING, ColumnType.LONG};
+    private static final int ERROR = 0;
+    private static final int COUNT = 1;
+    private ScheduledExecutorService writer;
+    private Timer writes;
+    private Path directory;
+    private ColumnReader reader;
+    private ExpiringCache<String, MailMessage> restored;
+    private volatile ExpiringCache<String, MailMessage> idempotency;
+    private volatile ColumnReader.Table messages;
+    private volatile int[] slots;
+    private volatile int hydrated;
+    private volatile boolean ready;
+    private volatile boolean stopping;
+    private volatile double readyTime = Double.NaN;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private AuthManager auth;
+
+    @Autowired
+    private MailStatistics statistics;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Registers snapshot metrics, restores the latest snapshot and starts periodic snapshots
+     */
+    @PostConstruct
+    protected void start() {
+        TimeGauge.builder("mail.snapshot.ready", this, TimeUnit.MILLISECONDS, s -> s.readyTime)
+                .description("Time from process start until restored service state is hydrated").register(registry);
+        writes = Timer.builder("mail.snapshot.writes").description("Service state snapshots written")
+                .register(registry);
+        final ApplicationProperties.Snapshot snapshot = properties.getSnapshot();
+        if (!snapshot.isEnabled()) return;
+        directory = Paths.get(snapshot.getDirectory());
+        try {
+            Files.createDirectories(directory);
+            open();
+        } catch (final IOException e) {
+            LOG.error("Failed to restore service state snapshot", e);
+        }
+        writer = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-snapshot-"));
+        writer.scheduleWithFixedDelay(this::write, snapshot.getInterval(), snapshot.getInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops periodic snapshots and hydration, and writes a final snapshot unless hydration was cut short
+     */
+    @PreDestroy
+    protected void stop() {
+        stopping = true;
+        if (writer == null) return;
+        writer.shutdownNow();
+        write();
+    }
+
+    /**
+     * Attaches the idempotency key cache of mail sends, so its keys are written to snapshots, and puts the unexpired
+     * keys of the restored snapshot into it
+     *
+     * @param cache idempotency key cache
+     * @return number of restored idempotency keys
+     */
+    public int attach(final ExpiringCache<String, MailMessage> cache) {
+        idempotency = cache;
+        if (restored == null) return 0;
+        restored.forEach(cache::put);
+        restored = null;
+        return cache.size();
+    }
+
+    /**
+     * Adds a message to the store at the position it held in the restored snapshot, used for messages recovered
+     * from the outbox before hydration
+     *
+     * @param message mail message
+     * @return {@code true} if message was added, {@code false} if not in snapshot or already stored
+     */
+    public boolean restore(final MailMessage message) {
+        final ColumnReader.Table table = messages;
+        final int row = table == null ? -1 : row(table, message.getId());
+        return row >= 0 && ((MemoryMessageStore) store).restore(message, table.getLong(POSITION, row));
+    }
+
+    /**
+     * Hydrates messages of the restored snapshot into the store on a background thread, in acceptance order.
+     * Messages already stored are skipped, the others are added and passed to the consumer.
+     *
+     * @param consumer consumer of hydrated messages, invoked on the hydration thread
+     */
+    public void hydrate(final Consumer<MailMessage> consumer) {
+        final ColumnReader.Table table = messages;
+        if (table == null) {
+            ready(0);
+            return;
+        }
+        final Thread thread = new Thread(() -> {
+            final MemoryMessageStore memory = (MemoryMessageStore) store;
+            final int rows = table.getRows();
+            int restored = 0;
+            int row = 0;
+            try {
+                for (; row < rows && !stopping; row++) {
+                    final MailMessage message = message(table, row);
+                    if (memory.restore(message, table.getLong(POSITION, row))) {
+                        consumer.accept(message);
+                        restored++;
+                    }
+                    hydrated = row + 1;
+                }
+            } catch (final RuntimeException e) {
+                LOG.error("Failed to hydrate service state snapshot " + reader.getFile(), e);
+            } finally {
+                messages = null;
+                slots = null;
+                close();
+            }
+            // hydration cut short by shutdown leaves the snapshot unready, so the partly hydrated store is not written
+            // over the snapshot it was restored from
+            if (row == rows || !stopping) ready(restored);
+        }, "mail-snapshot-hydrator");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    /**
+     * Finds a message of the restored snapshot which is not hydrated yet
+     *
+     * @param id mail message identifier
+     * @return mail message as of the snapshot, or {@code null} if not in snapshot or already hydrated
+     */
+    public MailMessage find(final UUID id) {
+        final ColumnReader.Table table = messages;
+        if (table == null) return null;
+        final int row = row(table, id);
+        // hydrated messages are served by the store, including their removal
+        return row < 0 || row < hydrated ? null : message(table, row);
+    }
+
+    /**
+     * Checks whether restored service state is fully hydrated
+     *
+     * @return {@code true} if hydration completed, otherwise {@code false}
+     */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Opens the latest readable snapshot, skipping unreadable ones, restores its sessions and failure counts, reads
+     * its idempotency keys and indexes its messages. Leftovers of interrupted snapshot writes are deleted.
+     *
+     * @throws IOException if snapshot directory can not be listed
+     */
+    private void open() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            for (final Path file : files.collect(Collectors.toList())) {
+                final String name = file.getFileName().toString();
+                if (name.startsWith("snapshot-") && name.contains(".tmp")) Files.deleteIfExists(file);
+            }
+        }
+        for (final Path file : snapshots()) {
+            try {
+                reader = new ColumnReader(file);
+            } catch (final IOException e) {
+                LOG.warn("Skipped unreadable service state snapshot " + file, e);
+                continue;
+            }
+            final int sessions = properties.getSnapshot().isSessions() ? sessions(reader.table(SESSIONS)) : 0;
+            failures(reader.table(FAILURES));
+            final int keys = keys(reader.table(IDEMPOTENCY));
+            final ColumnReader.Table table = reader.table(MESSAGES);
+            if (store instanceof MemoryMessageStore && table != null && table.getRows() > 0) {
+                index(table);
+                messages = table;
+            } else {
+                close();
+            }
+            LOG.info("Restored {} sessions, {} idempotency keys and mapped {} messages from service state snapshot {}",
+                    sessions, keys, table == null ? 0 : table.getRows(), file);
+            return;
+        }
+    }
+
+    /**
+     * Restores authentication sessions
+     *
+     * @param table sessions table, may be {@code null}
+     * @return number of restored sessions
+     */
+    private int sessions(final ColumnReader.Table table) {
+        if (table == null) return 0;
+        int restored = 0;
+        for (int row = 0; row < table.getRows(); row++) {
+            if (auth.restoreSession(table.getString(USERNAME, row), table.getString(TOKEN, row),
+                    new Date(table.getLong(ISSUED, row)))) restored++;
+        }
+        return restored;
+    }
+
+    /**
+     * Restores failed send counts, counts of error codes no longer defined are skipped
+     *
+     * @param table failures table, may be {@code null}
+     */
+    private void failures(final ColumnReader.Table table) {
+        if (table == null) return;
+        for (int row = 0; row < table.getRows(); row++) {
+            try {
+                statistics.failed(Error.valueOf(table.getString(ERROR, row)), table.getLong(COUNT, row));
+            } catch (final IllegalArgumentException e) {
+                LOG.debug("Skipped failure count of unknown error {}", table.getString(ERROR, row));
+            }
+        }
+    }
+
+    /**
+     * Reads unexpired idempotency keys, held until the idempotency key cache is attached. Expiry times are absolute,
+     * so time passed while the service was down counts against the time to live of the keys.
+     *
+     * @param table idempotency keys table, may be {@code null}
+     * @return number of unexpired idempotency keys
+     */
+    private int keys(final ColumnReader.Table table) {
+        if (table == null) return 0;
+        final ApplicationProperties.Idempotency settings = properties.getIdempotency();
+        final ExpiringCache<String, MailMessage> keys = new ExpiringCache<>(settings.getTtl(), settings.getCapacity());
+        final long now = System.currentTimeMillis();
+        for (int row = 0; row < table.getRows(); row++) {
+            keys.put(table.getString(KEY, row), message(table, row), table.getLong(EXPIRY, row) - now);
+        }
+        restored = keys;
+        return keys.size();
+    }
+
+    /**
+     * Indexes snapshot messages by identifier in an open addressing table of row numbers, and reserves their store
+     * positions in the stripes of their origins
+     *
+     * @param table messages table
+     */
+    private void index(final ColumnReader.Table table) {
+        final MemoryMessageStore memory = (MemoryMessageStore) store;
+        final int[] index = new int[Integer.highestOneBit(Math.max(1, table.getRows() * 2 - 1)) << 1];
+        final int mask = index.length - 1;
+        for (int row = 0; row < table.getRows(); row++) {
+            // identifiers are unique, so a free slot is claimed without comparing identifiers
+            int slot = slot(table.getLong(ID_HIGH, row), table.getLong(ID_LOW, row)) & mask;
+            while (index[slot] != 0) slot = (slot + 1) & mask;
+            index[slot] = row + 1;
+            memory.reserve(table.getLong(POSITION, row), table.getLong(TIMESTAMP, row),
+                    table.getString(ORIGIN, row));
+        }
+        slots = index;
+    }
+
+    /**
+     * Looks up the snapshot row of a message
+     *
+     * @param table messages table
+     * @param id    mail message identifier
+     * @return row number, or {@code -1} if not in snapshot
+     */
+    private int row(final ColumnReader.Table table, final UUID id) {
+        final int[] index = slots;
+        if (index == null) return -1;
+        final long high = id.getMostSignificantBits();
+        final long low = id.getLeastSignificantBits();
+        final int mask = index.length - 1;
+        for (int slot = slot(high, low) & mask; index[slot] != 0; slot = (slot + 1) & mask) {
+            final int row = index[slot] - 1;
+            if (table.getLong(ID_HIGH, row) == high && table.getLong(ID_LOW, row) == low) return row;
+        }
+        return -1;
+    }
+
+    /**
+     * Writes a snapshot of current state, unless a restored snapshot is still being hydrated, and deletes snapshots
+     * exceeding the retained count
+     */
+    private synchronized void write() {
+        if (!ready) return;
+        final long start = System.nanoTime();
+        final Path file = directory.resolve(String.format("snapshot-%013d.snap", System.currentTimeMillis()));
+        int count = 0;
+        try (ColumnWriter columns = new ColumnWriter(file)) {
+            if (properties.getSnapshot().isSessions()) {
+                columns.begin(SESSIONS, SESSION_COLUMNS);
+                for (final UserPrincipal user : auth.getSessions()) {
+                    columns.writeString(user.getUsername());
+                    columns.writeString(user.getToken());
+                    columns.writeLong(user.getTimestamp().getTime());
+                }
+                columns.end();
+            }
+            columns.begin(FAILURES, FAILURE_COLUMNS);
+            for (final Map.Entry<String, Long> failure : statistics.read().getFailures().entrySet()) {
+                columns.writeString(failure.getKey());
+                columns.writeLong(failure.getValue());
+            }
+            columns.end();
+            final ExpiringCache<String, MailMessage> keys = idempotency;
+            if (keys != null) {
+                columns.begin(IDEMPOTENCY, IDEMPOTENCY_COLUMNS);
+                final long now = System.currentTimeMillis();
+                keys.forEach((key, message, ttl) -> {
+                    try {
+                        write(columns, message, 0);
+                        columns.writeString(key);
+                        columns.writeLong(now + ttl);
+                    } catch (final IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                columns.end();
+            }
+            if (store instanceof MemoryMessageStore) {
+                final MemoryMessageStore memory = (MemoryMessageStore) store;
+                columns.begin(MESSAGES, MESSAGE_COLUMNS);
+                for (final MailMessage message : memory.iterate(null, null, null, 0)) {
+                    final long position = memory.position(message.getId());
+                    if (position == 0) continue;
+                    write(columns, message, position);
+                    count++;
+                }
+                columns.end();
+            }
+            columns.commit();
+        } catch (final IOException | RuntimeException e) {
+            LOG.error("Failed to write service state snapshot " + file, e);
+            return;
+        }
+        writes.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        LOG.debug("Written service state snapshot {} with {} messages", file, count);
+        try {
+            final List<Path> files = snapshots();
+            for (final Path old : files.subList(Math.min(files.size(), Math.max(1,
+                    properties.getSnapshot().getRetain())), files.size())) {
+                Files.deleteIfExists(old);
+            }
+        } catch (final IOException e) {
+            LOG.warn("Failed to delete old service state snapshots", e);
+        }
+    }
+
+    private static void write(final ColumnWriter columns, final MailMessage message, final long position)
+            throws IOException {
+        columns.writeLong(message.getId().getMostSignificantBits());
+        columns.writeLong(message.getId().getLeastSignificantBits());
+        columns.writeLong(position);
+        columns.writeLong(message.getTimestamp().getTime());
+        columns.writeLong(message.getSendAt() == null ? NONE : message.getSendAt().getTime());
+        columns.writeLong(message.getAttempts());
+        columns.writeString(message.getState() == null ? null : message.getState().name());
+        columns.writeString(message.getOrigin());
+        columns.writeString(message.getAddress());
+        columns.writeString(message.getSubject());
+        columns.writeString(message.getContent());
+    }
+
+    private static MailMessage message(final ColumnReader.Table table, final int row) {
+        final MailSend send = new MailSend(table.getString(ADDRESS, row), table.getString(SUBJECT, row),
+                table.getString(CONTENT, row), table.getString(ORIGIN, row));
+        final long sendAt = table.getLong(SEND_AT, row);
+        if (sendAt != NONE) send.setSendAt(new Date(sendAt));
+        final MailMessage message = new MailMessage(new UUID(table.getLong(ID_HIGH, row), table.getLong(ID_LOW, row)),
+                new Date(table.getLong(TIMESTAMP, row)), send);
+        final String state = table.getString(STATE, row);
+        if (state != null) message.setState(DeliveryState.valueOf(state));
+        message.setAttempts((int) table.getLong(ATTEMPTS, row));
+        return message;
+    }
+
+    private static int slot(final long high, final long low) {
+        long hash = high ^ low;
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return (int) hash;
+    }
+
+    /**
+     * Lists snapshot files, latest first
+     *
+     * @return snapshot file paths
+     * @throws IOException if snapshot directory can not be listed
+     */
+    private List<Path> snapshots() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            final List<Path> result = files.filter(f -> FILE.matcher(f.getFileName().toString()).matches())
+                    .sorted().collect(Collectors.toCollection(ArrayList::new));
+            Collections.reverse(result);
+            return result;
+        }
+    }
+
+    private void close() {
+        if (reader == null) return;
+        try {
+            reader.close();
+        } catch (final IOException e) {
+            LOG.warn("Failed to close service state snapshot " + reader.getFile(), e);
+        }
+    }
+
+    private void ready(final int restored) {
+        readyTime = ManagementFactory.getRuntimeMXBean().getUptime();
+        ready = true;
+        if (restored > 0) LOG.info("Hydrated {} messages from service state snapshot", restored);
+    }
+}
@@ -0,0 +1,151 @@
+package com.effcode.clean.me.domain.stats;
+
+import com.effcode.clean.me.core.spec.IException;
+import com.effcode.clean.me.core.stats.RollingCounter;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.Date;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Mail statistics component, maintaining send and failure counters on the mail service write path instead of deriving
+ * them from stored messages. Accepted sends are counted per origin user, per destination domain and per minute of
+ * acceptance, failed sends per {@link Error} code. Counters are striped {@link LongAdder}s, so concurrent sends do not
+ * contend on a shared counter, and sends per minute are held in a {@link RollingCounter} window of recent minutes.
+ * <p>
+ * The number of tracked users and domains is bounded, sends of further users and domains are counted under a shared
+ * {@link #OTHER} key. Reading statistics therefore costs a pass over a bounded number of counters, regardless of the
+ * number of messages sent or stored.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailStats
+ * @see ApplicationProperties.Stats
+ * @since 1.0
+ */
+@Component
+public class MailStatistics {
+
+    /**
+     * Key counting sends of users and domains exceeding the tracked key limit
+     */
+    public static final String OTHER = "*";
+
+    private final LongAdder sends = new LongAdder();
+    private final ConcurrentMap<String, LongAdder> users = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, LongAdder> domains = new ConcurrentHashMap<>();
+    private final Map<Error, LongAdder> failures = new EnumMap<>(Error.class);
+    private RollingCounter minutes;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    /**
+     * Creates the per-minute send window and the failure counters
+     */
+    @PostConstruct
+    protected void start() {
+        minutes = new RollingCounter(TimeUnit.MINUTES.toMillis(1), properties.getStats().getWindow());
+        // all failure counters exist upfront, so the enum map is never modified concurrently
+        for (final Error error : Error.values()) failures.put(error, new LongAdder());
+    }
+
+    /**
+     * Counts an accepted mail message
+     *
+     * @param message accepted mail message
+     */
+    public void accepted(final MailMessage message) {
+        sends.increment();
+        counter(users, message.getOrigin()).increment();
+        counter(domains, domain(message.getAddress())).increment();
+        minutes.increment(message.getTimestamp().getTime());
+    }
+
+    /**
+     * Counts accepted mail messages
+     *
+     * @param messages accepted mail messages
+     */
+    public void acceptedAll(final Iterable<MailMessage> messages) {
+        messages.forEach(this::accepted);
+    }
+
+    /**
+     * Counts a failed mail send by its error code, failures without a domain error are not counted
+     *
+     * @param failure send failure
+     */
+    public void failed(final Throwable failure) {
+        if (!(failure instanceof IException)) return;
+        final LongAdder counter = failures.get(((IException<?>) failure).getError());
+        if (counter != null) counter.increment();
+    }
+
+    /**
+     * Counts failed mail sends of an error code, used for failure counts restored after a restart
+     *
+     * @param error failure error code
+     * @param count number of failed sends
+     */
+    public void failed(final Error error, final long count) {
+        final LongAdder counter = failures.get(error);
+        if (counter != null) counter.add(count);
+    }
+
+    /**
+     * Reads current statistics
+     *
+     * @return statistics snapshot
+     */
+    public MailStats read() {
+        final long now = System.currentTimeMillis();
+        final long[] counts = minutes.counts(now);
+        final long since = (now / minutes.getSlot() - counts.length + 1) * minutes.getSlot();
+        final Map<String, Long> errors = new LinkedHashMap<>();
+        failures.forEach((error, counter) -> {
+            final long count = counter.sum();
+            if (count > 0) errors.put(error.name(), count);
+        });
+        return new MailStats(new Date(now), sends.sum(), sums(users), sums(domains), errors, new Date(since), counts);
+    }
+
+    /**
+     * Looks up the counter of a key, creating it unless the key limit is reached
+     *
+     * @param counters counters by key
+     * @param key      counter key
+     * @return key counter, or the shared counter of untracked keys
+     */
+    private LongAdder counter(final ConcurrentMap<String, LongAdder> counters, final String key) {
+        final LongAdder counter = counters.get(key);
+        if (counter != null) return counter;
+        // the limit may be exceeded by a few keys created concurrently, which is harmless
+        if (counters.size() >= properties.getStats().getMaxKeys()) {
+            return counters.computeIfAbsent(OTHER, k -> new LongAdder());
+        }
+        return counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    private static Map<String, Long> sums(final Map<String, LongAdder> counters) {
+        final Map<String, Long> result = new LinkedHashMap<>();
+        counters.forEach((key, counter) -> result.put(key, counter.sum()));
+        return result;
+    }
+
+    private static String domain(final String address) {
+        return address.substring(address.lastIndexOf('@') + 1).toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,101 @@
+package com.effcode.clean.me.domain.stats;
+
+import com.effcode.clean.me.core.spec.IModel;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Snapshot of mail statistics read from {@link MailStatistics}. Counters are read one by one while sends continue, so
+ * counts of a snapshot may differ by the sends made while it was read.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IModel
+ * @see MailStatistics
+ * @since 1.0
+ */
+public final class MailStats implements IModel<MailStats, String> {
+
+    private final Date timestamp;
+    private final long sends;
+    private final Map<String, Long> users;
+    private final Map<String, Long> domains;
+    private final Map<String, Long> failures;
+    private final Date since;
+    private final long[] minutes;
+
+    MailStats(final Date timestamp, final long sends, final Map<String, Long> users, final Map<String, Long> domains,
+              final Map<String, Long> failures, final Date since, final long[] minutes) {
+        this.timestamp = timestamp;
+        this.sends = sends;
+        this.users = users;
+        this.domains = domains;
+        this.failures = failures;
+        this.since = since;
+        this.minutes = minutes;
+    }
+
+    /**
+     * Accessor for the time statistics were read
+     *
+     * @return read time
+     */
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    /**
+     * Accessor for the number of accepted sends
+     *
+     * @return accepted send count
+     */
+    public long getSends() {
+        return sends;
+    }
+
+    /**
+     * Accessor for the number of accepted sends per origin user
+     *
+     * @return send counts by user name
+     */
+    public Map<String, Long> getUsers() {
+        return users;
+    }
+
+    /**
+     * Accessor for the number of accepted sends per destination address domain
+     *
+     * @return send counts by domain
+     */
+    public Map<String, Long> getDomains() {
+        return domains;
+    }
+
+    /**
+     * Accessor for the number of failed sends per error, errors without failures are omitted
+     *
+     * @return failure counts by error name
+     */
+    public Map<String, Long> getFailures() {
+        return failures;
+    }
+
+    /**
+     * Accessor for the start of the first minute of the per-minute send window
+     *
+     * @return window start time
+     */
+    public Date getSince() {
+        return since;
+    }
+
+    /**
+     * Accessor for the number of accepted sends per minute of the window, oldest first
+     *
+     * @return send counts per minute
+     */
+    public long[] getMinutes() {
+        return minutes;
+    }
+}
@@ -0,0 +1,28 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Message store off-heap arena policy enumeration set, designates how messages are handled once the
+ * {@link OffHeapArena off-heap arena} holding message subjects and contents is full
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see MessageStore
+ * @since 1.0
+ */
+public enum ArenaPolicy implements IEnum<ArenaPolicy> {
+
+    /**
+     * Keep subject and content of further messages on heap, message sends are never refused by the store
+     */
+    HEAP,
+
+    /**
+     * Refuse further message sends as unavailable, messages accepted meanwhile are kept on heap
+     */
+    REJECT
+
+}
@@ -0,0 +1,1003 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.core.storage.SegmentLog;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.LongConsumer;
+
+/**
+ * Persistent log-structured {@link MessageStore mail message store}. Messages are appended as records to a
+ * {@link SegmentLog} of memory-mapped segment files, forced to storage by group commit, and decoded from the mapped
+ * segments on each read, so message bodies never stay on heap. The log is replayed on open to rebuild the in-memory
+ * indexes, which hold only positions: identifiers and per-user position lists resolve through a sparse index, mapping
+ * every n-th position to its record address, from where a record is found by a short forward scan. Timestamp ranges
+ * are translated by a {@link TimeIndex} into position ranges.
+ * <p>
+ * Delivery state changes and removals are appended as small state and delete records, a removed message is no longer
+ * indexed by identifier, which hides it from readers. A background compactor rewrites sealed segments in place once
+ * enough of their bytes are reclaimable, dropping expired and removed messages and folding state records into the
+ * messages they belong to, and deletes segments whose messages all expired. Readers hold a read lock only while
+ * decoding a single record, and are excluded only while a rewritten segment is swapped in.
+ * <p>
+ * The recorded state of a message is dropped as it is removed. Its positions in the per-user lists are dropped, and
+ * timestamp index entries before the oldest stored message are truncated, once compaction rewrites or deletes the
+ * segment holding it.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageStore
+ * @see SegmentLog
+ * @since 1.0
+ */
+public class LogMessageStore implements MessageStore, Closeable {
+
+    private static final Logger LOG = LoggerFactory.getLogger(LogMessageStore.class);
+    private static final String NAME = "messages";
+    private static final byte MESSAGE = 1;
+    private static final byte STATE = 2;
+    private static final byte DELETE = 3;
+    private static final int TIMESTAMP = 25;
+    private static final int SEND_AT = 33;
+    private static final int STATE_FIELD = 41;
+    private static final int ATTEMPTS = 42;
+    private static final int FIELDS = 46;
+    private static final int DELETED_BYTES = 25;
+    private static final int DELETED_ORIGIN = 29;
+    private static final DeliveryState[] STATES = DeliveryState.values();
+    private final ApplicationProperties.Store properties;
+    private final SegmentLog log;
+    private final ConcurrentMap<UUID, Long> ids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final LongAdder bytes = new LongAdder();
+    private final ConcurrentMap<String, Positions> origins = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Positions> addresses = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Long, Long> sparse = new ConcurrentSkipListMap<>();
+    private final ConcurrentNavigableMap<Integer, Long> firsts = new ConcurrentSkipListMap<>();
+    private final ConcurrentMap<Integer, Long> newest = new ConcurrentHashMap<>();
+    private final Set<Integer> clean = ConcurrentHashMap.newKeySet();
+    private final States states = new States();
+    private final TimeIndex times;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final LongAdder compactions = new LongAdder();
+    private final LongAdder reclaimed = new LongAdder();
+    private volatile int generation;
+    private volatile long epoch;
+    private int segment = -1;
+    private int counted;
+    private ScheduledExecutorService compactor;
+
+    /**
+     * Creates new log message store, the store is usable once opened
+     *
+     * @param properties application properties
+     */
+    public LogMessageStore(final ApplicationProperties properties) {
+        this.properties = properties.getStore();
+        this.log = new SegmentLog(Paths.get(this.properties.getDirectory()), NAME, this.properties.getSegmentSize(),
+                this.properties.getFsync(), this.properties.getFlushInterval());
+        this.times = new TimeIndex(this.properties.getTimeResolution());
+    }
+
+    /**
+     * Creates new log message store as configured and registers its metrics, the store is usable once opened
+     *
+     * @param properties application properties
+     * @param registry   meter registry
+     */
+    public LogMessageStore(final ApplicationProperties properties, final MeterRegistry registry) {
+        this(properties);
+        Gauge.builder("mail.store.messages", this, LogMessageStore::size)
+                .description("Stored mail messages").register(registry);
+        Gauge.builder("mail.store.bytes", bytes, LongAdder::sum).baseUnit("bytes")
+                .description("Size of stored mail message subjects and contents").register(registry);
+        Gauge.builder("mail.store.log.segments", firsts, Map::size)
+                .description("Mail message store segment files").register(registry);
+        FunctionCounter.builder("mail.store.log.compactions", compactions, LongAdder::sum)
+                .description("Mail message store segments compacted").register(registry);
+        FunctionCounter.builder("mail.store.log.reclaimed", reclaimed, LongAdder::sum).baseUnit("bytes")
+                .description("Mail message store bytes reclaimed by compaction").register(registry);
+    }
+
+    /**
+     * Opens the store log, rebuilds indexes from its records and starts background compaction
+     *
+     * @throws IOException if segment files can not be opened
+     */
+    @PostConstruct
+    public synchronized void open() throws IOException {
+        log.open((address, record) -> {
+            final long position = record.getLong(1);
+            if (record.get(0) == MESSAGE) {
+                times.add(position, record.getLong(TIMESTAMP));
+                record.position(FIELDS);
+                final String to = read(record);
+                final String origin = read(record);
+                index(position, address, new UUID(record.getLong(9), record.getLong(17)), origin, to,
+                        record.getLong(TIMESTAMP), content(record));
+            } else if (record.get(0) == STATE) {
+                states.set(position, STATES[record.get(9)]);
+            } else if (record.get(0) == DELETE) {
+                states.clear(position);
+                if (ids.remove(new UUID(record.getLong(9), record.getLong(17)), position)) {
+                    record.position(DELETED_ORIGIN);
+                    account(read(record), -1, -record.getInt(DELETED_BYTES));
+                }
+            }
+        });
+        epoch = times.getPosition();
+        compactor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory(NAME + "-compactor"));
+        compactor.scheduleWithFixedDelay(this::compact, properties.getCompactionInterval(),
+                properties.getCompactionInterval(), TimeUnit.MILLISECONDS);
+        LOG.info("Message store opened with {} messages", ids.size());
+    }
+
+    /**
+     * Stops background compaction, forces pending records and closes the store log
+     */
+    @PreDestroy
+    @Override
+    public synchronized void close() {
+        if (compactor == null) return;
+        compactor.shutdownNow();
+        try {
+            compactor.awaitTermination(10, TimeUnit.SECONDS);
+        } catch (final InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        compactor = null;
+        log.close();
+    }
+
+    /**
+     * Appends a message record to the store log. The append is not awaited, it is forced to storage by the next
+     * group commit.
+     *
+     * @param message mail message
+     * @return {@code true} if message was added, otherwise {@code false}
+     */
+    @Override
+    public boolean add(final MailMessage message) {
+        if (ids.containsKey(message.getId())) return false;
+        final DeliveryState state = message.getState();
+        final byte[] record = encode(message, state);
+        synchronized (this) {
+            if (ids.containsKey(message.getId())) return false;
+            // positions are assigned under the store lock, so the log holds messages in position order
+            final long position = times.next(message.getTimestamp().getTime());
+            ByteBuffer.wrap(record).putLong(1, position);
+            append(record, address -> index(position, address, message.getId(), message.getOrigin(),
+                    message.getAddress(), message.getTimestamp().getTime(), content(ByteBuffer.wrap(record))));
+            // indexed in position order under the store lock, so the epoch advances past the message right away
+            epoch = position;
+        }
+        // a state change racing with the append may have missed the message
+        if (message.getState() != state) update(message);
+        return true;
+    }
+
+    /**
+     * Appends a state record of a stored message to the store log
+     *
+     * @param message mail message
+     */
+    @Override
+    public void update(final MailMessage message) {
+        final Long position = ids.get(message.getId());
+        if (position == null) return;
+        final DeliveryState state = message.getState();
+        append(ByteBuffer.allocate(10).put(STATE).putLong(position).put((byte) state.ordinal()).array(),
+                address -> states.set(position, state));
+    }
+
+    /**
+     * Appends a delete record of a stored message to the store log, the message is hidden from readers at once and
+     * its record is dropped by the next compaction of its segment
+     *
+     * @param id mail message identifier
+     * @return {@code true} if message was removed, {@code false} if not stored
+     */
+    @Override
+    public boolean remove(final UUID id) {
+        final Long position = ids.get(id);
+        if (position == null) return false;
+        final String origin;
+        final int size;
+        final int segment;
+        lock.readLock().lock();
+        try {
+            final long address = resolve(position);
+            if (address < 0) return false;
+            final ByteBuffer record = log.read(address);
+            record.position(FIELDS);
+            read(record);
+            origin = read(record);
+            size = content(record);
+            segment = SegmentLog.segment(address);
+        } finally {
+            lock.readLock().unlock();
+        }
+        if (!ids.remove(id, position)) return false;
+        final byte[] user = bytes(origin);
+        final ByteBuffer record = ByteBuffer.allocate(DELETED_ORIGIN + 4 + (user == null ? 0 : user.length))
+                .put(DELETE).putLong(position).putLong(id.getMostSignificantBits())
+                .putLong(id.getLeastSignificantBits()).putInt(size).putInt(user == null ? -1 : user.length);
+        if (user != null) record.put(user);
+        append(record.array(), address -> states.clear(position));
+        account(origin, -1, -size);
+        // the segment has reclaimable bytes again
+        clean.remove(segment);
+        return true;
+    }
+
+    @Override
+    public MailMessage get(final UUID id) {
+        final Long position = ids.get(id);
+        return position == null ? null : load(position, Long.MIN_VALUE, Long.MAX_VALUE);
+    }
+
+    @Override
+    public long position(final UUID id) {
+        final Long position = ids.get(id);
+        return position == null ? 0 : position;
+    }
+
+    @Override
+    public long getEpoch() {
+        return epoch;
+    }
+
+    @Override
+    public MessagePage find(final String username, final Date from, final Date to, final long after,
+                            final int limit) {
+        final Iterator<Map.Entry<Long, MailMessage>> entries = scan(username, from, to, after);
+        final List<MailMessage> messages = new ArrayList<>(Math.min(limit, 256));
+        long last = after;
+        while (messages.size() < limit && entries.hasNext()) {
+            final Map.Entry<Long, MailMessage> entry = entries.next();
+            messages.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new MessagePage(messages, entries.hasNext() ? last : 0);
+    }
+
+    @Override
+    public Iterable<MailMessage> iterate(final String username, final Date from, final Date to, final long after) {
+        return () -> {
+            final Iterator<Map.Entry<Long, MailMessage>> entries = scan(username, from, to, after);
+            return new Iterator<MailMessage>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public MailMessage next() {
+                    return entries.next().getValue();
+                }
+            };
+        };
+    }
+
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    @Override
+    public int count(final String origin) {
+        final AtomicInteger count = counts.get(origin == null ? "" : origin);
+        return count == null ? 0 : Math.max(0, count.get());
+    }
+
+    @Override
+    public Set<String> getOrigins() {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    /**
+     * Runs a compaction pass over sealed segments, oldest first. Segments whose messages all expired are deleted,
+     * and segments with enough reclaimable bytes are rewritten.
+     */
+    protected void compact() {
+        final long now = System.currentTimeMillis();
+        final int active = log.getActiveSegment();
+        for (final Integer id : log.getSegments()) {
+            if (id >= active || Thread.currentThread().isInterrupted()) return;
+            try {
+                final Long latest = newest.get(id);
+                if (properties.getMaxAge() > 0 && latest != null && latest < now - properties.getMaxAge()) {
+                    drop(id);
+                } else if (!clean.contains(id)) {
+                    rewrite(id, now);
+                }
+            } catch (final IOException | RuntimeException e) {
+                LOG.error("Failed to compact message store segment " + id, e);
+            }
+        }
+    }
+
+    /**
+     * Deletes a sealed segment whose messages all expired
+     *
+     * @param id segment identifier
+     */
+    private void drop(final int id) {
+        final List<Dropped> dropped = new ArrayList<>();
+        for (long address = SegmentLog.address(id, 0); SegmentLog.segment(address) == id;
+             address = log.next(address)) {
+            final ByteBuffer record = log.read(address);
+            if (record == null) break;
+            if (record.get(0) == MESSAGE) dropped.add(new Dropped(record));
+        }
+        lock.writeLock().lock();
+        try {
+            final long bytes = size(id);
+            if (!log.delete(id)) return;
+            unindex(id, dropped, true);
+            reclaimed.add(bytes);
+            compactions.increment();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        prune(dropped);
+        LOG.info("Deleted message store segment {} with {} expired messages", id, dropped.size());
+    }
+
+    /**
+     * Rewrites a sealed segment if enough of its bytes are reclaimable, dropping expired and removed messages and
+     * state and delete records of messages in the same segment, whose latest state is folded into the message record
+     *
+     * @param id  segment identifier
+     * @param now current time in milliseconds
+     * @throws IOException if rewritten segment file can not be created or moved in place
+     */
+    private void rewrite(final int id, final long now) throws IOException {
+        final Long first = firsts.get(id);
+        final long from = first == null ? Long.MAX_VALUE : first;
+        long total = 0;
+        long reclaimable = 0;
+        for (long address = SegmentLog.address(id, 0); SegmentLog.segment(address) == id;
+             address = log.next(address)) {
+            final ByteBuffer record = log.read(address);
+            if (record == null) break;
+            total += record.remaining();
+            if (record.get(0) == MESSAGE ? expired(record, now) || !live(record, record.getLong(1))
+                    : record.getLong(1) >= from) {
+                reclaimable += record.remaining();
+            }
+        }
+        if (reclaimable == 0 || reclaimable < total * properties.getCompactionThreshold()) {
+            // without expiry reclaimable bytes never grow in a sealed segment, so it is not checked again
+            if (properties.getMaxAge() <= 0) clean.add(id);
+            return;
+        }
+        final List<Dropped> dropped = new ArrayList<>();
+        final List<Dropped> removed = new ArrayList<>();
+        final SegmentLog.Rewrite rewrite = log.rewrite(id, (address, record) -> {
+            final long position = record.getLong(1);
+            // state and delete records of messages in the same segment are folded or dropped with the message
+            if (record.get(0) != MESSAGE) return position >= from ? null : copy(record);
+            if (!live(record, position)) {
+                removed.add(new Dropped(record));
+                return null;
+            }
+            if (expired(record, now)) {
+                dropped.add(new Dropped(record));
+                return null;
+            }
+            final byte[] copy = copy(record);
+            final DeliveryState state = states.get(position);
+            if (state != null) copy[STATE_FIELD] = (byte) state.ordinal();
+            return copy;
+        });
+        lock.writeLock().lock();
+        try {
+            unindex(id, dropped, rewrite.getKept() == 0);
+            final int[] count = {0};
+            rewrite.commit((address, record) -> {
+                if (record.get(0) != MESSAGE) return;
+                final long position = record.getLong(1);
+                if (count[0]++ % properties.getIndexInterval() == 0) sparse.put(position, address);
+                if (count[0] == 1) firsts.put(id, position);
+            });
+        } finally {
+            lock.writeLock().unlock();
+        }
+        removed.addAll(dropped);
+        prune(removed);
+        if (properties.getMaxAge() <= 0) clean.add(id);
+        reclaimed.add(rewrite.getOriginal() - rewrite.getKept());
+        compactions.increment();
+        LOG.info("Compacted message store segment {} from {} to {} bytes", id, rewrite.getOriginal(),
+                rewrite.getKept());
+    }
+
+    /**
+     * Removes dropped messages and the sparse index entries of a segment, must be called holding the write lock
+     *
+     * @param id      segment identifier
+     * @param dropped dropped messages
+     * @param deleted whether the segment is deleted
+     */
+    private void unindex(final int id, final List<Dropped> dropped, final boolean deleted) {
+        for (final Dropped message : dropped) {
+            if (ids.remove(message.id, message.position)) account(message.origin, -1, -message.bytes);
+        }
+        final Long first = firsts.remove(id);
+        if (first != null) {
+            final Map.Entry<Integer, Long> next = firsts.higherEntry(id);
+            (next == null ? sparse.tailMap(first) : sparse.subMap(first, next.getValue())).clear();
+        }
+        if (deleted) {
+            newest.remove(id);
+            clean.remove(id);
+        }
+        generation++;
+    }
+
+    /**
+     * Drops messages no longer stored in a compacted segment from the per-user position lists and the recorded
+     * states, and truncates timestamp index entries before the oldest stored message
+     *
+     * @param dropped messages dropped from the segment
+     */
+    private void prune(final List<Dropped> dropped) {
+        dropped.sort((a, b) -> Long.compare(a.position, b.position));
+        final Map<String, List<Long>> senders = new HashMap<>();
+        final Map<String, List<Long>> recipients = new HashMap<>();
+        for (final Dropped message : dropped) {
+            senders.computeIfAbsent(key(message.origin), k -> new ArrayList<>()).add(message.position);
+            if (message.address != null && !message.address.equals(message.origin)) {
+                recipients.computeIfAbsent(message.address, k -> new ArrayList<>()).add(message.position);
+            }
+            states.clear(message.position);
+        }
+        senders.forEach((user, positions) -> origins.computeIfPresent(user, (k, list) -> list.without(positions)));
+        recipients.forEach((user, positions) ->
+                addresses.computeIfPresent(user, (k, list) -> list.without(positions)));
+        final Map.Entry<Integer, Long> oldest = firsts.firstEntry();
+        if (oldest != null) times.truncate(oldest.getValue());
+    }
+
+    /**
+     * Indexes an appended message, called while holding the log lock so indexes have a single writer
+     *
+     * @param position message position
+     * @param address  message record address
+     * @param id       message identifier
+     * @param origin   message origin
+     * @param to       message destination address
+     * @param time     message timestamp
+     * @param size     message subject and content bytes
+     */
+    private void index(final long position, final long address, final UUID id, final String origin,
+                       final String to, final long time, final int size) {
+        final int current = SegmentLog.segment(address);
+        // each segment starts with an index entry, so compaction can rebuild entries of a segment alone
+        if (current != segment || counted == properties.getIndexInterval()) {
+            sparse.put(position, address);
+            if (current != segment) firsts.put(current, position);
+            segment = current;
+            counted = 0;
+        }
+        counted++;
+        ids.put(id, position);
+        // lists are appended to within the map, so a list pruned meanwhile is never appended to
+        origins.compute(key(origin), (k, list) -> (list == null ? new Positions() : list).add(position));
+        if (to != null && !to.equals(origin)) {
+            addresses.compute(to, (k, list) -> (list == null ? new Positions() : list).add(position));
+        }
+        newest.merge(current, time, Math::max);
+        account(origin, 1, size);
+    }
+
+    /**
+     * Accounts for added or removed messages of a user
+     *
+     * @param origin   message origin
+     * @param messages change of the message count
+     * @param size     change of the subject and content bytes
+     */
+    private void account(final String origin, final int messages, final int size) {
+        final String user = origin == null ? "" : origin;
+        final AtomicInteger count = counts.get(user);
+        (count != null ? count : counts.computeIfAbsent(user, k -> new AtomicInteger())).addAndGet(messages);
+        bytes.add(size);
+    }
+
+    private static String key(final String user) {
+        return user == null ? "" : user;
+    }
+
+    /**
+     * Appends a record without awaiting its durability
+     *
+     * @param record   record payload
+     * @param listener record address listener, called while holding the log lock
+     */
+    private void append(final byte[] record, final LongConsumer listener) {
+        log.append(record, listener).subscribe(null, e -> LOG.error("Failed to append message store record", e));
+    }
+
+    /**
+     * Reads and decodes a message at a position
+     *
+     * @param position message position
+     * @param start    inclusive start of timestamp range
+     * @param end      exclusive end of timestamp range
+     * @return mail message, or {@code null} if not stored, expired or out of range
+     */
+    private MailMessage load(final long position, final long start, final long end) {
+        lock.readLock().lock();
+        try {
+            final long address = resolve(position);
+            if (address < 0) return null;
+            final ByteBuffer record = log.read(address);
+            return within(record, start, end) && live(record, position) ? decode(record, position) : null;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Finds the record address of a message, scanning forward from the nearest preceding sparse index entry. Must
+     * be called holding the read lock.
+     *
+     * @param position message position
+     * @return record address, or {@code -1} if not stored
+     */
+    private long resolve(final long position) {
+        final Map.Entry<Long, Long> entry = sparse.floorEntry(position);
+        for (long address = entry == null ? log.first() : entry.getValue(); address >= 0;
+             address = log.next(address)) {
+            final ByteBuffer record = log.read(address);
+            if (record == null) return -1;
+            if (record.get(0) != MESSAGE) continue;
+            final long found = record.getLong(1);
+            if (found == position) return address;
+            if (found > position) return -1;
+        }
+        return -1;
+    }
+
+    /**
+     * Iterates messages of all users, or of a single user, after a position and within a timestamp range, up to the
+     * current read epoch
+     *
+     * @param username user name, or {@code null} for all messages
+     * @param from     inclusive start of timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of timestamp range, {@code null} if unbounded
+     * @param after    exclusive starting position
+     * @return positions and messages in position order
+     */
+    private Iterator<Map.Entry<Long, MailMessage>> scan(final String username, final Date from, final Date to,
+                                                        final long after) {
+        final long start = from == null ? Long.MIN_VALUE : from.getTime();
+        final long end = to == null ? Long.MAX_VALUE : to.getTime();
+        final long low = Math.max(after, times.after(start));
+        final long high = Math.min(times.before(end), epoch + 1);
+        if (low >= high) return Collections.emptyIterator();
+        if (username == null) return new Sequential(low, high, start, end);
+        final Positions origin = origins.get(username);
+        final Positions address = addresses.get(username);
+        return new Lookup(origin == null ? Collections.emptyIterator() : origin.iterator(low, high),
+                address == null ? Collections.emptyIterator() : address.iterator(low, high), start, end);
+    }
+
+    private static boolean within(final ByteBuffer record, final long start, final long end) {
+        final long timestamp = record.getLong(TIMESTAMP);
+        return timestamp >= start && timestamp < end;
+    }
+
+    /**
+     * Checks whether a message record is still indexed by its identifier, which it no longer is once removed
+     *
+     * @param record   message record
+     * @param position message position
+     * @return {@code true} if the message is stored, otherwise {@code false}
+     */
+    private boolean live(final ByteBuffer record, final long position) {
+        final Long stored = ids.get(new UUID(record.getLong(9), record.getLong(17)));
+        return stored != null && stored == position;
+    }
+
+    private boolean expired(final ByteBuffer record, final long now) {
+        return properties.getMaxAge() > 0 && record.getLong(TIMESTAMP) < now - properties.getMaxAge();
+    }
+
+    private long size(final int id) {
+        long size = 0;
+        for (long address = SegmentLog.address(id, 0); SegmentLog.segment(address) == id;
+             address = log.next(address)) {
+            final ByteBuffer record = log.read(address);
+            if (record == null) break;
+            size += record.remaining();
+        }
+        return size;
+    }
+
+    /**
+     * Decodes a message record, applying its latest recorded state
+     *
+     * @param record   message record
+     * @param position message position
+     * @return mail message, or {@code null} if expired
+     */
+    private MailMessage decode(final ByteBuffer record, final long position) {
+        if (expired(record, System.currentTimeMillis())) return null;
+        record.position(FIELDS);
+        final String to = read(record);
+        final String origin = read(record);
+        final MailSend email = new MailSend(to, read(record), read(record), origin);
+        final long sendAt = record.getLong(SEND_AT);
+        if (sendAt != Long.MIN_VALUE) email.setSendAt(new Date(sendAt));
+        final MailMessage message = new MailMessage(new UUID(record.getLong(9), record.getLong(17)),
+                new Date(record.getLong(TIMESTAMP)), email);
+        final DeliveryState state = states.get(position);
+        message.setState(state != null ? state : STATES[record.get(STATE_FIELD)]);
+        message.setAttempts(record.getInt(ATTEMPTS));
+        return message;
+    }
+
+    /**
+     * Encodes a message record, its position is patched in once assigned
+     *
+     * @param message mail message
+     * @param state   delivery state to record
+     * @return encoded record
+     */
+    private static byte[] encode(final MailMessage message, final DeliveryState state) {
+        final byte[][] fields = {bytes(message.getAddress()), bytes(message.getOrigin()),
+                bytes(message.getSubject()), bytes(message.getContent())};
+        int size = FIELDS;
+        for (final byte[] field : fields) size += 4 + (field == null ? 0 : field.length);
+        final ByteBuffer record = ByteBuffer.allocate(size).put(MESSAGE).putLong(0)
+                .putLong(message.getId().getMostSignificantBits()).putLong(message.getId().getLeastSignificantBits())
+                .putLong(message.getTimestamp().getTime())
+                .putLong(message.getSendAt() == null ? Long.MIN_VALUE : message.getSendAt().getTime())
+                .put((byte) state.ordinal()).putInt(message.getAttempts());
+        for (final byte[] field : fields) {
+            if (field == null) record.putInt(-1);
+            else record.putInt(field.length).put(field);
+        }
+        return record.array();
+    }
+
+    private static byte[] bytes(final String value) {
+        return value == null ? null : value.getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String read(final ByteBuffer record) {
+        final int length = record.getInt();
+        if (length < 0) return null;
+        final byte[] value = new byte[length];
+        record.get(value);
+        return new String(value, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Measures subject and content of a message record
+     *
+     * @param record message record
+     * @return subject and content bytes
+     */
+    private static int content(final ByteBuffer record) {
+        final ByteBuffer fields = record.duplicate();
+        fields.position(FIELDS);
+        int size = 0;
+        for (int i = 0; i < 4; i++) {
+            final int length = fields.getInt();
+            if (length <= 0) continue;
+            fields.position(fields.position() + length);
+            // address and origin precede subject and content
+            if (i >= 2) size += length;
+        }
+        return size;
+    }
+
+    private static byte[] copy(final ByteBuffer record) {
+        final byte[] copy = new byte[record.remaining()];
+        record.duplicate().get(copy);
+        return copy;
+    }
+
+    /**
+     * Iterator over messages of all users in log order, reading records sequentially through the mapped segments.
+     * The scan is resumed from the sparse index whenever a compaction invalidated the record address it holds.
+     */
+    private final class Sequential implements Iterator<Map.Entry<Long, MailMessage>> {
+
+        private final long high;
+        private final long start;
+        private final long end;
+        private long last;
+        private long address;
+        private int seen;
+        private Map.Entry<Long, MailMessage> next;
+
+        private Sequential(final long after, final long high, final long start, final long end) {
+            this.high = high;
+            this.start = start;
+            this.end = end;
+            this.last = after;
+            this.address = -1;
+            this.seen = generation - 1;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<Long, MailMessage> next() {
+            if (next == null) throw new NoSuchElementException();
+            final Map.Entry<Long, MailMessage> result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            lock.readLock().lock();
+            try {
+                if (seen != generation) {
+                    final Map.Entry<Long, Long> entry = sparse.floorEntry(last);
+                    address = entry == null ? log.first() : entry.getValue();
+                    seen = generation;
+                } else if (address >= 0) {
+                    address = log.next(address);
+                }
+                for (; address >= 0; address = log.next(address)) {
+                    final ByteBuffer record = log.read(address);
+                    if (record == null) return;
+                    final long position = record.getLong(1);
+                    if (record.get(0) != MESSAGE || position <= last) continue;
+                    if (position >= high) {
+                        address = -1;
+                        return;
+                    }
+                    last = position;
+                    if (!within(record, start, end) || !live(record, position)) continue;
+                    final MailMessage message = decode(record, position);
+                    if (message != null) {
+                        next = new AbstractMap.SimpleImmutableEntry<>(position, message);
+                        return;
+                    }
+                }
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Iterator over messages of a single user, merging origin and destination positions in order and resolving each
+     * position through the sparse index
+     */
+    private final class Lookup implements Iterator<Map.Entry<Long, MailMessage>> {
+
+        private final Iterator<Long> left;
+        private final Iterator<Long> right;
+        private final long start;
+        private final long end;
+        private long l;
+        private long r;
+        private Map.Entry<Long, MailMessage> next;
+
+        private Lookup(final Iterator<Long> left, final Iterator<Long> right, final long start, final long end) {
+            this.left = left;
+            this.right = right;
+            this.start = start;
+            this.end = end;
+            this.l = left.hasNext() ? left.next() : Long.MAX_VALUE;
+            this.r = right.hasNext() ? right.next() : Long.MAX_VALUE;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<Long, MailMessage> next() {
+            if (next == null) throw new NoSuchElementException();
+            final Map.Entry<Long, MailMessage> result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (l != Long.MAX_VALUE || r != Long.MAX_VALUE) {
+                final long position = Math.min(l, r);
+                if (l == position) l = left.hasNext() ? left.next() : Long.MAX_VALUE;
+                if (r == position) r = right.hasNext() ? right.next() : Long.MAX_VALUE;
+                final MailMessage message = load(position, start, end);
+                if (message != null) {
+                    next = new AbstractMap.SimpleImmutableEntry<>(position, message);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Message dropped by compaction, with what is needed to remove it from the indexes
+     */
+    private static final class Dropped {
+
+        private final UUID id;
+        private final long position;
+        private final String address;
+        private final String origin;
+        private final int bytes;
+
+        private Dropped(final ByteBuffer record) {
+            final ByteBuffer fields = record.duplicate();
+            this.id = new UUID(fields.getLong(9), fields.getLong(17));
+            this.position = fields.getLong(1);
+            fields.position(FIELDS);
+            this.address = read(fields);
+            this.origin = read(fields);
+            this.bytes = content(record);
+        }
+    }
+
+    /**
+     * Append-only list of increasing positions, written by a single writer and read without locking. Values are
+     * written before the size covering them is published, so readers never see unwritten values. Positions no longer
+     * stored are dropped by replacing the list with a copy without them.
+     */
+    private static final class Positions {
+
+        private volatile long[] values = new long[4];
+        private volatile int size;
+
+        private Positions add(final long position) {
+            long[] array = values;
+            if (size == array.length) values = array = Arrays.copyOf(array, array.length * 2);
+            array[size] = position;
+            size = size + 1;
+            return this;
+        }
+
+        /**
+         * Copies the list without dropped positions
+         *
+         * @param dropped dropped positions in increasing order
+         * @return list copy, or {@code null} if no position is left
+         */
+        private Positions without(final List<Long> dropped) {
+            final int size = this.size;
+            final long[] array = values;
+            final long[] kept = new long[Math.max(4, size)];
+            int count = 0;
+            int next = 0;
+            for (int i = 0; i < size; i++) {
+                while (next < dropped.size() && dropped.get(next) < array[i]) next++;
+                if (next < dropped.size() && dropped.get(next) == array[i]) continue;
+                kept[count++] = array[i];
+            }
+            if (count == 0) return null;
+            final Positions copy = new Positions();
+            copy.values = count < kept.length / 2 ? Arrays.copyOf(kept, Math.max(4, count)) : kept;
+            copy.size = count;
+            return copy;
+        }
+
+        private Iterator<Long> iterator(final long after, final long before) {
+            final int size = this.size;
+            final long[] array = values;
+            int index = Arrays.binarySearch(array, 0, size, after);
+            index = index < 0 ? -index - 1 : index + 1;
+            final int start = index;
+            index = Arrays.binarySearch(array, start, size, before);
+            final int count = index < 0 ? -index - 1 : index;
+            return new Iterator<Long>() {
+                private int i = start;
+
+                @Override
+                public boolean hasNext() {
+                    return i < count;
+                }
+
+                @Override
+                public Long next() {
+                    if (i >= count) throw new NoSuchElementException();
+                    return array[i++];
+                }
+            };
+        }
+    }
+
+    /**
+     * Latest recorded delivery states by position, in pages allocated as positions grow and released once none of
+     * their states is left. Writes are synchronized, each write republishes the page table so readers see it.
+     */
+    private static final class States {
+
+        private static final int PAGE = 1 << 16;
+        private volatile byte[][] pages = new byte[16][];
+        private int[] counts = new int[16];
+
+        private synchronized void set(final long position, final DeliveryState state) {
+            final int page = (int) (position / PAGE);
+            byte[][] table = pages;
+            if (page >= table.length) {
+                table = Arrays.copyOf(table, Math.max(page + 1, table.length * 2));
+                counts = Arrays.copyOf(counts, table.length);
+            }
+            if (table[page] == null) table[page] = new byte[PAGE];
+            final int slot = (int) (position % PAGE);
+            if (table[page][slot] == 0) counts[page]++;
+            table[page][slot] = (byte) (state.ordinal() + 1);
+            pages = table;
+        }
+
+        private synchronized void clear(final long position) {
+            final int page = (int) (position / PAGE);
+            final byte[][] table = pages;
+            if (page >= table.length || table[page] == null) return;
+            final int slot = (int) (position % PAGE);
+            if (table[page][slot] == 0) return;
+            table[page][slot] = 0;
+            if (--counts[page] == 0) table[page] = null;
+            pages = table;
+        }
+
+        private DeliveryState get(final long position) {
+            final byte[][] table = pages;
+            final int page = (int) (position / PAGE);
+            if (page >= table.length || table[page] == null) return null;
+            final byte value = table[page][(int) (position % PAGE)];
+            return value == 0 ? null : STATES[value - 1];
+        }
+    }
+}
@@ -0,0 +1,672 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.core.memory.ChunkBudget;
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ToLongFunction;
+
+/**
+ * In-memory {@link MessageStore mail message store}. Messages are assigned an increasing sequence number on insert and
+ * kept in a primary index by identifier, an index of all messages in insertion order, and secondary indexes by origin
+ * and by destination address. All indexes are lock-free concurrent maps, so inserts take a lock only for as long as a
+ * sequence number is assigned and per-user lookups cost proportionally to the number of results rather than to the size
+ * of the store. Timestamp ranges are translated by a {@link TimeIndex} into sequence ranges of the same indexes.
+ * Messages are removed from all indexes in turn, while holding the message lock, so a removal never interleaves with
+ * the indexing of the same message.
+ * <p>
+ * The store is partitioned into stripes by a hash of the message origin, each with its own timestamp index, index of
+ * all messages and off-heap arena, so concurrent inserts of different users neither share a lock nor contend on the
+ * tail of one ordered index. Sequence numbers are drawn from one atomic counter shared by all stripes, and each
+ * stripe assigns and indexes them in increasing order under its own lock, so messages of all users keep one
+ * acceptance order. Queries across all users merge the stripes by sequence number, while per-user queries read the
+ * origin and address indexes only.
+ * <p>
+ * Each stripe publishes a lower bound of the sequence number it is about to assign before drawing it, and clears it
+ * once the message is indexed. The read epoch is the last drawn sequence number, held back below every published
+ * bound, so all messages up to the epoch are indexed, and readers bound their scans by it to observe a consistent
+ * prefix of accepted messages. Readers take no lock and writers never wait for them.
+ * <p>
+ * Subjects and contents of stored messages are moved into an {@link OffHeapArena} of their stripe, leaving only compact
+ * metadata on heap, and are decoded when read. The arenas of all stripes draw their chunks from one
+ * {@link ChunkBudget}, so stripes of busy users may take more of the configured byte budget than others. Once the
+ * budget is exhausted the configured {@link ArenaPolicy} applies. Removed messages free their bodies, so the arenas
+ * reclaim memory as messages are removed in acceptance order.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageStore
+ * @see OffHeapArena
+ * @since 1.0
+ */
+public class MemoryMessageStore implements MessageStore {
+
+    private final ConcurrentMap<UUID, Stored> ids = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, MailMessage>> origins = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, ConcurrentNavigableMap<Long, MailMessage>> addresses =
+            new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, AtomicInteger> counts = new ConcurrentHashMap<>();
+    private final LongAdder bytes = new LongAdder();
+    private final AtomicLong sequence = new AtomicLong();
+    private final Stripe[] stripes;
+    private final ArenaPolicy policy;
+
+    /**
+     * Creates new single stripe message store keeping messages on heap, or off heap within the budget of specified
+     * arena
+     *
+     * @param arena      off-heap arena, or {@code null} to keep messages on heap
+     * @param policy     policy applied once the arena is full
+     * @param resolution timestamp index resolution in milliseconds
+     */
+    public MemoryMessageStore(final OffHeapArena arena, final ArenaPolicy policy, final long resolution) {
+        this(new OffHeapArena[]{arena}, policy, resolution);
+    }
+
+    private MemoryMessageStore(final OffHeapArena[] arenas, final ArenaPolicy policy, final long resolution) {
+        if (arenas.length == 0) throw new IllegalArgumentException("Message store requires at least one stripe");
+        this.stripes = new Stripe[arenas.length];
+        for (int i = 0; i < arenas.length; i++) stripes[i] = new Stripe(new TimeIndex(resolution, sequence), arenas[i]);
+        this.policy = policy;
+    }
+
+    /**
+     * Creates new message store as configured and registers its metrics
+     *
+     * @param properties application properties
+     * @param registry   meter registry
+     */
+    public MemoryMessageStore(final ApplicationProperties properties, final MeterRegistry registry) {
+        this(arenas(properties.getStore()), properties.getStore().getArenaPolicy(),
+                properties.getStore().getTimeResolution());
+        Gauge.builder("mail.store.messages", this, MemoryMessageStore::size)
+                .description("Stored mail messages").register(registry);
+        Gauge.builder("mail.store.bytes", bytes, LongAdder::sum).baseUnit("bytes")
+                .description("Size of stored mail message subjects and contents").register(registry);
+        Gauge.builder("mail.store.stripes", stripes, s -> s.length)
+                .description("Message store stripes").register(registry);
+        if (stripes[0].arena == null) return;
+        Gauge.builder("mail.store.arena.used", this, s -> s.arenas(OffHeapArena::getUsed)).baseUnit("bytes")
+                .description("Off-heap memory taken by stored mail message bodies").register(registry);
+        Gauge.builder("mail.store.arena.reserved", this, s -> s.arenas(OffHeapArena::getReserved)).baseUnit("bytes")
+                .description("Off-heap memory reserved for mail message bodies").register(registry);
+        Gauge.builder("mail.store.arena.capacity", this, MemoryMessageStore::capacity).baseUnit("bytes")
+                .description("Off-heap memory budget for mail message bodies").register(registry);
+        FunctionCounter.builder("mail.store.arena.overflows", this, s -> s.arenas(OffHeapArena::getOverflows))
+                .description("Mail message bodies kept on heap for exhausted off-heap budget").register(registry);
+    }
+
+    /**
+     * Creates new message store with a stripe for each specified arena, keeping messages of a stripe on heap, or off
+     * heap within the budget of its arena. Arenas should share one {@link ChunkBudget}, so no stripe is confined to a
+     * slice of the budget.
+     *
+     * @param arenas     off-heap arenas of the stripes, each {@code null} to keep messages of the stripe on heap
+     * @param policy     policy applied once an arena is full
+     * @param resolution timestamp index resolution in milliseconds
+     * @return striped message store
+     */
+    public static MemoryMessageStore striped(final OffHeapArena[] arenas, final ArenaPolicy policy,
+                                             final long resolution) {
+        return new MemoryMessageStore(arenas, policy, resolution);
+    }
+
+    /**
+     * Adds a message to the store and all its indexes, a message already stored is not added again. Subject and
+     * content of the message are moved off heap if the arena has room for them.
+     *
+     * @param message mail message
+     * @return {@code true} if message was added, otherwise {@code false}
+     */
+    @Override
+    public boolean add(final MailMessage message) {
+        if (ids.containsKey(message.getId())) return false;
+        final Stripe stripe = stripe(message.getOrigin());
+        final int size = bytes(message.getSubject()) + bytes(message.getContent());
+        synchronized (stripe) {
+            // the bound is published before the sequence number is drawn, so readers observing the number observe it
+            stripe.pending = sequence.get() + 1;
+            try {
+                // a sequence number is assigned before the message is claimed, a lost race leaves it unused
+                return insert(message, stripe, stripe.times.next(message.getTimestamp().getTime()), size);
+            } finally {
+                stripe.pending = Long.MAX_VALUE;
+            }
+        }
+    }
+
+    /**
+     * Reserves a position for a message restored later by {@link #restore(MailMessage, long)}, recording its
+     * timestamp. Positions must be reserved in increasing order before any message is added, messages added
+     * afterwards are assigned positions following the reserved ones.
+     *
+     * @param position  reserved position
+     * @param timestamp timestamp of the message to restore
+     * @param origin    origin of the message to restore, selecting its stripe
+     */
+    public void reserve(final long position, final long timestamp, final String origin) {
+        stripe(origin).times.add(position, timestamp);
+    }
+
+    /**
+     * Adds a message to the store at a reserved position, a message already stored is not added again. Reserved
+     * positions precede the read epoch, so the message becomes visible to readers as soon as it is indexed.
+     *
+     * @param message  mail message
+     * @param position position reserved for the message
+     * @return {@code true} if message was added, otherwise {@code false}
+     */
+    public boolean restore(final MailMessage message, final long position) {
+        if (ids.containsKey(message.getId())) return false;
+        final Stripe stripe = stripe(message.getOrigin());
+        final int size = bytes(message.getSubject()) + bytes(message.getContent());
+        synchronized (stripe) {
+            return insert(message, stripe, position, size);
+        }
+    }
+
+    /**
+     * Accessor for the last assigned or reserved position
+     *
+     * @return last position, {@code 0} if none
+     */
+    public long getPosition() {
+        return sequence.get();
+    }
+
+    /**
+     * Accessor for the read epoch, the last sequence number held back below the bounds published by stripes
+     * inserting a message
+     *
+     * @return read epoch position, {@code 0} if none
+     */
+    @Override
+    public long getEpoch() {
+        long epoch = sequence.get();
+        for (final Stripe stripe : stripes) epoch = Math.min(epoch, stripe.pending - 1);
+        return epoch;
+    }
+
+    /**
+     * Accessor for the number of stripes
+     *
+     * @return stripe count
+     */
+    public int getStripes() {
+        return stripes.length;
+    }
+
+    /**
+     * Claims a message at a position and adds it to all indexes, must be called holding the stripe lock
+     *
+     * @param message mail message
+     * @param stripe  stripe of the message origin
+     * @param seq     message position
+     * @param size    size of message subject and content
+     * @return {@code true} if message was added, {@code false} if already stored
+     */
+    private boolean insert(final MailMessage message, final Stripe stripe, final Long seq, final int size) {
+        if (ids.putIfAbsent(message.getId(), new Stored(seq, message, size, stripe)) != null) return false;
+        if (stripe.arena != null) message.offload(stripe.arena);
+        synchronized (message) {
+            stripe.all.put(seq, message);
+            index(origins, message.getOrigin(), seq, message);
+            index(addresses, message.getAddress(), seq, message);
+        }
+        counter(message.getOrigin()).incrementAndGet();
+        bytes.add(size);
+        return true;
+    }
+
+    /**
+     * Removes a message from the store and all its indexes, freeing its body if kept off heap
+     *
+     * @param id mail message identifier
+     * @return {@code true} if message was removed, {@code false} if not stored
+     */
+    @Override
+    public boolean remove(final UUID id) {
+        final Stored stored = ids.remove(id);
+        if (stored == null) return false;
+        final MailMessage message = stored.message;
+        synchronized (message) {
+            stored.stripe.all.remove(stored.seq);
+            unindex(origins, message.getOrigin(), stored.seq);
+            unindex(addresses, message.getAddress(), stored.seq);
+        }
+        counter(message.getOrigin()).decrementAndGet();
+        bytes.add(-stored.bytes);
+        message.release();
+        return true;
+    }
+
+    /**
+     * Messages are stored by reference, so their delivery state changes are visible without being recorded
+     *
+     * @param message mail message
+     */
+    @Override
+    public void update(final MailMessage message) {
+    }
+
+    /**
+     * Finds a message by identifier
+     *
+     * @param id mail message identifier
+     * @return mail message, or {@code null} if not stored
+     */
+    @Override
+    public MailMessage get(final UUID id) {
+        final Stored stored = ids.get(id);
+        return stored == null ? null : stored.message;
+    }
+
+    @Override
+    public long position(final UUID id) {
+        final Stored stored = ids.get(id);
+        return stored == null ? 0 : stored.seq;
+    }
+
+    /**
+     * Finds messages sent from or to a user in insertion order, merging the origin and address indexes
+     *
+     * @param username user name, matched against message origin and destination address
+     * @return mail messages
+     */
+    @Override
+    public List<MailMessage> findByUser(final String username) {
+        final List<MailMessage> result = new ArrayList<>();
+        scan(username, null, null, 0).forEachRemaining(e -> result.add(e.getValue()));
+        return result;
+    }
+
+    /**
+     * Finds a page of messages in insertion order, starting after a position of a previous page, up to the current
+     * read epoch. Only the indexes from the starting position onwards, and within the timestamp range, are traversed,
+     * so the cost of a page does not depend on its position.
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param from     inclusive start of message timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of message timestamp range, {@code null} if unbounded
+     * @param after    position after which the page starts, {@code 0} for the first page
+     * @param limit    maximum number of messages in the page
+     * @return page of mail messages
+     */
+    @Override
+    public MessagePage find(final String username, final Date from, final Date to, final long after,
+                            final int limit) {
+        final Iterator<Map.Entry<Long, MailMessage>> entries = scan(username, from, to, after);
+        final List<MailMessage> messages = new ArrayList<>(Math.min(limit, 256));
+        long last = after;
+        while (messages.size() < limit && entries.hasNext()) {
+            final Map.Entry<Long, MailMessage> entry = entries.next();
+            messages.add(entry.getValue());
+            last = entry.getKey();
+        }
+        return new MessagePage(messages, entries.hasNext() ? last : 0);
+    }
+
+    /**
+     * Lazily iterates messages in insertion order, starting after a position of a previous page, up to the read epoch
+     * as the iteration starts. Messages are read from the indexes as the iteration advances, messages added meanwhile
+     * are not visited, while messages removed meanwhile are skipped.
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param from     inclusive start of message timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of message timestamp range, {@code null} if unbounded
+     * @param after    position after which the iteration starts, {@code 0} to start from the first message
+     * @return iterable of mail messages
+     */
+    @Override
+    public Iterable<MailMessage> iterate(final String username, final Date from, final Date to, final long after) {
+        return () -> {
+            final Iterator<Map.Entry<Long, MailMessage>> entries = scan(username, from, to, after);
+            return new Iterator<MailMessage>() {
+                @Override
+                public boolean hasNext() {
+                    return entries.hasNext();
+                }
+
+                @Override
+                public MailMessage next() {
+                    return entries.next().getValue();
+                }
+            };
+        };
+    }
+
+    /**
+     * Checks whether new messages should be refused, which is the case once the configured policy is
+     * {@link ArenaPolicy#REJECT} and an off-heap arena is full. Arenas of the stripes share one budget, so an arena
+     * is full only once the chunks of all stripes take the whole budget, however unevenly users send.
+     *
+     * @return {@code true} if the store is full, otherwise {@code false}
+     */
+    @Override
+    public boolean isFull() {
+        if (!ArenaPolicy.REJECT.is(policy)) return false;
+        for (final Stripe stripe : stripes) {
+            if (stripe.arena != null && stripe.arena.isFull()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * Accessor for the number of stored messages
+     *
+     * @return stored message count
+     */
+    @Override
+    public int size() {
+        return ids.size();
+    }
+
+    /**
+     * Accessor for the number of stored messages sent by a user, counted as messages are added and removed
+     *
+     * @param origin user name matched against message origin
+     * @return stored message count of the user
+     */
+    @Override
+    public int count(final String origin) {
+        final AtomicInteger count = counts.get(origin == null ? "" : origin);
+        return count == null ? 0 : Math.max(0, count.get());
+    }
+
+    /**
+     * Accessor for the users who sent stored messages, users are kept once all their messages are removed
+     *
+     * @return message origin user names
+     */
+    @Override
+    public Set<String> getOrigins() {
+        return Collections.unmodifiableSet(counts.keySet());
+    }
+
+    /**
+     * Accessor for the size of stored message subjects and contents, measured once as messages are added
+     *
+     * @return stored content bytes
+     */
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    private Stripe stripe(final String origin) {
+        if (stripes.length == 1) return stripes[0];
+        final int hash = origin == null ? 0 : origin.hashCode();
+        return stripes[Math.floorMod(hash ^ (hash >>> 16), stripes.length)];
+    }
+
+    private long arenas(final ToLongFunction<OffHeapArena> value) {
+        long sum = 0;
+        for (final Stripe stripe : stripes) sum += stripe.arena == null ? 0 : value.applyAsLong(stripe.arena);
+        return sum;
+    }
+
+    /**
+     * Sums the capacities of the budgets the arenas of the stripes draw from, counting a shared budget once
+     *
+     * @return off-heap capacity in bytes
+     */
+    private long capacity() {
+        final Set<ChunkBudget> budgets = Collections.newSetFromMap(new IdentityHashMap<>());
+        for (final Stripe stripe : stripes) if (stripe.arena != null) budgets.add(stripe.arena.getBudget());
+        return budgets.stream().mapToLong(ChunkBudget::getCapacity).sum();
+    }
+
+    /**
+     * Creates the off-heap arenas of configured stripes, drawing from one budget of the configured capacity
+     *
+     * @param store message store configuration properties
+     * @return arenas of the stripes, {@code null} elements if messages are kept on heap
+     */
+    private static OffHeapArena[] arenas(final ApplicationProperties.Store store) {
+        final int count = store.getStripes() > 0 ? store.getStripes() : Runtime.getRuntime().availableProcessors();
+        final OffHeapArena[] arenas = new OffHeapArena[count];
+        if (!store.isOffHeap()) return arenas;
+        final ChunkBudget budget = new ChunkBudget(store.getArenaCapacity(), store.getArenaChunkSize());
+        for (int i = 0; i < count; i++) arenas[i] = new OffHeapArena(budget);
+        return arenas;
+    }
+
+    private AtomicInteger counter(final String origin) {
+        final String user = origin == null ? "" : origin;
+        final AtomicInteger count = counts.get(user);
+        return count != null ? count : counts.computeIfAbsent(user, k -> new AtomicInteger());
+    }
+
+    private static int bytes(final String value) {
+        if (value == null) return 0;
+        int size = 0;
+        for (int i = 0; i < value.length(); i++) {
+            final char c = value.charAt(i);
+            if (c < 0x80) size++;
+            else if (c < 0x800) size += 2;
+            else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                size += 4;
+                i++;
+            } else size += 3;
+        }
+        return size;
+    }
+
+    private static void index(final ConcurrentMap<String, ConcurrentNavigableMap<Long, MailMessage>> index,
+                              final String key, final Long seq, final MailMessage message) {
+        if (key == null) return;
+        // computeIfAbsent locks the map bin even when present on Java 8, so existing entries are looked up first
+        ConcurrentNavigableMap<Long, MailMessage> entries = index.get(key);
+        if (entries == null) entries = index.computeIfAbsent(key, k -> new ConcurrentSkipListMap<>());
+        entries.put(seq, message);
+    }
+
+    private static void unindex(final ConcurrentMap<String, ConcurrentNavigableMap<Long, MailMessage>> index,
+                                final String key, final Long seq) {
+        if (key == null) return;
+        final ConcurrentNavigableMap<Long, MailMessage> entries = index.get(key);
+        if (entries != null) entries.remove(seq);
+    }
+
+    /**
+     * Iterates index entries of all messages, or of messages sent from or to a user, after a position and within a
+     * timestamp range, up to the current read epoch. All messages are iterated by merging the stripes, each bounded
+     * by its own timestamp index, while messages of a user, indexed across stripes, are bounded by the widest range
+     * of all stripes.
+     *
+     * @param username user name, or {@code null} for all messages
+     * @param from     inclusive start of timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of timestamp range, {@code null} if unbounded
+     * @param after    exclusive starting position
+     * @return index entries in insertion order
+     */
+    private Iterator<Map.Entry<Long, MailMessage>> scan(final String username, final Date from, final Date to,
+                                                        final long after) {
+        final long start = from == null ? Long.MIN_VALUE : from.getTime();
+        final long end = to == null ? Long.MAX_VALUE : to.getTime();
+        final long epoch = getEpoch();
+        final Iterator<Map.Entry<Long, MailMessage>> entries;
+        if (username == null) {
+            final List<Iterator<Map.Entry<Long, MailMessage>>> parts = new ArrayList<>(stripes.length);
+            for (final Stripe stripe : stripes) {
+                final long low = Math.max(after, stripe.times.after(start));
+                final long high = Math.min(stripe.times.before(end), epoch + 1);
+                if (low < high) parts.add(stripe.all.subMap(low, false, high, false).entrySet().iterator());
+            }
+            entries = merge(parts, 0, parts.size());
+        } else {
+            long low = Long.MAX_VALUE;
+            long high = Long.MIN_VALUE;
+            for (final Stripe stripe : stripes) {
+                low = Math.min(low, stripe.times.after(start));
+                high = Math.max(high, stripe.times.before(end));
+            }
+            low = Math.max(after, low);
+            high = Math.min(high, epoch + 1);
+            if (low >= high) return Collections.emptyIterator();
+            entries = new Merge(entries(origins, username, low, high), entries(addresses, username, low, high));
+        }
+        return from == null && to == null ? entries : new Range(entries, start, end);
+    }
+
+    /**
+     * Merges index iterations of stripes pairwise into a balanced tree, so each entry takes a logarithmic number of
+     * comparisons in the number of stripes
+     *
+     * @param parts index iterations ordered by sequence number
+     * @param from  inclusive start of merged iterations
+     * @param to    exclusive end of merged iterations
+     * @return merged index iteration
+     */
+    private static Iterator<Map.Entry<Long, MailMessage>> merge(
+            final List<Iterator<Map.Entry<Long, MailMessage>>> parts, final int from, final int to) {
+        if (to - from == 0) return Collections.emptyIterator();
+        if (to - from == 1) return parts.get(from);
+        final int middle = (from + to) >>> 1;
+        return new Merge(merge(parts, from, middle), merge(parts, middle, to));
+    }
+
+    private static Iterator<Map.Entry<Long, MailMessage>> entries(
+            final ConcurrentMap<String, ConcurrentNavigableMap<Long, MailMessage>> index, final String key,
+            final long low, final long high) {
+        final ConcurrentNavigableMap<Long, MailMessage> entries = index.get(key);
+        return entries == null ? Collections.emptyIterator()
+                : entries.subMap(low, false, high, false).entrySet().iterator();
+    }
+
+    /**
+     * Stored message with its sequence number, content size and stripe, as needed to remove it
+     */
+    private static final class Stored {
+
+        private final Long seq;
+        private final MailMessage message;
+        private final int bytes;
+        private final Stripe stripe;
+
+        private Stored(final Long seq, final MailMessage message, final int bytes, final Stripe stripe) {
+            this.seq = seq;
+            this.message = message;
+            this.bytes = bytes;
+            this.stripe = stripe;
+        }
+    }
+
+    /**
+     * Stripe of the store, holding messages of the users hashed to it, and the lower bound of the sequence number of
+     * the message being inserted
+     */
+    private static final class Stripe {
+
+        private final ConcurrentNavigableMap<Long, MailMessage> all = new ConcurrentSkipListMap<>();
+        private final TimeIndex times;
+        private final OffHeapArena arena;
+        private volatile long pending = Long.MAX_VALUE;
+
+        private Stripe(final TimeIndex times, final OffHeapArena arena) {
+            this.times = times;
+            this.arena = arena;
+        }
+    }
+
+    /**
+     * Filters an index iteration to messages with timestamps in range, the iteration spans the range already save
+     * for messages accepted out of timestamp order
+     */
+    private static final class Range implements Iterator<Map.Entry<Long, MailMessage>> {
+
+        private final Iterator<Map.Entry<Long, MailMessage>> entries;
+        private final long start;
+        private final long end;
+        private Map.Entry<Long, MailMessage> next;
+
+        private Range(final Iterator<Map.Entry<Long, MailMessage>> entries, final long start, final long end) {
+            this.entries = entries;
+            this.start = start;
+            this.end = end;
+            advance();
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        @Override
+        public Map.Entry<Long, MailMessage> next() {
+            if (next == null) throw new NoSuchElementException();
+            final Map.Entry<Long, MailMessage> result = next;
+            advance();
+            return result;
+        }
+
+        private void advance() {
+            next = null;
+            while (entries.hasNext()) {
+                final Map.Entry<Long, MailMessage> entry = entries.next();
+                final long timestamp = entry.getValue().getTimestamp().getTime();
+                if (timestamp >= start && timestamp < end) {
+                    next = entry;
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * Merges two index iterations ordered by sequence number into one, visiting entries present in both once
+     */
+    private static final class Merge implements Iterator<Map.Entry<Long, MailMessage>> {
+
+        private final Iterator<Map.Entry<Long, MailMessage>> left;
+        private final Iterator<Map.Entry<Long, MailMessage>> right;
+        private Map.Entry<Long, MailMessage> l;
+        private Map.Entry<Long, MailMessage> r;
+
+        private Merge(final Iterator<Map.Entry<Long, MailMessage>> left,
+                      final Iterator<Map.Entry<Long, MailMessage>> right) {
+            this.left = left;
+            this.right = right;
+            this.l = left.hasNext() ? left.next() : null;
+            this.r = right.hasNext() ? right.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return l != null || r != null;
+        }
+
+        @Override
+        public Map.Entry<Long, MailMessage> next() {
+            if (!hasNext()) throw new NoSuchElementException();
+            final int order = l == null ? 1 : r == null ? -1 : Long.compare(l.getKey(), r.getKey());
+            // messages sent to self are present in both indexes under the same sequence number
+            final Map.Entry<Long, MailMessage> result = order <= 0 ? l : r;
+            if (order <= 0) l = left.hasNext() ? left.next() : null;
+            if (order >= 0) r = right.hasNext() ? right.next() : null;
+            return result;
+        }
+    }
+}
@@ -0,0 +1,74 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.core.spec.IModel;
+import com.effcode.clean.me.domain.model.MailMessage;
+
+import java.nio.ByteBuffer;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Page of mail messages found by {@link MessageStore}, with the position from which the next page starts. Positions
+ * are exposed to clients as opaque cursors, encoded and decoded by this class.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IModel
+ * @see MessageStore
+ * @since 1.0
+ */
+public final class MessagePage implements IModel<MessagePage, String> {
+
+    private final List<MailMessage> messages;
+    private final long next;
+
+    MessagePage(final List<MailMessage> messages, final long next) {
+        this.messages = messages;
+        this.next = next;
+    }
+
+    /**
+     * Encodes a store position as an opaque cursor
+     *
+     * @param position store position
+     * @return cursor, or {@code null} for position {@code 0}
+     */
+    public static String encode(final long position) {
+        if (position == 0) return null;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(ByteBuffer.allocate(8).putLong(position).array());
+    }
+
+    /**
+     * Decodes an opaque cursor into a store position
+     *
+     * @param cursor cursor, may be {@code null}
+     * @return store position, {@code 0} if cursor is {@code null}
+     * @throws IllegalArgumentException if cursor is malformed
+     */
+    public static long decode(final String cursor) throws IllegalArgumentException {
+        if (cursor == null) return 0;
+        final byte[] bytes = Base64.getUrlDecoder().decode(cursor);
+        if (bytes.length != 8) throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        final long position = ByteBuffer.wrap(bytes).getLong();
+        if (position <= 0) throw new IllegalArgumentException("Malformed cursor: " + cursor);
+        return position;
+    }
+
+    /**
+     * Accessor for the page messages
+     *
+     * @return mail messages
+     */
+    public List<MailMessage> getMessages() {
+        return messages;
+    }
+
+    /**
+     * Accessor for the cursor of the next page
+     *
+     * @return next page cursor, or {@code null} if this is the last page
+     */
+    public String getCursor() {
+        return encode(next);
+    }
+}
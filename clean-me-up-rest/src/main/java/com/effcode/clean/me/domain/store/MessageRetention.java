@@ -0,0 +1,204 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.domain.delivery.MailDeadLetters;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.Date;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background evictor enforcing retention limits of the {@link MessageStore}: a maximum number of stored messages, a
+ * maximum size of stored subjects and contents, a maximum message age and a maximum number of stored messages sent
+ * by a single user. Limits are enforced incrementally by passes run with a fixed delay, each removing at most a batch
+ * of messages, oldest first, so the store is never locked for a sweep and readers and writers proceed meanwhile.
+ * Messages awaiting delivery are never evicted, they are evicted once sent or failed. Failed messages kept by
+ * {@link MailDeadLetters} are not evicted either, as a re-drive sends their subject and content again, and are evicted
+ * once re-driven or purged.
+ * <p>
+ * Evictions are published as {@code mail.retention.evictions} metrics tagged by the exceeded limit, while the store
+ * publishes its footprint as {@code mail.store.messages} and {@code mail.store.bytes} metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageStore
+ * @since 1.0
+ */
+@Component
+public class MessageRetention {
+
+    private static final Logger LOG = LoggerFactory.getLogger(MessageRetention.class);
+    private static final String REASON_COUNT = "count";
+    private static final String REASON_BYTES = "bytes";
+    private static final String REASON_AGE = "age";
+    private static final String REASON_USER = "user";
+    private static final int SCAN_FACTOR = 8;
+    private ScheduledExecutorService evictor;
+    private Counter evictedCount;
+    private Counter evictedBytes;
+    private Counter evictedAge;
+    private Counter evictedUser;
+    private long head;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private MailDeadLetters deadLetters;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Registers retention metrics and starts background eviction if any retention limit is configured
+     */
+    @PostConstruct
+    protected void start() {
+        evictedCount = counter(REASON_COUNT);
+        evictedBytes = counter(REASON_BYTES);
+        evictedAge = counter(REASON_AGE);
+        evictedUser = counter(REASON_USER);
+        final ApplicationProperties.Retention retention = properties.getRetention();
+        if (retention.getMaxMessages() <= 0 && retention.getMaxBytes() <= 0 && retention.getMaxAge() <= 0
+                && retention.getMaxUserMessages() <= 0) return;
+        evictor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-retention-"));
+        evictor.scheduleWithFixedDelay(this::evict, retention.getInterval(), retention.getInterval(),
+                TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background eviction
+     */
+    @PreDestroy
+    protected void stop() {
+        if (evictor != null) evictor.shutdownNow();
+    }
+
+    /**
+     * Runs an eviction pass, evicting at most a batch of messages. Store wide limits are enforced first, by evicting
+     * the oldest messages, then per-user limits, by evicting the oldest messages of users over their limit.
+     *
+     * @return number of evicted messages
+     */
+    protected int evict() {
+        try {
+            final int budget = properties.getRetention().getBatchSize();
+            int evicted = evictOldest(budget);
+            if (evicted < budget) evicted += evictUsers(budget - evicted);
+            if (evicted > 0) {
+                LOG.debug("Evicted {} messages, {} messages of {} bytes stored", evicted, store.size(),
+                        store.getBytes());
+            }
+            return evicted;
+        } catch (final RuntimeException e) {
+            LOG.error("Failed to evict stored messages", e);
+            return 0;
+        }
+    }
+
+    /**
+     * Evicts the oldest messages while the store exceeds its count or size limit, or they exceed the age limit. The
+     * scan resumes after the last message it examined, skipping messages awaiting delivery or dead-lettered, and starts
+     * over once it reaches the end of the store or the limits are met.
+     *
+     * @param budget maximum number of messages to evict
+     * @return number of evicted messages
+     */
+    private int evictOldest(final int budget) {
+        final ApplicationProperties.Retention retention = properties.getRetention();
+        final long cutoff = retention.getMaxAge() > 0 ? System.currentTimeMillis() - retention.getMaxAge() : 0;
+        int evicted = 0;
+        int examined = 0;
+        while (evicted < budget && examined < budget * SCAN_FACTOR) {
+            final boolean over = over(retention);
+            if (!over && cutoff == 0) break;
+            // while only the age limit is exceeded the scan is narrowed to messages older than the limit
+            final MessagePage page = store.find(null, null, over ? null : new Date(cutoff), head, budget - evicted);
+            for (final MailMessage message : page.getMessages()) {
+                examined++;
+                final Counter reason = reason(retention, message, cutoff);
+                if (reason == null) {
+                    head = 0;
+                    return evicted;
+                }
+                if (evictable(message) && store.remove(message.getId())) {
+                    evicted++;
+                    reason.increment();
+                }
+            }
+            head = MessagePage.decode(page.getCursor());
+            if (head == 0) break;
+        }
+        return evicted;
+    }
+
+    /**
+     * Evicts the oldest messages sent by users over their limit
+     *
+     * @param budget maximum number of messages to evict
+     * @return number of evicted messages
+     */
+    private int evictUsers(final int budget) {
+        final int limit = properties.getRetention().getMaxUserMessages();
+        if (limit <= 0) return 0;
+        int evicted = 0;
+        for (final String user : store.getOrigins()) {
+            if (store.count(user) <= limit) continue;
+            for (final MailMessage message : store.iterate(user, null, null, 0)) {
+                if (evicted == budget) return evicted;
+                if (store.count(user) <= limit) break;
+                // messages received by the user are not counted against its limit
+                if (user.equals(message.getOrigin()) && evictable(message) && store.remove(message.getId())) {
+                    evicted++;
+                    evictedUser.increment();
+                }
+            }
+        }
+        return evicted;
+    }
+
+    /**
+     * Finds the limit for which a message is evicted
+     *
+     * @param retention retention properties
+     * @param message   oldest remaining message
+     * @param cutoff    timestamp before which messages exceed the age limit, {@code 0} if unlimited
+     * @return eviction counter of the exceeded limit, or {@code null} if no limit is exceeded
+     */
+    private Counter reason(final ApplicationProperties.Retention retention, final MailMessage message,
+                           final long cutoff) {
+        if (retention.getMaxMessages() > 0 && store.size() > retention.getMaxMessages()) return evictedCount;
+        if (retention.getMaxBytes() > 0 && store.getBytes() > retention.getMaxBytes()) return evictedBytes;
+        return message.getTimestamp().getTime() < cutoff ? evictedAge : null;
+    }
+
+    private boolean over(final ApplicationProperties.Retention retention) {
+        return retention.getMaxMessages() > 0 && store.size() > retention.getMaxMessages()
+                || retention.getMaxBytes() > 0 && store.getBytes() > retention.getMaxBytes();
+    }
+
+    private boolean evictable(final MailMessage message) {
+        return DeliveryState.SENT.is(message.getState())
+                || DeliveryState.FAILED.is(message.getState()) && !deadLetters.contains(message.getId());
+    }
+
+    private Counter counter(final String reason) {
+        return Counter.builder("mail.retention.evictions").tag("reason", reason)
+                .description("Stored mail messages evicted for exceeded retention limit").register(registry);
+    }
+}
@@ -0,0 +1,162 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * Mail message store service provider interface, keeps accepted mail messages and finds them by identifier or by
+ * user in acceptance order, optionally within a timestamp range. Each stored message is assigned an increasing
+ * position, and pages of messages are addressed by the position of their last message. Implementations are selected
+ * by {@link StoreType}.
+ * <p>
+ * Stores publish a read epoch, the position up to which every accepted message is fully indexed. Finds and
+ * iterations are bounded by the epoch read as they start, so without holding any lock they observe a consistent
+ * prefix of accepted messages, which messages added meanwhile never enter, and writers never wait for readers.
+ * <p>
+ * Stores account for the messages each user sent and for the bytes of stored subjects and contents, so that
+ * {@link MessageRetention} can enforce retention limits by removing messages.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see StoreType
+ * @see MessagePage
+ * @since 1.0
+ */
+public interface MessageStore {
+
+    /**
+     * Adds a message to the store, a message already stored is not added again
+     *
+     * @param message mail message
+     * @return {@code true} if message was added, otherwise {@code false}
+     */
+    boolean add(MailMessage message);
+
+    /**
+     * Adds messages to the store in iteration order
+     *
+     * @param messages mail messages
+     */
+    default void addAll(final Iterable<MailMessage> messages) {
+        messages.forEach(this::add);
+    }
+
+    /**
+     * Records the current delivery state of a stored message, messages not stored are ignored
+     *
+     * @param message mail message
+     */
+    void update(MailMessage message);
+
+    /**
+     * Removes a message from the store
+     *
+     * @param id mail message identifier
+     * @return {@code true} if message was removed, {@code false} if not stored
+     */
+    boolean remove(UUID id);
+
+    /**
+     * Finds a message by identifier
+     *
+     * @param id mail message identifier
+     * @return mail message, or {@code null} if not stored
+     */
+    MailMessage get(UUID id);
+
+    /**
+     * Finds the position of a stored message, positions of messages do not change while they are stored
+     *
+     * @param id mail message identifier
+     * @return message position, or {@code 0} if not stored
+     */
+    long position(UUID id);
+
+    /**
+     * Accessor for the read epoch, the position up to which every accepted message is fully indexed
+     *
+     * @return read epoch position, {@code 0} if none
+     */
+    long getEpoch();
+
+    /**
+     * Finds messages sent from or to a user in acceptance order
+     *
+     * @param username user name, matched against message origin and destination address
+     * @return mail messages
+     */
+    default List<MailMessage> findByUser(final String username) {
+        final List<MailMessage> result = new ArrayList<>();
+        iterate(username, null, null, 0).forEach(result::add);
+        return result;
+    }
+
+    /**
+     * Finds a page of messages in acceptance order, starting after the last position of a previous page, up to the
+     * current read epoch
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param from     inclusive start of message timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of message timestamp range, {@code null} if unbounded
+     * @param after    position after which the page starts, {@code 0} for the first page
+     * @param limit    maximum number of messages in the page
+     * @return page of mail messages
+     */
+    MessagePage find(String username, Date from, Date to, long after, int limit);
+
+    /**
+     * Lazily iterates messages in acceptance order, starting after a position of a previous page, up to the read
+     * epoch of the first call of {@link Iterable#iterator()}. Messages added meanwhile are not visited, while
+     * messages removed meanwhile are skipped.
+     *
+     * @param username user name matched against message origin and destination address, or {@code null} for all
+     * @param from     inclusive start of message timestamp range, {@code null} if unbounded
+     * @param to       exclusive end of message timestamp range, {@code null} if unbounded
+     * @param after    position after which the iteration starts, {@code 0} to start from the first message
+     * @return iterable of mail messages
+     */
+    Iterable<MailMessage> iterate(String username, Date from, Date to, long after);
+
+    /**
+     * Checks whether new messages should be refused for exhausted store capacity
+     *
+     * @return {@code true} if the store is full, otherwise {@code false}
+     */
+    default boolean isFull() {
+        return false;
+    }
+
+    /**
+     * Accessor for the number of stored messages
+     *
+     * @return stored message count
+     */
+    int size();
+
+    /**
+     * Accessor for the number of stored messages sent by a user
+     *
+     * @param origin user name matched against message origin
+     * @return stored message count of the user
+     */
+    int count(String origin);
+
+    /**
+     * Accessor for the users who sent stored messages, users whose messages were all removed may be included
+     *
+     * @return message origin user names
+     */
+    Set<String> getOrigins();
+
+    /**
+     * Accessor for the size of stored message subjects and contents, UTF-8 encoded
+     *
+     * @return stored content bytes
+     */
+    long getBytes();
+}
@@ -0,0 +1,26 @@
+package com.effcode.clean.me.domain.store;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Mail message store implementation enumeration set
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see MessageStore
+ * @since 1.0
+ */
+public enum StoreType implements IEnum<StoreType> {
+
+    /**
+     * In-memory store, message bodies optionally kept in an off-heap arena, history is lost on restart
+     */
+    MEMORY,
+
+    /**
+     * Persistent log-structured store of append-only segment files read through memory mapping
+     */
+    LOG
+
+}
@@ -0,0 +1,144 @@
+package com.effcode.clean.me.domain.store;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Ordered index translating message timestamp ranges into store position ranges. Messages are accepted in nearly, but
+ * not strictly, increasing timestamp order, so the index records the running maximum timestamp at each position in a
+ * concurrent skip list, one entry per resolution interval it advances into, and tracks the largest lateness of a
+ * message behind that maximum. A timestamp range is translated with two logarithmic lookups into a position range
+ * holding every message of the range, so range queries cost {@code O(log n + k)}, where messages of the position
+ * range outside the timestamp range are filtered by callers.
+ * <p>
+ * Positions are assigned by the index, so recording a message and its position is atomic and positions are recorded
+ * in increasing order. Indexes of store stripes may share the sequence positions are drawn from, each recording only
+ * the positions it assigned.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageStore
+ * @since 1.0
+ */
+public final class TimeIndex {
+
+    private final ConcurrentNavigableMap<Long, Long> entries = new ConcurrentSkipListMap<>();
+    private final AtomicLong sequence;
+    private final long resolution;
+    private volatile long position;
+    private volatile long maximum = Long.MIN_VALUE;
+    private volatile long lateness;
+
+    /**
+     * Creates new timestamp index
+     *
+     * @param resolution resolution interval in milliseconds, a coarser interval keeps fewer entries but widens the
+     *                   position ranges of queries by up to one interval
+     */
+    public TimeIndex(final long resolution) {
+        this(resolution, new AtomicLong());
+    }
+
+    /**
+     * Creates new timestamp index assigning positions from a shared sequence
+     *
+     * @param resolution resolution interval in milliseconds
+     * @param sequence   sequence of last assigned position, shared by indexes of store stripes
+     */
+    public TimeIndex(final long resolution, final AtomicLong sequence) {
+        this.resolution = Math.max(1, resolution);
+        this.sequence = sequence;
+    }
+
+    /**
+     * Assigns the next position to a message and records its timestamp
+     *
+     * @param timestamp message timestamp in milliseconds
+     * @return assigned position
+     */
+    public synchronized long next(final long timestamp) {
+        final long next = sequence.incrementAndGet();
+        add(next, timestamp);
+        return next;
+    }
+
+    /**
+     * Records the timestamp of a message at a known position, positions must be recorded in increasing order
+     *
+     * @param position  message position
+     * @param timestamp message timestamp in milliseconds
+     */
+    public synchronized void add(final long position, final long timestamp) {
+        if (timestamp > maximum) {
+            // an entry marks the first position whose running maximum reached its interval
+            final long interval = Math.floorDiv(timestamp, resolution) * resolution;
+            if (maximum == Long.MIN_VALUE || interval > Math.floorDiv(maximum, resolution) * resolution) {
+                entries.put(interval, position);
+            }
+            maximum = timestamp;
+        } else if (maximum - timestamp > lateness) {
+            lateness = maximum - timestamp;
+        }
+        this.position = Math.max(this.position, position);
+        if (sequence.get() < position) sequence.accumulateAndGet(position, Math::max);
+    }
+
+    /**
+     * Drops entries of positions no longer stored, keeping the last entry at or before the oldest stored position,
+     * as it still bounds ranges reaching that position
+     *
+     * @param oldest oldest stored position
+     * @return number of dropped entries
+     */
+    public synchronized int truncate(final long oldest) {
+        Long keep = null;
+        for (final Map.Entry<Long, Long> entry : entries.entrySet()) {
+            if (entry.getValue() > oldest) break;
+            keep = entry.getKey();
+        }
+        if (keep == null) return 0;
+        final Map<Long, Long> head = entries.headMap(keep);
+        final int dropped = head.size();
+        head.clear();
+        return dropped;
+    }
+
+    /**
+     * Finds the exclusive lower position bound of messages with timestamps at or after specified time
+     *
+     * @param from inclusive range start in milliseconds
+     * @return position before which no message has a timestamp in range
+     */
+    public long after(final long from) {
+        if (from == Long.MIN_VALUE) return 0;
+        final Map.Entry<Long, Long> entry = entries.ceilingEntry(Math.floorDiv(from, resolution) * resolution);
+        // positions before the entry have a running maximum, and timestamp, earlier than the range start
+        return entry == null ? position : entry.getValue() - 1;
+    }
+
+    /**
+     * Finds the exclusive upper position bound of messages with timestamps before specified time
+     *
+     * @param to exclusive range end in milliseconds
+     * @return position from which no message has a timestamp in range
+     */
+    public long before(final long to) {
+        if (to == Long.MAX_VALUE) return Long.MAX_VALUE;
+        final long late = lateness;
+        if (to > Long.MAX_VALUE - late) return Long.MAX_VALUE;
+        // positions from the entry on trail a running maximum past the range end by more than any lateness
+        final Map.Entry<Long, Long> entry = entries.ceilingEntry(to + late);
+        return entry == null ? Long.MAX_VALUE : entry.getValue();
+    }
+
+    /**
+     * Accessor for the last position recorded by this index
+     *
+     * @return last position, {@code 0} if none
+     */
+    public long getPosition() {
+        return position;
+    }
+}
@@ -0,0 +1,191 @@
+package com.effcode.clean.me.domain.transport;
+
+/**
+ * Count based circuit breaker. Outcomes of the most recent calls are kept in a fixed size ring, the circuit opens
+ * once the ring holds at least the minimum number of calls and either the failure or the slow call ratio reaches its
+ * threshold. An open circuit rejects calls until the open interval elapses, after which it turns half-open and
+ * permits a number of probe calls, closing again if probes stay under the thresholds and re-opening otherwise.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see CircuitState
+ * @since 1.0
+ */
+public class CircuitBreaker {
+
+    private final int window;
+    private final int minimumCalls;
+    private final double failureThreshold;
+    private final double slowThreshold;
+    private final long slowCall;
+    private final long openInterval;
+    private final int probes;
+    private final Listener listener;
+    private final byte[] outcomes;
+    private CircuitState state = CircuitState.CLOSED;
+    private long since = System.nanoTime();
+    private int position;
+    private int calls;
+    private int failures;
+    private int slow;
+    private int permitted;
+
+    /**
+     * Creates new closed circuit breaker
+     *
+     * @param window           number of most recent calls considered
+     * @param minimumCalls     minimum number of recorded calls before the circuit may open
+     * @param failureThreshold failure ratio opening the circuit, between {@code 0} and {@code 1}
+     * @param slowThreshold    slow call ratio opening the circuit, between {@code 0} and {@code 1}
+     * @param slowCall         duration in nanoseconds above which a call is considered slow
+     * @param openInterval     duration in nanoseconds the circuit stays open
+     * @param probes           number of probe calls permitted while half-open
+     * @param listener         state transition listener
+     */
+    public CircuitBreaker(final int window, final int minimumCalls, final double failureThreshold,
+                          final double slowThreshold, final long slowCall, final long openInterval, final int probes,
+                          final Listener listener) {
+        this.window = window;
+        this.minimumCalls = Math.min(minimumCalls, window);
+        this.failureThreshold = failureThreshold;
+        this.slowThreshold = slowThreshold;
+        this.slowCall = slowCall;
+        this.openInterval = openInterval;
+        this.probes = probes;
+        this.listener = listener;
+        this.outcomes = new byte[window];
+    }
+
+    /**
+     * Acquires permission to perform a call, an open circuit turns half-open once its open interval elapses. Each
+     * permitted call must be followed by exactly one of {@link #onSuccess(long)}, {@link #onFailure(long)} or
+     * {@link #onIgnored()}.
+     *
+     * @return {@code true} if call is permitted, otherwise {@code false}
+     */
+    public synchronized boolean tryAcquire() {
+        if (CircuitState.OPEN.is(state) && System.nanoTime() - since >= openInterval) {
+            transition(CircuitState.HALF_OPEN);
+        }
+        if (CircuitState.CLOSED.is(state)) return true;
+        if (CircuitState.HALF_OPEN.is(state) && permitted < probes) {
+            permitted++;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Records a successful call
+     *
+     * @param duration call duration in nanoseconds
+     */
+    public synchronized void onSuccess(final long duration) {
+        record(false, duration >= slowCall);
+    }
+
+    /**
+     * Records a failed call
+     *
+     * @param duration call duration in nanoseconds
+     */
+    public synchronized void onFailure(final long duration) {
+        record(true, duration >= slowCall);
+    }
+
+    /**
+     * Releases a permitted call which was not attempted, its outcome is not recorded
+     */
+    public synchronized void onIgnored() {
+        if (CircuitState.HALF_OPEN.is(state) && permitted > 0) permitted--;
+    }
+
+    /**
+     * Accessor for the current circuit state
+     *
+     * @return circuit state
+     */
+    public synchronized CircuitState getState() {
+        return state;
+    }
+
+    /**
+     * Accessor for the time left until an open circuit turns half-open and permits probe calls
+     *
+     * @return remaining open interval in nanoseconds, {@code 0} if the circuit is not open
+     */
+    public synchronized long getOpenRemaining() {
+        if (!CircuitState.OPEN.is(state)) return 0;
+        return Math.max(0, openInterval - (System.nanoTime() - since));
+    }
+
+    /**
+     * Records a call outcome and evaluates the thresholds
+     *
+     * @param failure call failed flag
+     * @param slowed  call was slow flag
+     */
+    private void record(final boolean failure, final boolean slowed) {
+        if (CircuitState.OPEN.is(state)) return;
+        final byte outcome = (byte) ((failure ? 1 : 0) | (slowed ? 2 : 0));
+        if (calls == window) {
+            final byte evicted = outcomes[position];
+            if ((evicted & 1) != 0) failures--;
+            if ((evicted & 2) != 0) slow--;
+        } else {
+            calls++;
+        }
+        outcomes[position] = outcome;
+        position = (position + 1) % window;
+        if (failure) failures++;
+        if (slowed) slow++;
+
+        if (CircuitState.HALF_OPEN.is(state)) {
+            if (calls < probes) return;
+            transition(exceeded(calls) ? CircuitState.OPEN : CircuitState.CLOSED);
+        } else if (calls >= minimumCalls && exceeded(calls)) {
+            transition(CircuitState.OPEN);
+        }
+    }
+
+    /**
+     * Checks if failure or slow call ratio reached its threshold
+     *
+     * @param total number of recorded calls
+     * @return {@code true} if a threshold is reached, otherwise {@code false}
+     */
+    private boolean exceeded(final int total) {
+        return (double) failures / total >= failureThreshold || (double) slow / total >= slowThreshold;
+    }
+
+    /**
+     * Moves the circuit to a new state, resetting recorded outcomes
+     *
+     * @param target new circuit state
+     */
+    private void transition(final CircuitState target) {
+        final CircuitState source = state;
+        final long now = System.nanoTime();
+        final long duration = now - since;
+        state = target;
+        since = now;
+        position = calls = failures = slow = permitted = 0;
+        listener.transition(source, target, duration);
+    }
+
+    /**
+     * Circuit state transition listener, notified while holding the breaker lock
+     */
+    @FunctionalInterface
+    public interface Listener {
+
+        /**
+         * Notifies a state transition
+         *
+         * @param source   previous circuit state
+         * @param target   new circuit state
+         * @param duration time in nanoseconds spent in previous state
+         */
+        void transition(CircuitState source, CircuitState target, long duration);
+    }
+}
@@ -0,0 +1,31 @@
+package com.effcode.clean.me.domain.transport;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Circuit breaker state enumeration set
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see CircuitBreaker
+ * @since 1.0
+ */
+public enum CircuitState implements IEnum<CircuitState> {
+
+    /**
+     * Calls are permitted and their outcomes recorded
+     */
+    CLOSED,
+
+    /**
+     * Calls are rejected without being attempted until the open interval elapses
+     */
+    OPEN,
+
+    /**
+     * A limited number of probe calls is permitted to decide whether to close or re-open the circuit
+     */
+    HALF_OPEN
+
+}
@@ -0,0 +1,73 @@
+package com.effcode.clean.me.domain.transport;
+
+import com.effcode.clean.me.support.SmtpEmail;
+import com.effcode.clean.me.support.SmtpHandler;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mail transport adapter of the synchronous legacy {@link SmtpHandler}. Calls run in a bulkhead, a dedicated thread
+ * pool without a queue, so a stalled handler holds at most the bulkhead threads and further calls are rejected with
+ * {@link java.util.concurrent.RejectedExecutionException} until a thread is released. The envelope origin is not
+ * passed on, as the handler always sends with the configured SMTP credentials.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpHandler
+ * @since 1.0
+ */
+public class LegacyTransport implements MailTransport {
+
+    private final SmtpHandler handler;
+    private final String username;
+    private final String password;
+    private final ExecutorService bulkhead;
+    private final Scheduler scheduler;
+
+    /**
+     * Creates new legacy transport
+     *
+     * @param handler  legacy SMTP handler
+     * @param username SMTP username
+     * @param password SMTP password
+     * @param threads  bulkhead thread count
+     */
+    public LegacyTransport(final SmtpHandler handler, final String username, final String password,
+                           final int threads) {
+        this.handler = handler;
+        this.username = username;
+        this.password = password;
+        this.bulkhead = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS, new SynchronousQueue<>(),
+                new CustomizableThreadFactory("smtp-bulkhead-"));
+        this.scheduler = Schedulers.fromExecutorService(bulkhead);
+    }
+
+    @Override
+    public Mono<Void> send(final MailEnvelope envelope) {
+        return Mono.<Void>fromRunnable(() -> {
+            final SmtpEmail email = new SmtpEmail();
+            email.adrs = envelope.getAddresses().toArray(new String[0]);
+            email.subject = envelope.getSubject();
+            email.content = envelope.getContent();
+            email.username = username;
+            email.password = password;
+            handler.post(email);
+        }).subscribeOn(scheduler);
+    }
+
+    /**
+     * Stops the bulkhead thread pool, interrupting calls in progress
+     */
+    @Override
+    public void close() {
+        scheduler.dispose();
+        bulkhead.shutdownNow();
+    }
+}
@@ -0,0 +1,64 @@
+package com.effcode.clean.me.domain.transport;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable email envelope handed over to a {@link MailTransport}, a single email with one or more recipients
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailTransport
+ * @since 1.0
+ */
+public final class MailEnvelope {
+
+    private final String origin;
+    private final List<String> addresses;
+    private final String subject;
+    private final String content;
+
+    public MailEnvelope(final String origin, final List<String> addresses, final String subject,
+                        final String content) {
+        this.origin = origin;
+        this.addresses = Collections.unmodifiableList(addresses);
+        this.subject = subject;
+        this.content = content;
+    }
+
+    /**
+     * Accessor for the email origin address
+     *
+     * @return origin address
+     */
+    public String getOrigin() {
+        return origin;
+    }
+
+    /**
+     * Accessor for the email recipient addresses
+     *
+     * @return recipient addresses
+     */
+    public List<String> getAddresses() {
+        return addresses;
+    }
+
+    /**
+     * Accessor for the email subject
+     *
+     * @return email subject
+     */
+    public String getSubject() {
+        return subject;
+    }
+
+    /**
+     * Accessor for the email content
+     *
+     * @return email content
+     */
+    public String getContent() {
+        return content;
+    }
+}
@@ -0,0 +1,33 @@
+package com.effcode.clean.me.domain.transport;
+
+import reactor.core.publisher.Mono;
+
+import java.io.Closeable;
+
+/**
+ * Mail transport service provider interface, delivers an email envelope to the outbound mail system. Implementations
+ * are selected by {@link TransportType} and are invoked through {@link SmtpGateway}, which applies concurrency limits,
+ * timeouts and circuit breaking on top of them.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpGateway
+ * @see TransportType
+ * @since 1.0
+ */
+public interface MailTransport extends Closeable {
+
+    /**
+     * Sends an email envelope
+     *
+     * @param envelope email envelope
+     * @return completes once the email is accepted by the mail system, or fails with the delivery failure cause
+     */
+    Mono<Void> send(MailEnvelope envelope);
+
+    /**
+     * Releases resources held by the transport
+     */
+    @Override
+    void close();
+}
@@ -0,0 +1,81 @@
+package com.effcode.clean.me.domain.transport;
+
+import com.effcode.clean.me.core.smtp.SmtpClient;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.Base64;
+
+/**
+ * Mail transport delivering emails with the native non-blocking {@link SmtpClient}. The envelope origin is used as
+ * the envelope sender, and the email is composed as a plain text UTF-8 message with the subject encoded per RFC 2047
+ * when it is not plain ASCII. Multi-address emails are sent with undisclosed recipients.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ * @since 1.0
+ */
+public class SmtpClientTransport implements MailTransport {
+
+    private final SmtpClient client;
+
+    /**
+     * Creates new SMTP client transport
+     *
+     * @param client SMTP client
+     */
+    public SmtpClientTransport(final SmtpClient client) {
+        this.client = client;
+    }
+
+    @Override
+    public Mono<Void> send(final MailEnvelope envelope) {
+        return Mono.defer(() -> client.send(envelope.getOrigin(), envelope.getAddresses(), compose(envelope)));
+    }
+
+    /**
+     * Closes the SMTP client connections
+     */
+    @Override
+    public void close() {
+        client.close();
+    }
+
+    /**
+     * Composes email headers and body
+     *
+     * @param envelope email envelope
+     * @return composed email
+     */
+    private static byte[] compose(final MailEnvelope envelope) {
+        final String subject = envelope.getSubject() == null ? "" : envelope.getSubject();
+        final String content = envelope.getContent() == null ? "" : envelope.getContent();
+        final String to = envelope.getAddresses().size() == 1 ? "<" + envelope.getAddresses().get(0) + ">"
+                : "undisclosed-recipients:;";
+        return new StringBuilder(256 + content.length())
+                .append("Date: ").append(DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC)))
+                .append("\r\nFrom: <").append(envelope.getOrigin()).append('>')
+                .append("\r\nTo: ").append(to)
+                .append("\r\nSubject: ").append(encode(subject))
+                .append("\r\nMIME-Version: 1.0")
+                .append("\r\nContent-Type: text/plain; charset=UTF-8")
+                .append("\r\nContent-Transfer-Encoding: 8bit")
+                .append("\r\n\r\n").append(content)
+                .toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Encodes a header value as RFC 2047 encoded word unless it is plain printable ASCII
+     *
+     * @param value header value
+     * @return encoded header value
+     */
+    private static String encode(final String value) {
+        if (value.chars().allMatch(c -> c >= 0x20 && c < 0x7F)) return value;
+        return "=?UTF-8?B?" + Base64.getEncoder().encodeToString(value.getBytes(StandardCharsets.UTF_8)) + "?=";
+    }
+}
@@ -0,0 +1,173 @@
+package com.effcode.clean.me.domain.transport;
+
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.UnavailableException;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import reactor.core.Exceptions;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Isolating gateway component in front of the configured {@link MailTransport}. Calls are subject to a concurrency cap
+ * and a call timeout, transports rejecting a call for lack of capacity count as bulkhead rejections. A
+ * {@link CircuitBreaker} rejects calls without attempting them while the transport keeps failing or responding
+ * slowly. Call timings and circuit state transitions are published as {@code mail.transport.*} metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see CircuitBreaker
+ * @see MailTransport
+ * @since 1.0
+ */
+@Component
+public class SmtpGateway {
+
+    private static final Logger LOG = LoggerFactory.getLogger(SmtpGateway.class);
+    private Semaphore permits;
+    private CircuitBreaker breaker;
+    private Timer success;
+    private Timer failure;
+    private Counter rejected;
+    private Counter notPermitted;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private MailTransport transport;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Creates the circuit breaker and registers transport metrics
+     */
+    @PostConstruct
+    protected void start() {
+        final ApplicationProperties.Transport config = properties.getTransport();
+        permits = new Semaphore(config.getMaxConcurrentCalls());
+        breaker = new CircuitBreaker(config.getWindow(), config.getMinimumCalls(), config.getFailureThreshold(),
+                config.getSlowCallThreshold(), TimeUnit.MILLISECONDS.toNanos(config.getSlowCall()),
+                TimeUnit.MILLISECONDS.toNanos(config.getOpenInterval()), config.getProbes(), this::transition);
+        success = Timer.builder("mail.transport.calls").tag("outcome", "success")
+                .description("Mail transport call durations").register(registry);
+        failure = Timer.builder("mail.transport.calls").tag("outcome", "failure")
+                .description("Mail transport call durations").register(registry);
+        rejected = Counter.builder("mail.transport.rejected").tag("reason", "bulkhead")
+                .description("Mail transport calls rejected without being attempted").register(registry);
+        notPermitted = Counter.builder("mail.transport.rejected").tag("reason", "circuit")
+                .description("Mail transport calls rejected without being attempted").register(registry);
+        Gauge.builder("mail.transport.circuit.state", breaker, b -> b.getState().ordinal())
+                .description("Mail transport circuit state, 0 closed, 1 open, 2 half-open").register(registry);
+    }
+
+    /**
+     * Sends an email envelope through the mail transport, blocking the caller for at most the call timeout
+     *
+     * @param envelope email envelope to send
+     * @throws UnavailableException if circuit is open, bulkhead is full or the call times out
+     * @throws RuntimeException     if mail transport fails
+     */
+    public void post(final MailEnvelope envelope) throws UnavailableException {
+
+        if (!breaker.tryAcquire()) {
+            notPermitted.increment();
+            throw Error.MAIL_TRANSPORT_OPEN.buildException();
+        }
+        if (!permits.tryAcquire()) {
+            reject();
+            throw Error.MAIL_TRANSPORT_FAILURE.buildException("Mail transport bulkhead is full");
+        }
+        final long start = System.nanoTime();
+        try {
+            transport.send(envelope).timeout(Duration.ofMillis(properties.getTransport().getCallTimeout())).block();
+            complete(true, start);
+        } catch (final RuntimeException e) {
+            final Throwable cause = Exceptions.unwrap(e);
+            if (cause instanceof RejectedExecutionException) {
+                reject();
+                throw Error.MAIL_TRANSPORT_FAILURE.buildException("Mail transport bulkhead is full");
+            }
+            complete(false, start);
+            if (cause instanceof TimeoutException) {
+                throw Error.MAIL_TRANSPORT_FAILURE.buildException("Mail transport call timed out");
+            }
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IllegalStateException(cause);
+        } finally {
+            permits.release();
+        }
+    }
+
+    /**
+     * Accessor for the current transport circuit state
+     *
+     * @return circuit state
+     */
+    public CircuitState getState() {
+        return breaker.getState();
+    }
+
+    /**
+     * Accessor for the time left until an open transport circuit permits probe calls again
+     *
+     * @return remaining open interval in milliseconds, {@code 0} if the circuit is not open
+     */
+    public long getOpenRemaining() {
+        return TimeUnit.NANOSECONDS.toMillis(breaker.getOpenRemaining());
+    }
+
+    /**
+     * Records a call rejected without being attempted, it is ignored by circuit breaker
+     */
+    private void reject() {
+        breaker.onIgnored();
+        rejected.increment();
+    }
+
+    /**
+     * Records a call outcome in circuit breaker and metrics
+     *
+     * @param succeeded call succeeded flag
+     * @param start     call start time in nanoseconds
+     */
+    private void complete(final boolean succeeded, final long start) {
+        final long duration = System.nanoTime() - start;
+        if (succeeded) {
+            breaker.onSuccess(duration);
+            success.record(duration, TimeUnit.NANOSECONDS);
+        } else {
+            breaker.onFailure(duration);
+            failure.record(duration, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Publishes a circuit state transition
+     *
+     * @param source   previous circuit state
+     * @param target   new circuit state
+     * @param duration time in nanoseconds spent in previous state
+     */
+    private void transition(final CircuitState source, final CircuitState target, final long duration) {
+        LOG.warn("Mail transport circuit {} -> {} after {} ms", source, target,
+                TimeUnit.NANOSECONDS.toMillis(duration));
+        registry.counter("mail.transport.circuit.transitions", "from", source.name(), "to", target.name())
+                .increment();
+        registry.timer("mail.transport.circuit.state.duration", "state", source.name())
+                .record(duration, TimeUnit.NANOSECONDS);
+    }
+}
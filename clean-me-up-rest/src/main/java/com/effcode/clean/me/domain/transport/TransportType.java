@@ -0,0 +1,26 @@
+package com.effcode.clean.me.domain.transport;
+
+import com.effcode.clean.me.core.spec.IEnum;
+
+/**
+ * Mail transport implementation enumeration set
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IEnum
+ * @see MailTransport
+ * @since 1.0
+ */
+public enum TransportType implements IEnum<TransportType> {
+
+    /**
+     * Legacy synchronous SMTP handler, isolated in a bounded thread pool
+     */
+    LEGACY,
+
+    /**
+     * Native non-blocking SMTP client with pooled, pipelined connections
+     */
+    SMTP
+
+}
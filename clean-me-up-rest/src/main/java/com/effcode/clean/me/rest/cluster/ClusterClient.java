@@ -0,0 +1,189 @@
+package com.effcode.clean.me.rest.cluster;
+
+import com.effcode.clean.me.core.mapper.ObjectMapper;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.SimpleTrustManagerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.web.ServerProperties;
+import org.springframework.boot.web.server.Ssl;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.json.Jackson2JsonDecoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ResourceUtils;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import javax.annotation.PostConstruct;
+import javax.net.ssl.ManagerFactoryParameters;
+import javax.net.ssl.SSLEngine;
+import javax.net.ssl.TrustManager;
+import javax.net.ssl.TrustManagerFactory;
+import javax.net.ssl.X509ExtendedTrustManager;
+import javax.net.ssl.X509TrustManager;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.Socket;
+import java.security.GeneralSecurityException;
+import java.security.KeyStore;
+import java.security.cert.CertificateException;
+import java.security.cert.X509Certificate;
+
+/**
+ * HTTP client of internal node to node calls, shared by request forwarding and message hand-off. When the server
+ * runs over TLS, peer nodes are trusted by the server trust store configured under {@code server.ssl}, so nodes
+ * sharing a trust store accept each other without trusting any other certificate. Node URL host names are verified
+ * against the certificates of the nodes, unless disabled for nodes sharing a certificate not naming their hosts. Only
+ * connecting is bounded by the cluster timeout, as forwarded responses may be long-lived event streams.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterRouter
+ * @see ClusterHandoff
+ * @since 1.0
+ */
+@Component
+public class ClusterClient {
+
+    /**
+     * Header marking a request forwarded by another node, holding the forwarding node identifier
+     */
+    public static final String FORWARDED = "X-Cluster-Forwarded";
+
+    /**
+     * Header holding the shared cluster secret of internal calls
+     */
+    public static final String SECRET = "X-Cluster-Secret";
+
+    private WebClient client;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private ServerProperties server;
+
+    /**
+     * Creates the node to node HTTP client if cluster mode is enabled
+     *
+     * @throws IOException              if server trust store can not be read
+     * @throws GeneralSecurityException if server trust store can not be loaded
+     */
+    @PostConstruct
+    protected void start() throws IOException, GeneralSecurityException {
+        if (!properties.getCluster().isEnabled()) return;
+        HttpClient http = HttpClient.create().tcpConfiguration(tcp -> tcp.option(ChannelOption.CONNECT_TIMEOUT_MILLIS,
+                (int) properties.getCluster().getTimeout()));
+        final Ssl ssl = server.getSsl();
+        if (ssl != null && ssl.isEnabled() && ssl.getTrustStore() != null) {
+            final TrustManagerFactory trust = trust(ssl);
+            final SslContext context = properties.getCluster().isVerifyHostname()
+                    ? SslContextBuilder.forClient().trustManager(trust).build()
+                    : SslContextBuilder.forClient().trustManager(new ChainTrustManager(trust)).build();
+            http = http.secure(spec -> spec.sslContext(context));
+        }
+        client = WebClient.builder()
+                .clientConnector(new ReactorClientHttpConnector(http))
+                .codecs(codecs -> {
+                    codecs.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(ObjectMapper.instance()));
+                    codecs.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(ObjectMapper.instance()));
+                })
+                .build();
+    }
+
+    /**
+     * Accessor for the node to node HTTP client
+     *
+     * @return web client, or {@code null} if cluster mode is disabled
+     */
+    public WebClient getClient() {
+        return client;
+    }
+
+    private static TrustManagerFactory trust(final Ssl ssl) throws IOException, GeneralSecurityException {
+        final KeyStore store = KeyStore.getInstance(ssl.getTrustStoreType() != null ? ssl.getTrustStoreType()
+                : KeyStore.getDefaultType());
+        try (InputStream in = ResourceUtils.getURL(ssl.getTrustStore()).openStream()) {
+            store.load(in, ssl.getTrustStorePassword() != null ? ssl.getTrustStorePassword().toCharArray() : null);
+        }
+        final TrustManagerFactory factory = TrustManagerFactory.getInstance(TrustManagerFactory.getDefaultAlgorithm());
+        factory.init(store);
+        return factory;
+    }
+
+    /**
+     * Trust manager factory checking node certificate chains against the server trust store only, without verifying
+     * the host names of node URLs against the certificates
+     */
+    private static final class ChainTrustManager extends SimpleTrustManagerFactory {
+
+        private final X509TrustManager delegate;
+
+        private ChainTrustManager(final TrustManagerFactory factory) {
+            X509TrustManager found = null;
+            for (final TrustManager manager : factory.getTrustManagers()) {
+                if (manager instanceof X509TrustManager) found = (X509TrustManager) manager;
+            }
+            if (found == null) throw new IllegalStateException("Server trust store provides no X.509 trust manager");
+            this.delegate = found;
+        }
+
+        @Override
+        protected void engineInit(final KeyStore keyStore) {
+        }
+
+        @Override
+        protected void engineInit(final ManagerFactoryParameters parameters) {
+        }
+
+        @Override
+        protected TrustManager[] engineGetTrustManagers() {
+            // an extended trust manager is used as is, a plain one would be wrapped with a host name check
+            return new TrustManager[]{new X509ExtendedTrustManager() {
+                @Override
+                public void checkClientTrusted(final X509Certificate[] chain, final String type, final Socket socket)
+                        throws CertificateException {
+                    delegate.checkClientTrusted(chain, type);
+                }
+
+                @Override
+                public void checkServerTrusted(final X509Certificate[] chain, final String type, final Socket socket)
+                        throws CertificateException {
+                    delegate.checkServerTrusted(chain, type);
+                }
+
+                @Override
+                public void checkClientTrusted(final X509Certificate[] chain, final String type,
+                                               final SSLEngine engine) throws CertificateException {
+                    delegate.checkClientTrusted(chain, type);
+                }
+
+                @Override
+                public void checkServerTrusted(final X509Certificate[] chain, final String type,
+                                               final SSLEngine engine) throws CertificateException {
+                    delegate.checkServerTrusted(chain, type);
+                }
+
+                @Override
+                public void checkClientTrusted(final X509Certificate[] chain, final String type)
+                        throws CertificateException {
+                    delegate.checkClientTrusted(chain, type);
+                }
+
+                @Override
+                public void checkServerTrusted(final X509Certificate[] chain, final String type)
+                        throws CertificateException {
+                    delegate.checkServerTrusted(chain, type);
+                }
+
+                @Override
+                public X509Certificate[] getAcceptedIssuers() {
+                    return delegate.getAcceptedIssuers();
+                }
+            }};
+        }
+    }
+}
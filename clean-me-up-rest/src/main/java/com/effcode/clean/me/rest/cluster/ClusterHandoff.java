@@ -0,0 +1,179 @@
+package com.effcode.clean.me.rest.cluster;
+
+import com.effcode.clean.me.domain.cluster.ClusterMembership;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.snapshot.StateSnapshot;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.rest.configuration.ApiEndpoint;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import com.effcode.clean.me.rest.data.ClusterMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Background hand-off of stored messages to the cluster nodes owning their senders. After a membership change, the
+ * messages of users whose hash ranges moved to another node are still stored by their previous owner, and are moved
+ * to the new owner by passes run with a fixed delay, so only the messages of moved ranges are transferred. Each pass
+ * sends the messages of each user owned elsewhere in batches, and removes a batch locally once its owner has adopted
+ * it. Messages awaiting delivery are delivered by the node holding them, and handed off once sent or failed.
+ * <p>
+ * Messages received by users of the local node from senders owned elsewhere are copies kept for their recipients by
+ * {@link ClusterReplicator}, and stay where they are. Handed off messages whose recipient is owned by neither the
+ * local node nor the new owner of the sender are replicated to the owner of the recipient, so copies follow moved
+ * recipients. Messages of senders moved away from the local node, received by users it still owns, are copies once
+ * handed off, so they are handed off by the first complete pass after startup only, and kept locally.
+ * <p>
+ * Passes start once the state snapshot is fully restored, so no removed message is restored again, and a pass stops
+ * handing off to a node at its first failed call, retrying on the next pass. Handed off messages are published as
+ * {@code mail.cluster.handoffs} metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterMembership
+ * @since 1.0
+ */
+@Component
+public class ClusterHandoff {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterHandoff.class);
+    private static final String PATH = ApiEndpoint.Value.CLUSTER + "/messages";
+    private ScheduledExecutorService executor;
+    private Counter handoffs;
+    private boolean started;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private ClusterMembership membership;
+
+    @Autowired
+    private ClusterClient client;
+
+    @Autowired
+    private MessageStore store;
+
+    @Autowired
+    private StateSnapshot snapshot;
+
+    @Autowired
+    private ClusterReplicator replicator;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Starts background hand-off if cluster mode is enabled
+     */
+    @PostConstruct
+    protected void start() {
+        if (!membership.isEnabled()) return;
+        handoffs = Counter.builder("mail.cluster.handoffs")
+                .description("Stored mail messages handed off to owner cluster nodes").register(registry);
+        final long interval = properties.getCluster().getHandoffInterval();
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-cluster-handoff-"));
+        executor.scheduleWithFixedDelay(this::handoff, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background hand-off
+     */
+    @PreDestroy
+    protected void stop() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    /**
+     * Runs a hand-off pass over the users stored locally but owned by other nodes
+     *
+     * @return number of handed off messages
+     */
+    protected int handoff() {
+        if (!snapshot.isReady()) return 0;
+        final List<String> failed = new ArrayList<>();
+        int moved = 0;
+        for (final String user : store.getOrigins()) {
+            final String owner = membership.owner(user);
+            if (membership.isLocal(user) || failed.contains(owner)) continue;
+            try {
+                moved += handoff(user, owner);
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to hand off messages of {} to cluster node {}: {}", user, owner, e.toString());
+                failed.add(owner);
+            }
+        }
+        if (moved > 0) LOG.info("Handed off {} messages to owner cluster nodes", moved);
+        started |= failed.isEmpty();
+        return moved;
+    }
+
+    /**
+     * Hands off the settled messages sent by a user to its owner node
+     *
+     * @param user  sender user name
+     * @param owner owner node identifier
+     * @return number of handed off messages
+     */
+    private int handoff(final String user, final String owner) {
+        final int size = properties.getCluster().getHandoffBatch();
+        final List<MailMessage> batch = new ArrayList<>(size);
+        int moved = 0;
+        for (final MailMessage message : store.iterate(user, null, null, 0)) {
+            // messages received by the user are handed off with their senders, copies kept for local recipients stay
+            if (!user.equals(message.getOrigin()) || !settled(message)) continue;
+            if (started && membership.isLocal(message.getAddress())) continue;
+            batch.add(message);
+            if (batch.size() == size) moved += send(owner, batch);
+        }
+        if (!batch.isEmpty()) moved += send(owner, batch);
+        return moved;
+    }
+
+    /**
+     * Sends a batch of messages to their owner node, removing them locally once adopted unless kept as copies for
+     * local recipients, and replicating them to the owner nodes of their recipients
+     *
+     * @param owner owner node identifier
+     * @param batch messages to hand off, cleared once handed off
+     * @return number of handed off messages
+     */
+    private int send(final String owner, final List<MailMessage> batch) {
+        client.getClient().post()
+                .uri(membership.getUrl(owner) + PATH)
+                .header(ClusterClient.SECRET, properties.getCluster().getSecret())
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue(batch.stream().map(m -> new ClusterMessage().from(m)).collect(Collectors.toList()))
+                .retrieve()
+                .toBodilessEntity()
+                .block(Duration.ofMillis(properties.getCluster().getTimeout()));
+        int moved = 0;
+        for (final MailMessage message : batch) {
+            replicator.replicate(message);
+            if (!membership.isLocal(message.getAddress()) && store.remove(message.getId())) moved++;
+        }
+        handoffs.increment(moved);
+        batch.clear();
+        return moved;
+    }
+
+    private static boolean settled(final MailMessage message) {
+        return DeliveryState.SENT.is(message.getState()) || DeliveryState.FAILED.is(message.getState());
+    }
+}
@@ -0,0 +1,152 @@
+package com.effcode.clean.me.rest.cluster;
+
+import com.effcode.clean.me.domain.cluster.ClusterMembership;
+import com.effcode.clean.me.domain.cluster.MessageReplicator;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.security.AuthManager;
+import com.effcode.clean.me.rest.configuration.ApiEndpoint;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import com.effcode.clean.me.rest.data.ClusterMessage;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Background replication of settled messages to the cluster nodes owning their recipients. Messages are stored and
+ * delivered by the owner node of their sender, so a recipient owned by another node would not see them. Once a
+ * message is sent or failed, a copy is queued for the owner node of its recipient, when the recipient is a user owned
+ * neither by the local node nor by the owner of the sender, and queued copies are sent in batches by passes run with
+ * a fixed delay. Receiving nodes keep each copy once, so copies sent again after a failed call are harmless.
+ * <p>
+ * Copies are queued in memory only, so copies still queued when a node stops are lost, and the message is then seen
+ * by its sender only. A pass stops replicating to a node at its first failed call, keeping the batch queued for the
+ * next pass. Replicated messages are published as {@code mail.cluster.replications} metrics.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterMembership
+ * @since 1.0
+ */
+@Component
+public class ClusterReplicator implements MessageReplicator {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterReplicator.class);
+    private static final String PATH = ApiEndpoint.Value.CLUSTER + "/replicas";
+    private final Map<String, Deque<MailMessage>> pending = new ConcurrentHashMap<>();
+    private ScheduledExecutorService executor;
+    private Counter replications;
+
+    @Autowired
+    private ApplicationProperties properties;
+
+    @Autowired
+    private ClusterMembership membership;
+
+    @Autowired
+    private ClusterClient client;
+
+    @Autowired
+    private AuthManager auth;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    /**
+     * Starts background replication if cluster mode is enabled
+     */
+    @PostConstruct
+    protected void start() {
+        if (!membership.isEnabled()) return;
+        replications = Counter.builder("mail.cluster.replications")
+                .description("Settled mail messages replicated to owner cluster nodes of their recipients")
+                .register(registry);
+        final long interval = properties.getCluster().getReplicationInterval();
+        executor = Executors.newSingleThreadScheduledExecutor(new CustomizableThreadFactory("mail-cluster-replica-"));
+        executor.scheduleWithFixedDelay(this::replicate, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Stops background replication
+     */
+    @PreDestroy
+    protected void stop() {
+        if (executor != null) executor.shutdownNow();
+    }
+
+    @Override
+    public void replicate(final MailMessage message) {
+        if (!membership.isEnabled() || auth.findByUsername(message.getAddress()) == null) return;
+        final String owner = membership.owner(message.getAddress());
+        if (membership.isLocal(message.getAddress()) || owner.equals(membership.owner(message.getOrigin()))) return;
+        pending.computeIfAbsent(owner, k -> new ConcurrentLinkedDeque<>()).add(message);
+    }
+
+    /**
+     * Runs a replication pass over the copies queued for each node
+     *
+     * @return number of replicated messages
+     */
+    protected int replicate() {
+        int replicated = 0;
+        for (final Map.Entry<String, Deque<MailMessage>> entry : pending.entrySet()) {
+            try {
+                replicated += send(entry.getKey(), entry.getValue());
+            } catch (final RuntimeException e) {
+                LOG.warn("Failed to replicate messages to cluster node {}: {}", entry.getKey(), e.toString());
+            }
+        }
+        if (replicated > 0) LOG.debug("Replicated {} messages to owner cluster nodes of their recipients", replicated);
+        return replicated;
+    }
+
+    /**
+     * Sends the queued copies of a node in batches, a batch is put back at the head of the queue if its call fails
+     *
+     * @param node  recipient owner node identifier
+     * @param queue copies queued for the node
+     * @return number of replicated messages
+     */
+    private int send(final String node, final Deque<MailMessage> queue) {
+        final int size = properties.getCluster().getHandoffBatch();
+        int replicated = 0;
+        while (!queue.isEmpty()) {
+            final List<MailMessage> batch = new ArrayList<>(size);
+            for (MailMessage message; batch.size() < size && (message = queue.poll()) != null; ) batch.add(message);
+            try {
+                client.getClient().post()
+                        .uri(membership.getUrl(node) + PATH)
+                        .header(ClusterClient.SECRET, properties.getCluster().getSecret())
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .bodyValue(batch.stream().map(m -> new ClusterMessage().from(m)).collect(Collectors.toList()))
+                        .retrieve()
+                        .toBodilessEntity()
+                        .block(Duration.ofMillis(properties.getCluster().getTimeout()));
+            } catch (final RuntimeException e) {
+                for (int i = batch.size() - 1; i >= 0; i--) queue.addFirst(batch.get(i));
+                throw e;
+            }
+            replications.increment(batch.size());
+            replicated += batch.size();
+        }
+        return replicated;
+    }
+}
@@ -0,0 +1,233 @@
+package com.effcode.clean.me.rest.cluster;
+
+import com.effcode.clean.me.core.mapper.ObjectMapper;
+import com.effcode.clean.me.core.spec.IException;
+import com.effcode.clean.me.domain.cluster.ClusterMembership;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.security.AuthManager;
+import com.effcode.clean.me.rest.configuration.ApiEndpoint;
+import com.effcode.clean.me.rest.configuration.ApiVersion;
+import com.effcode.clean.me.rest.configuration.ApplicationConfig;
+import com.effcode.clean.me.rest.configuration.WebFluxConfig;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpRequestDecorator;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserters;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import org.springframework.web.util.UriComponentsBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Web filter routing API requests to the cluster node owning the requesting user, so any node accepts any request.
+ * Requests of users owned by the local node pass on to the local filter chain, others are forwarded to their owner
+ * node over HTTP and its response is streamed back as it arrives, so event streams pass through unbuffered. Forwarded
+ * requests are marked and always served by the receiving node, so requests are forwarded at most once even while
+ * nodes disagree on membership.
+ * <p>
+ * Users are identified by the subject of the bearer token, and token requests by the username of the request body,
+ * which is buffered and replayed to the local chain. Token request bodies are read before authentication, so bodies
+ * over {@value #MAX_TOKEN_BODY} bytes are refused rather than buffered. Requests of unidentified users, such as
+ * requests with invalid tokens, are served locally to fail authentication there. The filter runs ahead of the security
+ * filter chain, so requests are authenticated by owner nodes, holding the sessions of their users. Only versioned API
+ * paths are routed, documentation, actuator and internal cluster endpoints are always served locally.
+ * <p>
+ * Internal cluster endpoints carry no user token and are not guarded by the security filter chain, instead this
+ * filter refuses internal calls which do not present the shared cluster secret, and all internal calls outside cluster
+ * mode.
+ * <p>
+ * Forwards are published as {@code mail.cluster.forwards} metrics tagged by target node.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterMembership
+ * @since 1.0
+ */
+@Component
+@Order(-200)
+public class ClusterRouter implements WebFilter {
+
+    private static final Logger LOG = LoggerFactory.getLogger(ClusterRouter.class);
+    private static final String BEARER = "Bearer";
+    private static final String ROUTED = ApplicationConfig.PATH + "/" + ApiVersion.Value.V1 + "/";
+    private static final String TOKEN = ApiEndpoint.Value.AUTH + "/token";
+    private static final String INTERNAL = ApiEndpoint.Value.CLUSTER + "/";
+    private static final int MAX_TOKEN_BODY = 8192;
+    private static final List<String> HOP_HEADERS = Arrays.asList(HttpHeaders.HOST, HttpHeaders.CONNECTION,
+            HttpHeaders.TRANSFER_ENCODING, HttpHeaders.UPGRADE, "Keep-Alive");
+    private static final List<MediaType> STREAMING = Arrays.asList(MediaType.TEXT_EVENT_STREAM,
+            MediaType.APPLICATION_STREAM_JSON, WebFluxConfig.APPLICATION_NDJSON);
+
+    @Autowired
+    private ClusterMembership membership;
+
+    @Autowired
+    private ClusterClient client;
+
+    @Autowired
+    private AuthManager manager;
+
+    @Autowired
+    private MeterRegistry registry;
+
+    @Override
+    public Mono<Void> filter(final ServerWebExchange exchange, final WebFilterChain chain) {
+        final ServerHttpRequest request = exchange.getRequest();
+        final String path = request.getPath().value();
+        if (path.startsWith(INTERNAL) || path.equals(ApiEndpoint.Value.CLUSTER)) {
+            return membership.isMember(request.getHeaders().getFirst(ClusterClient.SECRET)) ? chain.filter(exchange)
+                    : Mono.error(Error.AUTH_INVALID_ACCESS.buildException());
+        }
+        if (!membership.isEnabled() || request.getHeaders().containsKey(ClusterClient.FORWARDED)
+                || !path.startsWith(ROUTED)) return chain.filter(exchange);
+        if (HttpMethod.POST.equals(request.getMethod()) && path.equals(TOKEN)) {
+            // each buffer is released as it is copied, the body is refused once it exceeds the limit
+            return request.getBody()
+                    .reduceWith(ByteArrayOutputStream::new, (body, buffer) -> {
+                        try {
+                            if (body.size() + buffer.readableByteCount() > MAX_TOKEN_BODY) {
+                                throw Error.AUTH_CREDENTIALS_INVALID.buildException("Token request body exceeds "
+                                        + MAX_TOKEN_BODY + " bytes");
+                            }
+                            final byte[] bytes = new byte[buffer.readableByteCount()];
+                            buffer.read(bytes);
+                            body.write(bytes, 0, bytes.length);
+                            return body;
+                        } finally {
+                            DataBufferUtils.release(buffer);
+                        }
+                    })
+                    .map(ByteArrayOutputStream::toByteArray)
+                    .flatMap(body -> route(exchange, chain, username(body), body));
+        }
+        final String header = request.getHeaders().getFirst(HttpHeaders.AUTHORIZATION);
+        final String token = header != null ? header.replace(BEARER, "").trim() : "";
+        return route(exchange, chain, token.isEmpty() ? null : manager.findUsername(token), null);
+    }
+
+    /**
+     * Serves a request locally if the local node owns the user, otherwise forwards it to the owner node
+     *
+     * @param exchange server web exchange
+     * @param chain    local web filter chain
+     * @param username requesting user name, {@code null} if unidentified
+     * @param body     buffered request body, {@code null} if not buffered
+     * @return completion of request handling
+     */
+    private Mono<Void> route(final ServerWebExchange exchange, final WebFilterChain chain, final String username,
+                             final byte[] body) {
+        if (username == null || membership.isLocal(username)) {
+            return chain.filter(body == null ? exchange : exchange.mutate().request(replay(exchange, body)).build());
+        }
+        return forward(exchange, membership.owner(username), body);
+    }
+
+    /**
+     * Forwards a request to a node and streams its response back
+     *
+     * @param exchange server web exchange
+     * @param node     target node identifier
+     * @param body     buffered request body, {@code null} to stream the request body
+     * @return completion of response streaming
+     */
+    private Mono<Void> forward(final ServerWebExchange exchange, final String node, final byte[] body) {
+        final ServerHttpRequest request = exchange.getRequest();
+        final URI uri = UriComponentsBuilder.fromHttpUrl(membership.getUrl(node)).path(request.getPath().value())
+                .query(request.getURI().getRawQuery()).build(true).toUri();
+        final WebClient.RequestBodySpec spec = client.getClient().method(request.getMethod()).uri(uri)
+                .headers(headers -> {
+                    headers.addAll(request.getHeaders());
+                    HOP_HEADERS.forEach(headers::remove);
+                    headers.set(ClusterClient.FORWARDED, membership.getNode());
+                });
+        final boolean streamed = request.getHeaders().getContentLength() > 0
+                || request.getHeaders().containsKey(HttpHeaders.TRANSFER_ENCODING);
+        final WebClient.RequestHeadersSpec<?> call = body != null ? spec.body(BodyInserters.fromValue(body))
+                : streamed ? spec.body(BodyInserters.fromDataBuffers(request.getBody())) : spec;
+        Counter.builder("mail.cluster.forwards").tag("node", node)
+                .description("API requests forwarded to owner cluster nodes").register(registry).increment();
+        return call.exchange()
+                .flatMap(response -> respond(exchange.getResponse(), response))
+                .onErrorMap(e -> !(e instanceof IException), e -> {
+                    LOG.warn("Failed to forward request {} to cluster node {}: {}", request.getPath(), node,
+                            e.toString());
+                    return Error.CLUSTER_NODE_UNAVAILABLE.buildException(node);
+                });
+    }
+
+    /**
+     * Copies the status, headers and body of a forwarded request response, streaming response bodies are flushed as
+     * each chunk arrives
+     *
+     * @param target server response
+     * @param source forwarded request response
+     * @return completion of response copying
+     */
+    private static Mono<Void> respond(final ServerHttpResponse target, final ClientResponse source) {
+        target.setStatusCode(source.statusCode());
+        final HttpHeaders headers = source.headers().asHttpHeaders();
+        headers.forEach((name, values) -> {
+            if (HOP_HEADERS.stream().noneMatch(name::equalsIgnoreCase)) target.getHeaders().put(name, values);
+        });
+        final Flux<DataBuffer> content = source.bodyToFlux(DataBuffer.class);
+        final MediaType type = headers.getContentType();
+        if (type != null && STREAMING.stream().anyMatch(type::isCompatibleWith)) {
+            return target.writeAndFlushWith(content.map(Flux::just));
+        }
+        return target.writeWith(content);
+    }
+
+    /**
+     * Wraps a request to replay its buffered body
+     *
+     * @param exchange server web exchange
+     * @param body     buffered request body
+     * @return request replaying the body
+     */
+    private static ServerHttpRequest replay(final ServerWebExchange exchange, final byte[] body) {
+        return new ServerHttpRequestDecorator(exchange.getRequest()) {
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return Flux.defer(() -> Flux.just(exchange.getResponse().bufferFactory().wrap(body)));
+            }
+        };
+    }
+
+    /**
+     * Reads the username of a token request body
+     *
+     * @param body token request body
+     * @return username, or {@code null} if absent or not readable
+     */
+    private static String username(final byte[] body) {
+        if (body.length == 0) return null;
+        try {
+            final String username = ObjectMapper.instance().readTree(body).path("username").asText(null);
+            return username == null || username.isEmpty() ? null : username;
+        } catch (final IOException e) {
+            return null;
+        }
+    }
+}
@@ -20,7 +20,12 @@ public enum ApiEndpoint implements IEnum<ApiEndpoint> {
     /**
      * Auth API endpoint
      */
-    AUTH(Value.AUTH);
+    AUTH(Value.AUTH),
+
+    /**
+     * Internal cluster API endpoint
+     */
+    CLUSTER(Value.CLUSTER);
 
     private final String path;
 
@@ -39,6 +44,7 @@ public enum ApiEndpoint implements IEnum<ApiEndpoint> {
 
         public static final String MAIL = ApplicationConfig.PATH + "/" + ApiVersion.Value.V1 + "/mail";
         public static final String AUTH = ApplicationConfig.PATH + "/" + ApiVersion.Value.V1 + "/auth";
+        public static final String CLUSTER = ApplicationConfig.PATH + "/internal/cluster";
 
         /**
          * Sealed constructor
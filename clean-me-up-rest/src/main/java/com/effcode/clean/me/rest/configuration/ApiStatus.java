@@ -13,9 +13,14 @@ public enum ApiStatus implements IEnum<ApiStatus> {
 
     OK(Value.CODE_OK),
     CREATED(Value.CODE_CREATED),
+    ACCEPTED(Value.CODE_ACCEPTED),
     BAD_REQUEST(Value.CODE_BAD_REQUEST),
     UNAUTHORIZED(Value.CODE_UNAUTHORIZED),
-    FORBIDDEN(Value.CODE_FORBIDDEN);
+    FORBIDDEN(Value.CODE_FORBIDDEN),
+    NOT_FOUND(Value.CODE_NOT_FOUND),
+    CONFLICT(Value.CODE_CONFLICT),
+    TOO_MANY_REQUESTS(Value.CODE_TOO_MANY_REQUESTS),
+    SERVICE_UNAVAILABLE(Value.CODE_SERVICE_UNAVAILABLE);
 
     private final int code;
 
@@ -36,12 +41,22 @@ public enum ApiStatus implements IEnum<ApiStatus> {
         public static final String OK = CODE_OK + "";
         public static final int CODE_CREATED = 201;
         public static final String CREATED = CODE_CREATED + "";
+        public static final int CODE_ACCEPTED = 202;
+        public static final String ACCEPTED = CODE_ACCEPTED + "";
         public static final int CODE_BAD_REQUEST = 400;
         public static final String BAD_REQUEST = CODE_BAD_REQUEST + "";
         public static final int CODE_UNAUTHORIZED = 401;
         public static final String UNAUTHORIZED = CODE_UNAUTHORIZED + "";
         public static final int CODE_FORBIDDEN = 403;
         public static final String FORBIDDEN = CODE_FORBIDDEN + "";
+        public static final int CODE_NOT_FOUND = 404;
+        public static final String NOT_FOUND = CODE_NOT_FOUND + "";
+        public static final int CODE_CONFLICT = 409;
+        public static final String CONFLICT = CODE_CONFLICT + "";
+        public static final int CODE_TOO_MANY_REQUESTS = 429;
+        public static final String TOO_MANY_REQUESTS = CODE_TOO_MANY_REQUESTS + "";
+        public static final int CODE_SERVICE_UNAVAILABLE = 503;
+        public static final String SERVICE_UNAVAILABLE = CODE_SERVICE_UNAVAILABLE + "";
 
         /**
          * Sealed constructor
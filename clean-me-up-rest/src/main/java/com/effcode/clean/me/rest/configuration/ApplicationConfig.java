@@ -1,6 +1,16 @@
 package com.effcode.clean.me.rest.configuration;
 
+import com.effcode.clean.me.core.smtp.SmtpClient;
+import com.effcode.clean.me.domain.store.LogMessageStore;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.domain.store.StoreType;
+import com.effcode.clean.me.domain.transport.LegacyTransport;
+import com.effcode.clean.me.domain.transport.MailTransport;
+import com.effcode.clean.me.domain.transport.SmtpClientTransport;
+import com.effcode.clean.me.domain.transport.TransportType;
 import com.effcode.clean.me.support.SmtpHandler;
+import io.micrometer.core.instrument.MeterRegistry;
 import io.swagger.v3.oas.models.Components;
 import io.swagger.v3.oas.models.OpenAPI;
 import io.swagger.v3.oas.models.security.SecurityScheme;
@@ -34,6 +44,39 @@ public class ApplicationConfig {
         return new SmtpHandler();
     }
 
+    /**
+     * Mail transport bean initializer method, selects the transport implementation configured under
+     * {@code app.transport.type}
+     *
+     * @param properties application configuration properties
+     * @return singleton instance of mail transport
+     */
+    @Bean
+    public MailTransport mailTransport(final ApplicationProperties properties) {
+        final ApplicationProperties.Transport transport = properties.getTransport();
+        if (TransportType.SMTP.is(transport.getType())) {
+            return new SmtpClientTransport(new SmtpClient(transport.getHost(), transport.getPort(),
+                    transport.getHelo(), transport.getMaxConnections(), transport.getCallTimeout(),
+                    transport.isPipelining()));
+        }
+        return new LegacyTransport(smtpHandler(), properties.getSmtpUsername(), properties.getSmtpPassword(),
+                transport.getMaxConcurrentCalls());
+    }
+
+    /**
+     * Mail message store bean initializer method, selects the store implementation configured under
+     * {@code app.store.type}
+     *
+     * @param properties application configuration properties
+     * @param registry   meter registry
+     * @return singleton instance of mail message store
+     */
+    @Bean
+    public MessageStore messageStore(final ApplicationProperties properties, final MeterRegistry registry) {
+        if (StoreType.LOG.is(properties.getStore().getType())) return new LogMessageStore(properties, registry);
+        return new MemoryMessageStore(properties, registry);
+    }
+
     /**
      * Open API descriptor bean initializer method
      *
@@ -1,8 +1,17 @@
 package com.effcode.clean.me.rest.configuration;
 
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.domain.delivery.OverflowPolicy;
+import com.effcode.clean.me.domain.model.UserAuthority;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.StoreType;
+import com.effcode.clean.me.domain.transport.TransportType;
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Configuration properties data mapping class, contains application configuration property values mapped at
@@ -21,6 +30,24 @@ public class ApplicationProperties {
     private String jwtSecretKey;
     private Long jwtExpiryInterval;
     private List<String> publicEndpoints;
+    private final Queue queue = new Queue();
+    private final Batch batch = new Batch();
+    private final Outbox outbox = new Outbox();
+    private final RateLimit rateLimit = new RateLimit();
+    private final Admission admission = new Admission();
+    private final Schedule schedule = new Schedule();
+    private final Retry retry = new Retry();
+    private final Transport transport = new Transport();
+    private final Idempotency idempotency = new Idempotency();
+    private final Pagination pagination = new Pagination();
+    private final Store store = new Store();
+    private final Search search = new Search();
+    private final Retention retention = new Retention();
+    private final Feed feed = new Feed();
+    private final Stats stats = new Stats();
+    private final Snapshot snapshot = new Snapshot();
+    private final Cluster cluster = new Cluster();
+    private final Export export = new Export();
 
     /**
      * Accessor for SMTP username configuration property
@@ -109,4 +136,2136 @@ public class ApplicationProperties {
     public void setPublicEndpoints(List<String> publicEndpoints) {
         this.publicEndpoints = publicEndpoints;
     }
+
+    /**
+     * Accessor for outbound mail queue configuration properties
+     *
+     * @return outbound mail queue properties
+     */
+    public Queue getQueue() {
+        return queue;
+    }
+
+    /**
+     * Accessor for batch mail send configuration properties
+     *
+     * @return batch mail send properties
+     */
+    public Batch getBatch() {
+        return batch;
+    }
+
+    /**
+     * Accessor for durable mail outbox configuration properties
+     *
+     * @return mail outbox properties
+     */
+    public Outbox getOutbox() {
+        return outbox;
+    }
+
+    /**
+     * Accessor for mail send rate limit configuration properties
+     *
+     * @return mail send rate limit properties
+     */
+    public RateLimit getRateLimit() {
+        return rateLimit;
+    }
+
+    /**
+     * Accessor for mail send admission control configuration properties
+     *
+     * @return mail send admission control properties
+     */
+    public Admission getAdmission() {
+        return admission;
+    }
+
+    /**
+     * Accessor for scheduled mail send configuration properties
+     *
+     * @return scheduled mail send properties
+     */
+    public Schedule getSchedule() {
+        return schedule;
+    }
+
+    /**
+     * Accessor for mail delivery retry configuration properties
+     *
+     * @return mail delivery retry properties
+     */
+    public Retry getRetry() {
+        return retry;
+    }
+
+    /**
+     * Accessor for mail transport isolation configuration properties
+     *
+     * @return mail transport properties
+     */
+    public Transport getTransport() {
+        return transport;
+    }
+
+    /**
+     * Accessor for mail send idempotency configuration properties
+     *
+     * @return mail send idempotency properties
+     */
+    public Idempotency getIdempotency() {
+        return idempotency;
+    }
+
+    /**
+     * Accessor for mail message listing pagination configuration properties
+     *
+     * @return mail message pagination properties
+     */
+    public Pagination getPagination() {
+        return pagination;
+    }
+
+    /**
+     * Accessor for mail message store configuration properties
+     *
+     * @return mail message store properties
+     */
+    public Store getStore() {
+        return store;
+    }
+
+    /**
+     * Accessor for full-text message search configuration properties
+     *
+     * @return full-text message search properties
+     */
+    public Search getSearch() {
+        return search;
+    }
+
+    /**
+     * Accessor for stored message retention properties
+     *
+     * @return stored message retention properties
+     */
+    public Retention getRetention() {
+        return retention;
+    }
+
+    /**
+     * Accessor for real-time message feed properties
+     *
+     * @return real-time message feed properties
+     */
+    public Feed getFeed() {
+        return feed;
+    }
+
+    /**
+     * Accessor for mail statistics properties
+     *
+     * @return mail statistics properties
+     */
+    public Stats getStats() {
+        return stats;
+    }
+
+    /**
+     * Accessor for service state snapshot properties
+     *
+     * @return service state snapshot properties
+     */
+    public Snapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Accessor for cluster membership properties
+     *
+     * @return cluster membership properties
+     */
+    public Cluster getCluster() {
+        return cluster;
+    }
+
+    /**
+     * Accessor for mail message export properties
+     *
+     * @return mail message export properties
+     */
+    public Export getExport() {
+        return export;
+    }
+
+    /**
+     * Outbound mail queue configuration properties, mapped under {@code app.queue} prefix
+     */
+    public static class Queue {
+
+        private int capacity = 10000;
+        private int workers = 4;
+        private OverflowPolicy overflow = OverflowPolicy.REJECT;
+        private Long overflowTimeout = 1000L;
+        private long coalesceWindow = 0L;
+        private int coalesceLimit = 100;
+
+        /**
+         * Accessor for the maximum number of accepted messages awaiting delivery
+         *
+         * @return queue capacity
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Setter for the maximum number of accepted messages awaiting delivery
+         *
+         * @param capacity queue capacity
+         */
+        public void setCapacity(final int capacity) {
+            this.capacity = capacity;
+        }
+
+        /**
+         * Accessor for the number of delivery worker threads
+         *
+         * @return delivery worker count
+         */
+        public int getWorkers() {
+            return workers;
+        }
+
+        /**
+         * Setter for the number of delivery worker threads
+         *
+         * @param workers delivery worker count
+         */
+        public void setWorkers(final int workers) {
+            this.workers = workers;
+        }
+
+        /**
+         * Accessor for the policy applied to new messages when queue capacity is exhausted
+         *
+         * @return queue overflow policy
+         */
+        public OverflowPolicy getOverflow() {
+            return overflow;
+        }
+
+        /**
+         * Setter for the policy applied to new messages when queue capacity is exhausted
+         *
+         * @param overflow queue overflow policy
+         */
+        public void setOverflow(final OverflowPolicy overflow) {
+            this.overflow = overflow;
+        }
+
+        /**
+         * Accessor for the interval in milliseconds to wait for a free queue slot with {@link OverflowPolicy#WAIT}
+         *
+         * @return overflow wait timeout in milliseconds
+         */
+        public Long getOverflowTimeout() {
+            return overflowTimeout;
+        }
+
+        /**
+         * Setter for the interval in milliseconds to wait for a free queue slot with {@link OverflowPolicy#WAIT}
+         *
+         * @param overflowTimeout overflow wait timeout in milliseconds
+         */
+        public void setOverflowTimeout(final Long overflowTimeout) {
+            this.overflowTimeout = overflowTimeout;
+        }
+
+        /**
+         * Accessor for the window in milliseconds within which messages with identical origin, subject and content
+         * are coalesced into a single multi-address email, {@code 0} disables coalescing
+         *
+         * @return coalescing window in milliseconds
+         */
+        public long getCoalesceWindow() {
+            return coalesceWindow;
+        }
+
+        /**
+         * Setter for the window in milliseconds within which messages with identical origin, subject and content
+         * are coalesced into a single multi-address email
+         *
+         * @param coalesceWindow coalescing window in milliseconds
+         */
+        public void setCoalesceWindow(final long coalesceWindow) {
+            this.coalesceWindow = coalesceWindow;
+        }
+
+        /**
+         * Accessor for the maximum number of messages coalesced into a single multi-address email
+         *
+         * @return coalescing recipient limit
+         */
+        public int getCoalesceLimit() {
+            return coalesceLimit;
+        }
+
+        /**
+         * Setter for the maximum number of messages coalesced into a single multi-address email
+         *
+         * @param coalesceLimit coalescing recipient limit
+         */
+        public void setCoalesceLimit(final int coalesceLimit) {
+            this.coalesceLimit = coalesceLimit;
+        }
+    }
+
+    /**
+     * Batch mail send configuration properties, mapped under {@code app.batch} prefix
+     */
+    public static class Batch {
+
+        private int concurrency = 16;
+
+        /**
+         * Accessor for the maximum number of batch items processed concurrently
+         *
+         * @return batch item concurrency
+         */
+        public int getConcurrency() {
+            return concurrency;
+        }
+
+        /**
+         * Setter for the maximum number of batch items processed concurrently
+         *
+         * @param concurrency batch item concurrency
+         */
+        public void setConcurrency(final int concurrency) {
+            this.concurrency = concurrency;
+        }
+    }
+
+    /**
+     * Durable mail outbox configuration properties, mapped under {@code app.outbox} prefix
+     */
+    public static class Outbox {
+
+        private boolean enabled = false;
+        private String directory = "data/outbox";
+        private int segmentSize = 64 * 1024 * 1024;
+        private FsyncPolicy fsync = FsyncPolicy.BATCH;
+        private long flushInterval = 5L;
+
+        /**
+         * Checks if accepted messages are recorded in durable outbox
+         *
+         * @return {@code true} if outbox is enabled, otherwise {@code false}
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables recording of accepted messages in durable outbox
+         *
+         * @param enabled outbox enabled flag
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Accessor for the directory holding outbox segment files
+         *
+         * @return outbox directory path
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Setter for the directory holding outbox segment files
+         *
+         * @param directory outbox directory path
+         */
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Accessor for the fixed size of each outbox segment file in bytes
+         *
+         * @return segment size in bytes
+         */
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        /**
+         * Setter for the fixed size of each outbox segment file in bytes
+         *
+         * @param segmentSize segment size in bytes
+         */
+        public void setSegmentSize(final int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * Accessor for the durability policy applied before acknowledging accepted messages
+         *
+         * @return fsync policy
+         */
+        public FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        /**
+         * Setter for the durability policy applied before acknowledging accepted messages
+         *
+         * @param fsync fsync policy
+         */
+        public void setFsync(final FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        /**
+         * Accessor for the group commit interval in milliseconds used with {@link FsyncPolicy#BATCH}
+         *
+         * @return flush interval in milliseconds
+         */
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        /**
+         * Setter for the group commit interval in milliseconds used with {@link FsyncPolicy#BATCH}
+         *
+         * @param flushInterval flush interval in milliseconds
+         */
+        public void setFlushInterval(final long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+    }
+
+    /**
+     * Per-user mail send rate limit configuration properties, mapped under {@code app.rate-limit} prefix
+     */
+    public static class RateLimit {
+
+        private boolean enabled = true;
+        private long sweepInterval = 60000L;
+        private final Map<UserAuthority, Limit> limits = new EnumMap<>(UserAuthority.class);
+
+        /**
+         * Checks if mail send rate limiting is enabled
+         *
+         * @return {@code true} if rate limiting is enabled, otherwise {@code false}
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables mail send rate limiting
+         *
+         * @param enabled rate limiting enabled flag
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Accessor for the interval in milliseconds between reclamations of idle user buckets
+         *
+         * @return idle bucket sweep interval in milliseconds
+         */
+        public long getSweepInterval() {
+            return sweepInterval;
+        }
+
+        /**
+         * Setter for the interval in milliseconds between reclamations of idle user buckets
+         *
+         * @param sweepInterval idle bucket sweep interval in milliseconds
+         */
+        public void setSweepInterval(final long sweepInterval) {
+            this.sweepInterval = sweepInterval;
+        }
+
+        /**
+         * Accessor for send rate limits per user authority, users with authorities not present are not limited
+         *
+         * @return rate limits per user authority
+         */
+        public Map<UserAuthority, Limit> getLimits() {
+            return limits;
+        }
+    }
+
+    /**
+     * Rate limit configuration of a single user authority
+     */
+    public static class Limit {
+
+        private double rate;
+        private int burst;
+
+        /**
+         * Accessor for the sustained number of permitted requests per second
+         *
+         * @return requests per second
+         */
+        public double getRate() {
+            return rate;
+        }
+
+        /**
+         * Setter for the sustained number of permitted requests per second
+         *
+         * @param rate requests per second
+         */
+        public void setRate(final double rate) {
+            this.rate = rate;
+        }
+
+        /**
+         * Accessor for the number of requests permitted in a single burst
+         *
+         * @return burst size
+         */
+        public int getBurst() {
+            return burst;
+        }
+
+        /**
+         * Setter for the number of requests permitted in a single burst
+         *
+         * @param burst burst size
+         */
+        public void setBurst(final int burst) {
+            this.burst = burst;
+        }
+    }
+
+    /**
+     * Mail send admission control configuration properties, mapped under {@code app.admission} prefix
+     */
+    public static class Admission {
+
+        private boolean enabled = true;
+        private int maxInFlight = 1024;
+        private int maxQueueDepth = 8000;
+
+        /**
+         * Checks if mail send admission control is enabled
+         *
+         * @return {@code true} if admission control is enabled, otherwise {@code false}
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables mail send admission control
+         *
+         * @param enabled admission control enabled flag
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Accessor for the maximum number of sends being processed concurrently, further sends are shed
+         *
+         * @return in-flight send threshold
+         */
+        public int getMaxInFlight() {
+            return maxInFlight;
+        }
+
+        /**
+         * Setter for the maximum number of sends being processed concurrently, further sends are shed
+         *
+         * @param maxInFlight in-flight send threshold
+         */
+        public void setMaxInFlight(final int maxInFlight) {
+            this.maxInFlight = maxInFlight;
+        }
+
+        /**
+         * Accessor for the outbound mail queue depth at which new sends are shed
+         *
+         * @return queue depth threshold
+         */
+        public int getMaxQueueDepth() {
+            return maxQueueDepth;
+        }
+
+        /**
+         * Setter for the outbound mail queue depth at which new sends are shed
+         *
+         * @param maxQueueDepth queue depth threshold
+         */
+        public void setMaxQueueDepth(final int maxQueueDepth) {
+            this.maxQueueDepth = maxQueueDepth;
+        }
+    }
+
+    /**
+     * Scheduled mail send configuration properties, mapped under {@code app.schedule} prefix
+     */
+    public static class Schedule {
+
+        private long tick = 100L;
+        private int wheelSize = 512;
+        private long maxDelay = 30L * 24 * 60 * 60 * 1000;
+
+        /**
+         * Accessor for the timing wheel tick duration in milliseconds, scheduled sends are due within one tick
+         *
+         * @return tick duration in milliseconds
+         */
+        public long getTick() {
+            return tick;
+        }
+
+        /**
+         * Setter for the timing wheel tick duration in milliseconds
+         *
+         * @param tick tick duration in milliseconds
+         */
+        public void setTick(final long tick) {
+            this.tick = tick;
+        }
+
+        /**
+         * Accessor for the number of timing wheel buckets
+         *
+         * @return timing wheel size
+         */
+        public int getWheelSize() {
+            return wheelSize;
+        }
+
+        /**
+         * Setter for the number of timing wheel buckets
+         *
+         * @param wheelSize timing wheel size
+         */
+        public void setWheelSize(final int wheelSize) {
+            this.wheelSize = wheelSize;
+        }
+
+        /**
+         * Accessor for the maximum delay in milliseconds a send may be scheduled ahead
+         *
+         * @return maximum schedule delay in milliseconds
+         */
+        public long getMaxDelay() {
+            return maxDelay;
+        }
+
+        /**
+         * Setter for the maximum delay in milliseconds a send may be scheduled ahead
+         *
+         * @param maxDelay maximum schedule delay in milliseconds
+         */
+        public void setMaxDelay(final long maxDelay) {
+            this.maxDelay = maxDelay;
+        }
+    }
+
+    /**
+     * Mail delivery retry configuration properties, mapped under {@code app.retry} prefix
+     */
+    public static class Retry {
+
+        private int maxAttempts = 5;
+        private long initialBackoff = 1000L;
+        private long maxBackoff = 60000L;
+        private double multiplier = 2.0;
+        private int deadLetterCapacity = 10000;
+
+        /**
+         * Accessor for the maximum number of delivery attempts before a message is dead-lettered
+         *
+         * @return maximum delivery attempts
+         */
+        public int getMaxAttempts() {
+            return maxAttempts;
+        }
+
+        /**
+         * Setter for the maximum number of delivery attempts before a message is dead-lettered
+         *
+         * @param maxAttempts maximum delivery attempts
+         */
+        public void setMaxAttempts(final int maxAttempts) {
+            this.maxAttempts = maxAttempts;
+        }
+
+        /**
+         * Accessor for the backoff in milliseconds before the first retry
+         *
+         * @return initial backoff in milliseconds
+         */
+        public long getInitialBackoff() {
+            return initialBackoff;
+        }
+
+        /**
+         * Setter for the backoff in milliseconds before the first retry
+         *
+         * @param initialBackoff initial backoff in milliseconds
+         */
+        public void setInitialBackoff(final long initialBackoff) {
+            this.initialBackoff = initialBackoff;
+        }
+
+        /**
+         * Accessor for the upper bound of the backoff in milliseconds
+         *
+         * @return maximum backoff in milliseconds
+         */
+        public long getMaxBackoff() {
+            return maxBackoff;
+        }
+
+        /**
+         * Setter for the upper bound of the backoff in milliseconds
+         *
+         * @param maxBackoff maximum backoff in milliseconds
+         */
+        public void setMaxBackoff(final long maxBackoff) {
+            this.maxBackoff = maxBackoff;
+        }
+
+        /**
+         * Accessor for the factor the backoff grows by on each retry
+         *
+         * @return backoff multiplier
+         */
+        public double getMultiplier() {
+            return multiplier;
+        }
+
+        /**
+         * Setter for the factor the backoff grows by on each retry
+         *
+         * @param multiplier backoff multiplier
+         */
+        public void setMultiplier(final double multiplier) {
+            this.multiplier = multiplier;
+        }
+
+        /**
+         * Accessor for the maximum number of kept dead letters
+         *
+         * @return dead letter capacity
+         */
+        public int getDeadLetterCapacity() {
+            return deadLetterCapacity;
+        }
+
+        /**
+         * Setter for the maximum number of kept dead letters
+         *
+         * @param deadLetterCapacity dead letter capacity
+         */
+        public void setDeadLetterCapacity(final int deadLetterCapacity) {
+            this.deadLetterCapacity = deadLetterCapacity;
+        }
+    }
+
+    /**
+     * Mail transport selection, bulkhead and circuit breaker configuration properties, mapped under
+     * {@code app.transport} prefix
+     */
+    public static class Transport {
+
+        private TransportType type = TransportType.LEGACY;
+        private String host = "localhost";
+        private int port = 25;
+        private String helo = "localhost";
+        private int maxConnections = 4;
+        private boolean pipelining = true;
+        private int maxConcurrentCalls = 4;
+        private long callTimeout = 10000L;
+        private int window = 50;
+        private int minimumCalls = 10;
+        private double failureThreshold = 0.5;
+        private double slowCallThreshold = 0.8;
+        private long slowCall = 2000L;
+        private long openInterval = 30000L;
+        private int probes = 3;
+
+        /**
+         * Accessor for the maximum number of concurrent transport calls, also the bulkhead pool size
+         *
+         * @return concurrent call limit
+         */
+        public int getMaxConcurrentCalls() {
+            return maxConcurrentCalls;
+        }
+
+        /**
+         * Setter for the maximum number of concurrent transport calls, also the bulkhead pool size
+         *
+         * @param maxConcurrentCalls concurrent call limit
+         */
+        public void setMaxConcurrentCalls(final int maxConcurrentCalls) {
+            this.maxConcurrentCalls = maxConcurrentCalls;
+        }
+
+        /**
+         * Accessor for the transport call timeout in milliseconds
+         *
+         * @return call timeout in milliseconds
+         */
+        public long getCallTimeout() {
+            return callTimeout;
+        }
+
+        /**
+         * Setter for the transport call timeout in milliseconds
+         *
+         * @param callTimeout call timeout in milliseconds
+         */
+        public void setCallTimeout(final long callTimeout) {
+            this.callTimeout = callTimeout;
+        }
+
+        /**
+         * Accessor for the number of most recent calls considered by circuit breaker
+         *
+         * @return circuit breaker window size
+         */
+        public int getWindow() {
+            return window;
+        }
+
+        /**
+         * Setter for the number of most recent calls considered by circuit breaker
+         *
+         * @param window circuit breaker window size
+         */
+        public void setWindow(final int window) {
+            this.window = window;
+        }
+
+        /**
+         * Accessor for the minimum number of recorded calls before circuit may open
+         *
+         * @return minimum recorded calls
+         */
+        public int getMinimumCalls() {
+            return minimumCalls;
+        }
+
+        /**
+         * Setter for the minimum number of recorded calls before circuit may open
+         *
+         * @param minimumCalls minimum recorded calls
+         */
+        public void setMinimumCalls(final int minimumCalls) {
+            this.minimumCalls = minimumCalls;
+        }
+
+        /**
+         * Accessor for the failed call ratio opening the circuit
+         *
+         * @return failure ratio threshold
+         */
+        public double getFailureThreshold() {
+            return failureThreshold;
+        }
+
+        /**
+         * Setter for the failed call ratio opening the circuit
+         *
+         * @param failureThreshold failure ratio threshold
+         */
+        public void setFailureThreshold(final double failureThreshold) {
+            this.failureThreshold = failureThreshold;
+        }
+
+        /**
+         * Accessor for the slow call ratio opening the circuit
+         *
+         * @return slow call ratio threshold
+         */
+        public double getSlowCallThreshold() {
+            return slowCallThreshold;
+        }
+
+        /**
+         * Setter for the slow call ratio opening the circuit
+         *
+         * @param slowCallThreshold slow call ratio threshold
+         */
+        public void setSlowCallThreshold(final double slowCallThreshold) {
+            this.slowCallThreshold = slowCallThreshold;
+        }
+
+        /**
+         * Accessor for the duration in milliseconds above which a call is considered slow
+         *
+         * @return slow call duration in milliseconds
+         */
+        public long getSlowCall() {
+            return slowCall;
+        }
+
+        /**
+         * Setter for the duration in milliseconds above which a call is considered slow
+         *
+         * @param slowCall slow call duration in milliseconds
+         */
+        public void setSlowCall(final long slowCall) {
+            this.slowCall = slowCall;
+        }
+
+        /**
+         * Accessor for the duration in milliseconds the circuit stays open before probing
+         *
+         * @return open interval in milliseconds
+         */
+        public long getOpenInterval() {
+            return openInterval;
+        }
+
+        /**
+         * Setter for the duration in milliseconds the circuit stays open before probing
+         *
+         * @param openInterval open interval in milliseconds
+         */
+        public void setOpenInterval(final long openInterval) {
+            this.openInterval = openInterval;
+        }
+
+        /**
+         * Accessor for the number of probe calls permitted while circuit is half-open
+         *
+         * @return half-open probe calls
+         */
+        public int getProbes() {
+            return probes;
+        }
+
+        /**
+         * Setter for the number of probe calls permitted while circuit is half-open
+         *
+         * @param probes half-open probe calls
+         */
+        public void setProbes(final int probes) {
+            this.probes = probes;
+        }
+
+        /**
+         * Accessor for the mail transport implementation
+         *
+         * @return transport type
+         */
+        public TransportType getType() {
+            return type;
+        }
+
+        /**
+         * Setter for the mail transport implementation
+         *
+         * @param type transport type
+         */
+        public void setType(final TransportType type) {
+            this.type = type;
+        }
+
+        /**
+         * Accessor for the SMTP server host, used with SMTP transport
+         *
+         * @return SMTP server host
+         */
+        public String getHost() {
+            return host;
+        }
+
+        /**
+         * Setter for the SMTP server host, used with SMTP transport
+         *
+         * @param host SMTP server host
+         */
+        public void setHost(final String host) {
+            this.host = host;
+        }
+
+        /**
+         * Accessor for the SMTP server port, used with SMTP transport
+         *
+         * @return SMTP server port
+         */
+        public int getPort() {
+            return port;
+        }
+
+        /**
+         * Setter for the SMTP server port, used with SMTP transport
+         *
+         * @param port SMTP server port
+         */
+        public void setPort(final int port) {
+            this.port = port;
+        }
+
+        /**
+         * Accessor for the client host name announced in EHLO, used with SMTP transport
+         *
+         * @return client host name
+         */
+        public String getHelo() {
+            return helo;
+        }
+
+        /**
+         * Setter for the client host name announced in EHLO, used with SMTP transport
+         *
+         * @param helo client host name
+         */
+        public void setHelo(final String helo) {
+            this.helo = helo;
+        }
+
+        /**
+         * Accessor for the maximum number of pooled SMTP connections, used with SMTP transport
+         *
+         * @return maximum pooled connections
+         */
+        public int getMaxConnections() {
+            return maxConnections;
+        }
+
+        /**
+         * Setter for the maximum number of pooled SMTP connections, used with SMTP transport
+         *
+         * @param maxConnections maximum pooled connections
+         */
+        public void setMaxConnections(final int maxConnections) {
+            this.maxConnections = maxConnections;
+        }
+
+        /**
+         * Accessor for the SMTP command pipelining flag, used with SMTP transport
+         *
+         * @return pipelining enabled flag
+         */
+        public boolean isPipelining() {
+            return pipelining;
+        }
+
+        /**
+         * Setter for the SMTP command pipelining flag, used with SMTP transport
+         *
+         * @param pipelining pipelining enabled flag
+         */
+        public void setPipelining(final boolean pipelining) {
+            this.pipelining = pipelining;
+        }
+    }
+
+    /**
+     * Mail send idempotency key cache configuration properties, mapped under {@code app.idempotency} prefix
+     */
+    public static class Idempotency {
+
+        private long ttl = 86400000L;
+        private int capacity = 100000;
+
+        /**
+         * Accessor for the time in milliseconds an idempotency key is remembered
+         *
+         * @return idempotency key time to live in milliseconds
+         */
+        public long getTtl() {
+            return ttl;
+        }
+
+        /**
+         * Setter for the time in milliseconds an idempotency key is remembered
+         *
+         * @param ttl idempotency key time to live in milliseconds
+         */
+        public void setTtl(final long ttl) {
+            this.ttl = ttl;
+        }
+
+        /**
+         * Accessor for the maximum number of remembered idempotency keys
+         *
+         * @return idempotency key capacity
+         */
+        public int getCapacity() {
+            return capacity;
+        }
+
+        /**
+         * Setter for the maximum number of remembered idempotency keys
+         *
+         * @param capacity idempotency key capacity
+         */
+        public void setCapacity(final int capacity) {
+            this.capacity = capacity;
+        }
+    }
+
+    /**
+     * Mail message listing pagination configuration properties, mapped under {@code app.pagination} prefix
+     */
+    public static class Pagination {
+
+        private int defaultLimit = 100;
+        private int maxLimit = 1000;
+
+        /**
+         * Accessor for the number of messages in a page when no limit is requested
+         *
+         * @return default page size
+         */
+        public int getDefaultLimit() {
+            return defaultLimit;
+        }
+
+        /**
+         * Setter for the number of messages in a page when no limit is requested
+         *
+         * @param defaultLimit default page size
+         */
+        public void setDefaultLimit(final int defaultLimit) {
+            this.defaultLimit = defaultLimit;
+        }
+
+        /**
+         * Accessor for the maximum number of messages in a page
+         *
+         * @return maximum page size
+         */
+        public int getMaxLimit() {
+            return maxLimit;
+        }
+
+        /**
+         * Setter for the maximum number of messages in a page
+         *
+         * @param maxLimit maximum page size
+         */
+        public void setMaxLimit(final int maxLimit) {
+            this.maxLimit = maxLimit;
+        }
+    }
+
+    /**
+     * Mail message store configuration properties, mapped under {@code app.store} prefix
+     */
+    public static class Store {
+
+        private StoreType type = StoreType.MEMORY;
+        private String directory = "data/messages";
+        private int segmentSize = 67108864;
+        private FsyncPolicy fsync = FsyncPolicy.BATCH;
+        private long flushInterval = 100L;
+        private int indexInterval = 32;
+        private long compactionInterval = 60000L;
+        private double compactionThreshold = 0.3;
+        private long maxAge = 0L;
+        private boolean offHeap = true;
+        private long arenaCapacity = 268435456L;
+        private int arenaChunkSize = 4194304;
+        private ArenaPolicy arenaPolicy = ArenaPolicy.HEAP;
+        private long timeResolution = 1000L;
+        private int stripes = 0;
+
+        /**
+         * Accessor for the message store implementation
+         *
+         * @return message store type
+         */
+        public StoreType getType() {
+            return type;
+        }
+
+        /**
+         * Setter for the message store implementation
+         *
+         * @param type message store type
+         */
+        public void setType(final StoreType type) {
+            this.type = type;
+        }
+
+        /**
+         * Accessor for the directory holding log store segment files
+         *
+         * @return log store directory
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Setter for the directory holding log store segment files
+         *
+         * @param directory log store directory
+         */
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Accessor for the fixed size in bytes of each log store segment file
+         *
+         * @return segment size in bytes
+         */
+        public int getSegmentSize() {
+            return segmentSize;
+        }
+
+        /**
+         * Setter for the fixed size in bytes of each log store segment file
+         *
+         * @param segmentSize segment size in bytes
+         */
+        public void setSegmentSize(final int segmentSize) {
+            this.segmentSize = segmentSize;
+        }
+
+        /**
+         * Accessor for the log store durability policy
+         *
+         * @return log store durability policy
+         */
+        public FsyncPolicy getFsync() {
+            return fsync;
+        }
+
+        /**
+         * Setter for the log store durability policy
+         *
+         * @param fsync log store durability policy
+         */
+        public void setFsync(final FsyncPolicy fsync) {
+            this.fsync = fsync;
+        }
+
+        /**
+         * Accessor for the log store group commit interval in milliseconds used with {@link FsyncPolicy#BATCH}
+         *
+         * @return group commit interval in milliseconds
+         */
+        public long getFlushInterval() {
+            return flushInterval;
+        }
+
+        /**
+         * Setter for the log store group commit interval in milliseconds used with {@link FsyncPolicy#BATCH}
+         *
+         * @param flushInterval group commit interval in milliseconds
+         */
+        public void setFlushInterval(final long flushInterval) {
+            this.flushInterval = flushInterval;
+        }
+
+        /**
+         * Accessor for the number of messages between entries of the log store sparse index
+         *
+         * @return sparse index interval
+         */
+        public int getIndexInterval() {
+            return indexInterval;
+        }
+
+        /**
+         * Setter for the number of messages between entries of the log store sparse index
+         *
+         * @param indexInterval sparse index interval
+         */
+        public void setIndexInterval(final int indexInterval) {
+            this.indexInterval = indexInterval;
+        }
+
+        /**
+         * Accessor for the interval in milliseconds between log store compaction runs
+         *
+         * @return compaction interval in milliseconds
+         */
+        public long getCompactionInterval() {
+            return compactionInterval;
+        }
+
+        /**
+         * Setter for the interval in milliseconds between log store compaction runs
+         *
+         * @param compactionInterval compaction interval in milliseconds
+         */
+        public void setCompactionInterval(final long compactionInterval) {
+            this.compactionInterval = compactionInterval;
+        }
+
+        /**
+         * Accessor for the fraction of reclaimable bytes in a sealed segment at which the log store rewrites it
+         *
+         * @return compaction threshold
+         */
+        public double getCompactionThreshold() {
+            return compactionThreshold;
+        }
+
+        /**
+         * Setter for the fraction of reclaimable bytes in a sealed segment at which the log store rewrites it
+         *
+         * @param compactionThreshold compaction threshold
+         */
+        public void setCompactionThreshold(final double compactionThreshold) {
+            this.compactionThreshold = compactionThreshold;
+        }
+
+        /**
+         * Accessor for the age in milliseconds after which the log store drops messages, {@code 0} to keep them forever
+         *
+         * @return maximum message age in milliseconds
+         */
+        public long getMaxAge() {
+            return maxAge;
+        }
+
+        /**
+         * Setter for the age in milliseconds after which the log store drops messages, {@code 0} to keep them forever
+         *
+         * @param maxAge maximum message age in milliseconds
+         */
+        public void setMaxAge(final long maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        /**
+         * Accessor for the switch keeping message subjects and contents in off-heap memory
+         *
+         * @return {@code true} if message bodies are kept off heap
+         */
+        public boolean isOffHeap() {
+            return offHeap;
+        }
+
+        /**
+         * Setter for the switch keeping message subjects and contents in off-heap memory
+         *
+         * @param offHeap {@code true} if message bodies are kept off heap
+         */
+        public void setOffHeap(final boolean offHeap) {
+            this.offHeap = offHeap;
+        }
+
+        /**
+         * Accessor for the off-heap memory budget in bytes
+         *
+         * @return off-heap budget in bytes
+         */
+        public long getArenaCapacity() {
+            return arenaCapacity;
+        }
+
+        /**
+         * Setter for the off-heap memory budget in bytes
+         *
+         * @param arenaCapacity off-heap budget in bytes
+         */
+        public void setArenaCapacity(final long arenaCapacity) {
+            this.arenaCapacity = arenaCapacity;
+        }
+
+        /**
+         * Accessor for the size in bytes of off-heap memory chunks reserved as needed, also the largest record kept
+         * off heap
+         *
+         * @return off-heap chunk size in bytes
+         */
+        public int getArenaChunkSize() {
+            return arenaChunkSize;
+        }
+
+        /**
+         * Setter for the size in bytes of off-heap memory chunks reserved as needed, also the largest record kept
+         * off heap
+         *
+         * @param arenaChunkSize off-heap chunk size in bytes
+         */
+        public void setArenaChunkSize(final int arenaChunkSize) {
+            this.arenaChunkSize = arenaChunkSize;
+        }
+
+        /**
+         * Accessor for the policy applied once the off-heap memory budget is exhausted
+         *
+         * @return off-heap arena policy
+         */
+        public ArenaPolicy getArenaPolicy() {
+            return arenaPolicy;
+        }
+
+        /**
+         * Setter for the policy applied once the off-heap memory budget is exhausted
+         *
+         * @param arenaPolicy off-heap arena policy
+         */
+        public void setArenaPolicy(final ArenaPolicy arenaPolicy) {
+            this.arenaPolicy = arenaPolicy;
+        }
+
+        /**
+         * Accessor for timestamp index resolution in milliseconds, time range queries scan up to one interval more
+         *
+         * @return timestamp index resolution
+         */
+        public long getTimeResolution() {
+            return timeResolution;
+        }
+
+        /**
+         * Setter for timestamp index resolution in milliseconds, time range queries scan up to one interval more
+         *
+         * @param timeResolution timestamp index resolution
+         */
+        public void setTimeResolution(final long timeResolution) {
+            this.timeResolution = timeResolution;
+        }
+
+        /**
+         * Accessor for the number of memory store stripes, {@code 0} for one per available processor
+         *
+         * @return memory store stripes
+         */
+        public int getStripes() {
+            return stripes;
+        }
+
+        /**
+         * Setter for the number of memory store stripes, {@code 0} for one per available processor
+         *
+         * @param stripes memory store stripes
+         */
+        public void setStripes(final int stripes) {
+            this.stripes = stripes;
+        }
+    }
+
+    /**
+     * Full-text message search configuration properties, mapped under {@code app.search} prefix
+     */
+    public static class Search {
+
+        private boolean enabled = true;
+        private int maxTerms = 8;
+        private int minTermLength = 2;
+        private int maxTermLength = 32;
+        private int subjectWeight = 2;
+        private int maxHits = 10000;
+        private long pruneInterval = 60000L;
+        private double pruneThreshold = 0.1;
+
+        /**
+         * Accessor for whether messages are indexed for full-text search
+         *
+         * @return {@code true} if search is enabled
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Setter for whether messages are indexed for full-text search
+         *
+         * @param enabled {@code true} if search is enabled
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Accessor for maximum number of terms in a search query
+         *
+         * @return maximum query terms
+         */
+        public int getMaxTerms() {
+            return maxTerms;
+        }
+
+        /**
+         * Setter for maximum number of terms in a search query
+         *
+         * @param maxTerms maximum query terms
+         */
+        public void setMaxTerms(final int maxTerms) {
+            this.maxTerms = maxTerms;
+        }
+
+        /**
+         * Accessor for minimum length of indexed terms, shorter words are skipped
+         *
+         * @return minimum term length
+         */
+        public int getMinTermLength() {
+            return minTermLength;
+        }
+
+        /**
+         * Setter for minimum length of indexed terms, shorter words are skipped
+         *
+         * @param minTermLength minimum term length
+         */
+        public void setMinTermLength(final int minTermLength) {
+            this.minTermLength = minTermLength;
+        }
+
+        /**
+         * Accessor for maximum length of indexed terms, longer words are truncated
+         *
+         * @return maximum term length
+         */
+        public int getMaxTermLength() {
+            return maxTermLength;
+        }
+
+        /**
+         * Setter for maximum length of indexed terms, longer words are truncated
+         *
+         * @param maxTermLength maximum term length
+         */
+        public void setMaxTermLength(final int maxTermLength) {
+            this.maxTermLength = maxTermLength;
+        }
+
+        /**
+         * Accessor for frequency weight of subject terms relative to content terms
+         *
+         * @return subject term weight
+         */
+        public int getSubjectWeight() {
+            return subjectWeight;
+        }
+
+        /**
+         * Setter for frequency weight of subject terms relative to content terms
+         *
+         * @param subjectWeight subject term weight
+         */
+        public void setSubjectWeight(final int subjectWeight) {
+            this.subjectWeight = subjectWeight;
+        }
+
+        /**
+         * Accessor for maximum number of ranked hits reachable by paging through search results
+         *
+         * @return maximum reachable hits
+         */
+        public int getMaxHits() {
+            return maxHits;
+        }
+
+        /**
+         * Setter for maximum number of ranked hits reachable by paging through search results
+         *
+         * @param maxHits maximum reachable hits
+         */
+        public void setMaxHits(final int maxHits) {
+            this.maxHits = maxHits;
+        }
+
+        /**
+         * Accessor for the interval in milliseconds between passes dropping messages no longer stored from the search
+         * index, {@code 0} if they are never dropped
+         *
+         * @return prune interval in milliseconds
+         */
+        public long getPruneInterval() {
+            return pruneInterval;
+        }
+
+        /**
+         * Setter for the interval in milliseconds between passes dropping messages no longer stored from the search
+         * index, {@code 0} if they are never dropped
+         *
+         * @param pruneInterval prune interval in milliseconds
+         */
+        public void setPruneInterval(final long pruneInterval) {
+            this.pruneInterval = pruneInterval;
+        }
+
+        /**
+         * Accessor for the fraction of indexed messages dropped at which postings lists are rewritten without them
+         *
+         * @return prune threshold
+         */
+        public double getPruneThreshold() {
+            return pruneThreshold;
+        }
+
+        /**
+         * Setter for the fraction of indexed messages dropped at which postings lists are rewritten without them
+         *
+         * @param pruneThreshold prune threshold
+         */
+        public void setPruneThreshold(final double pruneThreshold) {
+            this.pruneThreshold = pruneThreshold;
+        }
+    }
+
+    /**
+     * Stored message retention configuration properties, mapped under {@code app.retention} prefix
+     */
+    public static class Retention {
+
+        private long maxMessages = 0L;
+        private long maxBytes = 0L;
+        private long maxAge = 0L;
+        private int maxUserMessages = 0;
+        private long interval = 1000L;
+        private int batchSize = 1000;
+
+        /**
+         * Accessor for maximum number of stored messages, {@code 0} if unlimited
+         *
+         * @return maximum stored messages
+         */
+        public long getMaxMessages() {
+            return maxMessages;
+        }
+
+        /**
+         * Setter for maximum number of stored messages, {@code 0} if unlimited
+         *
+         * @param maxMessages maximum stored messages
+         */
+        public void setMaxMessages(final long maxMessages) {
+            this.maxMessages = maxMessages;
+        }
+
+        /**
+         * Accessor for maximum size of stored message subjects and contents in bytes, {@code 0} if unlimited
+         *
+         * @return maximum stored content bytes
+         */
+        public long getMaxBytes() {
+            return maxBytes;
+        }
+
+        /**
+         * Setter for maximum size of stored message subjects and contents in bytes, {@code 0} if unlimited
+         *
+         * @param maxBytes maximum stored content bytes
+         */
+        public void setMaxBytes(final long maxBytes) {
+            this.maxBytes = maxBytes;
+        }
+
+        /**
+         * Accessor for maximum age of stored messages in milliseconds, {@code 0} if unlimited
+         *
+         * @return maximum message age
+         */
+        public long getMaxAge() {
+            return maxAge;
+        }
+
+        /**
+         * Setter for maximum age of stored messages in milliseconds, {@code 0} if unlimited
+         *
+         * @param maxAge maximum message age
+         */
+        public void setMaxAge(final long maxAge) {
+            this.maxAge = maxAge;
+        }
+
+        /**
+         * Accessor for maximum number of stored messages sent by a single user, {@code 0} if unlimited
+         *
+         * @return maximum stored messages per user
+         */
+        public int getMaxUserMessages() {
+            return maxUserMessages;
+        }
+
+        /**
+         * Setter for maximum number of stored messages sent by a single user, {@code 0} if unlimited
+         *
+         * @param maxUserMessages maximum stored messages per user
+         */
+        public void setMaxUserMessages(final int maxUserMessages) {
+            this.maxUserMessages = maxUserMessages;
+        }
+
+        /**
+         * Accessor for delay between eviction passes in milliseconds
+         *
+         * @return eviction pass delay
+         */
+        public long getInterval() {
+            return interval;
+        }
+
+        /**
+         * Setter for delay between eviction passes in milliseconds
+         *
+         * @param interval eviction pass delay
+         */
+        public void setInterval(final long interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * Accessor for maximum number of messages evicted by a single eviction pass
+         *
+         * @return eviction batch size
+         */
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        /**
+         * Setter for maximum number of messages evicted by a single eviction pass
+         *
+         * @param batchSize eviction batch size
+         */
+        public void setBatchSize(final int batchSize) {
+            this.batchSize = batchSize;
+        }
+    }
+
+    /**
+     * Real-time message feed configuration properties, mapped under {@code app.feed} prefix
+     */
+    public static class Feed {
+
+        private int bufferSize = 256;
+        private long heartbeat = 15000L;
+
+        /**
+         * Accessor for maximum number of events buffered for a feed subscriber, the oldest are dropped when exceeded
+         *
+         * @return subscriber buffer size
+         */
+        public int getBufferSize() {
+            return bufferSize;
+        }
+
+        /**
+         * Setter for maximum number of events buffered for a feed subscriber, the oldest are dropped when exceeded
+         *
+         * @param bufferSize subscriber buffer size
+         */
+        public void setBufferSize(final int bufferSize) {
+            this.bufferSize = bufferSize;
+        }
+
+        /**
+         * Accessor for interval between heartbeat comments sent to idle feed subscribers in milliseconds
+         *
+         * @return heartbeat interval
+         */
+        public long getHeartbeat() {
+            return heartbeat;
+        }
+
+        /**
+         * Setter for interval between heartbeat comments sent to idle feed subscribers in milliseconds
+         *
+         * @param heartbeat heartbeat interval
+         */
+        public void setHeartbeat(final long heartbeat) {
+            this.heartbeat = heartbeat;
+        }
+    }
+
+    /**
+     * Mail statistics configuration properties, mapped under {@code app.stats} prefix
+     */
+    public static class Stats {
+
+        private int window = 60;
+        private int maxKeys = 10000;
+
+        /**
+         * Accessor for number of recent minutes counted in the per-minute send window
+         *
+         * @return send window minutes
+         */
+        public int getWindow() {
+            return window;
+        }
+
+        /**
+         * Setter for number of recent minutes counted in the per-minute send window
+         *
+         * @param window send window minutes
+         */
+        public void setWindow(final int window) {
+            this.window = window;
+        }
+
+        /**
+         * Accessor for maximum number of users and of domains counted separately, further ones are counted together
+         *
+         * @return tracked key limit
+         */
+        public int getMaxKeys() {
+            return maxKeys;
+        }
+
+        /**
+         * Setter for maximum number of users and of domains counted separately, further ones are counted together
+         *
+         * @param maxKeys tracked key limit
+         */
+        public void setMaxKeys(final int maxKeys) {
+            this.maxKeys = maxKeys;
+        }
+    }
+
+    /**
+     * Service state snapshot configuration properties, mapped under {@code app.snapshot} prefix
+     */
+    public static class Snapshot {
+
+        private boolean enabled = false;
+        private boolean sessions = false;
+        private String directory = "data/snapshot";
+        private long interval = 60000L;
+        private int retain = 2;
+
+        /**
+         * Checks if service state is periodically snapshot and restored on startup
+         *
+         * @return {@code true} if snapshots are enabled, otherwise {@code false}
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables periodic service state snapshots and their restore on startup
+         *
+         * @param enabled snapshots enabled flag
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Checks if authentication sessions are snapshot and restored, their bearer tokens are written to snapshot
+         * files in plain text
+         *
+         * @return {@code true} if sessions are snapshot, otherwise {@code false}
+         */
+        public boolean isSessions() {
+            return sessions;
+        }
+
+        /**
+         * Enables or disables snapshots and restore of authentication sessions
+         *
+         * @param sessions sessions snapshot flag
+         */
+        public void setSessions(final boolean sessions) {
+            this.sessions = sessions;
+        }
+
+        /**
+         * Accessor for the directory holding snapshot files
+         *
+         * @return snapshot directory path
+         */
+        public String getDirectory() {
+            return directory;
+        }
+
+        /**
+         * Setter for the directory holding snapshot files
+         *
+         * @param directory snapshot directory path
+         */
+        public void setDirectory(final String directory) {
+            this.directory = directory;
+        }
+
+        /**
+         * Accessor for delay between snapshots in milliseconds
+         *
+         * @return snapshot delay
+         */
+        public long getInterval() {
+            return interval;
+        }
+
+        /**
+         * Setter for delay between snapshots in milliseconds
+         *
+         * @param interval snapshot delay
+         */
+        public void setInterval(final long interval) {
+            this.interval = interval;
+        }
+
+        /**
+         * Accessor for number of most recent snapshot files kept, older ones are deleted
+         *
+         * @return retained snapshot count
+         */
+        public int getRetain() {
+            return retain;
+        }
+
+        /**
+         * Setter for number of most recent snapshot files kept, older ones are deleted
+         *
+         * @param retain retained snapshot count
+         */
+        public void setRetain(final int retain) {
+            this.retain = retain;
+        }
+    }
+
+    /**
+     * Cluster membership configuration properties, mapped under {@code app.cluster} prefix
+     */
+    public static class Cluster {
+
+        private boolean enabled = false;
+        private String node = "";
+        private final Map<String, String> nodes = new LinkedHashMap<>();
+        private int replicas = 128;
+        private String secret = "";
+        private long timeout = 10000L;
+        private boolean verifyHostname = true;
+        private long handoffInterval = 60000L;
+        private int handoffBatch = 500;
+        private long replicationInterval = 1000L;
+
+        /**
+         * Checks if users are partitioned across cluster nodes
+         *
+         * @return {@code true} if cluster mode is enabled, otherwise {@code false}
+         */
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        /**
+         * Enables or disables partitioning of users across cluster nodes
+         *
+         * @param enabled cluster mode enabled flag
+         */
+        public void setEnabled(final boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        /**
+         * Accessor for the identifier of this node, one of the configured cluster nodes
+         *
+         * @return local node identifier
+         */
+        public String getNode() {
+            return node;
+        }
+
+        /**
+         * Setter for the identifier of this node, one of the configured cluster nodes
+         *
+         * @param node local node identifier
+         */
+        public void setNode(final String node) {
+            this.node = node;
+        }
+
+        /**
+         * Accessor for the static cluster membership, base URLs of all cluster nodes by node identifier, the same on
+         * every node
+         *
+         * @return node base URLs by node identifier
+         */
+        public Map<String, String> getNodes() {
+            return nodes;
+        }
+
+        /**
+         * Accessor for number of virtual hash ring points per node
+         *
+         * @return virtual points per node
+         */
+        public int getReplicas() {
+            return replicas;
+        }
+
+        /**
+         * Setter for number of virtual hash ring points per node
+         *
+         * @param replicas virtual points per node
+         */
+        public void setReplicas(final int replicas) {
+            this.replicas = replicas;
+        }
+
+        /**
+         * Accessor for the secret shared by cluster nodes, authenticating internal node to node calls, required in
+         * cluster mode
+         *
+         * @return shared cluster secret
+         */
+        public String getSecret() {
+            return secret;
+        }
+
+        /**
+         * Setter for the secret shared by cluster nodes, authenticating internal node to node calls
+         *
+         * @param secret shared cluster secret
+         */
+        public void setSecret(final String secret) {
+            this.secret = secret;
+        }
+
+        /**
+         * Accessor for timeout in milliseconds of connecting to a node and of internal node to node calls
+         *
+         * @return node call timeout
+         */
+        public long getTimeout() {
+            return timeout;
+        }
+
+        /**
+         * Setter for timeout in milliseconds of connecting to a node and of internal node to node calls
+         *
+         * @param timeout node call timeout
+         */
+        public void setTimeout(final long timeout) {
+            this.timeout = timeout;
+        }
+
+        /**
+         * Checks if host names of node URLs are verified against the TLS certificates presented by the nodes
+         *
+         * @return {@code true} if host names are verified, otherwise {@code false}
+         */
+        public boolean isVerifyHostname() {
+            return verifyHostname;
+        }
+
+        /**
+         * Enables or disables verification of node URL host names against the TLS certificates presented by the nodes
+         *
+         * @param verifyHostname host name verification flag
+         */
+        public void setVerifyHostname(final boolean verifyHostname) {
+            this.verifyHostname = verifyHostname;
+        }
+
+        /**
+         * Accessor for delay in milliseconds between passes handing stored messages off to their owner nodes
+         *
+         * @return hand-off delay
+         */
+        public long getHandoffInterval() {
+            return handoffInterval;
+        }
+
+        /**
+         * Setter for delay in milliseconds between passes handing stored messages off to their owner nodes
+         *
+         * @param handoffInterval hand-off delay
+         */
+        public void setHandoffInterval(final long handoffInterval) {
+            this.handoffInterval = handoffInterval;
+        }
+
+        /**
+         * Accessor for maximum number of messages handed off to a node in a single call
+         *
+         * @return hand-off batch size
+         */
+        public int getHandoffBatch() {
+            return handoffBatch;
+        }
+
+        /**
+         * Setter for maximum number of messages handed off to a node in a single call
+         *
+         * @param handoffBatch hand-off batch size
+         */
+        public void setHandoffBatch(final int handoffBatch) {
+            this.handoffBatch = handoffBatch;
+        }
+
+        /**
+         * Accessor for delay in milliseconds between passes replicating settled messages to the owner nodes of their
+         * recipients
+         *
+         * @return replication delay
+         */
+        public long getReplicationInterval() {
+            return replicationInterval;
+        }
+
+        /**
+         * Setter for delay in milliseconds between passes replicating settled messages to the owner nodes of their
+         * recipients
+         *
+         * @param replicationInterval replication delay
+         */
+        public void setReplicationInterval(final long replicationInterval) {
+            this.replicationInterval = replicationInterval;
+        }
+    }
+
+    /**
+     * Mail message export configuration properties, mapped under {@code app.export} prefix
+     */
+    public static class Export {
+
+        private int compressionLevel = 1;
+        private int chunkSize = 65536;
+
+        /**
+         * Accessor for gzip compression level of exports, from {@code 1} for the fastest to {@code 9} for the smallest
+         *
+         * @return compression level
+         */
+        public int getCompressionLevel() {
+            return compressionLevel;
+        }
+
+        /**
+         * Setter for gzip compression level of exports, from {@code 1} for the fastest to {@code 9} for the smallest
+         *
+         * @param compressionLevel compression level
+         */
+        public void setCompressionLevel(final int compressionLevel) {
+            this.compressionLevel = compressionLevel;
+        }
+
+        /**
+         * Accessor for size in bytes of compressed export chunks written to the response
+         *
+         * @return export chunk size
+         */
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        /**
+         * Setter for size in bytes of compressed export chunks written to the response
+         *
+         * @param chunkSize export chunk size
+         */
+        public void setChunkSize(final int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+    }
 }
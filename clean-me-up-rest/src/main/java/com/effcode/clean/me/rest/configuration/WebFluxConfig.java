@@ -10,6 +10,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
 import org.springframework.http.codec.ServerCodecConfigurer;
 import org.springframework.http.codec.json.Jackson2JsonDecoder;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
@@ -21,9 +22,12 @@ import org.springframework.security.web.server.SecurityWebFilterChain;
 import org.springframework.security.web.server.authentication.AuthenticationWebFilter;
 import org.springframework.security.web.server.context.ServerSecurityContextRepository;
 import org.springframework.security.web.server.context.WebSessionServerSecurityContextRepository;
+import org.springframework.util.MimeType;
 import org.springframework.web.reactive.config.EnableWebFlux;
 import org.springframework.web.reactive.config.WebFluxConfigurer;
 
+import java.util.Arrays;
+
 /**
  * Web Flux configuration used for setup of reactive processing environment, primarily the security aspects. Enables the
  * web flux and web flux security auto-configuration.
@@ -42,6 +46,11 @@ import org.springframework.web.reactive.config.WebFluxConfigurer;
 @EnableReactiveMethodSecurity
 public class WebFluxConfig implements WebFluxConfigurer {
 
+    public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+    public static final MediaType APPLICATION_NDJSON = MediaType.parseMediaType(APPLICATION_NDJSON_VALUE);
+    private static final MimeType[] JSON_MIME_TYPES = {MediaType.APPLICATION_JSON,
+            new MediaType("application", "*+json"), MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON};
+
     @Autowired
     private ObjectMapper mapper;
 
@@ -88,10 +97,18 @@ public class WebFluxConfig implements WebFluxConfigurer {
         return new WebSessionServerSecurityContextRepository();
     }
 
+    /**
+     * Registers JSON codecs with application object mapper. Newline delimited JSON is supported as a streaming media
+     * type, decoded and encoded element by element without buffering the whole stream.
+     *
+     * @param configurer server codec configurer
+     */
     @Override
     public void configureHttpMessageCodecs(final ServerCodecConfigurer configurer) {
-        configurer.defaultCodecs().jackson2JsonEncoder(new Jackson2JsonEncoder(mapper));
-        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(mapper));
+        final Jackson2JsonEncoder encoder = new Jackson2JsonEncoder(mapper, JSON_MIME_TYPES);
+        encoder.setStreamingMediaTypes(Arrays.asList(MediaType.APPLICATION_STREAM_JSON, APPLICATION_NDJSON));
+        configurer.defaultCodecs().jackson2JsonEncoder(encoder);
+        configurer.defaultCodecs().jackson2JsonDecoder(new Jackson2JsonDecoder(mapper, JSON_MIME_TYPES));
     }
 
 }
@@ -0,0 +1,57 @@
+package com.effcode.clean.me.rest.controller;
+
+import com.effcode.clean.me.domain.service.MailService;
+import com.effcode.clean.me.rest.cluster.ClusterRouter;
+import com.effcode.clean.me.rest.configuration.ApiEndpoint;
+import com.effcode.clean.me.rest.data.ClusterMessage;
+import io.swagger.v3.oas.annotations.Hidden;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Internal cluster REST API controller, exposes endpoints called by other cluster nodes only. Calls are not made by
+ * users and carry no user token, they are authenticated by the shared cluster secret instead, checked by
+ * {@link ClusterRouter} ahead of any handler, and refused outside cluster mode. Internal endpoints are not documented.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see RestController
+ * @since 1.0
+ */
+@Hidden
+@RestController
+@RequestMapping(path = ApiEndpoint.Value.CLUSTER, produces = MediaType.APPLICATION_JSON_VALUE)
+public class ClusterApiController {
+
+    @Autowired
+    private MailService service;
+
+    /**
+     * Handler method exposing an endpoint for adopting settled mail messages handed off by the node previously owning
+     * their senders
+     *
+     * @param messages handed off mail messages
+     * @return number of adopted messages
+     */
+    @PostMapping(path = "/messages", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Integer> adopt(final @RequestBody List<ClusterMessage> messages) {
+        return service.adopt(messages.stream().map(ClusterMessage::to).collect(Collectors.toList()));
+    }
+
+    /**
+     * Handler method exposing an endpoint for keeping copies of settled mail messages replicated by the node owning
+     * their senders, for recipients owned by this node
+     *
+     * @param messages replicated mail messages
+     * @return number of kept messages
+     */
+    @PostMapping(path = "/replicas", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public Mono<Integer> replicate(final @RequestBody List<ClusterMessage> messages) {
+        return service.replicate(messages.stream().map(ClusterMessage::to).collect(Collectors.toList()));
+    }
+}
@@ -2,13 +2,22 @@ package com.effcode.clean.me.rest.controller;
 
 import com.effcode.clean.me.core.validation.ModelValidator;
 import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.export.ExportFormat;
+import com.effcode.clean.me.domain.feed.FeedEvent;
 import com.effcode.clean.me.domain.model.UserPrincipal;
+import com.effcode.clean.me.domain.security.RateLimiter;
 import com.effcode.clean.me.domain.service.MailService;
 import com.effcode.clean.me.rest.configuration.ApiEndpoint;
 import com.effcode.clean.me.rest.configuration.ApiStatus;
 import com.effcode.clean.me.rest.configuration.ApplicationConfig;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import com.effcode.clean.me.rest.configuration.WebFluxConfig;
+import com.effcode.clean.me.rest.data.DeadLetterResponse;
+import com.effcode.clean.me.rest.data.MessagePageResponse;
 import com.effcode.clean.me.rest.data.MessageRequest;
 import com.effcode.clean.me.rest.data.MessageResponse;
+import com.effcode.clean.me.rest.data.SearchPageResponse;
+import com.effcode.clean.me.rest.data.StatsResponse;
 import com.effcode.clean.me.rest.error.ErrorResponse;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.ArraySchema;
@@ -19,13 +28,20 @@ import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.security.SecurityRequirement;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.ServerHttpRequest;
+import org.springframework.http.server.reactive.ServerHttpResponse;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -43,59 +59,460 @@ import java.util.stream.Collectors;
 public class MailApiController {
 
     protected static final String TAG = "mail";
+    protected static final String IDEMPOTENCY_KEY = "Idempotency-Key";
+    protected static final String LAST_EVENT_ID = "Last-Event-ID";
+    protected static final String EVENT_MESSAGE = "message";
+    protected static final String EXPORT_MEDIA_TYPE = "application/gzip";
 
     @Autowired
     private MailService service;
 
+    @Autowired
+    private ApplicationProperties properties;
+
     /**
-     * Handler method exposing an endpoint for sending a single e-mail message
+     * Handler method exposing an endpoint for sending a single e-mail message. The message is accepted for
+     * asynchronous delivery and its delivery state can be polled with {@link #message(String, Authentication)}.
+     * Sends are subject to per-user {@link RateLimiter rate limits}. Clients retrying a send should supply an
+     * {@code Idempotency-Key} header, repeated sends with the same key return the originally accepted message.
      *
      * @param request        mail send request
+     * @param key            idempotency key, optional
      * @param authentication user authentication
-     * @return sent mail message record
+     * @return accepted mail message record
      */
-    @Operation(summary = "Send Mail Message", description = "Sends an email message with current user", tags = {TAG},
-            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @Operation(summary = "Send Mail Message", description = "Accepts an email message with current user for delivery",
+            tags = {TAG}, security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
     @ApiResponses(value = {
-            @ApiResponse(responseCode = ApiStatus.Value.CREATED, description = "Mail message send success",
+            @ApiResponse(responseCode = ApiStatus.Value.ACCEPTED, description = "Mail message accepted for delivery",
                     content = @Content(schema = @Schema(implementation = MessageResponse.class))),
             @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Mail message send failure",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
             @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
                     description = "Mail message send failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.CONFLICT,
+                    description = "Mail message send failure due to idempotency key reused with a different message",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.TOO_MANY_REQUESTS,
+                    description = "Mail message send failure due to exceeded user rate limit",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.SERVICE_UNAVAILABLE,
+                    description = "Mail message send failure due to exhausted queue capacity or service overload",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
-    @ResponseStatus(HttpStatus.CREATED)
+    @ResponseStatus(HttpStatus.ACCEPTED)
     @PostMapping(path = "/send")
     @PreAuthorize("isAuthenticated()")
-    public Mono<MessageResponse> send(final @RequestBody MessageRequest request, final Authentication authentication) {
-        request.setOrigin(((UserPrincipal) authentication.getPrincipal()).getUsername());
+    public Mono<MessageResponse> send(final @RequestBody MessageRequest request,
+                                      final @RequestHeader(name = IDEMPOTENCY_KEY, required = false) String key,
+                                      final Authentication authentication) {
+        final UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        request.setOrigin(user.getUsername());
         new ModelValidator<MessageRequest>().validate(request, Error.MAIL_REQUEST_INVALID);
-        return service.send(request.to()).map(m -> new MessageResponse().from(m));
+        return service.send(user, request.to(), key).map(m -> new MessageResponse().from(m));
     }
 
     /**
-     * Handler method exposing an endpoint for listing all sent mail message records for
-     * currently authenticated user.
+     * Handler method exposing an endpoint for sending a batch of e-mail messages. Accepts a JSON array or a newline
+     * delimited JSON stream of mail send requests, which are decoded and sent one by one with bounded concurrency.
+     * Per-item results are streamed back as newline delimited JSON lines in completion order, each line being either
+     * a mail message record or an error response. Items are paced to the per-user {@link RateLimiter rate limit}
+     * rather than rejected, as the batch is accepted as a whole.
      *
+     * @param requests       stream of mail send requests
      * @param authentication user authentication
-     * @return users' mail message records list
+     * @param http           server HTTP request
+     * @return stream of accepted mail message records or item error responses
      */
-    @Operation(summary = "View Mail Messages", description = "View email messages sent to or from current user, while " +
-            "view all email messages as admin user", tags = {TAG},
+    @Operation(summary = "Send Mail Message Batch", description = "Accepts a JSON array or newline delimited JSON " +
+            "stream of email messages with current user for delivery, streams back per-message results", tags = {TAG},
             security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
     @ApiResponses(value = {
-            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message collection retrieved",
-                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = MessageResponse.class)))),
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message batch results streamed",
+                    content = @Content(mediaType = WebFluxConfig.APPLICATION_NDJSON_VALUE, schema = @Schema(
+                            oneOf = {MessageResponse.class, ErrorResponse.class}))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message batch send failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(path = "/batch", consumes = {MediaType.APPLICATION_JSON_VALUE, WebFluxConfig.APPLICATION_NDJSON_VALUE},
+            produces = WebFluxConfig.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public Flux<Object> batch(final @RequestBody Flux<MessageRequest> requests, final Authentication authentication,
+                              final ServerHttpRequest http) {
+        final UserPrincipal user = (UserPrincipal) authentication.getPrincipal();
+        return requests.flatMap(request -> Mono.defer(() -> {
+            request.setOrigin(user.getUsername());
+            new ModelValidator<MessageRequest>().validate(request, Error.MAIL_REQUEST_INVALID);
+            return service.pace(user, request.to());
+        }).<Object>map(m -> new MessageResponse().from(m))
+                .onErrorResume(e -> Mono.just(new ErrorResponse(e, http.getURI().getPath(), http.getMethod()))),
+                properties.getBatch().getConcurrency());
+    }
+
+    /**
+     * Handler method exposing an endpoint for polling a single mail message record and its delivery state
+     *
+     * @param id             mail message identifier
+     * @param authentication user authentication
+     * @return mail message record
+     */
+    @Operation(summary = "View Mail Message", description = "View email message and its delivery state, sent to or " +
+            "from current user", tags = {TAG}, security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message retrieved",
+                    content = @Content(schema = @Schema(implementation = MessageResponse.class))),
             @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
-                    description = "Mail message collection retrieve failure due to unauthorized access",
+                    description = "Mail message retrieve failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.NOT_FOUND, description = "Mail message not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/messages/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<MessageResponse> message(final @PathVariable String id, final Authentication authentication) {
+        return service.findMessage((UserPrincipal) authentication.getPrincipal(), id)
+                .map(m -> new MessageResponse().from(m));
+    }
+
+    /**
+     * Handler method exposing an endpoint for cancelling a scheduled mail message before its send time
+     *
+     * @param id             mail message identifier
+     * @param authentication user authentication
+     * @return cancelled mail message record
+     */
+    @Operation(summary = "Cancel Scheduled Mail Message", description = "Cancel email message sent from current " +
+            "user which is scheduled and not yet due", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message cancelled",
+                    content = @Content(schema = @Schema(implementation = MessageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message cancel failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.NOT_FOUND, description = "Mail message not found",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.CONFLICT, description = "Mail message is not scheduled",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping(path = "/messages/{id}")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<MessageResponse> cancel(final @PathVariable String id, final Authentication authentication) {
+        return service.cancel((UserPrincipal) authentication.getPrincipal(), id)
+                .map(m -> new MessageResponse().from(m));
+    }
+
+    /**
+     * Handler method exposing an endpoint for paging through mail message records sent to or from currently
+     * authenticated user, or all mail message records for admin users, optionally accepted within a time range. Pages
+     * are linked with an opaque cursor.
+     *
+     * @param from           inclusive ISO-8601 start of the time range, optional
+     * @param to             exclusive ISO-8601 end of the time range, optional
+     * @param limit          maximum number of messages in the page, optional
+     * @param cursor         cursor of the page to retrieve, as returned with the previous page, optional
+     * @param authentication user authentication
+     * @return page of mail message records
+     */
+    @Operation(summary = "View Mail Messages", description = "View a page of email messages sent to or from current " +
+            "user, while view all email messages as admin user", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message page retrieved",
+                    content = @Content(schema = @Schema(implementation = MessagePageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST,
+                    description = "Invalid time range, page limit or cursor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message page retrieve failure due to unauthorized access",
                     content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
     })
     @GetMapping(path = "/messages")
     @PreAuthorize("isAuthenticated()")
-    public Mono<List<MessageResponse>> messages(final Authentication authentication) {
-        return service.findMessages((UserPrincipal) authentication.getPrincipal())
+    public Mono<MessagePageResponse> messages(final @RequestParam(required = false) String from,
+                                              final @RequestParam(required = false) String to,
+                                              final @RequestParam(required = false) Integer limit,
+                                              final @RequestParam(required = false) String cursor,
+                                              final Authentication authentication) {
+        return service.findMessages((UserPrincipal) authentication.getPrincipal(), from, to, cursor, limit)
+                .map(p -> new MessagePageResponse().from(p));
+    }
+
+    /**
+     * Handler method exposing an endpoint for streaming mail message records sent to or from currently authenticated
+     * user, or all mail message records for admin users, as newline delimited JSON, optionally accepted within a time
+     * range. Records are read and encoded on demand under backpressure.
+     *
+     * @param from           inclusive ISO-8601 start of the time range, optional
+     * @param to             exclusive ISO-8601 end of the time range, optional
+     * @param cursor         cursor of a page to resume after, optional
+     * @param authentication user authentication
+     * @return stream of mail message records
+     */
+    @Operation(summary = "Stream Mail Messages", description = "Stream email messages sent to or from current user, " +
+            "while stream all email messages as admin user", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message stream retrieved",
+                    content = @Content(mediaType = WebFluxConfig.APPLICATION_NDJSON_VALUE,
+                            schema = @Schema(implementation = MessageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Invalid time range or cursor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message stream failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/messages", produces = WebFluxConfig.APPLICATION_NDJSON_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public Flux<MessageResponse> streamMessages(final @RequestParam(required = false) String from,
+                                                final @RequestParam(required = false) String to,
+                                                final @RequestParam(required = false) String cursor,
+                                                final Authentication authentication) {
+        return service.streamMessages((UserPrincipal) authentication.getPrincipal(), from, to, cursor)
+                .map(m -> new MessageResponse().from(m));
+    }
+
+    /**
+     * Handler method exposing an admin endpoint for bulk export of stored mail messages as a gzip compressed file of
+     * newline delimited JSON or CSV, optionally filtered by user and time range. The export is streamed as it is
+     * compressed, in constant memory regardless of its size.
+     *
+     * @param format   export format, {@code ndjson} or {@code csv}
+     * @param user     user whose sent and received messages are exported, all messages are exported if omitted
+     * @param from     inclusive ISO-8601 start of the time range, optional
+     * @param to       exclusive ISO-8601 end of the time range, optional
+     * @param response server HTTP response
+     * @return completion of the export
+     */
+    @Operation(summary = "Export Mail Messages", description = "Export stored email messages of all users or of a " +
+            "user as gzip compressed NDJSON or CSV", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message export streamed",
+                    content = @Content(mediaType = EXPORT_MEDIA_TYPE)),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST,
+                    description = "Mail message export failure due to invalid format or time range",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Mail message export failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/export", produces = EXPORT_MEDIA_TYPE)
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Mono<Void> export(final @RequestParam(required = false, defaultValue = "ndjson") String format,
+                             final @RequestParam(required = false) String user,
+                             final @RequestParam(required = false) String from,
+                             final @RequestParam(required = false) String to,
+                             final ServerHttpResponse response) {
+        final Flux<DataBuffer> content = service.export(user, from, to, format, response.bufferFactory());
+        response.getHeaders().setContentType(MediaType.parseMediaType(EXPORT_MEDIA_TYPE));
+        response.getHeaders().setContentDisposition(ContentDisposition.builder("attachment")
+                .filename("messages." + ExportFormat.find(format).extension() + ".gz").build());
+        return response.writeWith(content);
+    }
+
+    /**
+     * Handler method exposing a Server-Sent Events endpoint pushing mail message records sent to or from currently
+     * authenticated user as they are accepted. Clients reconnecting with a {@code Last-Event-ID} header are first sent
+     * the messages accepted since that event. Idle streams receive periodic heartbeat comments.
+     *
+     * @param lastEventId    identifier of the last event received, optional
+     * @param authentication user authentication
+     * @return stream of mail message record events
+     */
+    @Operation(summary = "Mail Message Feed", description = "Push email messages sent to or from current user as " +
+            "they are accepted", tags = {TAG}, security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message feed subscribed",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = MessageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Invalid last event identifier",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message feed failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/feed", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("isAuthenticated()")
+    public Flux<ServerSentEvent<MessageResponse>> feed(
+            final @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId,
+            final Authentication authentication) {
+        return events(service.feed((UserPrincipal) authentication.getPrincipal(), lastEventId));
+    }
+
+    /**
+     * Handler method exposing an admin Server-Sent Events endpoint pushing mail message records of all users as they
+     * are accepted. Clients reconnecting with a {@code Last-Event-ID} header are first sent the messages accepted
+     * since that event.
+     *
+     * @param lastEventId identifier of the last event received, optional
+     * @return stream of mail message record events
+     */
+    @Operation(summary = "Mail Message Firehose", description = "Push email messages of all users as they are " +
+            "accepted", tags = {TAG}, security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message firehose subscribed",
+                    content = @Content(mediaType = MediaType.TEXT_EVENT_STREAM_VALUE,
+                            schema = @Schema(implementation = MessageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Invalid last event identifier",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Mail message firehose failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/feed/all", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Flux<ServerSentEvent<MessageResponse>> firehose(
+            final @RequestHeader(name = LAST_EVENT_ID, required = false) String lastEventId) {
+        return events(service.firehose(lastEventId));
+    }
+
+    /**
+     * Handler method exposing an endpoint for full-text search of mail message subjects and contents sent to or from
+     * currently authenticated user, or all mail message records for admin users. Hits are ranked by relevance and
+     * paged with an opaque cursor.
+     *
+     * @param q              search query, messages holding all of its terms match
+     * @param limit          maximum number of hits in the page, optional
+     * @param cursor         cursor of the page to retrieve, as returned with the previous page, optional
+     * @param authentication user authentication
+     * @return page of search hits
+     */
+    @Operation(summary = "Search Mail Messages", description = "Search subjects and contents of email messages sent " +
+            "to or from current user, while search all email messages as admin user", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail message search page retrieved",
+                    content = @Content(schema = @Schema(implementation = SearchPageResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST,
+                    description = "Invalid search query, page limit or cursor",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.UNAUTHORIZED,
+                    description = "Mail message search failure due to unauthorized access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.SERVICE_UNAVAILABLE, description = "Mail message search disabled",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/search")
+    @PreAuthorize("isAuthenticated()")
+    public Mono<SearchPageResponse> search(final @RequestParam(required = false) String q,
+                                           final @RequestParam(required = false) Integer limit,
+                                           final @RequestParam(required = false) String cursor,
+                                           final Authentication authentication) {
+        return service.searchMessages((UserPrincipal) authentication.getPrincipal(), q, cursor, limit)
+                .map(p -> new SearchPageResponse().from(p));
+    }
+
+    /**
+     * Handler method exposing an admin endpoint for mail send statistics, sends per user, per destination domain and
+     * per recent minute, and failed sends per error
+     *
+     * @return mail statistics
+     */
+    @Operation(summary = "View Mail Statistics", description = "View accepted email sends per user, destination " +
+            "domain and recent minute, and failed sends per error", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Mail statistics retrieved",
+                    content = @Content(schema = @Schema(implementation = StatsResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Mail statistics retrieve failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/stats")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Mono<StatsResponse> stats() {
+        return service.statistics().map(s -> new StatsResponse().from(s));
+    }
+
+    /**
+     * Handler method exposing an admin endpoint for listing mail messages whose delivery attempts were exhausted
+     *
+     * @return dead letters list
+     */
+    @Operation(summary = "View Dead Letters", description = "View email messages whose delivery attempts were " +
+            "exhausted, with the cause of their last failure", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Dead letter collection retrieved",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = DeadLetterResponse.class)))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Dead letter collection retrieve failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @GetMapping(path = "/dead-letters")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Mono<List<DeadLetterResponse>> deadLetters() {
+        return service.findDeadLetters()
+                .map(r -> r.stream().map(d -> new DeadLetterResponse().from(d)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Handler method exposing an admin endpoint for re-driving dead-lettered mail messages
+     *
+     * @param ids dead letter identifiers, all dead letters are re-driven if omitted
+     * @return re-driven mail message records
+     */
+    @Operation(summary = "Re-drive Dead Letters", description = "Re-queue dead-lettered email messages with the " +
+            "specified identifiers, or all if none are specified", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Dead letters re-driven",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = MessageResponse.class)))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Invalid dead letter identifier",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Dead letter re-drive failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @PostMapping(path = "/dead-letters/redrive")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Mono<List<MessageResponse>> redrive(final @RequestParam(required = false) List<String> ids) {
+        return service.redriveDeadLetters(ids)
                 .map(r -> r.stream().map(m -> new MessageResponse().from(m)).collect(Collectors.toList()));
     }
 
+    /**
+     * Handler method exposing an admin endpoint for purging dead-lettered mail messages
+     *
+     * @param ids dead letter identifiers, all dead letters are purged if omitted
+     * @return purged dead letters
+     */
+    @Operation(summary = "Purge Dead Letters", description = "Discard dead-lettered email messages with the " +
+            "specified identifiers, or all if none are specified", tags = {TAG},
+            security = @SecurityRequirement(name = ApplicationConfig.SECURITY_SCHEME))
+    @ApiResponses(value = {
+            @ApiResponse(responseCode = ApiStatus.Value.OK, description = "Dead letters purged",
+                    content = @Content(array = @ArraySchema(schema = @Schema(implementation = DeadLetterResponse.class)))),
+            @ApiResponse(responseCode = ApiStatus.Value.BAD_REQUEST, description = "Invalid dead letter identifier",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class))),
+            @ApiResponse(responseCode = ApiStatus.Value.FORBIDDEN,
+                    description = "Dead letter purge failure due to invalid access",
+                    content = @Content(schema = @Schema(implementation = ErrorResponse.class)))
+    })
+    @DeleteMapping(path = "/dead-letters")
+    @PreAuthorize("hasAnyAuthority('ADMIN')")
+    public Mono<List<DeadLetterResponse>> purge(final @RequestParam(required = false) List<String> ids) {
+        return service.purgeDeadLetters(ids)
+                .map(r -> r.stream().map(d -> new DeadLetterResponse().from(d)).collect(Collectors.toList()));
+    }
+
+    /**
+     * Converts feed events to Server-Sent Events, interleaved with heartbeat comments keeping idle streams open
+     *
+     * @param events feed events
+     * @return stream of mail message record events
+     */
+    private Flux<ServerSentEvent<MessageResponse>> events(final Flux<FeedEvent> events) {
+        final Duration heartbeat = Duration.ofMillis(properties.getFeed().getHeartbeat());
+        // heartbeats end with the feed, which completes on shutdown
+        return events.map(e -> ServerSentEvent.builder(new MessageResponse().from(e.getMessage())).id(e.getId())
+                .event(EVENT_MESSAGE).build())
+                .publish(shared -> shared.mergeWith(Flux.interval(heartbeat, heartbeat)
+                        .map(t -> ServerSentEvent.<MessageResponse>builder().comment("heartbeat").build())
+                        .takeUntilOther(shared.then())));
+    }
+
 }
@@ -0,0 +1,112 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailModel;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.Date;
+import java.util.UUID;
+
+/**
+ * Mail message hand-off {@link IDataModel data transfer model}, carrying a stored {@link MailMessage domain message
+ * model} from one cluster node to another in full. Datetimes are transferred as epoch milliseconds so messages keep
+ * their exact timestamps.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailModel
+ * @see IDataModel
+ * @see MailMessage
+ */
+@JsonPropertyOrder({"id", "timestamp", "state", "attempts", "sendAt", "address", "subject", "content", "origin"})
+@JsonClassDescription("Mail message hand-off data transfer model")
+public class ClusterMessage extends MailModel<ClusterMessage, String> implements IDataModel<ClusterMessage, MailMessage, String> {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonFormat(shape = JsonFormat.Shape.NUMBER)
+    private Date timestamp;
+
+    private DeliveryState state;
+
+    private int attempts;
+
+    @Override
+    public ClusterMessage from(final MailMessage target) {
+        this.id = target.getId().toString();
+        this.timestamp = target.getTimestamp();
+        this.state = target.getState();
+        this.attempts = target.getAttempts();
+        this.address = target.getAddress();
+        this.subject = target.getSubject();
+        this.content = target.getContent();
+        this.origin = target.getOrigin();
+        this.sendAt = target.getSendAt();
+        return this;
+    }
+
+    @Override
+    public MailMessage to() {
+        final MailMessage message = new MailMessage(UUID.fromString(id), timestamp, this);
+        message.setState(state);
+        message.setAttempts(attempts);
+        return message;
+    }
+
+    @JsonPropertyDescription("Mail message unique identifier")
+    @JsonGetter
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @JsonPropertyDescription("Mail message send datetime")
+    @JsonFormat(shape = JsonFormat.Shape.NUMBER)
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonPropertyDescription("Mail message delivery state")
+    public DeliveryState getState() {
+        return state;
+    }
+
+    @JsonPropertyDescription("Number of delivery attempts made")
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @JsonPropertyDescription("Mail message scheduled send datetime")
+    @JsonFormat(shape = JsonFormat.Shape.NUMBER)
+    @Override
+    public Date getSendAt() {
+        return super.getSendAt();
+    }
+
+    @JsonPropertyDescription("Mail message destination address")
+    @Override
+    public String getAddress() {
+        return super.getAddress();
+    }
+
+    @JsonPropertyDescription("Mail message subject")
+    @Override
+    public String getSubject() {
+        return super.getSubject();
+    }
+
+    @JsonPropertyDescription("Mail message text content")
+    @Override
+    public String getContent() {
+        return super.getContent();
+    }
+
+    @JsonPropertyDescription("Mail message origin address")
+    @Override
+    public String getOrigin() {
+        return super.getOrigin();
+    }
+}
@@ -0,0 +1,71 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.mapper.ObjectMapper;
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.model.DeadLetter;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.Date;
+
+/**
+ * Dead letter response {@link IDataModel data transfer model}. Inflates the internal data state from
+ * {@link DeadLetter domain dead letter model} to provide response data.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IDataModel
+ * @see DeadLetter
+ */
+@JsonPropertyOrder({"id", "timestamp", "attempts", "cause", "message"})
+@JsonClassDescription("Dead letter response data transfer model")
+public class DeadLetterResponse implements IDataModel<DeadLetterResponse, DeadLetter, String> {
+
+    @JsonProperty("id")
+    private String id;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.DATE_FORMAT_PATTERN)
+    private Date timestamp;
+
+    private int attempts;
+
+    private String cause;
+
+    private MessageResponse message;
+
+    @Override
+    public DeadLetterResponse from(final DeadLetter target) {
+        this.id = target.getId().toString();
+        this.timestamp = target.getTimestamp();
+        this.attempts = target.getAttempts();
+        this.cause = target.getCause();
+        this.message = new MessageResponse().from(target.getMessage());
+        return this;
+    }
+
+    @JsonPropertyDescription("Dead-lettered mail message identifier")
+    @JsonGetter
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @JsonPropertyDescription("Dead-letter datetime")
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonPropertyDescription("Number of delivery attempts made")
+    public int getAttempts() {
+        return attempts;
+    }
+
+    @JsonPropertyDescription("Cause of the last delivery failure")
+    public String getCause() {
+        return cause;
+    }
+
+    @JsonPropertyDescription("Dead-lettered mail message")
+    public MessageResponse getMessage() {
+        return message;
+    }
+}
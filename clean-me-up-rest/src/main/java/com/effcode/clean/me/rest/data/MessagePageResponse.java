@@ -0,0 +1,45 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.store.MessagePage;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Mail message page response {@link IDataModel data transfer model}. Inflates the internal data state from
+ * {@link MessagePage domain message page} to provide response data.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IDataModel
+ * @see MessagePage
+ */
+@JsonPropertyOrder({"messages", "cursor"})
+@JsonClassDescription("Mail message page response data transfer model")
+public class MessagePageResponse implements IDataModel<MessagePageResponse, MessagePage, String> {
+
+    private List<MessageResponse> messages;
+
+    private String cursor;
+
+    @Override
+    public MessagePageResponse from(final MessagePage target) {
+        this.messages = target.getMessages().stream().map(m -> new MessageResponse().from(m))
+                .collect(Collectors.toList());
+        this.cursor = target.getCursor();
+        return this;
+    }
+
+    @JsonPropertyDescription("Mail messages in acceptance order")
+    public List<MessageResponse> getMessages() {
+        return messages;
+    }
+
+    @JsonPropertyDescription("Opaque cursor of the next page, absent on the last page")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getCursor() {
+        return cursor;
+    }
+}
@@ -1,11 +1,15 @@
 package com.effcode.clean.me.rest.data;
 
+import com.effcode.clean.me.core.mapper.ObjectMapper;
 import com.effcode.clean.me.core.spec.IDataModel;
 import com.effcode.clean.me.domain.model.MailModel;
 import com.effcode.clean.me.domain.model.MailSend;
 import com.fasterxml.jackson.annotation.JsonClassDescription;
+import com.fasterxml.jackson.annotation.JsonFormat;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 
+import java.util.Date;
+
 /**
  * Email send request {@link IDataModel data transfer model}, convertible to instances of {@link MailSend mail send model}
  *
@@ -26,9 +30,16 @@ public class MessageRequest extends MailModel<MessageRequest, Void> implements I
         super(address, subject, content, null);
     }
 
+    public MessageRequest(final String address, final String subject, final String content, final Date sendAt) {
+        super(address, subject, content, null);
+        this.sendAt = sendAt;
+    }
+
     @Override
     public final MailSend to() {
-        return new MailSend(getAddress(), getSubject(), getContent(), getOrigin());
+        final MailSend send = new MailSend(getAddress(), getSubject(), getContent(), getOrigin());
+        send.setSendAt(getSendAt());
+        return send;
     }
 
     @JsonPropertyDescription("Mail message receiver destination address")
@@ -54,4 +65,11 @@ public class MessageRequest extends MailModel<MessageRequest, Void> implements I
     public String getOrigin() {
         return super.getOrigin();
     }
+
+    @JsonPropertyDescription("Optional ISO-8601 scheduled send datetime, message is sent right away if omitted")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.ISO_DATE_FORMAT_PATTERN, timezone = "UTC")
+    @Override
+    public Date getSendAt() {
+        return super.getSendAt();
+    }
 }
@@ -2,6 +2,7 @@ package com.effcode.clean.me.rest.data;
 
 import com.effcode.clean.me.core.mapper.ObjectMapper;
 import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.model.DeliveryState;
 import com.effcode.clean.me.domain.model.MailMessage;
 import com.effcode.clean.me.domain.model.MailModel;
 import com.fasterxml.jackson.annotation.*;
@@ -18,7 +19,7 @@ import java.util.Date;
  * @see IDataModel
  * @see MailMessage
  */
-@JsonPropertyOrder({"id", "timestamp", "address", "subject", "content", "origin"})
+@JsonPropertyOrder({"id", "timestamp", "state", "sendAt", "address", "subject", "content", "origin"})
 @JsonClassDescription("Mail message response data transfer model")
 public class MessageResponse extends MailModel<MessageResponse, String> implements IDataModel<MessageResponse, MailMessage, String> {
 
@@ -30,14 +31,19 @@ public class MessageResponse extends MailModel<MessageResponse, String> implemen
     @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.DATE_FORMAT_PATTERN)
     private Date timestamp;
 
+    @JsonPropertyDescription("Mail message delivery state")
+    private DeliveryState state;
+
     @Override
     public MessageResponse from(final MailMessage target) {
         this.id = target.getId().toString();
         this.timestamp = target.getTimestamp();
+        this.state = target.getState();
         this.address = target.getAddress();
         this.subject = target.getSubject();
         this.content = target.getContent();
         this.origin = target.getOrigin();
+        this.sendAt = target.getSendAt();
         return this;
     }
 
@@ -53,6 +59,18 @@ public class MessageResponse extends MailModel<MessageResponse, String> implemen
         return timestamp;
     }
 
+    @JsonPropertyDescription("Mail message delivery state")
+    public DeliveryState getState() {
+        return state;
+    }
+
+    @JsonPropertyDescription("Mail message scheduled send datetime")
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.ISO_DATE_FORMAT_PATTERN, timezone = "UTC")
+    @Override
+    public Date getSendAt() {
+        return super.getSendAt();
+    }
+
     @JsonPropertyDescription("Mail message destination address")
     @Override
     public String getAddress() {
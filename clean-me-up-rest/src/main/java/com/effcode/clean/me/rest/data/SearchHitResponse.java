@@ -0,0 +1,42 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.search.SearchHit;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.UUID;
+
+/**
+ * Search hit response {@link IDataModel data transfer model}. Inflates the internal data state from
+ * {@link SearchHit domain search hit} to provide response data.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IDataModel
+ * @see SearchHit
+ */
+@JsonPropertyOrder({"score", "message"})
+@JsonClassDescription("Search hit response data transfer model")
+public class SearchHitResponse implements IDataModel<SearchHitResponse, SearchHit, UUID> {
+
+    private float score;
+
+    private MessageResponse message;
+
+    @Override
+    public SearchHitResponse from(final SearchHit target) {
+        this.score = target.getScore();
+        this.message = new MessageResponse().from(target.getMessage());
+        return this;
+    }
+
+    @JsonPropertyDescription("Relevance score, higher scores are more relevant")
+    public float getScore() {
+        return score;
+    }
+
+    @JsonPropertyDescription("Matching mail message")
+    public MessageResponse getMessage() {
+        return message;
+    }
+}
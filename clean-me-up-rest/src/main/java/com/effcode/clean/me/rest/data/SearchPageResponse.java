@@ -0,0 +1,52 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.search.SearchPage;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Search result page response {@link IDataModel data transfer model}. Inflates the internal data state from
+ * {@link SearchPage domain search page} to provide response data.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IDataModel
+ * @see SearchPage
+ */
+@JsonPropertyOrder({"hits", "matches", "cursor"})
+@JsonClassDescription("Search result page response data transfer model")
+public class SearchPageResponse implements IDataModel<SearchPageResponse, SearchPage, String> {
+
+    private List<SearchHitResponse> hits;
+
+    private int matches;
+
+    private String cursor;
+
+    @Override
+    public SearchPageResponse from(final SearchPage target) {
+        this.hits = target.getHits().stream().map(h -> new SearchHitResponse().from(h)).collect(Collectors.toList());
+        this.matches = target.getMatches();
+        this.cursor = target.getCursor();
+        return this;
+    }
+
+    @JsonPropertyDescription("Search hits, most relevant first")
+    public List<SearchHitResponse> getHits() {
+        return hits;
+    }
+
+    @JsonPropertyDescription("Number of visible messages matching the query")
+    public int getMatches() {
+        return matches;
+    }
+
+    @JsonPropertyDescription("Opaque cursor of the next page, absent on the last page")
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public String getCursor() {
+        return cursor;
+    }
+}
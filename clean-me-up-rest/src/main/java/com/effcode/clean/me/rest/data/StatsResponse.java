@@ -0,0 +1,86 @@
+package com.effcode.clean.me.rest.data;
+
+import com.effcode.clean.me.core.mapper.ObjectMapper;
+import com.effcode.clean.me.core.spec.IDataModel;
+import com.effcode.clean.me.domain.stats.MailStats;
+import com.fasterxml.jackson.annotation.*;
+
+import java.util.Date;
+import java.util.Map;
+
+/**
+ * Mail statistics response {@link IDataModel data transfer model}. Inflates the internal data state from
+ * {@link MailStats domain mail statistics model} to provide response data.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see IDataModel
+ * @see MailStats
+ */
+@JsonPropertyOrder({"timestamp", "sends", "users", "domains", "failures", "since", "minutes"})
+@JsonClassDescription("Mail statistics response data transfer model")
+public class StatsResponse implements IDataModel<StatsResponse, MailStats, String> {
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.DATE_FORMAT_PATTERN)
+    private Date timestamp;
+
+    private long sends;
+
+    private Map<String, Long> users;
+
+    private Map<String, Long> domains;
+
+    private Map<String, Long> failures;
+
+    @JsonFormat(shape = JsonFormat.Shape.STRING, pattern = ObjectMapper.DATE_FORMAT_PATTERN)
+    private Date since;
+
+    private long[] minutes;
+
+    @Override
+    public StatsResponse from(final MailStats target) {
+        this.timestamp = target.getTimestamp();
+        this.sends = target.getSends();
+        this.users = target.getUsers();
+        this.domains = target.getDomains();
+        this.failures = target.getFailures();
+        this.since = target.getSince();
+        this.minutes = target.getMinutes();
+        return this;
+    }
+
+    @JsonPropertyDescription("Statistics read datetime")
+    public Date getTimestamp() {
+        return timestamp;
+    }
+
+    @JsonPropertyDescription("Number of accepted sends")
+    public long getSends() {
+        return sends;
+    }
+
+    @JsonPropertyDescription("Number of accepted sends per origin user")
+    public Map<String, Long> getUsers() {
+        return users;
+    }
+
+    @JsonPropertyDescription("Number of accepted sends per destination address domain")
+    public Map<String, Long> getDomains() {
+        return domains;
+    }
+
+    @JsonPropertyDescription("Number of failed sends per error")
+    public Map<String, Long> getFailures() {
+        return failures;
+    }
+
+    @JsonPropertyDescription("Start datetime of the first minute of the per-minute send counts")
+    public Date getSince() {
+        return since;
+    }
+
+    @JsonPropertyDescription("Number of accepted sends per minute, oldest first")
+    public long[] getMinutes() {
+        return minutes;
+    }
+}
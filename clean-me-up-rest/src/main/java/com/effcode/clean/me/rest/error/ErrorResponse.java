@@ -11,6 +11,7 @@ import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonPropertyDescription;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.ResponseStatus;
 
 import java.util.Date;
 import java.util.List;
@@ -61,6 +62,17 @@ public class ErrorResponse implements IModel<ErrorResponse, Void> {
     public ErrorResponse() {
     }
 
+    /**
+     * Construct response error with response status resolved from the exception type
+     *
+     * @param exception throwable cause of this error
+     * @param url       request url that resulted in error
+     * @param method    request method
+     */
+    public ErrorResponse(final Throwable exception, final String url, final HttpMethod method) {
+        this(exception, url, method, resolveStatus(exception));
+    }
+
     /**
      * Construct response error with required properties
      *
@@ -121,5 +133,17 @@ public class ErrorResponse implements IModel<ErrorResponse, Void> {
         return exception;
     }
 
+    /**
+     * Resolves a HTTP status code from a specified throwable
+     *
+     * @param ex throwable
+     * @return resolved HTTP status, default is {@link HttpStatus#INTERNAL_SERVER_ERROR}
+     */
+    public static HttpStatus resolveStatus(final Throwable ex) {
+        final ResponseStatus status = ex.getClass().getAnnotation(ResponseStatus.class);
+        if (status != null) return status.code();
+        return HttpStatus.INTERNAL_SERVER_ERROR;
+    }
+
 
 }
@@ -1,14 +1,15 @@
 package com.effcode.clean.me.rest.error;
 
 import com.effcode.clean.me.core.mapper.ObjectMapper;
+import com.effcode.clean.me.domain.exception.RateLimitException;
 import org.springframework.core.ResolvableType;
 import org.springframework.core.annotation.Order;
 import org.springframework.core.codec.Hints;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.codec.json.Jackson2JsonEncoder;
 import org.springframework.stereotype.Component;
-import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.server.ServerWebExchange;
 import org.springframework.web.server.WebExceptionHandler;
 import reactor.core.publisher.Mono;
@@ -32,24 +33,16 @@ public class ErrorResponseHandler implements WebExceptionHandler {
 
         exchange.getResponse().getHeaders().setContentType(MediaType.APPLICATION_JSON);
         final ErrorResponse error = new ErrorResponse(ex, exchange.getRequest().getURI().getPath(),
-                exchange.getRequest().getMethod(), resolveStatus(ex));
+                exchange.getRequest().getMethod());
         exchange.getResponse().setStatusCode(HttpStatus.resolve(error.getStatus()));
+        if (ex instanceof RateLimitException) {
+            exchange.getResponse().getHeaders().set(HttpHeaders.RETRY_AFTER,
+                    String.valueOf(((RateLimitException) ex).getRetryAfter()));
+        }
         return exchange.getResponse()
                 .writeWith(encoder.encode(Mono.just(error), exchange.getResponse().bufferFactory(),
                         ResolvableType.forInstance(error), MediaType.APPLICATION_JSON,
                         Hints.from(Hints.LOG_PREFIX_HINT, exchange.getLogPrefix())));
     }
 
-    /**
-     * Resolves a HTTP status code from a specified throwable
-     *
-     * @param ex throwable
-     * @return resolved HTTP status, default is {@link HttpStatus#INTERNAL_SERVER_ERROR}
-     */
-    private HttpStatus resolveStatus(final Throwable ex) {
-        final ResponseStatus status = ex.getClass().getAnnotation(ResponseStatus.class);
-        if (status != null) return status.code();
-        return HttpStatus.INTERNAL_SERVER_ERROR;
-    }
-
 }
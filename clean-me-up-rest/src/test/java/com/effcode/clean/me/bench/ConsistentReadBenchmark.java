@@ -0,0 +1,97 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import com.effcode.clean.me.domain.store.MessagePage;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Consistent read benchmark, three writers insert messages while one reader takes consistent views of a preloaded
+ * store of all users. The memory store serves first pages bounded by its read epoch without locking, while a
+ * synchronized list has to be copied whole under its lock for a consistent view to page through, stalling writers for
+ * the duration of the copy. Stores are recreated for each iteration to bound memory use.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class ConsistentReadBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int MESSAGES = 100000;
+    private static final int PAGE = 1000;
+
+    private MemoryMessageStore store;
+    private List<MailMessage> list;
+    private String[] users;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        users = new String[USERS];
+        for (int i = 0; i < USERS; i++) users[i] = "user" + i + "@api.com";
+        store = MemoryMessageStore.striped(new OffHeapArena[4], ArenaPolicy.HEAP, 1000);
+        list = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            final MailMessage message = message();
+            store.add(message);
+            list.add(message);
+        }
+    }
+
+    @Benchmark
+    @Group("epoch")
+    @GroupThreads(3)
+    public boolean epochWrite() {
+        return store.add(message());
+    }
+
+    @Benchmark
+    @Group("epoch")
+    @GroupThreads(1)
+    public MessagePage epochRead() {
+        return store.find(null, null, null, 0, PAGE);
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(3)
+    public boolean lockedWrite() {
+        synchronized (list) {
+            return list.add(message());
+        }
+    }
+
+    @Benchmark
+    @Group("locked")
+    @GroupThreads(1)
+    public List<MailMessage> lockedRead() {
+        final List<MailMessage> view;
+        synchronized (list) {
+            view = new ArrayList<>(list);
+        }
+        return view.subList(0, PAGE);
+    }
+
+    private MailMessage message() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return new MailMessage(new UUID(random.nextLong(), random.nextLong()), new Date(),
+                new MailSend(users[random.nextInt(USERS)], "Subject", "Content", users[random.nextInt(USERS)]));
+    }
+
+}
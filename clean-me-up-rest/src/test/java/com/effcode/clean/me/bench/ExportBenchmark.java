@@ -0,0 +1,96 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.domain.export.ExportFormat;
+import com.effcode.clean.me.domain.export.MessageExporter;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import io.netty.buffer.PooledByteBufAllocator;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.NettyDataBufferFactory;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark of the {@link MessageExporter}, exporting a preloaded memory store of a hundred thousand
+ * messages into pooled Netty data buffers, as NDJSON and CSV at the fastest and the default deflate levels. Exported
+ * messages and compressed bytes per second are reported as auxiliary counters, buffers are released as they are
+ * consumed.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MessageExporter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgs = {"-Xmx4g"})
+public class ExportBenchmark {
+
+    private static final int MESSAGES = 100000;
+    private static final int USERS = 1000;
+
+    @Param({"ndjson", "csv"})
+    public String format;
+
+    /**
+     * Deflate level, {@code 1} fastest and {@code 6} the gzip default
+     */
+    @Param({"1", "6"})
+    public int level;
+
+    private MemoryMessageStore store;
+    private MessageExporter exporter;
+    private NettyDataBufferFactory factory;
+    private ExportFormat type;
+
+    /**
+     * Messages and compressed bytes exported, reported per second
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Counters {
+        public long messages;
+        public long bytes;
+    }
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new MemoryMessageStore(null, ArenaPolicy.HEAP, 1000);
+        final long start = System.currentTimeMillis() - MESSAGES;
+        for (int i = 0; i < MESSAGES; i++) {
+            store.add(new MailMessage(UUID.randomUUID(), new Date(start + i), new MailSend(
+                    "user" + (i % USERS) + "@api.com", "Benchmark Message " + i,
+                    "Benchmark message text, with a delimiter and \"quotes\", number " + i,
+                    "user" + ((i * 7) % USERS) + "@api.com")));
+        }
+        final ApplicationProperties properties = new ApplicationProperties();
+        properties.getExport().setCompressionLevel(level);
+        exporter = new MessageExporter(properties, new SimpleMeterRegistry());
+        factory = new NettyDataBufferFactory(PooledByteBufAllocator.DEFAULT);
+        type = ExportFormat.find(format);
+    }
+
+    @Benchmark
+    public long export(final Counters counters) {
+        final long bytes = exporter.export(store.iterate(null, null, null, 0), type, factory)
+                .map(buffer -> {
+                    final int count = buffer.readableByteCount();
+                    DataBufferUtils.release(buffer);
+                    return (long) count;
+                })
+                .reduce(0L, Long::sum).block();
+        counters.messages += MESSAGES;
+        counters.bytes += bytes;
+        return bytes;
+    }
+
+}
@@ -0,0 +1,110 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.LogMessageStore;
+import com.effcode.clean.me.domain.store.MessagePage;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Persistent message store benchmark. The store is preloaded with messages spread over a fixed set of users, the
+ * load rate and the time to reopen the store, replaying its log, are printed once loaded. Appends measure write
+ * throughput with group commit, lookups sample the latency of reading a random stored message by identifier, and
+ * pages sample the latency of listing a page of a random user's messages.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see LogMessageStore
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class LogStoreBenchmark {
+
+    private static final int USERS = 1000;
+    private static final int SAMPLES = 1 << 20;
+
+    @Param({"10000000"})
+    public int messages;
+
+    private Path directory;
+    private ApplicationProperties properties;
+    private LogMessageStore store;
+    private UUID[] ids;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("store-benchmark");
+        properties = new ApplicationProperties();
+        properties.getStore().setDirectory(directory.toString());
+        properties.getStore().setFsync(FsyncPolicy.BATCH);
+        store = new LogMessageStore(properties);
+        store.open();
+        ids = new UUID[SAMPLES];
+        final int step = Math.max(1, messages / SAMPLES);
+        long start = System.nanoTime();
+        for (int i = 0; i < messages; i++) {
+            final MailMessage message = message(i);
+            store.add(message);
+            if (i % step == 0 && i / step < SAMPLES) ids[i / step] = message.getId();
+        }
+        System.out.printf("%nLoaded %d messages at %.0f messages/s%n", messages,
+                messages / ((System.nanoTime() - start) / 1e9));
+        store.close();
+        start = System.nanoTime();
+        store = new LogMessageStore(properties);
+        store.open();
+        System.out.printf("Reopened %d messages in %d ms%n", store.size(),
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public boolean append() {
+        return store.add(message(ThreadLocalRandom.current().nextInt(USERS)));
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MailMessage lookup() {
+        final UUID id = ids[ThreadLocalRandom.current().nextInt(Math.min(SAMPLES, messages))];
+        return id == null ? null : store.get(id);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public MessagePage page() {
+        return store.find("user" + ThreadLocalRandom.current().nextInt(USERS) + "@api.com", null, null, 0, 50);
+    }
+
+    private static MailMessage message(final int i) {
+        return new MailMessage(new MailSend("user" + (i % USERS) + "@api.com", "Benchmark Message " + i,
+                "Benchmark Message Text", "admin@api.com"));
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.domain.delivery.MailOutbox;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mail outbox benchmark measuring acknowledged sends per second at each durability level. Each operation durably
+ * records an accepted message, awaits its acknowledgement and settles it, as done on the send path.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailOutbox
+ * @see FsyncPolicy
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class MailOutboxBenchmark {
+
+    @Param({"NONE", "BATCH", "ALWAYS"})
+    public FsyncPolicy fsync;
+
+    private Path directory;
+    private MailOutbox outbox;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("outbox-benchmark");
+        final ApplicationProperties properties = new ApplicationProperties();
+        properties.getOutbox().setDirectory(directory.toString());
+        properties.getOutbox().setFsync(fsync);
+        outbox = new MailOutbox(properties);
+        outbox.open();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        outbox.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Benchmark
+    public MailMessage send() {
+        final MailMessage message = new MailMessage(new MailSend("user2@api.com", "Benchmark Message",
+                "Benchmark Message Text", "user1@api.com"));
+        outbox.append(message).block();
+        outbox.settle(message);
+        return message;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Message store benchmark comparing message bodies kept on heap with bodies moved into an {@link OffHeapArena}. The
+ * store is preloaded with messages of a fixed body size, and the heap retained after a full collection is printed
+ * once loaded. Reads decode subject and content of a random stored message, as done for each message response, and
+ * inserts add messages to the preloaded store, paying the cost of copying bodies off heap.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ * @see OffHeapArena
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xmx2g", "-XX:MaxDirectMemorySize=2g"})
+public class MessageArenaBenchmark {
+
+    private static final int MESSAGES = 200000;
+    private static final int CHUNK = 4 << 20;
+
+    @Param({"false", "true"})
+    public boolean offHeap;
+
+    @Param({"2048"})
+    public int size;
+
+    private MemoryMessageStore store;
+    private MailMessage[] messages;
+    private String content;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        final char[] chars = new char[size];
+        Arrays.fill(chars, 'x');
+        content = new String(chars);
+        store = new MemoryMessageStore(offHeap ? new OffHeapArena(1L << 30, CHUNK) : null, ArenaPolicy.HEAP, 1000);
+        messages = new MailMessage[MESSAGES];
+        for (int i = 0; i < MESSAGES; i++) {
+            // each body is a distinct string, as when decoded from a request
+            messages[i] = new MailMessage(new MailSend("user" + i + "@api.com", "Subject " + i,
+                    new String(content.toCharArray()), "admin@api.com"));
+            store.add(messages[i]);
+        }
+        System.gc();
+        final MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        System.out.printf("%nRetained heap with %d messages, offHeap=%s: %d MiB%n", MESSAGES, offHeap,
+                heap.getUsed() >> 20);
+    }
+
+    @Benchmark
+    public int read() {
+        final MailMessage message = messages[ThreadLocalRandom.current().nextInt(MESSAGES)];
+        return message.getSubject().length() + message.getContent().length();
+    }
+
+    @Benchmark
+    public boolean insert() {
+        return store.add(new MailMessage(new MailSend("user@api.com", "Subject", content, "admin@api.com")));
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Message lookup benchmark comparing the indexed {@link MemoryMessageStore} with a scan of a synchronized linked list,
+ * as previously used by mail service. Both are preloaded with messages exchanged between a fixed set of users, each
+ * lookup finds the messages sent from or to a random user. Inserts add messages to an initially empty store and list,
+ * which are recreated for each iteration to bound memory use.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = "-Xmx4g")
+public class MessageStoreBenchmark {
+
+    private static final int USERS = 1000;
+
+    @Param({"100000", "1000000"})
+    public int messages;
+
+    private MemoryMessageStore store;
+    private List<MailMessage> list;
+    private String[] users;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        users = new String[USERS];
+        for (int i = 0; i < USERS; i++) users[i] = "user" + i + "@api.com";
+        store = new MemoryMessageStore(null, ArenaPolicy.HEAP, 1000);
+        list = Collections.synchronizedList(new LinkedList<>());
+        for (int i = 0; i < messages; i++) {
+            final MailMessage message = message();
+            store.add(message);
+            list.add(message);
+        }
+    }
+
+    @Benchmark
+    public List<MailMessage> listLookup() {
+        final String user = user();
+        synchronized (list) {
+            return list.stream().filter(m -> m.getOrigin().equals(user) || m.getAddress().equals(user))
+                    .collect(Collectors.toList());
+        }
+    }
+
+    @Benchmark
+    public List<MailMessage> storeLookup() {
+        return store.findByUser(user());
+    }
+
+    @Benchmark
+    public boolean listInsert(final Inserts inserts) {
+        return inserts.list.add(message());
+    }
+
+    @Benchmark
+    public boolean storeInsert(final Inserts inserts) {
+        return inserts.store.add(message());
+    }
+
+    private String user() {
+        return users[ThreadLocalRandom.current().nextInt(USERS)];
+    }
+
+    private MailMessage message() {
+        return new MailMessage(new MailSend(user(), "Subject", "Content", user()));
+    }
+
+    @State(Scope.Benchmark)
+    public static class Inserts {
+
+        private MemoryMessageStore store;
+        private List<MailMessage> list;
+
+        @Setup(Level.Iteration)
+        public void setup() {
+            store = new MemoryMessageStore(null, ArenaPolicy.HEAP, 1000);
+            list = Collections.synchronizedList(new LinkedList<>());
+        }
+    }
+
+}
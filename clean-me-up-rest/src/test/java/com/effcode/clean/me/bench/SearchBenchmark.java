@@ -0,0 +1,92 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.search.InvertedIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Full-text search latency benchmark. The index is preloaded with documents of terms drawn from a Zipf distributed
+ * vocabulary, as natural language text is, each document sent by one of a fixed set of users and indexed under the key
+ * of that user. Queries of two terms drawn from the same distribution are sampled for all documents, as searched by
+ * admin users, and for the documents of a random user, restricted to the key of the user as searched by users. Queries
+ * of a single very frequent term sample the worst case, where a large share of the index is ranked.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see InvertedIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xmx3g"})
+public class SearchBenchmark {
+
+    private static final int VOCABULARY = 50000;
+    private static final int TERMS = 20;
+    private static final int USERS = 1000;
+    private static final int LIMIT = 50;
+
+    @Param({"2000000"})
+    public int documents;
+
+    private InvertedIndex index;
+    private double[] distribution;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        distribution = new double[VOCABULARY];
+        double sum = 0;
+        for (int i = 0; i < VOCABULARY; i++) distribution[i] = sum += 1.0 / (i + 1);
+        for (int i = 0; i < VOCABULARY; i++) distribution[i] /= sum;
+        index = new InvertedIndex();
+        final SplittableRandom random = new SplittableRandom(42);
+        final long start = System.nanoTime();
+        for (int d = 0; d < documents; d++) {
+            final Map<String, Integer> frequencies = new HashMap<>();
+            for (int t = 0; t < TERMS; t++) frequencies.merge(term(random.nextDouble()), 1, Integer::sum);
+            frequencies.put(key(random.nextInt(USERS)), 1);
+            index.add(d, frequencies, TERMS);
+        }
+        System.out.printf("%nIndexed %d documents at %.0f documents/s, %d terms, %d MB of postings%n", documents,
+                documents / ((System.nanoTime() - start) / 1e9), index.getTerms(), index.getBytes() >> 20);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result all() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return index.search(Arrays.asList(term(random.nextDouble()), term(random.nextDouble())), null, LIMIT);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result user() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        final String key = key(random.nextInt(USERS));
+        return index.search(Arrays.asList(term(random.nextDouble()), term(random.nextDouble())), key, LIMIT);
+    }
+
+    @Benchmark
+    public InvertedIndex.Result frequent() {
+        final List<String> query = Arrays.asList(term(ThreadLocalRandom.current().nextDouble() * distribution[9]));
+        return index.search(query, null, LIMIT);
+    }
+
+    private static String key(final int user) {
+        return "@user" + user;
+    }
+
+    private String term(final double sample) {
+        final int rank = Arrays.binarySearch(distribution, sample);
+        return "term" + (rank < 0 ? Math.min(-rank - 1, VOCABULARY - 1) : rank);
+    }
+
+}
@@ -0,0 +1,61 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.smtp.SmtpClient;
+import com.effcode.clean.me.domain.transport.MailEnvelope;
+import com.effcode.clean.me.domain.transport.SmtpClientTransport;
+import com.effcode.clean.me.smtp.FakeSmtpServer;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * End to end mail transport benchmark, sends emails with the {@link SmtpClientTransport} to an embedded
+ * {@link FakeSmtpServer} over loopback. Compares pipelined and lock-step sessions over a varying number of pooled
+ * connections, reporting both throughput and send latency distribution.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(16)
+@Fork(1)
+public class SmtpTransportBenchmark {
+
+    @Param({"true", "false"})
+    public boolean pipelining;
+
+    @Param({"1", "4"})
+    public int connections;
+
+    private FakeSmtpServer server;
+    private SmtpClientTransport transport;
+    private MailEnvelope envelope;
+
+    @Setup(Level.Trial)
+    public void setup() throws InterruptedException {
+        server = new FakeSmtpServer(0, 0);
+        server.start();
+        transport = new SmtpClientTransport(new SmtpClient("127.0.0.1", server.getPort(), "localhost", connections,
+                10000, pipelining));
+        envelope = new MailEnvelope("user1@example.com", Arrays.asList("user2@example.com", "user3@example.com"),
+                "Benchmark", "Lorem ipsum dolor sit amet, consectetur adipiscing elit.\n.\nSed do eiusmod tempor.");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        transport.close();
+        server.close();
+    }
+
+    @Benchmark
+    public void send() {
+        transport.send(envelope).block();
+    }
+
+}
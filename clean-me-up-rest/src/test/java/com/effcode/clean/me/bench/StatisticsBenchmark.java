@@ -0,0 +1,93 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.stats.RollingCounter;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mail statistics benchmark. Counting compares contended increments of a {@link RollingCounter} with a ring of counts
+ * guarded by a monitor, reading compares the per-minute counts of a rolling counter with aggregating sends per minute
+ * from a store preloaded with messages, as done by clients before the statistics endpoint.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see RollingCounter
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class StatisticsBenchmark {
+
+    private static final int MESSAGES = 1000000;
+    private static final int WINDOW = 60;
+    private static final long MINUTE = 60000;
+    private static final long INTERVAL = 5;
+
+    private RollingCounter counter;
+    private long[] locked;
+    private long[] minutes;
+    private MemoryMessageStore store;
+    private long end;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        counter = new RollingCounter(MINUTE, WINDOW);
+        locked = new long[WINDOW];
+        minutes = new long[WINDOW];
+        store = new MemoryMessageStore(null, ArenaPolicy.HEAP, 1000);
+        final long start = System.currentTimeMillis() - MESSAGES * INTERVAL;
+        for (int i = 0; i < MESSAGES; i++) {
+            final MailMessage message = new MailMessage(UUID.randomUUID(), new Date(start + i * INTERVAL),
+                    new MailSend("user" + (i % 100) + "@api.com", "Subject", "Content", "admin@api.com"));
+            store.add(message);
+            counter.increment(message.getTimestamp().getTime());
+        }
+        end = start + MESSAGES * INTERVAL;
+    }
+
+    @Benchmark
+    public void countRolling() {
+        counter.increment(System.currentTimeMillis());
+    }
+
+    @Benchmark
+    public void countLocked() {
+        final long minute = System.currentTimeMillis() / MINUTE;
+        synchronized (locked) {
+            final int i = (int) (minute % WINDOW);
+            if (minutes[i] != minute) {
+                minutes[i] = minute;
+                locked[i] = 0;
+            }
+            locked[i]++;
+        }
+    }
+
+    @Benchmark
+    public long[] readRolling() {
+        return counter.counts(end);
+    }
+
+    @Benchmark
+    public long[] readAggregated() {
+        final long last = end / MINUTE;
+        final long[] counts = new long[WINDOW];
+        for (final MailMessage message : store.iterate(null, null, null, 0)) {
+            final long n = message.getTimestamp().getTime() / MINUTE - last + WINDOW - 1;
+            if (n >= 0 && n < WINDOW) counts[(int) n]++;
+        }
+        return counts;
+    }
+
+}
@@ -0,0 +1,104 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.memory.ChunkBudget;
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Write scaling benchmark of the striped {@link MemoryMessageStore}, inserting messages of random users from 1 to 32
+ * threads into stores of 1 to 16 stripes and of one stripe per available processor, with message bodies kept off heap
+ * in arenas sharing one budget. Identifiers are drawn from a thread local random rather than {@link UUID#randomUUID()},
+ * whose shared secure random would bound scaling on its own. Stores are recreated each iteration to bound memory use.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgs = {"-Xmx8g", "-XX:MaxDirectMemorySize=8g"})
+public class StripedStoreBenchmark {
+
+    private static final int USERS = 10000;
+    private static final long ARENA_CAPACITY = 4L << 30;
+    private static final int ARENA_CHUNK = 4194304;
+
+    /**
+     * Number of stripes, {@code 0} for one per available processor
+     */
+    @Param({"1", "2", "4", "8", "16", "0"})
+    public int stripes;
+
+    private MemoryMessageStore store;
+    private String[] users;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        users = new String[USERS];
+        for (int i = 0; i < USERS; i++) users[i] = "user" + i + "@api.com";
+    }
+
+    @Setup(Level.Iteration)
+    public void store() {
+        final int count = stripes > 0 ? stripes : Runtime.getRuntime().availableProcessors();
+        final OffHeapArena[] arenas = new OffHeapArena[count];
+        final ChunkBudget budget = new ChunkBudget(ARENA_CAPACITY, ARENA_CHUNK);
+        for (int i = 0; i < count; i++) arenas[i] = new OffHeapArena(budget);
+        store = MemoryMessageStore.striped(arenas, ArenaPolicy.HEAP, 1000);
+    }
+
+    @Benchmark
+    @Threads(1)
+    public boolean insert1() {
+        return insert();
+    }
+
+    @Benchmark
+    @Threads(2)
+    public boolean insert2() {
+        return insert();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public boolean insert4() {
+        return insert();
+    }
+
+    @Benchmark
+    @Threads(8)
+    public boolean insert8() {
+        return insert();
+    }
+
+    @Benchmark
+    @Threads(16)
+    public boolean insert16() {
+        return insert();
+    }
+
+    @Benchmark
+    @Threads(32)
+    public boolean insert32() {
+        return insert();
+    }
+
+    private boolean insert() {
+        final ThreadLocalRandom random = ThreadLocalRandom.current();
+        return store.add(new MailMessage(new UUID(random.nextLong(), random.nextLong()), new Date(),
+                new MailSend(users[random.nextInt(USERS)], "Subject", "Content", users[random.nextInt(USERS)])));
+    }
+
+}
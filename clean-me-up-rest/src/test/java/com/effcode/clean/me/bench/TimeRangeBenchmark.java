@@ -0,0 +1,73 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import com.effcode.clean.me.domain.store.TimeIndex;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time range query benchmark comparing a range translated by the {@link TimeIndex} with a scan of all messages
+ * filtered by timestamp, as done by clients before time range queries. The store is preloaded with messages accepted
+ * ten milliseconds apart, and each operation counts the messages of a random one minute range.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ * @see TimeIndex
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = {"-Xmx2g"})
+public class TimeRangeBenchmark {
+
+    private static final int MESSAGES = 1000000;
+    private static final long INTERVAL = 10;
+    private static final long RANGE = 60000;
+    private static final long START = 1600000000000L;
+
+    private MemoryMessageStore store;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        store = new MemoryMessageStore(null, ArenaPolicy.HEAP, 1000);
+        for (int i = 0; i < MESSAGES; i++) {
+            store.add(new MailMessage(UUID.randomUUID(), new Date(START + i * INTERVAL),
+                    new MailSend("user" + (i % 100) + "@api.com", "Subject", "Content", "admin@api.com")));
+        }
+    }
+
+    @Benchmark
+    public int indexed() {
+        final long from = from();
+        int count = 0;
+        for (final MailMessage ignored : store.iterate(null, new Date(from), new Date(from + RANGE), 0)) count++;
+        return count;
+    }
+
+    @Benchmark
+    public int scan() {
+        final long from = from();
+        int count = 0;
+        for (final MailMessage message : store.iterate(null, null, null, 0)) {
+            final long timestamp = message.getTimestamp().getTime();
+            if (timestamp >= from && timestamp < from + RANGE) count++;
+        }
+        return count;
+    }
+
+    private static long from() {
+        return START + ThreadLocalRandom.current().nextLong(MESSAGES * INTERVAL - RANGE);
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.effcode.clean.me.bench;
+
+import com.effcode.clean.me.core.scheduling.TimingWheel;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduled send benchmark comparing a {@link TimingWheel} with a {@link ScheduledThreadPoolExecutor} holding one
+ * task per timer. Both schedulers are preloaded with a large number of far future timers, each operation schedules
+ * and cancels another one, as done for scheduled sends and their cancellation.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see TimingWheel
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class TimingWheelBenchmark {
+
+    private static final long HOUR = TimeUnit.HOURS.toMillis(1);
+
+    @Param({"1000000"})
+    public int pending;
+
+    private TimingWheel<Object> wheel;
+    private ScheduledThreadPoolExecutor executor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        wheel = new TimingWheel<>("benchmark-wheel", 100, 512, task -> {
+        });
+        wheel.start();
+        executor = new ScheduledThreadPoolExecutor(1);
+        executor.setRemoveOnCancelPolicy(true);
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < pending; i++) {
+            wheel.schedule(i, now + HOUR + i);
+            executor.schedule(() -> {
+            }, HOUR + i, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        wheel.close();
+        executor.shutdownNow();
+    }
+
+    @Benchmark
+    public boolean wheel() {
+        return wheel.schedule(this, System.currentTimeMillis() + HOUR).cancel();
+    }
+
+    @Benchmark
+    public boolean executor() {
+        final ScheduledFuture<?> future = executor.schedule(() -> {
+        }, HOUR, TimeUnit.MILLISECONDS);
+        return future.cancel(false);
+    }
+
+}
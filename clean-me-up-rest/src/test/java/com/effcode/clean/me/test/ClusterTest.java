@@ -0,0 +1,257 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.RestApiApplication;
+import com.effcode.clean.me.domain.cluster.ClusterMembership;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.security.AuthManager;
+import com.effcode.clean.me.domain.service.MailService;
+import com.effcode.clean.me.domain.store.MessageStore;
+import com.effcode.clean.me.rest.cluster.ClusterClient;
+import com.effcode.clean.me.rest.data.MessagePageResponse;
+import com.effcode.clean.me.rest.data.MessageRequest;
+import com.effcode.clean.me.rest.data.MessageResponse;
+import com.effcode.clean.me.rest.data.TokenRequest;
+import com.effcode.clean.me.rest.data.TokenResponse;
+import com.effcode.clean.me.rest.error.ErrorResponse;
+import io.netty.handler.ssl.SslContext;
+import io.netty.handler.ssl.SslContextBuilder;
+import io.netty.handler.ssl.util.InsecureTrustManagerFactory;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.ClientResponse;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.client.HttpClient;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Cluster tests used for verification of request forwarding to the owner node of a user, replication of messages to
+ * the owner node of their recipient and hand-off of stored messages to the owner node of their sender. Two nodes run
+ * as separate application contexts on their own ports and data directories.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see ClusterMembership
+ */
+public class ClusterTest {
+
+    private static final long TIMEOUT = 10000;
+    private static final String SECRET = "cluster-test-secret";
+    private static final List<String> USERS = Arrays.asList("user1@api.com", "user2@api.com", "user3@api.com",
+            "admin@api.com");
+    private static final String PASSWORD = "user";
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+    private final List<WebClient> clients = new ArrayList<>();
+    private Path directory;
+    private int[] ports;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("cluster");
+        ports = new int[]{port(), port()};
+        for (int n = 0; n < ports.length; n++) nodes.add(start(n, SECRET));
+        final SslContext ssl = SslContextBuilder.forClient().trustManager(InsecureTrustManagerFactory.INSTANCE)
+                .build();
+        for (final int port : ports) {
+            clients.add(WebClient.builder()
+                    .clientConnector(new ReactorClientHttpConnector(HttpClient.create().secure(t -> t.sslContext(ssl))))
+                    .baseUrl("https://localhost:" + port + "/api/v1").build());
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        Collections.reverse(nodes);
+        nodes.forEach(ConfigurableApplicationContext::close);
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Verifies requests sent to a node not owning the user are served by its owner, and messages sent to a user of
+     * another node are replicated to it, so both users list the message on their own node
+     */
+    @Test
+    public void testForward() throws InterruptedException {
+        final String sender = user(1);
+        final String recipient = user(0);
+
+        // the token request of a user of the second node is forwarded, the session is held by the owner only
+        final String token = token(0, sender);
+        Assert.assertNotNull(token);
+        Assert.assertEquals(token, bean(1, AuthManager.class).findByUsername(sender).getToken());
+        Assert.assertNull(bean(0, AuthManager.class).findByUsername(sender).getToken());
+
+        final MessageResponse sent = clients.get(0).post().uri("/mail/send")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token)
+                .bodyValue(new MessageRequest(recipient, "Cluster Message", "Cluster message text"))
+                .retrieve().bodyToMono(MessageResponse.class).block();
+        Assert.assertNotNull(sent);
+        final UUID id = UUID.fromString(sent.getId());
+        final MessageStore owner = bean(1, MessageStore.class);
+        Assert.assertNotNull(owner.get(id));
+
+        // once delivered, the message is replicated to the node of the recipient
+        final MessageStore other = bean(0, MessageStore.class);
+        await(() -> other.get(id) != null);
+        Assert.assertEquals(DeliveryState.SENT, other.get(id).getState());
+        Assert.assertEquals(Collections.singletonList(sent.getId()), list(0, recipient));
+        Assert.assertEquals(Collections.singletonList(sent.getId()), list(1, sender));
+        // the copy is not counted again by statistics of the recipient node
+        Assert.assertEquals(1, bean(1, MailService.class).statistics().block().getSends());
+        Assert.assertEquals(0, bean(0, MailService.class).statistics().block().getSends());
+    }
+
+    /**
+     * Verifies settled messages stored by a node not owning their sender are adopted by the owner of the sender
+     */
+    @Test
+    public void testHandoff() throws InterruptedException {
+        final String sender = user(1);
+        final MessageStore previous = bean(0, MessageStore.class);
+        final MessageStore owner = bean(1, MessageStore.class);
+        final List<MailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            final MailMessage message = new MailMessage(new MailSend("someone@example.com", "Moved Message " + i,
+                    "Moved message text " + i, sender));
+            message.setState(i < 2 ? DeliveryState.SENT : DeliveryState.QUEUED);
+            Assert.assertTrue(previous.add(message));
+            messages.add(message);
+        }
+        await(() -> owner.get(messages.get(1).getId()) != null);
+        await(() -> previous.get(messages.get(1).getId()) == null);
+        Assert.assertEquals("Moved Message 0", owner.get(messages.get(0).getId()).getSubject());
+        Assert.assertNull(previous.get(messages.get(0).getId()));
+        // messages awaiting delivery stay with the node delivering them
+        Assert.assertNotNull(previous.get(messages.get(2).getId()));
+        Assert.assertNull(owner.get(messages.get(2).getId()));
+    }
+
+    /**
+     * Verifies internal calls without the shared secret are refused, and a node does not start without a secret
+     */
+    @Test
+    public void testSecret() {
+        final ClientResponse response = clients.get(0).post()
+                .uri(uri -> uri.replacePath("/api/internal/cluster/messages").build())
+                .header(ClusterClient.SECRET, "wrong")
+                .bodyValue(Collections.emptyList())
+                .exchange().block();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(HttpStatus.FORBIDDEN, response.statusCode());
+        response.releaseBody().block();
+        for (final String secret : new String[]{"", "^%C-L#u-s*"}) {
+            try {
+                start(0, secret).close();
+                Assert.fail("Cluster node started without a secret of its own");
+            } catch (final RuntimeException e) {
+                Assert.assertTrue(root(e) instanceof IllegalStateException);
+            }
+        }
+    }
+
+    /**
+     * Verifies token requests with a body exceeding the buffered size are refused before authentication
+     */
+    @Test
+    public void testTokenBody() {
+        final char[] password = new char[16384];
+        Arrays.fill(password, 'x');
+        final ClientResponse response = clients.get(0).post().uri("/auth/token")
+                .bodyValue(new TokenRequest(user(1), new String(password))).exchange().block();
+        Assert.assertNotNull(response);
+        Assert.assertEquals(HttpStatus.BAD_REQUEST, response.statusCode());
+        final ErrorResponse error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.assertNotNull(error);
+        Assert.assertEquals(Error.AUTH_CREDENTIALS_INVALID, error.getError());
+    }
+
+    private ConfigurableApplicationContext start(final int node, final String secret) {
+        final Path data = directory.resolve("node" + node);
+        return new SpringApplicationBuilder(RestApiApplication.class).run(
+                "--server.port=" + ports[node],
+                "--app.cluster.enabled=true",
+                "--app.cluster.node=node" + node,
+                "--app.cluster.nodes.node0=https://localhost:" + ports[0],
+                "--app.cluster.nodes.node1=https://localhost:" + ports[1],
+                "--app.cluster.secret=" + secret,
+                "--app.cluster.verify-hostname=false",
+                "--app.cluster.handoff-interval=200",
+                "--app.cluster.replication-interval=100",
+                "--app.store.type=memory",
+                "--app.snapshot.enabled=false",
+                "--app.outbox.directory=" + data.resolve("outbox"),
+                "--app.store.directory=" + data.resolve("messages"));
+    }
+
+    private <T> T bean(final int node, final Class<T> type) {
+        return nodes.get(node).getBean(type);
+    }
+
+    /**
+     * Finds a user owned by a node, the registered users are spread over both nodes by the hash ring
+     *
+     * @param node node index
+     * @return user name
+     */
+    private String user(final int node) {
+        final ClusterMembership membership = bean(node, ClusterMembership.class);
+        return USERS.stream().filter(u -> membership.isLocal(u) && !u.startsWith("admin")).findFirst()
+                .orElseThrow(() -> new AssertionError("No user owned by node" + node));
+    }
+
+    private String token(final int node, final String username) {
+        final TokenResponse response = clients.get(node).post().uri("/auth/token")
+                .bodyValue(new TokenRequest(username, PASSWORD)).retrieve().bodyToMono(TokenResponse.class).block();
+        return response == null ? null : response.getToken();
+    }
+
+    private List<String> list(final int node, final String username) {
+        final MessagePageResponse page = clients.get(node).get().uri("/mail/messages")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token(node, username))
+                .retrieve().bodyToMono(MessagePageResponse.class).block();
+        Assert.assertNotNull(page);
+        return page.getMessages().stream().map(MessageResponse::getId).collect(Collectors.toList());
+    }
+
+    private static void await(final BooleanSupplier condition) throws InterruptedException {
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) Thread.sleep(20);
+        Assert.assertTrue(condition.getAsBoolean());
+    }
+
+    private static Throwable root(final Throwable e) {
+        Throwable cause = e;
+        while (cause.getCause() != null) cause = cause.getCause();
+        return cause;
+    }
+
+    private static int port() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.search.InvertedIndex;
+import org.junit.Assert;
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Inverted index tests used for verification of ranked hits found while skipping blocks of postings, against the
+ * exhaustive ranking of all matching documents.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see InvertedIndex
+ */
+public class InvertedIndexTest {
+
+    private static final int DOCUMENTS = 50000;
+    private static final int VOCABULARY = 200;
+    private static final int USERS = 20;
+    private static InvertedIndex index;
+
+    @BeforeClass
+    public static void setup() {
+        index = new InvertedIndex();
+        final SplittableRandom random = new SplittableRandom(7);
+        for (int d = 0; d < DOCUMENTS; d++) {
+            final Map<String, Integer> frequencies = new HashMap<>();
+            final int length = 5 + random.nextInt(60);
+            // squared samples skew terms towards the start of the vocabulary, as frequent words are
+            for (int t = 0; t < length; t++) {
+                final double sample = random.nextDouble();
+                frequencies.merge("term" + (int) (sample * sample * VOCABULARY), 1, Integer::sum);
+            }
+            frequencies.put("@user" + random.nextInt(USERS), 1);
+            index.add(d, frequencies, length);
+        }
+    }
+
+    /**
+     * Verifies the best hits of single and multiple term queries equal the best of an exhaustive ranking
+     */
+    @Test
+    public void testRanking() {
+        for (final List<String> query : Arrays.asList(Arrays.asList("term0"), Arrays.asList("term0", "term1"),
+                Arrays.asList("term2", "term5", "term9"), Arrays.asList("term40", "term3"))) {
+            for (final int limit : new int[]{1, 10, 100}) {
+                verify(query, null, limit);
+                verify(query, "@user3", limit);
+            }
+        }
+        // blocks were skipped, otherwise the rankings compared are trivially equal
+        Assert.assertFalse(index.search(Arrays.asList("term0"), null, 10).isExact());
+    }
+
+    /**
+     * Verifies unknown terms and keys match nothing
+     */
+    @Test
+    public void testMissing() {
+        Assert.assertEquals(0, index.search(Arrays.asList("term0", "missing"), null, 10).getMatches());
+        Assert.assertEquals(0, index.search(Arrays.asList("term0"), "@missing", 10).getMatches());
+    }
+
+    /**
+     * Verifies removed documents are no longer found, before and after their postings are purged
+     */
+    @Test
+    public void testRemove() {
+        final InvertedIndex index = new InvertedIndex();
+        for (int d = 0; d < 1000; d++) {
+            final Map<String, Integer> frequencies = new HashMap<>();
+            frequencies.put("common", 1);
+            frequencies.put(d % 2 == 0 ? "even" : "odd", 1);
+            index.add(d, frequencies, 2);
+        }
+        for (int d = 0; d < 1000; d += 2) Assert.assertTrue(index.remove(d));
+        Assert.assertFalse(index.remove(0));
+        Assert.assertFalse(index.contains(0));
+        Assert.assertTrue(index.contains(1));
+        Assert.assertEquals(500, index.getDocuments());
+        Assert.assertEquals(500, index.getRemoved());
+        Assert.assertEquals(0, index.search(Arrays.asList("even"), null, 10).getMatches());
+        Assert.assertEquals(500, index.search(Arrays.asList("common"), null, 1000).getMatches());
+
+        final long bytes = index.getBytes();
+        Assert.assertEquals(1000, index.purge());
+        Assert.assertEquals(0, index.getRemoved());
+        Assert.assertEquals(2, index.getTerms());
+        Assert.assertTrue(index.getBytes() < bytes);
+        final InvertedIndex.Result result = index.search(Arrays.asList("common", "odd"), null, 1000);
+        Assert.assertEquals(500, result.getMatches());
+        for (final InvertedIndex.Hit hit : result.getHits()) Assert.assertEquals(1, hit.getDocument() % 2);
+    }
+
+    private static void verify(final List<String> query, final String key, final int limit) {
+        final InvertedIndex.Result all = index.search(query, key, DOCUMENTS);
+        final InvertedIndex.Result top = index.search(query, key, limit);
+        Assert.assertTrue(all.isExact());
+        Assert.assertTrue(all.getHits().size() > limit);
+        Assert.assertEquals(all.getMatches(), all.getHits().size());
+        Assert.assertTrue(top.getMatches() <= all.getMatches());
+        Assert.assertEquals(limit, top.getHits().size());
+        for (int i = 0; i < limit; i++) {
+            Assert.assertEquals(query + " " + key + " hit " + i, all.getHits().get(i).getDocument(),
+                    top.getHits().get(i).getDocument());
+            Assert.assertEquals(all.getHits().get(i).getScore(), top.getHits().get(i).getScore(), 0);
+        }
+    }
+}
@@ -0,0 +1,170 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.LogMessageStore;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Log message store tests used for verification of messages read back after compaction and after reopening the store,
+ * of removed messages staying removed and of recorded delivery states surviving both.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see LogMessageStore
+ */
+public class LogMessageStoreTest {
+
+    private static final int MESSAGES = 600;
+    private static final int USERS = 7;
+    private Path directory;
+    private ApplicationProperties properties;
+    private List<MailMessage> messages;
+    private List<MailMessage> kept;
+    private CompactingStore store;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("messages");
+        properties = new ApplicationProperties();
+        properties.getStore().setDirectory(directory.toString());
+        properties.getStore().setSegmentSize(32 * 1024);
+        properties.getStore().setFsync(FsyncPolicy.BATCH);
+        properties.getStore().setIndexInterval(4);
+        properties.getStore().setCompactionInterval(3600000);
+        properties.getStore().setCompactionThreshold(0.1);
+        messages = new ArrayList<>();
+        final long start = System.currentTimeMillis() - MESSAGES;
+        for (int i = 0; i < MESSAGES; i++) {
+            final MailSend email = new MailSend("user" + (i % USERS) + "@api.com", "Stored Message " + i,
+                    "Stored message text of some length, to fill segments quickly, number " + i,
+                    "user" + ((i * 3 + 1) % USERS) + "@api.com");
+            messages.add(new MailMessage(UUID.randomUUID(), new Date(start + i), email));
+        }
+        store = open();
+        for (final MailMessage message : messages) Assert.assertTrue(store.add(message));
+        kept = new ArrayList<>();
+        for (int i = 0; i < MESSAGES; i++) {
+            if (i % 3 == 0) Assert.assertTrue(store.remove(messages.get(i).getId()));
+            else kept.add(messages.get(i));
+        }
+        for (int i = 1; i < MESSAGES; i += 10) {
+            messages.get(i).setState(DeliveryState.SENT);
+            store.update(messages.get(i));
+        }
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        if (store != null) store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Verifies written messages are read back, and removed messages are not, before and after compaction
+     */
+    @Test
+    public void testCompact() {
+        verify(store);
+        final int segments = segments();
+        store.compactNow();
+        Assert.assertTrue(segments() <= segments);
+        verify(store);
+        Assert.assertFalse(store.add(kept.get(0)));
+    }
+
+    /**
+     * Verifies written messages are read back, and removed messages are not, after compacting and reopening the store
+     */
+    @Test
+    public void testReopen() throws IOException {
+        store.compactNow();
+        store.close();
+        store = open();
+        verify(store);
+        store.compactNow();
+        store.close();
+        store = open();
+        verify(store);
+        // a removed message stays removed, so adding it again is accepted as a new message
+        Assert.assertTrue(store.add(messages.get(0)));
+        Assert.assertEquals(kept.size() + 1, store.size());
+    }
+
+    private CompactingStore open() throws IOException {
+        final CompactingStore store = new CompactingStore(properties);
+        store.open();
+        return store;
+    }
+
+    private int segments() {
+        try (Stream<Path> files = Files.list(directory)) {
+            return (int) files.filter(file -> file.getFileName().toString().endsWith(".log")).count();
+        } catch (final IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private void verify(final LogMessageStore store) {
+        Assert.assertEquals(kept.size(), store.size());
+        for (int i = 0; i < MESSAGES; i += 3) Assert.assertNull(store.get(messages.get(i).getId()));
+        for (final MailMessage message : kept) {
+            final MailMessage stored = store.get(message.getId());
+            Assert.assertNotNull(stored);
+            Assert.assertEquals(message.getAddress(), stored.getAddress());
+            Assert.assertEquals(message.getOrigin(), stored.getOrigin());
+            Assert.assertEquals(message.getSubject(), stored.getSubject());
+            Assert.assertEquals(message.getContent(), stored.getContent());
+            Assert.assertEquals(message.getTimestamp(), stored.getTimestamp());
+            Assert.assertEquals(message.getState(), stored.getState());
+        }
+        Assert.assertEquals(ids(kept), ids(store.iterate(null, null, null, 0)));
+        final String user = "user1@api.com";
+        final List<MailMessage> visible = kept.stream()
+                .filter(m -> user.equals(m.getOrigin()) || user.equals(m.getAddress())).collect(Collectors.toList());
+        Assert.assertEquals(ids(visible), ids(store.findByUser(user)));
+        Assert.assertEquals(kept.stream().filter(m -> user.equals(m.getOrigin())).count(), store.count(user));
+        final Date from = kept.get(100).getTimestamp();
+        final Date to = kept.get(200).getTimestamp();
+        Assert.assertEquals(ids(kept.subList(100, 200)), ids(store.iterate(null, from, to, 0)));
+    }
+
+    private static List<UUID> ids(final Iterable<MailMessage> messages) {
+        return StreamSupport.stream(messages.spliterator(), false).map(MailMessage::getId)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * Log message store compacted on demand, instead of in the background
+     */
+    private static final class CompactingStore extends LogMessageStore {
+
+        private CompactingStore(final ApplicationProperties properties) {
+            super(properties);
+        }
+
+        private void compactNow() {
+            compact();
+        }
+    }
+}
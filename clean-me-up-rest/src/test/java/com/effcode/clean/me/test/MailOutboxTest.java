@@ -0,0 +1,167 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.storage.FsyncPolicy;
+import com.effcode.clean.me.domain.delivery.MailOutbox;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.rest.configuration.ApplicationProperties;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Mail outbox tests used for verification of message replay after a restart, settlement and recovery from a torn
+ * write at the tail of the log.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MailOutbox
+ */
+public class MailOutboxTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(5);
+    private Path directory;
+    private ApplicationProperties properties;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("outbox");
+        properties = new ApplicationProperties();
+        properties.getOutbox().setEnabled(true);
+        properties.getOutbox().setDirectory(directory.toString());
+        properties.getOutbox().setSegmentSize(1024 * 1024);
+        properties.getOutbox().setFsync(FsyncPolicy.BATCH);
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Verifies accepted messages are replayed after reopening, except for settled ones
+     */
+    @Test
+    public void testReplay() throws IOException {
+        final List<MailMessage> messages = messages(10);
+        MailOutbox outbox = open();
+        for (final MailMessage message : messages) outbox.append(message).block(TIMEOUT);
+        outbox.settle(messages.get(3));
+        outbox.settle(messages.get(7));
+        outbox.close();
+
+        outbox = open();
+        final List<MailMessage> recovered = outbox.recover();
+        outbox.close();
+        Assert.assertEquals(8, recovered.size());
+        Assert.assertEquals(ids(messages, 3, 7), ids(recovered));
+        final MailMessage first = recovered.get(0);
+        Assert.assertEquals(messages.get(0).getAddress(), first.getAddress());
+        Assert.assertEquals(messages.get(0).getSubject(), first.getSubject());
+        Assert.assertEquals(messages.get(0).getContent(), first.getContent());
+        Assert.assertEquals(messages.get(0).getOrigin(), first.getOrigin());
+        Assert.assertEquals(messages.get(0).getTimestamp(), first.getTimestamp());
+        Assert.assertEquals(messages.get(0).getSendAt(), first.getSendAt());
+    }
+
+    /**
+     * Verifies a torn last record is discarded on reopening and appending resumes in its place
+     */
+    @Test
+    public void testTornTail() throws IOException {
+        final List<MailMessage> messages = messages(5);
+        MailOutbox outbox = open();
+        for (final MailMessage message : messages) outbox.append(message).block(TIMEOUT);
+        outbox.close();
+
+        // corrupt the last byte of the last record, as left by a write interrupted by a crash
+        final Path segment = segment();
+        try (RandomAccessFile file = new RandomAccessFile(segment.toFile(), "rw")) {
+            long position = 0, last = 0;
+            for (int length; (length = read(file, position)) > 0; position += 8 + length) last = position + 8 + length;
+            file.seek(last - 1);
+            final int value = file.read();
+            file.seek(last - 1);
+            file.write(value ^ 0xFF);
+        }
+
+        outbox = open();
+        Assert.assertEquals(ids(messages, 4), ids(outbox.recover()));
+        final MailMessage next = messages(1).get(0);
+        outbox.append(next).block(TIMEOUT);
+        outbox.close();
+
+        outbox = open();
+        final List<MailMessage> expected = new ArrayList<>(messages.subList(0, 4));
+        expected.add(next);
+        Assert.assertEquals(ids(expected), ids(outbox.recover()));
+        outbox.close();
+    }
+
+    /**
+     * Verifies batched appends of a single writer are acknowledged without waiting for the flush interval
+     */
+    @Test
+    public void testBatchLatency() throws IOException {
+        properties.getOutbox().setFlushInterval(60000);
+        final MailOutbox outbox = open();
+        final long start = System.nanoTime();
+        for (final MailMessage message : messages(20)) outbox.append(message).block(TIMEOUT);
+        outbox.close();
+        Assert.assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(TIMEOUT) < 0);
+    }
+
+    private MailOutbox open() throws IOException {
+        final MailOutbox outbox = new MailOutbox(properties);
+        outbox.open();
+        return outbox;
+    }
+
+    private Path segment() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".log")).findFirst()
+                    .orElseThrow(() -> new IOException("No outbox segment in " + directory));
+        }
+    }
+
+    private static int read(final RandomAccessFile file, final long position) throws IOException {
+        file.seek(position);
+        return file.readInt();
+    }
+
+    private static List<MailMessage> messages(final int count) {
+        final List<MailMessage> messages = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            final MailSend email = new MailSend("user" + i + "@api.com", "Outbox Message " + i,
+                    "Outbox message text " + i, "origin@api.com");
+            if (i % 2 == 0) email.setSendAt(new Date(System.currentTimeMillis() + 60000));
+            messages.add(new MailMessage(email));
+        }
+        return messages;
+    }
+
+    private static List<UUID> ids(final List<MailMessage> messages, final int... excluded) {
+        final Set<Integer> skip = Arrays.stream(excluded).boxed().collect(Collectors.toSet());
+        final List<UUID> ids = new ArrayList<>();
+        for (int i = 0; i < messages.size(); i++) if (!skip.contains(i)) ids.add(messages.get(i).getId());
+        return ids;
+    }
+}
@@ -0,0 +1,61 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.memory.ChunkBudget;
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.store.ArenaPolicy;
+import com.effcode.clean.me.domain.store.MemoryMessageStore;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Memory message store tests used for verification of the off-heap budget shared by the arenas of all stripes.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see MemoryMessageStore
+ */
+public class MemoryMessageStoreTest {
+
+    private static final int STRIPES = 4;
+    private static final int CHUNK = 1024;
+
+    /**
+     * Verifies a single sender may fill the whole budget before sends of all users are refused, and removing its
+     * messages makes room again
+     */
+    @Test
+    public void testSharedBudget() {
+        final ChunkBudget budget = new ChunkBudget(STRIPES * CHUNK, CHUNK);
+        final OffHeapArena[] arenas = new OffHeapArena[STRIPES];
+        for (int i = 0; i < STRIPES; i++) arenas[i] = new OffHeapArena(budget);
+        final MemoryMessageStore store = MemoryMessageStore.striped(arenas, ArenaPolicy.REJECT, 1000);
+
+        final List<MailMessage> messages = new ArrayList<>();
+        while (!store.isFull()) {
+            final MailMessage message = message("heavy@api.com", messages.size());
+            Assert.assertTrue(store.add(message));
+            messages.add(message);
+        }
+        // the sender's stripe took chunks of the other stripes, instead of a quarter of the budget
+        long used = 0;
+        for (final OffHeapArena arena : arenas) used += arena.getUsed();
+        Assert.assertTrue(used > (STRIPES - 1) * CHUNK);
+        Assert.assertEquals(0, budget.getAvailable());
+
+        for (final MailMessage message : messages.subList(0, messages.size() / 2)) {
+            Assert.assertTrue(store.remove(message.getId()));
+        }
+        Assert.assertFalse(store.isFull());
+        Assert.assertTrue(store.add(message("light@api.com", 0)));
+    }
+
+    private static MailMessage message(final String origin, final int index) {
+        return new MailMessage(new MailSend("user@api.com", "Budget Message " + index,
+                "Budget message text taking some of the shared off-heap budget " + index, origin));
+    }
+}
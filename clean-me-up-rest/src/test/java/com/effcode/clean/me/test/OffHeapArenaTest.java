@@ -0,0 +1,90 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.memory.ChunkBudget;
+import com.effcode.clean.me.core.memory.OffHeapArena;
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Off-heap arena tests used for verification of chunks reclaimed by an arena while other arenas draw from the same
+ * chunk budget.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see OffHeapArena
+ */
+public class OffHeapArenaTest {
+
+    private static final int CHUNK = 64;
+
+    /**
+     * Verifies an arena whose reclaimed chunk is taken by another arena sharing a one chunk budget writes no record
+     * into the reclaimed chunk, and does not release it to the budget again
+     */
+    @Test
+    public void testReclaimTaken() {
+        final StealingBudget budget = new StealingBudget();
+        final OffHeapArena arena = new OffHeapArena(budget);
+        budget.thief = new OffHeapArena(budget);
+
+        // the only record of the current chunk is freed, the chunk is reclaimed once the arena moves on
+        arena.free(arena.allocate(record(40, 1)));
+        budget.armed = true;
+        Assert.assertEquals(OffHeapArena.NONE, arena.allocate(record(40, 2)));
+        Assert.assertNotEquals(OffHeapArena.NONE, budget.stolen);
+
+        // a record fitting the rest of the reclaimed chunk is rejected instead of written into it
+        Assert.assertEquals(OffHeapArena.NONE, arena.allocate(record(8, 3)));
+        Assert.assertEquals(OffHeapArena.NONE, arena.allocate(record(40, 4)));
+        Assert.assertTrue(arena.isFull());
+        Assert.assertEquals(0, arena.getReserved());
+        Assert.assertEquals(0, arena.getRecords());
+        Assert.assertEquals(0, budget.getAvailable());
+        Assert.assertArrayEquals(record(40, 2), bytes(budget.thief.read(budget.stolen)));
+
+        // the other arena reclaims the chunk and takes it again, the budget counts it once
+        budget.thief.free(budget.stolen);
+        final long handle = budget.thief.allocate(record(40, 5));
+        Assert.assertNotEquals(OffHeapArena.NONE, handle);
+        Assert.assertArrayEquals(record(40, 5), bytes(budget.thief.read(handle)));
+        Assert.assertEquals(0, budget.getAvailable());
+        Assert.assertEquals(CHUNK, budget.thief.getReserved());
+    }
+
+    private static byte[] record(final int size, final int value) {
+        final byte[] record = new byte[size];
+        Arrays.fill(record, (byte) value);
+        return record;
+    }
+
+    private static byte[] bytes(final ByteBuffer buffer) {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * One chunk budget handing a released chunk to another arena at once when armed, as a concurrent arena would
+     */
+    private static final class StealingBudget extends ChunkBudget {
+
+        private OffHeapArena thief;
+        private boolean armed;
+        private long stolen = OffHeapArena.NONE;
+
+        private StealingBudget() {
+            super(CHUNK, CHUNK);
+        }
+
+        @Override
+        public void release() {
+            super.release();
+            if (!armed) return;
+            armed = false;
+            stolen = thief.allocate(record(40, 2));
+        }
+    }
+}
@@ -1,6 +1,8 @@
 package com.effcode.clean.me.test;
 
 import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.model.DeliveryState;
+import com.effcode.clean.me.rest.configuration.WebFluxConfig;
 import com.effcode.clean.me.rest.data.*;
 import com.effcode.clean.me.rest.error.ErrorResponse;
 import io.jsonwebtoken.lang.Assert;
@@ -12,15 +14,40 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.ParameterizedTypeReference;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.http.codec.ServerSentEvent;
 import org.springframework.web.reactive.function.client.ClientResponse;
 import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.Disposable;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 import reactor.netty.http.client.HttpClient;
 
 import javax.net.ssl.SSLException;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
 
 /**
  * REST API integration tests used for verification of user authentication, API connectivity and data consistency.
@@ -55,7 +82,7 @@ public class RestApiIntegrationTest {
      * Performs full end-to-end integration test on all REST API service endpoints.
      */
     @Test
-    public void testRestApi() {
+    public void testRestApi() throws InterruptedException {
 
         final String USER = "user1@api.com";
 
@@ -121,8 +148,20 @@ public class RestApiIntegrationTest {
         Assert.notNull(message.getId(), "Message id is missing");
         Assert.isTrue("Test Message 1".equals(message.getSubject()), "Message subject is wrong");
         Assert.isTrue(USER.equals(message.getOrigin()), "Message origin is wrong");
+        Assert.notNull(message.getState(), "Message delivery state is missing");
         LOG.debug("/mail/send - message send correct");
 
+        // poll the accepted message delivery state
+        LOG.debug("/mail/messages/{id} - verify message delivery state");
+        response = client.get().uri("/mail/messages/" + message.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(HttpStatus.OK.equals(response.statusCode()), "Message poll status is wrong");
+        message = response.bodyToMono(MessageResponse.class).block();
+        Assert.notNull(message, "Message poll failed");
+        Assert.notNull(message.getState(), "Message delivery state is missing");
+        LOG.debug("/mail/messages/{id} - message delivery state correct");
+
         // perform message send request
         LOG.debug("/mail/send - verify message send");
         request = new MessageRequest("admin@api.com", "Test Message 2", "Test Message 2 Text");
@@ -136,16 +175,228 @@ public class RestApiIntegrationTest {
         Assert.isTrue("Test Message 2".equals(message.getSubject()), "Message subject is wrong");
         LOG.debug("/mail/send - message send correct");
 
-        // view list of messages and verify length
+        // perform scheduled message send request, then cancel it before it is due
+        LOG.debug("/mail/send - verify scheduled message send and cancel");
+        request = new MessageRequest("user2@api.com", "Scheduled", "Scheduled Text",
+                new Date(System.currentTimeMillis() + 3600000));
+        message = client.post().uri("/mail/send")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .bodyValue(request).retrieve().bodyToMono(MessageResponse.class).block();
+        Assert.notNull(message, "Scheduled message send failed");
+        Assert.isTrue(DeliveryState.SCHEDULED.equals(message.getState()), "Message should be scheduled");
+        Assert.notNull(message.getSendAt(), "Message send time is missing");
+        message = client.delete().uri("/mail/messages/" + message.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(MessageResponse.class).block();
+        Assert.notNull(message, "Scheduled message cancel failed");
+        Assert.isTrue(DeliveryState.CANCELLED.equals(message.getState()), "Message should be cancelled");
+        response = client.delete().uri("/mail/messages/" + message.getId())
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.MAIL_MESSAGE_NOT_CANCELLABLE.equals(error.getError()), "Expecting not cancellable error");
+        LOG.debug("/mail/send - scheduled message send and cancel correct");
+
+        // perform scheduled message send request due shortly, verify it is delivered once due
+        LOG.debug("/mail/send - verify scheduled message delivery");
+        request = new MessageRequest("user3@api.com", "Due", "Due Text", new Date(System.currentTimeMillis() + 1000));
+        message = client.post().uri("/mail/send")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .bodyValue(request).retrieve().bodyToMono(MessageResponse.class).block();
+        Assert.notNull(message, "Scheduled message send failed");
+        final String due = message.getId();
+        final String bearer = "Bearer " + token.getToken();
+        message = Mono.defer(() -> client.get().uri("/mail/messages/" + due)
+                .header(HttpHeaders.AUTHORIZATION, bearer)
+                .retrieve().bodyToMono(MessageResponse.class))
+                .filter(m -> DeliveryState.SENT.equals(m.getState()))
+                .repeatWhenEmpty(r -> r.delayElements(Duration.ofMillis(100)).take(50)).block();
+        Assert.notNull(message, "Scheduled message was not delivered");
+        LOG.debug("/mail/send - scheduled message delivery correct");
+
+        // perform concurrent message sends with the same idempotency key, verify the message is accepted once
+        LOG.debug("/mail/send - verify idempotent message send");
+        final MessageRequest idempotent = new MessageRequest("user2@api.com", "Idempotent", "Idempotent Text");
+        final String key = UUID.randomUUID().toString();
+        final List<MessageResponse> sends = Flux.range(0, 3).flatMap(i -> client.post().uri("/mail/send")
+                .header(HttpHeaders.AUTHORIZATION, bearer).header("Idempotency-Key", key)
+                .bodyValue(idempotent).retrieve().bodyToMono(MessageResponse.class)).collectList().block();
+        Assert.notNull(sends, "Idempotent message send failed");
+        Assert.isTrue(sends.size() == 3 && sends.stream().map(MessageResponse::getId).distinct().count() == 1,
+                "Idempotent message sends should return the same message");
+        response = client.post().uri("/mail/send")
+                .header(HttpHeaders.AUTHORIZATION, bearer).header("Idempotency-Key", key)
+                .bodyValue(new MessageRequest("user2@api.com", "Idempotent", "Other Text")).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.MAIL_IDEMPOTENCY_CONFLICT.equals(error.getError()), "Expecting idempotency conflict");
+        LOG.debug("/mail/send - idempotent message send correct");
+
+        // perform batch message send request with one invalid item, verify per-item results
+        LOG.debug("/mail/batch - verify message batch send");
+        final String results = client.post().uri("/mail/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .contentType(MediaType.APPLICATION_JSON).accept(WebFluxConfig.APPLICATION_NDJSON)
+                .bodyValue(Arrays.asList(new MessageRequest("user2@api.com", "Batch Message 1", "Batch Message 1 Text"),
+                        new MessageRequest("use-api.com", "Batch Message 2", "Batch Message 2 Text"),
+                        new MessageRequest("user3@api.com", "Batch Message 3", "Batch Message 3 Text")))
+                .retrieve().bodyToMono(String.class).block();
+        Assert.notNull(results, "Message batch send failed");
+        final String[] lines = results.trim().split("\n");
+        Assert.isTrue(lines.length == 3, "Message batch result count is wrong");
+        Assert.isTrue(Arrays.stream(lines).filter(l -> l.contains(Error.MAIL_REQUEST_INVALID.name())).count() == 1,
+                "Expecting single mail validation error in batch");
+
+        // perform batch message send request as newline delimited JSON stream
+        final String stream = client.post().uri("/mail/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .contentType(WebFluxConfig.APPLICATION_NDJSON).accept(WebFluxConfig.APPLICATION_NDJSON)
+                .bodyValue("{\"address\":\"user2@api.com\",\"subject\":\"Stream 1\",\"content\":\"Stream 1 Text\"}\n" +
+                        "{\"address\":\"user3@api.com\",\"subject\":\"Stream 2\",\"content\":\"Stream 2 Text\"}\n")
+                .retrieve().bodyToMono(String.class).block();
+        Assert.notNull(stream, "Message batch stream send failed");
+        Assert.isTrue(stream.trim().split("\\n").length == 2, "Message batch stream result count is wrong");
+        Assert.isTrue(!stream.contains("\"error\""), "Message batch stream contains errors");
+
+        // perform broadcast batch send request, identical messages are coalesced but recorded per recipient
+        final String broadcast = client.post().uri("/mail/batch")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .contentType(MediaType.APPLICATION_JSON).accept(WebFluxConfig.APPLICATION_NDJSON)
+                .bodyValue(Arrays.asList(new MessageRequest("user2@api.com", "Broadcast", "Broadcast Text"),
+                        new MessageRequest("user3@api.com", "Broadcast", "Broadcast Text"),
+                        new MessageRequest("admin@api.com", "Broadcast", "Broadcast Text")))
+                .retrieve().bodyToMono(String.class).block();
+        Assert.notNull(broadcast, "Message broadcast send failed");
+        Assert.isTrue(broadcast.trim().split("\\n").length == 3, "Message broadcast result count is wrong");
+        LOG.debug("/mail/batch - message batch send correct");
+
+        // view pages of messages linked by cursor and verify they cover the whole stream without overlap
         LOG.debug("/mail/messages - verify message collection");
         response = client.get().uri("/mail/messages")
                 .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
         Assert.notNull(response, ERR_NO_RESPONSE);
-        final List messages = response.bodyToMono(List.class).block();
-        Assert.notNull(messages, "Failed to view message list");
-        Assert.notEmpty(messages, "Message list is empty, should be full");
+        final Map all = response.bodyToMono(Map.class).block();
+        Assert.notNull(all, "Failed to view message list");
+        Assert.notEmpty((List) all.get("messages"), "Message list is empty, should be full");
+        final List<Object> paged = new ArrayList<>();
+        String cursor = null;
+        do {
+            final String uri = "/mail/messages?limit=2" + (cursor == null ? "" : "&cursor=" + cursor);
+            final Map page = client.get().uri(uri).header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                    .retrieve().bodyToMono(Map.class).block();
+            Assert.notNull(page, "Failed to view message page");
+            final List items = (List) page.get("messages");
+            Assert.isTrue(items.size() <= 2, "Message page exceeds limit");
+            items.forEach(m -> paged.add(((Map) m).get("id")));
+            cursor = (String) page.get("cursor");
+        } while (cursor != null);
+        // persisted messages of previous runs may precede this run, so pages are matched against the first page
+        final List<Object> first = ((List<?>) all.get("messages")).stream().map(m -> ((Map) m).get("id"))
+                .collect(Collectors.toList());
+        Assert.isTrue(paged.size() >= first.size() && paged.subList(0, first.size()).equals(first),
+                "Message pages do not match message list");
+        Assert.isTrue(new HashSet<>(paged).size() == paged.size(), "Message pages overlap");
+        response = client.get().uri("/mail/messages?limit=0")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting invalid page limit error");
+        response = client.get().uri("/mail/messages?cursor=invalid")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting invalid page cursor error");
+
+        // stream messages as newline delimited JSON
+        final String messages = client.get().uri("/mail/messages")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .accept(WebFluxConfig.APPLICATION_NDJSON).retrieve().bodyToMono(String.class).block();
+        Assert.notNull(messages, "Failed to stream messages");
+        Assert.isTrue(messages.trim().split("\\n").length == paged.size(), "Message stream count is wrong");
         LOG.debug("/mail/messages - message collection correct");
 
+        // view messages accepted within a time range, the latest message was accepted within the last hour
+        LOG.debug("/mail/messages - verify message time range");
+        final Instant now = Instant.now();
+        final Object latest = paged.get(paged.size() - 1);
+        final String recent = client.get().uri("/mail/messages?from=" + now.minus(Duration.ofHours(1)) +
+                "&to=" + now.plus(Duration.ofHours(1))).header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .accept(WebFluxConfig.APPLICATION_NDJSON).retrieve().bodyToMono(String.class).block();
+        Assert.notNull(recent, "Failed to view message time range");
+        Assert.isTrue(recent.contains("\"" + latest + "\""), "Message time range misses latest message");
+        final String future = client.get().uri("/mail/messages?from=" + now.plus(Duration.ofHours(1)))
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .accept(WebFluxConfig.APPLICATION_NDJSON).retrieve().bodyToMono(String.class).block();
+        Assert.isTrue(future == null || future.trim().isEmpty(), "Message time range in future should be empty");
+        response = client.get().uri("/mail/messages?from=" + now + "&to=" + now)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting empty time range error");
+        response = client.get().uri("/mail/messages?from=yesterday")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting invalid time range error");
+        LOG.debug("/mail/messages - message time range correct");
+
+        // search a message by a term unique to this run, it is indexed as it is accepted
+        LOG.debug("/mail/search - verify message search");
+        final String term = "search" + UUID.randomUUID().toString().replace("-", "");
+        message = client.post().uri("/mail/send").header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .bodyValue(new MessageRequest("user3@api.com", "Search Message " + term, "Search Message Text"))
+                .retrieve().bodyToMono(MessageResponse.class).block();
+        Assert.notNull(message, "Failed to send search message");
+        final Map found = client.get().uri("/mail/search?q=" + term + " text")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(Map.class).block();
+        Assert.notNull(found, "Failed to search messages");
+        final List hits = (List) found.get("hits");
+        Assert.isTrue(hits.size() == 1 && message.getId().equals(((Map) ((Map) hits.get(0)).get("message")).get("id")),
+                "Message search misses sent message");
+        response = client.get().uri("/mail/search?q=-")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting empty search query error");
+        LOG.debug("/mail/search - message search correct");
+
+        // resume the message feed after the first listed message, the messages accepted since are replayed first
+        LOG.debug("/mail/feed - verify message feed");
+        final Map head = client.get().uri("/mail/messages?limit=1")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(Map.class).block();
+        Assert.notNull(head, "Failed to view message page");
+        final BlockingQueue<Object> events = new LinkedBlockingQueue<>();
+        final Disposable feed = client.get().uri("/mail/feed")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .header("Last-Event-ID", (String) head.get("cursor")).accept(MediaType.TEXT_EVENT_STREAM).retrieve()
+                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<Map>>() {
+                }).filter(e -> e.data() != null).subscribe(e -> events.add(e.data().get("id")));
+        try {
+            Assert.isTrue(paged.get(1).equals(events.poll(10, TimeUnit.SECONDS)), "Message feed replay is wrong");
+            // new messages are pushed once replayed messages are delivered
+            message = client.post().uri("/mail/send").header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                    .bodyValue(new MessageRequest("user3@api.com", "Feed Message", "Feed Message Text"))
+                    .retrieve().bodyToMono(MessageResponse.class).block();
+            Assert.notNull(message, "Failed to send feed message");
+            Object pushed;
+            do {
+                pushed = events.poll(10, TimeUnit.SECONDS);
+            } while (pushed != null && !pushed.equals(message.getId()));
+            Assert.notNull(pushed, "Message feed misses sent message");
+        } finally {
+            feed.dispose();
+        }
+        response = client.get().uri("/mail/feed").header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .header("Last-Event-ID", "invalid").accept(MediaType.TEXT_EVENT_STREAM).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.BAD_REQUEST, "Expecting invalid last event error");
+        response.releaseBody().block();
+        response = client.get().uri("/mail/feed/all").header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .accept(MediaType.TEXT_EVENT_STREAM).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.FORBIDDEN, "Expecting firehose access denied");
+        response.releaseBody().block();
+        LOG.debug("/mail/feed - message feed correct");
+
         // test security with forbidden endpoint
         LOG.debug("/auth/users - verify invalid authorization");
         response = client.get().uri("/auth/users")
@@ -156,6 +407,16 @@ public class RestApiIntegrationTest {
         Assert.isTrue(Error.AUTH_INVALID_ACCESS.equals(error.getError()), "Expecting access denied error");
         LOG.debug("/auth/users - invalid authorization correct");
 
+        // internal cluster endpoints refuse calls outside cluster mode
+        LOG.debug("/internal/cluster/messages - verify internal access denied");
+        response = client.post().uri("https://localhost:8080/api/internal/cluster/messages")
+                .header("X-Cluster-Secret", "secret").bodyValue(Collections.emptyList()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.AUTH_INVALID_ACCESS.equals(error.getError()), "Expecting internal access denied error");
+        LOG.debug("/internal/cluster/messages - internal access denied correct");
+
         // view user auth information
         LOG.debug("/auth/info - verify auth info");
         response = client.get().uri("/auth/info")
@@ -166,6 +427,122 @@ public class RestApiIntegrationTest {
         Assert.notNull(user.getId(), "User identifier is null");
         Assert.isTrue(USER.equals(user.getEmail()), "User email is wrong");
         LOG.debug("/auth/info - auth info correct");
+
+        // exhaust send rate limit of another user to assert too many requests error response
+        LOG.debug("/mail/send - verify message send rate limit");
+        credentials = new TokenRequest("user2@api.com", "user");
+        token = client.post().uri("/auth/token").bodyValue(credentials).retrieve().bodyToMono(TokenResponse.class)
+                .block();
+        Assert.notNull(token, "Token retrieve failed");
+        final Map hidden = client.get().uri("/mail/search?q=" + term)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(Map.class).block();
+        Assert.notNull(hidden, "Failed to search messages");
+        // empty hits are omitted by the response mapper
+        Assert.isTrue(hidden.get("hits") == null, "Message search shows messages of other users");
+        request = new MessageRequest(USER, "Rate Message", "Rate Message Text");
+        response = null;
+        for (int i = 0; i < 50; i++) {
+            response = client.post().uri("/mail/send")
+                    .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                    .bodyValue(request).exchange().block();
+            Assert.notNull(response, ERR_NO_RESPONSE);
+            if (response.statusCode() == HttpStatus.TOO_MANY_REQUESTS) break;
+            response.releaseBody().block();
+        }
+        Assert.isTrue(response.statusCode() == HttpStatus.TOO_MANY_REQUESTS, "Expecting rate limit status");
+        Assert.notEmpty(response.headers().header(HttpHeaders.RETRY_AFTER), "Expecting retry after header");
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.MAIL_RATE_LIMITED.equals(error.getError()), "Expecting rate limit error");
+        LOG.debug("/mail/send - message send rate limit correct");
+
+        // verify admission control and transport metrics are exposed through actuator
+        LOG.debug("/actuator/metrics - verify admission control and transport metrics");
+        for (final String metric : Arrays.asList("mail.admission.in.flight", "mail.admission.shed", "mail.queue.depth",
+                "mail.transport.calls", "mail.transport.circuit.state", "mail.idempotency.lookups",
+                "mail.store.messages", "mail.store.bytes", "mail.search.documents",
+                "mail.retention.evictions", "mail.feed.subscribers", "mail.snapshot.ready")) {
+            response = client.get().uri("https://localhost:8080/api/actuator/metrics/" + metric).exchange().block();
+            Assert.notNull(response, ERR_NO_RESPONSE);
+            Assert.isTrue(response.statusCode() == HttpStatus.OK, "Expecting metric " + metric);
+            response.releaseBody().block();
+        }
+        LOG.debug("/actuator/metrics - admission control and transport metrics correct");
+
+        // dead letters are visible to admin users only
+        LOG.debug("/mail/dead-letters - verify dead letter administration");
+        response = client.get().uri("/mail/dead-letters")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.AUTH_INVALID_ACCESS.equals(error.getError()), "Expecting access denied error");
+        credentials = new TokenRequest("admin@api.com", "admin");
+        token = client.post().uri("/auth/token").bodyValue(credentials).retrieve().bodyToMono(TokenResponse.class)
+                .block();
+        Assert.notNull(token, "Token retrieve failed");
+        final List letters = client.get().uri("/mail/dead-letters")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(List.class).block();
+        Assert.notNull(letters, "Failed to view dead letter list");
+        final List redriven = client.post().uri("/mail/dead-letters/redrive")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken())
+                .retrieve().bodyToMono(List.class).block();
+        Assert.notNull(redriven, "Failed to re-drive dead letters");
+        Assert.isTrue(redriven.size() == letters.size(), "Re-driven dead letter count is wrong");
+        response = client.delete().uri("/mail/dead-letters?ids=invalid")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.MAIL_REQUEST_INVALID.equals(error.getError()), "Expecting invalid identifier error");
+        LOG.debug("/mail/dead-letters - dead letter administration correct");
+
+        // statistics count accepted sends per user and failed sends per error
+        LOG.debug("/mail/stats - verify mail statistics");
+        final Map stats = client.get().uri("/mail/stats")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).retrieve().bodyToMono(Map.class).block();
+        Assert.notNull(stats, "Failed to view mail statistics");
+        Assert.isTrue(((Number) ((Map) stats.get("users")).get(USER)).longValue() > 0, "User send count is wrong");
+        Assert.isTrue(((Map) stats.get("domains")).containsKey("api.com"), "Domain send count is missing");
+        Assert.isTrue(((Map) stats.get("failures")).containsKey(Error.MAIL_IDEMPOTENCY_CONFLICT.name()),
+                "Idempotency conflict count is missing");
+        Assert.isTrue(((Map) stats.get("failures")).containsKey(Error.MAIL_RATE_LIMITED.name()),
+                "Rate limit count is missing");
+        Assert.isTrue(((List) stats.get("minutes")).size() == 60, "Minute send count window is wrong");
+        LOG.debug("/mail/stats - mail statistics correct");
+
+        // exports stream stored messages as gzip compressed records
+        LOG.debug("/mail/export - verify message export");
+        response = client.get().uri("/mail/export?format=csv&user=" + USER)
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        Assert.isTrue(response.statusCode() == HttpStatus.OK, "Expecting message export");
+        Assert.isTrue("application/gzip".equals(response.headers().asHttpHeaders().getFirst(HttpHeaders.CONTENT_TYPE)),
+                "Expecting gzip compressed export");
+        final String[] rows = gunzip(response.bodyToMono(byte[].class).block()).split("\r\n");
+        Assert.isTrue(rows[0].startsWith("id,timestamp,state"), "Export header row is missing");
+        Assert.isTrue(rows.length > 1 && rows[1].contains(USER), "Exported user messages are missing");
+        response = client.get().uri("/mail/export?format=xml")
+                .header(HttpHeaders.AUTHORIZATION, "Bearer " + token.getToken()).exchange().block();
+        Assert.notNull(response, ERR_NO_RESPONSE);
+        error = response.bodyToMono(ErrorResponse.class).block();
+        Assert.notNull(error, ERR_NO_ERROR);
+        Assert.isTrue(Error.MAIL_REQUEST_INVALID.equals(error.getError()), "Expecting invalid export format error");
+        LOG.debug("/mail/export - message export correct");
+    }
+
+    private static String gunzip(final byte[] content) {
+        Assert.notNull(content, "Export content is missing");
+        try (final GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(content))) {
+            final ByteArrayOutputStream out = new ByteArrayOutputStream();
+            final byte[] buffer = new byte[8192];
+            for (int n = in.read(buffer); n > 0; n = in.read(buffer)) out.write(buffer, 0, n);
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        } catch (final IOException e) {
+            throw new UncheckedIOException(e);
+        }
     }
 
 }
@@ -0,0 +1,113 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.core.smtp.SmtpClient;
+import com.effcode.clean.me.core.smtp.SmtpException;
+import com.effcode.clean.me.smtp.FakeSmtpServer;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * SMTP session tests used for verification of pipelined and lock-step mail transactions, multiline replies, discarding
+ * of connections after rejected commands and encoding of message content, against a {@link FakeSmtpServer}.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see SmtpClient
+ */
+public class SmtpSessionTest {
+
+    private static final long TIMEOUT = 5000;
+    private static final String FROM = "user1@example.com";
+    private static final List<String> RECIPIENTS = Arrays.asList("user2@example.com", "user3@example.com");
+    private FakeSmtpServer server;
+
+    @Before
+    public void setup() throws InterruptedException {
+        server = new FakeSmtpServer(0, 0, true);
+        server.start();
+    }
+
+    @After
+    public void cleanup() {
+        server.close();
+    }
+
+    /**
+     * Verifies consecutive transactions are carried by one connection, with envelope commands pipelined when the
+     * server advertises PIPELINING in its multiline EHLO reply, and awaiting each reply otherwise
+     */
+    @Test
+    public void testTransactions() {
+        for (final boolean pipelining : new boolean[]{true, false}) {
+            try (SmtpClient client = client(pipelining)) {
+                for (int i = 0; i < 3; i++) send(client, RECIPIENTS, "Message " + i);
+            }
+        }
+        Assert.assertEquals(6, server.getMessages());
+        Assert.assertEquals(12, server.getRecipients());
+        Assert.assertEquals(2, server.getConnections());
+    }
+
+    /**
+     * Verifies a rejected RCPT fails the transaction with the multiline rejection reply, and the connection is
+     * discarded rather than reused, also when the pipelined DATA command was accepted or rejected after it
+     */
+    @Test
+    public void testRejected() {
+        for (final boolean pipelining : new boolean[]{true, false}) {
+            try (SmtpClient client = client(pipelining)) {
+                final long connections = server.getConnections();
+                // with pipelining DATA is accepted for the other recipient, the open transaction must not be reused
+                reject(client, Arrays.asList("user2@example.com", "reject@example.com"));
+                send(client, RECIPIENTS, "Accepted");
+                Assert.assertEquals(connections + 2, server.getConnections());
+                // with pipelining DATA is rejected as well, as no recipient was accepted
+                reject(client, Collections.singletonList("reject@example.com"));
+                send(client, RECIPIENTS, "Accepted");
+                Assert.assertEquals(connections + 3, server.getConnections());
+            }
+        }
+        Assert.assertEquals(4, server.getMessages());
+        Assert.assertEquals(Collections.nCopies(4, "Accepted\r\n"), server.getContents());
+    }
+
+    /**
+     * Verifies message content is sent with line endings normalized to CRLF, lines starting with a dot dot-stuffed and
+     * a line terminator added before the terminating line
+     */
+    @Test
+    public void testEncode() {
+        try (SmtpClient client = client(true)) {
+            send(client, RECIPIENTS, "Subject: Encode\n\n.leading\r\n..double\rbare\n.\nlast");
+            send(client, RECIPIENTS, "terminated\r\n");
+            send(client, RECIPIENTS, ".");
+        }
+        Assert.assertEquals(Arrays.asList("Subject: Encode\r\n\r\n..leading\r\n...double\r\nbare\r\n..\r\nlast\r\n",
+                "terminated\r\n", "..\r\n"), server.getContents());
+    }
+
+    private SmtpClient client(final boolean pipelining) {
+        return new SmtpClient("127.0.0.1", server.getPort(), "localhost", 1, TIMEOUT, pipelining);
+    }
+
+    private static void send(final SmtpClient client, final List<String> recipients, final String content) {
+        client.send(FROM, recipients, content.getBytes(StandardCharsets.UTF_8)).block();
+    }
+
+    private static void reject(final SmtpClient client, final List<String> recipients) {
+        try {
+            send(client, recipients, "Rejected");
+            Assert.fail("Transaction with a rejected recipient succeeded");
+        } catch (final SmtpException e) {
+            Assert.assertEquals(550, e.getCode());
+            Assert.assertTrue(e.getMessage().contains("5.1.1 Mailbox unavailable 5.1.1 Recipient refused"));
+        }
+    }
+}
@@ -0,0 +1,128 @@
+package com.effcode.clean.me.test;
+
+import com.effcode.clean.me.RestApiApplication;
+import com.effcode.clean.me.domain.exception.ConflictException;
+import com.effcode.clean.me.domain.exception.Error;
+import com.effcode.clean.me.domain.exception.MailException;
+import com.effcode.clean.me.domain.model.MailMessage;
+import com.effcode.clean.me.domain.model.MailSend;
+import com.effcode.clean.me.domain.model.UserPrincipal;
+import com.effcode.clean.me.domain.security.AuthManager;
+import com.effcode.clean.me.domain.service.MailService;
+import com.effcode.clean.me.domain.service.UserService;
+import com.effcode.clean.me.domain.snapshot.StateSnapshot;
+import com.effcode.clean.me.domain.stats.MailStats;
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.stream.Stream;
+
+/**
+ * State snapshot tests used for verification of service state written on shutdown and restored by the next start of
+ * the application, covering authentication sessions, idempotency keys, failure counts and stored messages.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @see StateSnapshot
+ */
+public class StateSnapshotTest {
+
+    private static final long TIMEOUT = 10000;
+    private static final String USER = "user1@api.com";
+    private Path directory;
+    private ConfigurableApplicationContext context;
+
+    @Before
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("snapshot");
+    }
+
+    @After
+    public void cleanup() throws IOException {
+        if (context != null) context.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(file -> file.toFile().delete());
+        }
+    }
+
+    /**
+     * Verifies sessions, idempotency keys, statistics and messages of a stopped application are restored on restart
+     */
+    @Test
+    public void testRestore() throws InterruptedException {
+        context = start();
+        final String token = context.getBean(UserService.class).authenticate(USER, "user").block();
+        final MailService service = context.getBean(MailService.class);
+        final MailMessage first = service.send(send("Snapshot Message"), "key-1").block();
+        final MailMessage second = service.send(send("Other Message"), "key-2").block();
+        service.send(send("Unkeyed Message")).block();
+        try {
+            service.send(new MailSend("user@microsoft.com", "Refused", "Refused message text", USER)).block();
+            Assert.fail("Send to a blacklisted host was accepted");
+        } catch (final MailException e) {
+            Assert.assertEquals(Error.MAIL_HOST_INVALID, e.getError());
+        }
+        final MailStats before = service.statistics().block();
+        Assert.assertEquals(3, before.getSends());
+        context.close();
+
+        context = start();
+        final StateSnapshot snapshot = context.getBean(StateSnapshot.class);
+        final long deadline = System.currentTimeMillis() + TIMEOUT;
+        while (!snapshot.isReady() && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        Assert.assertTrue(snapshot.isReady());
+
+        // the session token issued before the restart still authenticates
+        final AuthManager auth = context.getBean(AuthManager.class);
+        Assert.assertEquals(token, auth.findByUsername(USER).getToken());
+        Assert.assertEquals(USER, ((UserPrincipal) auth.authenticate(token).block().getPrincipal()).getUsername());
+
+        // repeated keyed sends return the original acceptance instead of sending again
+        final MailService restarted = context.getBean(MailService.class);
+        Assert.assertEquals(first.getId(), restarted.send(send("Snapshot Message"), "key-1").block().getId());
+        Assert.assertEquals(second.getId(), restarted.send(send("Other Message"), "key-2").block().getId());
+        try {
+            restarted.send(send("Changed Message"), "key-1").block();
+            Assert.fail("Changed send with a used idempotency key was accepted");
+        } catch (final ConflictException e) {
+            Assert.assertEquals(Error.MAIL_IDEMPOTENCY_CONFLICT, e.getError());
+        }
+
+        // send counts are rebuilt from restored messages, failure counts are restored from the snapshot
+        final MailStats after = restarted.statistics().block();
+        Assert.assertEquals(before.getSends(), after.getSends());
+        Assert.assertEquals(before.getUsers(), after.getUsers());
+        Assert.assertEquals(before.getDomains(), after.getDomains());
+        Assert.assertEquals(1L, (long) after.getFailures().get(Error.MAIL_HOST_INVALID.name()));
+        Assert.assertEquals(1L, (long) after.getFailures().get(Error.MAIL_IDEMPOTENCY_CONFLICT.name()));
+        Assert.assertEquals(first.getSubject(), restarted.findMessage(auth.findByUsername(USER),
+                first.getId().toString()).block().getSubject());
+    }
+
+    private ConfigurableApplicationContext start() {
+        return new SpringApplicationBuilder(RestApiApplication.class).run(
+                "--server.port=0",
+                "--app.store.type=memory",
+                "--app.store.directory=" + directory.resolve("messages"),
+                "--app.outbox.directory=" + directory.resolve("outbox"),
+                "--app.outbox.enabled=true",
+                "--app.snapshot.enabled=true",
+                "--app.snapshot.sessions=true",
+                "--app.snapshot.directory=" + directory.resolve("snapshot"),
+                "--app.snapshot.interval=3600000",
+                "--app.retry.initial-backoff=3600000",
+                "--app.retry.max-backoff=3600000");
+    }
+
+    private static MailSend send(final String subject) {
+        return new MailSend("user2@api.com", subject, subject + " text", USER);
+    }
+}
@@ -0,0 +1,257 @@
+package com.effcode.clean.me.smtp;
+
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.SocketChannel;
+import io.netty.channel.socket.nio.NioServerSocketChannel;
+import io.netty.handler.codec.LineBasedFrameDecoder;
+import io.netty.handler.codec.string.StringDecoder;
+import io.netty.handler.codec.string.StringEncoder;
+
+import java.io.Closeable;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Embedded fake SMTP server, accepts and discards mail over loopback so mail transport throughput and latency can be
+ * measured end to end on a single machine. Speaks enough ESMTP for a client to deliver mail, advertising PIPELINING
+ * and 8BITMIME, and can add an artificial latency to each accepted message. Received messages and recipients are
+ * only counted, unless the server records message contents as received, with their line terminators and dot-stuffing.
+ * Recipients whose address starts with {@code reject} are refused with a multiline reply, so a message with no other
+ * recipient has its DATA command refused as well.
+ *
+ * @author dame.gjorgjievski
+ * @version 1.0
+ * @since 1.0
+ */
+public class FakeSmtpServer implements Closeable {
+
+    private static final int MAX_LINE = 1 << 20;
+    private static final String CRLF = "\r\n";
+    private final int port;
+    private final long latency;
+    private final boolean recording;
+    private final Queue<String> contents = new ConcurrentLinkedQueue<>();
+    private final AtomicLong messages = new AtomicLong();
+    private final AtomicLong recipients = new AtomicLong();
+    private final AtomicLong connections = new AtomicLong();
+    private EventLoopGroup boss;
+    private EventLoopGroup workers;
+    private Channel channel;
+
+    /**
+     * Creates new fake SMTP server
+     *
+     * @param port    listening port on loopback interface, {@code 0} for an ephemeral port
+     * @param latency artificial latency in milliseconds before each message is acknowledged
+     */
+    public FakeSmtpServer(final int port, final long latency) {
+        this(port, latency, false);
+    }
+
+    /**
+     * Creates new fake SMTP server, optionally recording received message contents
+     *
+     * @param port      listening port on loopback interface, {@code 0} for an ephemeral port
+     * @param latency   artificial latency in milliseconds before each message is acknowledged
+     * @param recording record contents of accepted messages
+     */
+    public FakeSmtpServer(final int port, final long latency, final boolean recording) {
+        this.port = port;
+        this.latency = latency;
+        this.recording = recording;
+    }
+
+    /**
+     * Runs a standalone fake SMTP server until the process is terminated
+     *
+     * @param args optional listening port, defaults to {@code 2525}, and optional latency in milliseconds
+     * @throws InterruptedException if interrupted while binding
+     */
+    public static void main(final String[] args) throws InterruptedException {
+        final FakeSmtpServer server = new FakeSmtpServer(args.length > 0 ? Integer.parseInt(args[0]) : 2525,
+                args.length > 1 ? Long.parseLong(args[1]) : 0);
+        server.start();
+        Runtime.getRuntime().addShutdownHook(new Thread(server::close));
+        System.out.println("Fake SMTP server listening on port " + server.getPort());
+        server.channel.closeFuture().sync();
+    }
+
+    /**
+     * Binds the server to loopback interface
+     *
+     * @throws InterruptedException if interrupted while binding
+     */
+    public void start() throws InterruptedException {
+        boss = new NioEventLoopGroup(1);
+        workers = new NioEventLoopGroup();
+        channel = new ServerBootstrap().group(boss, workers).channel(NioServerSocketChannel.class)
+                .childHandler(new ChannelInitializer<SocketChannel>() {
+                    @Override
+                    protected void initChannel(final SocketChannel ch) {
+                        connections.incrementAndGet();
+                        // line terminators are kept, so recorded contents show them as sent
+                        ch.pipeline().addLast(new LineBasedFrameDecoder(MAX_LINE, false, true),
+                                new StringDecoder(StandardCharsets.UTF_8), new StringEncoder(StandardCharsets.UTF_8),
+                                new Session());
+                    }
+                }).bind(new InetSocketAddress("127.0.0.1", port)).sync().channel();
+    }
+
+    /**
+     * Unbinds the server and closes all connections
+     */
+    @Override
+    public void close() {
+        if (channel != null) channel.close().syncUninterruptibly();
+        if (boss != null) boss.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+        if (workers != null) workers.shutdownGracefully(0, 1, TimeUnit.SECONDS).syncUninterruptibly();
+    }
+
+    /**
+     * Accessor for the bound listening port
+     *
+     * @return listening port
+     */
+    public int getPort() {
+        return ((InetSocketAddress) channel.localAddress()).getPort();
+    }
+
+    /**
+     * Accessor for the number of accepted messages
+     *
+     * @return accepted message count
+     */
+    public long getMessages() {
+        return messages.get();
+    }
+
+    /**
+     * Accessor for the number of accepted recipients over all messages
+     *
+     * @return accepted recipient count
+     */
+    public long getRecipients() {
+        return recipients.get();
+    }
+
+    /**
+     * Accessor for the number of accepted connections
+     *
+     * @return accepted connection count
+     */
+    public long getConnections() {
+        return connections.get();
+    }
+
+    /**
+     * Accessor for the contents of accepted messages as received, without the terminating line, in acceptance order
+     *
+     * @return recorded message contents, empty unless recording
+     */
+    public List<String> getContents() {
+        return new ArrayList<>(contents);
+    }
+
+    /**
+     * SMTP session of a single connection. Commands are answered in order as they are read, replies to pipelined
+     * commands are flushed together once the read batch completes.
+     */
+    private final class Session extends SimpleChannelInboundHandler<String> {
+
+        private boolean data;
+        private int accepted;
+        private StringBuilder content;
+
+        @Override
+        public void channelActive(final ChannelHandlerContext ctx) {
+            ctx.writeAndFlush("220 localhost ESMTP fake\r\n");
+        }
+
+        @Override
+        protected void channelRead0(final ChannelHandlerContext ctx, final String received) {
+            final String line = received.endsWith(CRLF) ? received.substring(0, received.length() - 2)
+                    : received.substring(0, received.length() - 1);
+            if (data) {
+                if (!".".equals(line)) {
+                    if (content != null) content.append(received);
+                    return;
+                }
+                data = false;
+                if (content != null) contents.add(content.toString());
+                content = null;
+                messages.incrementAndGet();
+                recipients.addAndGet(accepted);
+                accepted = 0;
+                if (latency > 0) {
+                    ctx.executor().schedule(() -> ctx.writeAndFlush("250 2.0.0 OK queued\r\n"), latency,
+                            TimeUnit.MILLISECONDS);
+                } else {
+                    ctx.write("250 2.0.0 OK queued\r\n");
+                }
+                return;
+            }
+            final String command = (line.length() >= 4 ? line.substring(0, 4) : line).toUpperCase();
+            switch (command) {
+                case "EHLO":
+                    ctx.write("250-localhost\r\n250-PIPELINING\r\n250-8BITMIME\r\n250 SIZE 10485760\r\n");
+                    break;
+                case "HELO":
+                case "NOOP":
+                    ctx.write("250 OK\r\n");
+                    break;
+                case "MAIL":
+                    accepted = 0;
+                    ctx.write("250 2.1.0 OK\r\n");
+                    break;
+                case "RCPT":
+                    if (line.regionMatches(true, line.indexOf('<') + 1, "reject", 0, 6)) {
+                        ctx.write("550-5.1.1 Mailbox unavailable\r\n550 5.1.1 Recipient refused\r\n");
+                    } else {
+                        accepted++;
+                        ctx.write("250 2.1.5 OK\r\n");
+                    }
+                    break;
+                case "DATA":
+                    if (accepted == 0) {
+                        ctx.write("554 5.5.1 No valid recipients\r\n");
+                    } else {
+                        data = true;
+                        if (recording) content = new StringBuilder();
+                        ctx.write("354 End data with <CR><LF>.<CR><LF>\r\n");
+                    }
+                    break;
+                case "RSET":
+                    accepted = 0;
+                    ctx.write("250 2.0.0 OK\r\n");
+                    break;
+                case "QUIT":
+                    ctx.writeAndFlush("221 2.0.0 Bye\r\n").addListener(f -> ctx.close());
+                    break;
+                default:
+                    ctx.write("500 5.5.2 Command not recognized\r\n");
+            }
+        }
+
+        @Override
+        public void channelReadComplete(final ChannelHandlerContext ctx) {
+            ctx.flush();
+        }
+
+        @Override
+        public void exceptionCaught(final ChannelHandlerContext ctx, final Throwable cause) {
+            ctx.close();
+        }
+    }
+}